@@ -0,0 +1,108 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import jnode.protocol.binkp.BinkpProtocolTools;
+import jnode.protocol.binkp.types.BinkpCommand;
+import jnode.protocol.binkp.types.BinkpFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * binkp frame encoding and decoding. Decoding repeats what the connectors
+ * do with a received header and payload
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinkpFrameBenchmark {
+	/** data frame payload, binkp allows up to 32767 */
+	@Param({ "4096", "32767" })
+	public int size;
+
+	private byte[] payload;
+	private byte[] commandFrame;
+	private byte[] dataFrame;
+
+	@Setup
+	public void setup() {
+		byte[] pkt = Fixtures.pkt(100, 0);
+		payload = Arrays.copyOf(pkt, size);
+		commandFrame = new BinkpFrame(BinkpCommand.M_FILE,
+				"0000ffff.pkt 123456 1700000000 0").getBytes();
+		dataFrame = new BinkpFrame(payload).getBytes();
+	}
+
+	@Benchmark
+	public byte[] encodeCommand() {
+		return new BinkpFrame(BinkpCommand.M_FILE,
+				"0000ffff.pkt 123456 1700000000 0").getBytes();
+	}
+
+	@Benchmark
+	public byte[] encodeData() {
+		return new BinkpFrame(payload, payload.length).getBytes();
+	}
+
+	@Benchmark
+	public BinkpFrame decodeCommand() {
+		return decode(commandFrame);
+	}
+
+	@Benchmark
+	public BinkpFrame decodeData() {
+		return decode(dataFrame);
+	}
+
+	private static BinkpFrame decode(byte[] bytes) {
+		ByteBuffer in = ByteBuffer.wrap(bytes);
+		int header = in.getShort() & 0xffff;
+		int datalen = header & 0x7fff;
+		byte[] data = new byte[datalen];
+		in.get(data);
+		if ((header & 0x8000) != 0) {
+			BinkpCommand cmd = BinkpProtocolTools.getCommand(data[0]);
+			int len = (data[datalen - 1] == 0) ? datalen - 1 : datalen;
+			return new BinkpFrame(cmd, new String(data, 1, len - 1,
+					StandardCharsets.UTF_8));
+		}
+		return new BinkpFrame(data, datalen);
+	}
+}
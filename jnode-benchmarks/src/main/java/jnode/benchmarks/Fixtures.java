@@ -0,0 +1,147 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jnode.ftn.types.Ftn2D;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import jnode.ftn.types.FtnPkt;
+import jnode.logger.Logger;
+
+/**
+ * Synthetic, deterministic inputs shared by the benchmarks
+ */
+final class Fixtures {
+	static final FtnAddress PRIMARY = new FtnAddress("2:9999/9999");
+	static final FtnAddress LINK = new FtnAddress("2:5020/1042");
+	static final String AREA = "bench.area";
+	static final String PASSWORD = "bench";
+	/** recent enough for the tosser to forward messages */
+	private static final long DATE = System.currentTimeMillis() - 86400000L;
+
+	static {
+		// debug output would be measured too; -Dlog.level=5 to see it
+		Logger.Loglevel = Integer.getInteger("log.level", Logger.LOG_L2);
+	}
+
+	private Fixtures() {
+	}
+
+	/**
+	 * @return ~count nodes over count/8 nets, unsorted like real SEEN-BYs
+	 */
+	static List<Ftn2D> seenBy(int count) {
+		List<Ftn2D> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(new Ftn2D(5000 + (i * 7) % Math.max(1, count / 8),
+					(i * 31) % 1000));
+		}
+		return list;
+	}
+
+	static FtnMessage echomail(int n, int seenBy) {
+		FtnMessage message = new FtnMessage();
+		message.setNetmail(false);
+		message.setArea(AREA);
+		message.setFromAddr(LINK);
+		message.setToAddr(PRIMARY);
+		message.setFromName("Bench User " + (n % 10));
+		message.setToName("All");
+		message.setSubject("Benchmark message " + n);
+		message.setDate(new Date(DATE + n * 1000L));
+		message.setMsgid(LINK + " " + String.format("%08x", n));
+		message.setText(text(n) + "--- jNode\n * Origin: bench (" + LINK
+				+ ")\n");
+		message.setSeenby(seenBy(seenBy));
+		List<Ftn2D> path = new ArrayList<>();
+		path.add(new Ftn2D(5020, 1042));
+		path.add(new Ftn2D(5020, 1));
+		message.setPath(path);
+		return message;
+	}
+
+	static FtnMessage netmail(int n) {
+		FtnMessage message = new FtnMessage();
+		message.setNetmail(true);
+		message.setFromAddr(LINK);
+		message.setToAddr(new FtnAddress("2:" + (5000 + n % 600) + "/"
+				+ (n % 1000)));
+		message.setFromName("Bench User " + (n % 10));
+		message.setToName("Sysop " + (n % 50));
+		message.setSubject("Benchmark netmail " + n);
+		message.setDate(new Date(DATE + n * 1000L));
+		message.setText(text(n));
+		return message;
+	}
+
+	private static String text(int n) {
+		StringBuilder text = new StringBuilder();
+		for (int line = 0; line < 20; line++) {
+			text.append("Line ").append(line).append(" of message ").append(n)
+					.append(": the quick brown fox jumps over the lazy dog\n");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @param offset
+	 *            first message number, to keep MSGIDs unique between runs
+	 */
+	static byte[] pkt(int messages, int offset) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FtnPkt pkt = new FtnPkt(LINK, PRIMARY, PASSWORD, new Date(DATE));
+		pkt.write(out);
+		for (int i = 0; i < messages; i++) {
+			echomail(offset + i, 40).write(out);
+		}
+		pkt.finalz(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return St.Louis format nodelist with zones * nets * nodes entries
+	 */
+	static byte[] nodelist(int zones, int nets, int nodes) {
+		StringBuilder ndl = new StringBuilder();
+		ndl.append(";A Benchmark Nodelist\r\n");
+		for (int z = 1; z <= zones; z++) {
+			ndl.append("Zone,").append(z)
+					.append(",Zone_").append(z).append(",City,Sysop,-Unpublished-,300,CM\r\n");
+			for (int net = 1; net <= nets; net++) {
+				ndl.append("Host,").append(5000 + net).append(",Net_")
+						.append(net).append(",City,Sysop,-Unpublished-,300,CM\r\n");
+				for (int node = 1; node <= nodes; node++) {
+					ndl.append(node % 10 == 0 ? "Hub" : "").append(',')
+							.append(node).append(",Node_").append(node)
+							.append(",City,Sysop_Name,-Unpublished-,300,CM,IBN\r\n");
+				}
+			}
+		}
+		return ndl.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import jnode.ftn.types.FtnMessage;
+import jnode.ftn.types.FtnPkt;
+import jnode.ftn.exception.LastMessageException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Packed message encoding and decoding, done by the tosser for every
+ * inbound and outbound message
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FtnMessageBenchmark {
+	@Param({ "20", "200" })
+	public int seenBy;
+
+	private FtnMessage echomail;
+	private FtnMessage netmail;
+	private byte[] packed;
+
+	@Setup
+	public void setup() throws Exception {
+		Station.get();
+		echomail = Fixtures.echomail(1, seenBy);
+		netmail = Fixtures.netmail(1);
+		packed = echomail.pack();
+	}
+
+	@Benchmark
+	public byte[] writeEchomail() {
+		return echomail.pack();
+	}
+
+	@Benchmark
+	public byte[] writeNetmail() {
+		return netmail.pack();
+	}
+
+	@Benchmark
+	public FtnMessage unpack() throws LastMessageException {
+		FtnMessage message = new FtnMessage();
+		message.unpack(packed);
+		return message;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import jnode.ftn.types.FtnMessage;
+import jnode.ftn.types.FtnPkt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of a whole packet: header plus every message in it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FtnPktBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int messages;
+
+	private byte[] pkt;
+
+	@Setup
+	public void setup() throws Exception {
+		Station.get();
+		pkt = Fixtures.pkt(messages, 0);
+	}
+
+	@Benchmark
+	public void parse(Blackhole bh) throws IOException {
+		FtnPkt parsed = new FtnPkt();
+		parsed.unpack(new ByteArrayInputStream(pkt));
+		FtnMessage message;
+		while ((message = parsed.getNextMessage()) != null) {
+			bh.consume(message);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jnode.ftn.FtnTools;
+import jnode.ftn.types.Ftn2D;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SEEN-BY and 2D list conversions, done for every tossed echomail and every
+ * stored subscription check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FtnToolsBenchmark {
+	@Param({ "20", "200", "1000" })
+	public int nodes;
+
+	private List<Ftn2D> unsorted;
+	private String seenByLines;
+	private String list2d;
+
+	@Setup
+	public void setup() {
+		unsorted = Fixtures.seenBy(nodes);
+		seenByLines = FtnTools.writeSeenBy(new ArrayList<>(unsorted));
+		list2d = FtnTools.write2D(new ArrayList<>(unsorted), true);
+	}
+
+	@Benchmark
+	public List<Ftn2D> readSeenBy() {
+		return FtnTools.readSeenBy(seenByLines);
+	}
+
+	/**
+	 * Sorts its argument, so a fresh unsorted copy is passed every time
+	 */
+	@Benchmark
+	public String writeSeenBy() {
+		return FtnTools.writeSeenBy(new ArrayList<>(unsorted));
+	}
+
+	@Benchmark
+	public List<Ftn2D> read2D() {
+		return FtnTools.read2D(list2d);
+	}
+
+	@Benchmark
+	public String write2D() {
+		return FtnTools.write2D(new ArrayList<>(unsorted), true);
+	}
+}
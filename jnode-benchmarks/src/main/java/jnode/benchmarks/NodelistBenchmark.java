@@ -0,0 +1,92 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import jnode.ftn.types.FtnAddress;
+import jnode.ndl.FtnNdlAddress;
+import jnode.ndl.NodelistScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Nodelist indexing and lookups. isExists() is called for every inbound
+ * netmail and every unknown binkp caller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodelistBenchmark {
+	/** nodes per net; 4 zones of 50 nets */
+	@Param({ "20", "100" })
+	public int nodes;
+
+	private byte[] nodelist;
+	private FtnAddress[] lookups;
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		nodelist = Fixtures.nodelist(4, 50, nodes);
+		File file = new File(Station.get().getHome(), "NODELIST.001");
+		Files.write(file.toPath(), nodelist);
+		new File(Station.get().getHome(), "NODELIST.idx").delete();
+		// half of them are not listed
+		lookups = new FtnAddress[1024];
+		for (int i = 0; i < lookups.length; i++) {
+			lookups[i] = new FtnAddress(String.format("%d:%d/%d", 1 + i % 4,
+					5001 + (i * 7) % 50, 1 + (i * 13) % (nodes * 2)));
+		}
+	}
+
+	@Benchmark
+	public Object createIndex() {
+		return NodelistScanner.getInstance().createIndex(
+				new ByteArrayInputStream(nodelist), 0L);
+	}
+
+	/**
+	 * Lookup through the scanner and its cached index
+	 */
+	@Benchmark
+	public FtnNdlAddress isExists() {
+		return NodelistScanner.getInstance().isExists(
+				lookups[next++ & (lookups.length - 1)]);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jnode.dto.Route;
+import jnode.ftn.FtnTools;
+import jnode.ftn.rules.RoutingTable;
+import jnode.ftn.types.FtnMessage;
+import jnode.orm.ORMManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Netmail routing decision: the plain completeMask() scan against the
+ * compiled {@link RoutingTable} over the same rules
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+	@Param({ "10", "100", "500" })
+	public int routes;
+
+	private List<Route> rules;
+	private FtnMessage[] messages;
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		Station station = Station.withDatabase();
+		rules = new ArrayList<>();
+		for (int i = 0; i < routes; i++) {
+			Route route = new Route();
+			route.setNice((long) i);
+			route.setFromAddr("*");
+			route.setFromName("*");
+			route.setToName("*");
+			route.setSubject("*");
+			// mostly per-net rules, some name and subject based ones
+			route.setToAddr("2:" + (5000 + i) + "/.*");
+			if (i % 10 == 9) {
+				route.setToName("Sysop " + i);
+				route.setToAddr("*");
+			} else if (i % 25 == 24) {
+				route.setSubject("(?i).*areafix.*");
+				route.setToAddr("*");
+			}
+			route.setRouteVia(station.getLink());
+			ORMManager.get(Route.class).save(route);
+			rules.add(route);
+		}
+		// default route
+		Route route = new Route();
+		route.setNice((long) routes);
+		route.setFromAddr("*");
+		route.setToAddr("*");
+		route.setFromName("*");
+		route.setToName("*");
+		route.setSubject("*");
+		route.setRouteVia(station.getLink());
+		ORMManager.get(Route.class).save(route);
+		rules.add(route);
+
+		messages = new FtnMessage[256];
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = Fixtures.netmail(i * 17);
+		}
+		RoutingTable.get();
+	}
+
+	@Benchmark
+	public Route completeMask() {
+		FtnMessage message = messages[next++ & (messages.length - 1)];
+		for (Route route : rules) {
+			if (FtnTools.completeMask(route, message)) {
+				return route;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public Route routingTable() {
+		return RoutingTable.get().route(
+				messages[next++ & (messages.length - 1)]);
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import com.j256.ormlite.logger.Level;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Link;
+import jnode.dto.Subscription;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+
+/**
+ * Station configured in a temporary directory. On demand it gets an
+ * in-memory H2 database with one link and one echoarea subscribed to it.
+ * Created once per benchmark JVM
+ */
+final class Station {
+	private static Station instance;
+
+	private final File home;
+	private Link link;
+
+	private Station() throws Exception {
+		home = Files.createTempDirectory("jnode-bench").toFile();
+		Properties config = new Properties();
+		config.setProperty("ftn.primary", Fixtures.PRIMARY.toString());
+		config.setProperty("station.name", "Benchmark Station");
+		config.setProperty("sysop.name", "Bench Sysop");
+		config.setProperty("ftn.inbound", dir("inbound"));
+		config.setProperty("ftn.outbound", dir("outbound"));
+		config.setProperty("ftn.temp", dir("temp"));
+		config.setProperty("binkp.inbound", dir("inbound"));
+		config.setProperty("binkp.outbound", dir("outbound"));
+		config.setProperty("fileecho.path", dir("fileecho"));
+		config.setProperty("nodelist.path", new File(home, "NODELIST.001")
+				.getPath());
+		config.setProperty("nodelist.index", new File(home, "NODELIST.idx")
+				.getPath());
+		config.setProperty("tosser.sysop.notifications", "false");
+		config.setProperty("jdbc.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;"
+				+ "DATABASE_TO_UPPER=false");
+		config.setProperty("jdbc.user", "sa");
+		config.setProperty("jdbc.pass", "");
+		config.setProperty("jdbc.driver", "org.h2.Driver");
+		new MainHandler(config);
+	}
+
+	/**
+	 * @return configured station, without database
+	 */
+	static synchronized Station get() throws Exception {
+		if (instance == null) {
+			instance = new Station();
+		}
+		return instance;
+	}
+
+	/**
+	 * @return station with database started
+	 */
+	static synchronized Station withDatabase() throws Exception {
+		Station station = get();
+		if (station.link == null) {
+			station.startDatabase();
+		}
+		return station;
+	}
+
+	private void startDatabase() throws Exception {
+		// statement level debug output of ORMLite itself
+		com.j256.ormlite.logger.Logger.setGlobalLogLevel(Level.WARNING);
+		ORMManager.INSTANCE.start();
+
+		link = new Link();
+		link.setLinkAddress(Fixtures.LINK.toString());
+		link.setLinkName("Bench Link");
+		link.setPaketPassword(Fixtures.PASSWORD);
+		link.setProtocolPassword(Fixtures.PASSWORD);
+		link.setProtocolHost("-");
+		link.setProtocolPort(0);
+		ORMManager.get(Link.class).save(link);
+
+		Echoarea area = new Echoarea();
+		area.setName(Fixtures.AREA);
+		area.setDescription("Benchmark area");
+		area.setReadlevel(0L);
+		area.setWritelevel(0L);
+		area.setGroup("");
+		ORMManager.get(Echoarea.class).save(area);
+
+		Subscription subscription = new Subscription();
+		subscription.setLink(link);
+		subscription.setArea(area);
+		ORMManager.get(Subscription.class).save(subscription);
+	}
+
+	private String dir(String name) throws IOException {
+		File dir = new File(home, name);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Can not create " + dir);
+		}
+		return dir.getPath();
+	}
+
+	File getHome() {
+		return home;
+	}
+
+	File getInbound() {
+		return new File(home, "inbound");
+	}
+
+	Link getLink() {
+		return link;
+	}
+}
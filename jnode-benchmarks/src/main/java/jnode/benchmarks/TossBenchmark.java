@@ -0,0 +1,81 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import jnode.ftn.tosser.FtnTosser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inbound packet of N echomails tossed into H2: parsing, dupe checks,
+ * storing and queueing for the subscribed link. Every invocation gets a
+ * packet with new MSGIDs, so nothing is dropped as a dupe
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TossBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int messages;
+
+	private File inbound;
+	private FtnTosser tosser;
+	private int offset;
+
+	@Setup
+	public void setup() throws Exception {
+		inbound = Station.withDatabase().getInbound();
+		tosser = new FtnTosser();
+	}
+
+	@Setup(Level.Invocation)
+	public void packet() throws IOException {
+		Files.write(new File(inbound, String.format("%08x.pkt", offset))
+				.toPath(), Fixtures.pkt(messages, offset));
+		offset += messages;
+	}
+
+	@Benchmark
+	public void toss() {
+		tosser.tossInboundDirectory();
+		tosser.end();
+	}
+}
@@ -29,20 +29,29 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import jnode.logger.Logger;
+import jnode.metrics.Histogram;
+import jnode.metrics.Metrics;
 import jnode.orm.ORMManager;
 
+import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.FieldType;
 import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.stmt.SelectArg;
 import com.j256.ormlite.stmt.StatementBuilder;
 import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.support.DatabaseResults;
 import com.j256.ormlite.table.TableUtils;
 
 /**
@@ -56,8 +65,12 @@ public abstract class GenericDAO<T> {
 
 	private static final int MAX_DAO_MAP_SIZE = 100;
 	private static Map<Class<?>, Dao<?, ?>> daoMap;
+	private static final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+	public static final String QUERY_METRIC = "jnode_dao_query_seconds";
 
 	private final Logger logger = Logger.getLogger(getType());
+	// histogram of every method, resolved on its first call
+	private final Map<String, Histogram> timers = new ConcurrentHashMap<>();
 
 	protected GenericDAO() throws Exception {
 		if (daoMap == null) {
@@ -81,6 +94,33 @@ public abstract class GenericDAO<T> {
 
 	abstract protected Class<?> getType();
 
+	/**
+	 * Counter bumped by every write through DAO of this type; caches built
+	 * from a table compare it to know they are stale
+	 * 
+	 * @param type
+	 * @return
+	 */
+	public static long getVersion(Class<?> type) {
+		AtomicLong version = versions.get(type);
+		return (version == null) ? 0L : version.get();
+	}
+
+	protected void changed() {
+		versions.computeIfAbsent(getType(), k -> new AtomicLong())
+				.incrementAndGet();
+	}
+
+	private void timed(String method, long start) {
+		Histogram timer = timers.get(method);
+		if (timer == null) {
+			timer = timers.computeIfAbsent(method, m -> Metrics.timer(
+					QUERY_METRIC, "DAO call latency", "type",
+					getType().getSimpleName(), "method", m));
+		}
+		timer.observeSince(start);
+	}
+
 	@SuppressWarnings("unchecked")
 	Dao<T, ?> getDao() {
 		return (Dao<T, ?>) daoMap.get(getType());
@@ -90,6 +130,15 @@ public abstract class GenericDAO<T> {
 	 * Execute database operation with unlimited retry on connection failures
 	 */
 	private <R> R executeWithRetry(DatabaseOperation<R> operation, String methodName, Object... args) {
+		long start = System.nanoTime();
+		try {
+			return retry(operation, methodName, args);
+		} finally {
+			timed(methodName, start);
+		}
+	}
+
+	private <R> R retry(DatabaseOperation<R> operation, String methodName, Object... args) {
 		while (true) {
 			try {
 				return operation.execute();
@@ -257,6 +306,7 @@ public abstract class GenericDAO<T> {
 	 * @return
 	 */
 	public List<T> getAnd(Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			buildWhere(qb, true, args);
@@ -266,6 +316,8 @@ public abstract class GenericDAO<T> {
 			logger.l1(MessageFormat.format("we worked with {0}",
 					Arrays.toString(args)));
 
+		} finally {
+			timed("getAnd", start);
 		}
 		return new ArrayList<>();
 	}
@@ -277,6 +329,7 @@ public abstract class GenericDAO<T> {
 	 * @return
 	 */
 	public List<T> getLimitAnd(long limit, Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			qb.limit(limit);
@@ -287,11 +340,14 @@ public abstract class GenericDAO<T> {
 			logger.l1(MessageFormat.format("we worked with {0}",
 					Arrays.toString(args)));
 
+		} finally {
+			timed("getLimitAnd", start);
 		}
 		return new ArrayList<>();
 	}
 
 	public List<T> getOrderAnd(String order, boolean asc, Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			qb.orderBy(order, asc);
@@ -301,12 +357,15 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in getOrderAnd", e);
 			logger.l1(MessageFormat.format("we worked with {0} {1} {2}", order,
 					asc, Arrays.toString(args)));
+		} finally {
+			timed("getOrderAnd", start);
 		}
 		return new ArrayList<>();
 	}
 
 	public List<T> getOrderLimitAnd(long limit, String order, boolean asc,
 			Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			qb.orderBy(order, asc);
@@ -317,10 +376,163 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in getOrderLimitAnd", e);
 			logger.l1(MessageFormat.format("we worked with {0} {1} {2} {3}",
 					limit, order, asc, Arrays.toString(args)));
+		} finally {
+			timed("getOrderLimitAnd", start);
 		}
 		return new ArrayList<>();
 	}
 
+	/**
+	 * Lazy variant of getAnd: rows are read while iterating. The iterator
+	 * must be closed
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public CloseableIterator<T> iterateAnd(Object... args) {
+		return iterateColumnsAnd(null, args);
+	}
+
+	/**
+	 * Lazy variant of getAnd loading only selected columns; the id column is
+	 * always loaded, other fields stay unset and foreign objects are not
+	 * refreshed. The iterator must be closed
+	 * 
+	 * @param columns
+	 *            null for all columns
+	 * @param args
+	 * @return
+	 */
+	public CloseableIterator<T> iterateColumnsAnd(String[] columns,
+			Object... args) {
+		try {
+			QueryBuilder<T, ?> qb = getDao().queryBuilder();
+			if (columns != null) {
+				qb.selectColumns(columns);
+			}
+			buildWhere(qb, true, args);
+			return qb.iterator();
+		} catch (SQLException e) {
+			logger.l1("SQL Exception in iterateColumnsAnd", e);
+			logger.l1(MessageFormat.format("we worked with {0} {1}",
+					Arrays.toString(columns), Arrays.toString(args)));
+		}
+		return new EmptyIterator<>();
+	}
+
+	/**
+	 * Arguments: columns, a == b, c == d
+	 * 
+	 * @param columns
+	 * @param args
+	 * @return objects with only selected columns filled
+	 */
+	public List<T> getColumnsAnd(String[] columns, Object... args) {
+		long start = System.nanoTime();
+		try {
+			QueryBuilder<T, ?> qb = getDao().queryBuilder();
+			qb.selectColumns(columns);
+			buildWhere(qb, true, args);
+			return qb.query();
+		} catch (SQLException e) {
+			logger.l1("SQL Exception in getColumnsAnd", e);
+			logger.l1(MessageFormat.format("we worked with {0} {1}",
+					Arrays.toString(columns), Arrays.toString(args)));
+		} finally {
+			timed("getColumnsAnd", start);
+		}
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Visit every object matching arguments holding at most fetchSize of
+	 * them in memory. Tables with id are read page by page ordered by id, so
+	 * no cursor stays open while action runs; others fall back to
+	 * iterateAnd
+	 * 
+	 * @param fetchSize
+	 * @param action
+	 * @param args
+	 */
+	public void forEachAnd(int fetchSize, Consumer<? super T> action,
+			Object... args) {
+		FieldType idField = getDao().getTableInfo().getIdField();
+		if (idField == null) {
+			CloseableIterator<T> it = iterateAnd(args);
+			try {
+				while (it.hasNext()) {
+					action.accept(it.next());
+				}
+			} finally {
+				it.closeQuietly();
+			}
+			return;
+		}
+		String id = idField.getColumnName();
+		Object[] pageArgs = Arrays.copyOf(args, args.length + 3);
+		pageArgs[args.length] = id;
+		pageArgs[args.length + 1] = ">";
+		Object last = null;
+		while (true) {
+			List<T> page;
+			if (last == null) {
+				page = getOrderLimitAnd(fetchSize, id, true, args);
+			} else {
+				pageArgs[args.length + 2] = last;
+				page = getOrderLimitAnd(fetchSize, id, true, pageArgs);
+			}
+			for (T object : page) {
+				action.accept(object);
+			}
+			if (page.size() < fetchSize) {
+				break;
+			}
+			try {
+				last = idField.extractJavaFieldValue(page.get(page.size() - 1));
+			} catch (SQLException e) {
+				logger.l1("SQL Exception in forEachAnd", e);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * SELECT COUNT(*) with arguments: a == b, c == d
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public long countAnd(Object... args) {
+		return count(true, args);
+	}
+
+	/**
+	 * SELECT COUNT(*) with arguments: a == b OR c == d
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public long countOr(Object... args) {
+		return count(false, args);
+	}
+
+	private long count(boolean and, Object... args) {
+		long start = System.nanoTime();
+		try {
+			QueryBuilder<T, ?> qb = getDao().queryBuilder();
+			qb.setCountOf(true);
+			buildWhere(qb, and, args);
+			return qb.countOf();
+		} catch (SQLException e) {
+			logger.l1("SQL Exception in count", e);
+			logger.l1(MessageFormat.format("we worked with {0}",
+					Arrays.toString(args)));
+		} finally {
+			timed("count", start);
+		}
+		return 0L;
+	}
+
 	/**
 	 * Arguments: a == b, c == d
 	 * 
@@ -328,6 +540,7 @@ public abstract class GenericDAO<T> {
 	 * @return
 	 */
 	public List<T> getOr(Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			buildWhere(qb, false, args);
@@ -336,11 +549,14 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in getOr", e);
 			logger.l1(MessageFormat.format("we worked with {0}",
 					Arrays.toString(args)));
+		} finally {
+			timed("getOr", start);
 		}
 		return new ArrayList<>();
 	}
 
 	public List<T> getOrderOr(String order, boolean asc, Object... args) {
+		long start = System.nanoTime();
 		try {
 			QueryBuilder<T, ?> qb = getDao().queryBuilder();
 			qb.orderBy(order, asc);
@@ -350,6 +566,8 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in getOrderOr", e);
 			logger.l1(MessageFormat.format("we worked with {0} {1} {2}", order,
 					asc, Arrays.toString(args)));
+		} finally {
+			timed("getOrderOr", start);
 		}
 		return new ArrayList<>();
 	}
@@ -371,22 +589,37 @@ public abstract class GenericDAO<T> {
 	}
 
 	public GenericRawResults<String[]> getRaw(String query) {
+		long start = System.nanoTime();
 		try {
 			return getDao().queryRaw(query);
 		} catch (SQLException e) {
 			logger.l1("SQL Exception in getRaw", e);
 			logger.l1(MessageFormat.format("we worked with {0}", query));
+		} finally {
+			timed("getRaw", start);
 		}
 		return null;
 	}
 
-	public GenericRawResults<Object[]> getRaw(String query, DataType[] types) {
+	/**
+	 * Raw query with typed columns; arguments replace ? in the query
+	 * 
+	 * @param query
+	 * @param types
+	 * @param arguments
+	 * @return
+	 */
+	public GenericRawResults<Object[]> getRaw(String query, DataType[] types,
+			String... arguments) {
+		long start = System.nanoTime();
 		try {
-			return getDao().queryRaw(query, types);
+			return getDao().queryRaw(query, types, arguments);
 		} catch (SQLException e) {
 			logger.l1("SQL Exception in getRaw", e);
-			logger.l1(MessageFormat.format("we worked with {0} {1}", query,
-					Arrays.toString(types)));
+			logger.l1(MessageFormat.format("we worked with {0} {1} {2}", query,
+					Arrays.toString(types), Arrays.toString(arguments)));
+		} finally {
+			timed("getRaw", start);
 		}
 		return null;
 	}
@@ -396,6 +629,7 @@ public abstract class GenericDAO<T> {
 			getDao().update(object);
 			return null;
 		}, "update", object);
+		changed();
 	}
 
 	public void save(T object) {
@@ -403,6 +637,7 @@ public abstract class GenericDAO<T> {
 			getDao().create(object);
 			return null;
 		}, "save", object);
+		changed();
 	}
 
 	public void saveOrUpdate(T object) {
@@ -410,6 +645,7 @@ public abstract class GenericDAO<T> {
 			getDao().createOrUpdate(object);
 			return null;
 		}, "saveOrUpdate", object);
+		changed();
 	}
 
 	public void delete(T object) {
@@ -417,9 +653,11 @@ public abstract class GenericDAO<T> {
 			getDao().delete(object);
 			return null;
 		}, "delete", object);
+		changed();
 	}
 
 	public void update(String field, Object value, Object... args) {
+		long start = System.nanoTime();
 		try {
 			UpdateBuilder<T, ?> ub = getDao().updateBuilder();
 			buildWhere(ub, true, args);
@@ -429,10 +667,14 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in update", e);
 			logger.l1(MessageFormat.format("we worked with {0} {1} {2}", field,
 					value, Arrays.toString(args)));
+		} finally {
+			timed("update", start);
 		}
+		changed();
 	}
 
 	public void delete(Object... args) {
+		long start = System.nanoTime();
 		try {
 			DeleteBuilder<T, ?> db = getDao().deleteBuilder();
 			buildWhere(db, true, args);
@@ -441,16 +683,84 @@ public abstract class GenericDAO<T> {
 			logger.l1("SQL Exception in delete", e);
 			logger.l1(MessageFormat.format("we worked with {0}",
 					Arrays.toString(args)));
+		} finally {
+			timed("delete", start);
 		}
+		changed();
+	}
+
+	/**
+	 * Queued UPDATE type SET field = value WHERE keyColumn = key
+	 * 
+	 * @see WriteBehind
+	 */
+	public void updateLater(String field, Object value, String keyColumn,
+			Object key) {
+		WriteBehind.get().update(getType(), field, value, keyColumn, key);
+	}
+
+	/**
+	 * Queued DELETE FROM type WHERE scopeColumn = scopeValue AND keyColumn =
+	 * key
+	 * 
+	 * @see WriteBehind
+	 */
+	public void deleteLater(String scopeColumn, Object scopeValue,
+			String keyColumn, Object key) {
+		WriteBehind.get().delete(getType(), scopeColumn, scopeValue,
+				keyColumn, key);
+	}
+
+	public boolean isUpdatePending(String field, String keyColumn, Object key) {
+		return WriteBehind.get().isPending(getType(), field, null, null,
+				keyColumn, key);
+	}
+
+	public boolean isDeletePending(String scopeColumn, Object scopeValue,
+			String keyColumn, Object key) {
+		return WriteBehind.get().isPending(getType(), null, scopeColumn,
+				scopeValue, keyColumn, key);
+	}
+
+	void updateIn(String field, Object value, String scopeColumn,
+			Object scopeValue, String keyColumn, List<Object> keys)
+			throws SQLException {
+		UpdateBuilder<T, ?> ub = getDao().updateBuilder();
+		if (scopeColumn != null) {
+			buildWhere(ub, true, scopeColumn, "=", scopeValue, keyColumn,
+					"in", keys);
+		} else {
+			buildWhere(ub, true, keyColumn, "in", keys);
+		}
+		ub.updateColumnValue(field, value);
+		ub.update();
+		changed();
+	}
+
+	void deleteIn(String scopeColumn, Object scopeValue, String keyColumn,
+			List<Object> keys) throws SQLException {
+		DeleteBuilder<T, ?> db = getDao().deleteBuilder();
+		if (scopeColumn != null) {
+			buildWhere(db, true, scopeColumn, "=", scopeValue, keyColumn,
+					"in", keys);
+		} else {
+			buildWhere(db, true, keyColumn, "in", keys);
+		}
+		db.delete();
+		changed();
 	}
 
 	public void executeRaw(String query) {
+		long start = System.nanoTime();
 		try {
 			getDao().executeRawNoArgs(query);
 		} catch (SQLException e) {
 			logger.l1("SQL Exception in executeRaw", e);
 			logger.l1(MessageFormat.format("we worked with {0}", query));
+		} finally {
+			timed("executeRaw", start);
 		}
+		changed();
 	}
 
 	public QueryJoiner join(boolean and, Object... args) {
@@ -462,6 +772,65 @@ public abstract class GenericDAO<T> {
 		return null;
 	}
 
+	private static final class EmptyIterator<T> implements CloseableIterator<T> {
+		@Override
+		public boolean hasNext() {
+			return false;
+		}
+
+		@Override
+		public T next() {
+			throw new NoSuchElementException();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void closeQuietly() {
+		}
+
+		@Override
+		public DatabaseResults getRawResults() {
+			return null;
+		}
+
+		@Override
+		public void moveToNext() {
+		}
+
+		@Override
+		public T first() {
+			return null;
+		}
+
+		@Override
+		public T previous() {
+			return null;
+		}
+
+		@Override
+		public T current() {
+			return null;
+		}
+
+		@Override
+		public T nextThrow() {
+			return null;
+		}
+
+		@Override
+		public T moveRelative(int offset) {
+			return null;
+		}
+
+		@Override
+		public T moveAbsolute(int position) {
+			return null;
+		}
+	}
+
 	public class QueryJoiner {
 		private QueryBuilder<T, ?> qb;
 
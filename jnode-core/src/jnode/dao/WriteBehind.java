@@ -0,0 +1,641 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jnode.logger.Logger;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+
+/**
+ * Write-behind queue for updates nobody waits for. Operations are coalesced
+ * by row ( the last value wins ) and flushed by a background thread as
+ * <code>UPDATE ... WHERE key IN (...)</code> and
+ * <code>DELETE ... WHERE key IN (...)</code> statements.
+ *
+ * <pre>
+ * dao.write_behind = true
+ * dao.write_behind.batch_size = 200
+ * dao.write_behind.interval = 1000 ( milliseconds )
+ * dao.write_behind.wal = /opt/jnode/wal/write_behind.wal
+ * </pre>
+ *
+ * Off by default: without WAL pending operations are lost on crash ( only
+ * flushed on normal shutdown ), so netmail and files would be sent again.
+ * Enabling it without WAL is logged as a warning. Values may only be
+ * Boolean, Integer, Long, String or Date - foreign objects must be passed
+ * as their ids. Operations failing MAX_ATTEMPTS times stay queued and are
+ * logged, they are never dropped.
+ */
+public final class WriteBehind {
+	private static final Logger logger = Logger.getLogger(WriteBehind.class);
+	private static final String ENABLED = "dao.write_behind";
+	private static final String BATCH_SIZE = "dao.write_behind.batch_size";
+	private static final String INTERVAL = "dao.write_behind.interval";
+	private static final String WAL = "dao.write_behind.wal";
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static WriteBehind instance;
+
+	/**
+	 * Where flushed batches go
+	 */
+	interface Sink {
+		void update(Class<?> type, String field, Object value,
+				String scopeColumn, Object scopeValue, String keyColumn,
+				List<Object> keys) throws SQLException;
+
+		void delete(Class<?> type, String scopeColumn, Object scopeValue,
+				String keyColumn, List<Object> keys) throws SQLException;
+	}
+
+	private static final class Op {
+		private final Class<?> type;
+		// null for delete
+		private final String field;
+		private final Object value;
+		private final String scopeColumn;
+		private final Object scopeValue;
+		private final String keyColumn;
+		private final Object key;
+		private int attempts;
+
+		private Op(Class<?> type, String field, Object value,
+				String scopeColumn, Object scopeValue, String keyColumn,
+				Object key) {
+			this.type = type;
+			this.field = field;
+			this.value = value;
+			this.scopeColumn = scopeColumn;
+			this.scopeValue = scopeValue;
+			this.keyColumn = keyColumn;
+			this.key = key;
+		}
+
+		private String identity() {
+			return identity(type, field, scopeColumn, scopeValue, keyColumn,
+					key);
+		}
+
+		private String group() {
+			return type.getName() + '\t' + encode(field) + '\t'
+					+ encode(value) + '\t' + encode(scopeColumn) + '\t'
+					+ encode(scopeValue) + '\t' + encode(keyColumn);
+		}
+
+		private String toWal() {
+			return identity() + '\t' + encode(value);
+		}
+
+		private static String identity(Class<?> type, String field,
+				String scopeColumn, Object scopeValue, String keyColumn,
+				Object key) {
+			return type.getName() + '\t' + encode(field) + '\t'
+					+ encode(scopeColumn) + '\t' + encode(scopeValue) + '\t'
+					+ encode(keyColumn) + '\t' + encode(key);
+		}
+
+		private static Op fromWal(String line) throws ClassNotFoundException {
+			String[] parts = line.split("\t", -1);
+			if (parts.length != 7) {
+				throw new IllegalArgumentException("Bad WAL record: " + line);
+			}
+			return new Op(Class.forName(parts[0]), (String) decode(parts[1]),
+					decode(parts[6]), (String) decode(parts[2]),
+					decode(parts[3]), (String) decode(parts[4]),
+					decode(parts[5]));
+		}
+	}
+
+	private final Sink sink;
+	private final int batchSize;
+	private final long interval;
+	private final File wal;
+	private final boolean enabled;
+
+	private final Object lock = new Object();
+	// one flush at a time, so inflight is never swapped under a running one
+	private final Object flushLock = new Object();
+	private LinkedHashMap<String, Op> pending = new LinkedHashMap<>();
+	private LinkedHashMap<String, Op> inflight = new LinkedHashMap<>();
+	private Writer walWriter;
+	private Thread flusher;
+	private volatile boolean running;
+
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong flushed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong flushes = new AtomicLong();
+	private volatile long lastFlushMillis;
+	private volatile long maxFlushMillis;
+
+	WriteBehind(Sink sink, boolean enabled, int batchSize, long interval,
+			File wal) {
+		this.sink = sink;
+		this.enabled = enabled;
+		this.batchSize = Math.max(batchSize, 1);
+		this.interval = Math.max(interval, 10L);
+		this.wal = wal;
+		if (wal != null) {
+			replay();
+		}
+	}
+
+	public static synchronized WriteBehind get() {
+		if (instance == null) {
+			MainHandler handler = MainHandler.getCurrentInstance();
+			String walPath = handler.getProperty(WAL, "");
+			boolean enabled = handler.getBooleanProperty(ENABLED, false);
+			if (enabled && walPath.length() == 0) {
+				logger.l1(ENABLED + " is on without " + WAL
+						+ ": queued operations are lost on crash");
+			}
+			instance = new WriteBehind(new OrmSink(), enabled,
+					handler.getIntegerProperty(BATCH_SIZE, 200),
+					handler.getIntegerProperty(INTERVAL, 1000),
+					(walPath.length() == 0) ? null : new File(walPath));
+			instance.start();
+		}
+		return instance;
+	}
+
+	/**
+	 * Flush everything and stop background thread
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.stop();
+			instance = null;
+		}
+	}
+
+	/**
+	 * UPDATE type SET field = value WHERE keyColumn = key
+	 */
+	public void update(Class<?> type, String field, Object value,
+			String keyColumn, Object key) {
+		enqueue(new Op(type, field, value, null, null, keyColumn, key));
+	}
+
+	/**
+	 * DELETE FROM type WHERE scopeColumn = scopeValue AND keyColumn = key
+	 *
+	 * @param scopeColumn
+	 *            may be null
+	 */
+	public void delete(Class<?> type, String scopeColumn, Object scopeValue,
+			String keyColumn, Object key) {
+		enqueue(new Op(type, null, null, scopeColumn, scopeValue, keyColumn,
+				key));
+	}
+
+	/**
+	 * @param field
+	 *            null for delete
+	 * @return true if such operation was queued but not yet written
+	 */
+	public boolean isPending(Class<?> type, String field, String scopeColumn,
+			Object scopeValue, String keyColumn, Object key) {
+		String identity = Op.identity(type, field, scopeColumn, scopeValue,
+				keyColumn, key);
+		synchronized (lock) {
+			return pending.containsKey(identity)
+					|| inflight.containsKey(identity);
+		}
+	}
+
+	public int getQueueDepth() {
+		synchronized (lock) {
+			return pending.size() + inflight.size();
+		}
+	}
+
+	public long getEnqueued() {
+		return enqueued.get();
+	}
+
+	public long getFlushed() {
+		return flushed.get();
+	}
+
+	/**
+	 * @return operations which failed MAX_ATTEMPTS times, they are still
+	 *         retried
+	 */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	public long getFlushes() {
+		return flushes.get();
+	}
+
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+
+	public long getMaxFlushMillis() {
+		return maxFlushMillis;
+	}
+
+	private void enqueue(Op op) {
+		// validate values early, not in the flusher
+		String record = op.toWal();
+		enqueued.incrementAndGet();
+		if (!enabled) {
+			List<Op> single = new ArrayList<>(1);
+			single.add(op);
+			execute(single);
+			return;
+		}
+		boolean full;
+		synchronized (lock) {
+			pending.remove(op.identity());
+			pending.put(op.identity(), op);
+			appendWal(record);
+			full = pending.size() >= batchSize;
+		}
+		if (full && flusher != null) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	private void start() {
+		if (!enabled) {
+			return;
+		}
+		running = true;
+		flusher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					synchronized (WriteBehind.this) {
+						try {
+							WriteBehind.this.wait(interval);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							break;
+						}
+					}
+					try {
+						flush();
+					} catch (RuntimeException e) {
+						logger.l1("Write-behind flush failed", e);
+					}
+				}
+			}
+		}, "write-behind");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	private void stop() {
+		running = false;
+		if (flusher != null) {
+			synchronized (this) {
+				notifyAll();
+			}
+			try {
+				flusher.join(interval * 2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			flusher = null;
+		}
+		flush();
+		synchronized (lock) {
+			closeWal();
+		}
+	}
+
+	/**
+	 * Write everything queued so far
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			flushPending();
+		}
+	}
+
+	private void flushPending() {
+		List<Op> ops;
+		synchronized (lock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			inflight = pending;
+			pending = new LinkedHashMap<>();
+			ops = new ArrayList<>(inflight.values());
+		}
+		long start = System.currentTimeMillis();
+		List<Op> retry = execute(ops);
+		long took = System.currentTimeMillis() - start;
+		lastFlushMillis = took;
+		if (took > maxFlushMillis) {
+			maxFlushMillis = took;
+		}
+		flushes.incrementAndGet();
+		synchronized (lock) {
+			inflight = new LinkedHashMap<>();
+			for (Op op : retry) {
+				// newer operation on the same row wins
+				if (!pending.containsKey(op.identity())) {
+					pending.put(op.identity(), op);
+				}
+			}
+			rewriteWal();
+		}
+		logger.l5("Write-behind flushed " + ops.size() + " operations in "
+				+ took + " ms");
+	}
+
+	/**
+	 * @return operations to retry
+	 */
+	private List<Op> execute(List<Op> ops) {
+		Map<String, List<Op>> groups = new LinkedHashMap<>();
+		for (Op op : ops) {
+			List<Op> group = groups.get(op.group());
+			if (group == null) {
+				group = new ArrayList<>();
+				groups.put(op.group(), group);
+			}
+			group.add(op);
+		}
+		List<Op> retry = new ArrayList<>();
+		for (List<Op> group : groups.values()) {
+			for (int from = 0; from < group.size(); from += batchSize) {
+				List<Op> batch = group.subList(from,
+						Math.min(from + batchSize, group.size()));
+				Op first = batch.get(0);
+				List<Object> keys = new ArrayList<>(batch.size());
+				for (Op op : batch) {
+					keys.add(op.key);
+				}
+				try {
+					if (first.field != null) {
+						sink.update(first.type, first.field, first.value,
+								first.scopeColumn, first.scopeValue,
+								first.keyColumn, keys);
+					} else {
+						sink.delete(first.type, first.scopeColumn,
+								first.scopeValue, first.keyColumn, keys);
+					}
+					flushed.addAndGet(batch.size());
+				} catch (SQLException | RuntimeException e) {
+					logger.l2("Write-behind batch for "
+							+ first.type.getSimpleName() + " failed", e);
+					for (Op op : batch) {
+						if (++op.attempts == MAX_ATTEMPTS) {
+							failed.incrementAndGet();
+							logger.l1("Write-behind operation failed "
+									+ MAX_ATTEMPTS + " times, kept queued: "
+									+ op.toWal());
+						}
+						retry.add(op);
+					}
+				}
+			}
+		}
+		return retry;
+	}
+
+	private void appendWal(String record) {
+		if (wal == null) {
+			return;
+		}
+		try {
+			if (walWriter == null) {
+				File parent = wal.getAbsoluteFile().getParentFile();
+				if (parent != null) {
+					parent.mkdirs();
+				}
+				walWriter = new OutputStreamWriter(new FileOutputStream(wal,
+						true), StandardCharsets.UTF_8);
+			}
+			walWriter.write(record);
+			walWriter.write('\n');
+			walWriter.flush();
+		} catch (IOException e) {
+			logger.l1("Unable to write WAL " + wal.getAbsolutePath(), e);
+		}
+	}
+
+	private void rewriteWal() {
+		if (wal == null) {
+			return;
+		}
+		closeWal();
+		File tmp = new File(wal.getAbsolutePath() + ".tmp");
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp),
+				StandardCharsets.UTF_8)) {
+			for (Op op : pending.values()) {
+				writer.write(op.toWal());
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			logger.l1("Unable to write WAL " + tmp.getAbsolutePath(), e);
+			return;
+		}
+		try {
+			Files.move(tmp.toPath(), wal.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.l1("Unable to replace WAL " + wal.getAbsolutePath(), e);
+		}
+	}
+
+	private void closeWal() {
+		if (walWriter != null) {
+			try {
+				walWriter.close();
+			} catch (IOException ignore) {
+			}
+			walWriter = null;
+		}
+	}
+
+	private void replay() {
+		if (!wal.exists()) {
+			return;
+		}
+		List<Op> ops = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(wal), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.length() == 0) {
+					continue;
+				}
+				try {
+					ops.add(Op.fromWal(line));
+				} catch (ClassNotFoundException | IllegalArgumentException e) {
+					// torn tail after crash
+					logger.l2("Skipping WAL record: " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			logger.l1("Unable to read WAL " + wal.getAbsolutePath(), e);
+			return;
+		}
+		if (ops.isEmpty()) {
+			return;
+		}
+		logger.l2("Replaying " + ops.size() + " write-behind operations from "
+				+ wal.getAbsolutePath());
+		synchronized (lock) {
+			for (Op op : ops) {
+				pending.remove(op.identity());
+				pending.put(op.identity(), op);
+			}
+		}
+		flush();
+	}
+
+	static String encode(Object value) {
+		if (value == null) {
+			return "N";
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean) value) ? "Z1" : "Z0";
+		}
+		if (value instanceof Integer) {
+			return "I" + value;
+		}
+		if (value instanceof Long) {
+			return "J" + value;
+		}
+		if (value instanceof Date) {
+			return "D" + ((Date) value).getTime();
+		}
+		if (value instanceof String) {
+			String s = (String) value;
+			StringBuilder sb = new StringBuilder(s.length() + 1);
+			sb.append('S');
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				switch (c) {
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				default:
+					sb.append(c);
+				}
+			}
+			return sb.toString();
+		}
+		throw new IllegalArgumentException("Unsupported write-behind value "
+				+ value.getClass().getName());
+	}
+
+	static Object decode(String s) {
+		if (s.length() == 0) {
+			throw new IllegalArgumentException("Empty value");
+		}
+		String v = s.substring(1);
+		switch (s.charAt(0)) {
+		case 'N':
+			return null;
+		case 'Z':
+			return "1".equals(v);
+		case 'I':
+			return Integer.valueOf(v);
+		case 'J':
+			return Long.valueOf(v);
+		case 'D':
+			return new Date(Long.parseLong(v));
+		case 'S':
+			StringBuilder sb = new StringBuilder(v.length());
+			for (int i = 0; i < v.length(); i++) {
+				char c = v.charAt(i);
+				if (c == '\\' && i + 1 < v.length()) {
+					char n = v.charAt(++i);
+					switch (n) {
+					case 't':
+						sb.append('\t');
+						break;
+					case 'n':
+						sb.append('\n');
+						break;
+					case 'r':
+						sb.append('\r');
+						break;
+					default:
+						sb.append(n);
+					}
+				} else {
+					sb.append(c);
+				}
+			}
+			return sb.toString();
+		default:
+			throw new IllegalArgumentException("Bad value " + s);
+		}
+	}
+
+	private static final class OrmSink implements Sink {
+		@Override
+		public void update(Class<?> type, String field, Object value,
+				String scopeColumn, Object scopeValue, String keyColumn,
+				List<Object> keys) throws SQLException {
+			ORMManager.get(type).updateIn(field, value, scopeColumn,
+					scopeValue, keyColumn, keys);
+		}
+
+		@Override
+		public void delete(Class<?> type, String scopeColumn,
+				Object scopeValue, String keyColumn, List<Object> keys)
+				throws SQLException {
+			ORMManager.get(type).deleteIn(scopeColumn, scopeValue, keyColumn,
+					keys);
+		}
+	}
+}
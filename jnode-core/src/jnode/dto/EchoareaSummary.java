@@ -0,0 +1,106 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.dto;
+
+import java.util.Date;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * Message count, newest date, last id and size of an echoarea, kept up to
+ * date by {@link jnode.store.EchoareaSummaries}
+ */
+@DatabaseTable(tableName = "echoarea_summary")
+public class EchoareaSummary {
+	@DatabaseField(columnName = "echoarea_id", id = true)
+	private Long areaId;
+	@DatabaseField(columnName = "num", canBeNull = false, defaultValue = "0")
+	private long num;
+	@DatabaseField(columnName = "latest", dataType = DataType.DATE_LONG)
+	private Date latest;
+	@DatabaseField(columnName = "last_id", canBeNull = false, defaultValue = "0")
+	private long lastId;
+	@DatabaseField(columnName = "bytes", canBeNull = false, defaultValue = "0")
+	private long bytes;
+
+	public EchoareaSummary() {
+	}
+
+	public EchoareaSummary(EchoareaSummary other) {
+		this.areaId = other.areaId;
+		this.num = other.num;
+		this.latest = other.latest;
+		this.lastId = other.lastId;
+		this.bytes = other.bytes;
+	}
+
+	public Long getAreaId() {
+		return areaId;
+	}
+
+	public void setAreaId(Long areaId) {
+		this.areaId = areaId;
+	}
+
+	public long getNum() {
+		return num;
+	}
+
+	public void setNum(long num) {
+		this.num = num;
+	}
+
+	/**
+	 * @return newest message date, null for an empty area
+	 */
+	public Date getLatest() {
+		return latest;
+	}
+
+	public void setLatest(Date latest) {
+		this.latest = latest;
+	}
+
+	/**
+	 * @return id of the last counted message
+	 */
+	public long getLastId() {
+		return lastId;
+	}
+
+	public void setLastId(long lastId) {
+		this.lastId = lastId;
+	}
+
+	/**
+	 * @return total size of message texts, UTF-8
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.dto;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * Last echomail id sent to the link in the echoarea ( used instead of
+ * echomailawait rows when tosser.echomail.cursor is on ). Ids are only
+ * meaningful within the echomail store they were taken from
+ */
+@DatabaseTable(tableName = "echomailcursor")
+public class EchomailCursor {
+	@DatabaseField(columnName = "id", generatedId = true)
+	private Long id;
+	@DatabaseField(columnName = "link_id", foreign = true, canBeNull = false, uniqueIndexName = "ecursor_idx")
+	private Link link;
+	@DatabaseField(columnName = "echoarea_id", foreign = true, canBeNull = false, uniqueIndexName = "ecursor_idx")
+	private Echoarea area;
+	@DatabaseField(columnName = "last_id", canBeNull = false, defaultValue = "0")
+	private Long lastId;
+	@DatabaseField(columnName = "store", canBeNull = false, defaultValue = "sql", width = 8)
+	private String store;
+
+	public EchomailCursor() {
+		super();
+	}
+
+	public EchomailCursor(Link link, Echoarea area, Long lastId, String store) {
+		super();
+		this.link = link;
+		this.area = area;
+		this.lastId = lastId;
+		this.store = store;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Link getLink() {
+		return link;
+	}
+
+	public void setLink(Link link) {
+		this.link = link;
+	}
+
+	public Echoarea getArea() {
+		return area;
+	}
+
+	public void setArea(Echoarea area) {
+		this.area = area;
+	}
+
+	public Long getLastId() {
+		return lastId;
+	}
+
+	public void setLastId(Long lastId) {
+		this.lastId = lastId;
+	}
+
+	public String getStore() {
+		return store;
+	}
+
+	public void setStore(String store) {
+		this.store = store;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("EchomailCursor{");
+		sb.append("id=").append(id);
+		sb.append(", link=").append(link);
+		sb.append(", area=").append(area);
+		sb.append(", lastId=").append(lastId);
+		sb.append(", store=").append(store);
+		sb.append('}');
+		return sb.toString();
+	}
+}
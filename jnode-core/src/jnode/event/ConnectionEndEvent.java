@@ -23,8 +23,8 @@ package jnode.event;
 import jnode.ftn.types.FtnAddress;
 
 public class ConnectionEndEvent implements IEvent {
-	private int bytesReceived;
-	private int bytesSended;
+	private long bytesReceived;
+	private long bytesSended;
 	private FtnAddress address;
 	private boolean incoming;
 	private boolean success;
@@ -39,7 +39,7 @@ public class ConnectionEndEvent implements IEvent {
 	}
 
 	public ConnectionEndEvent(FtnAddress address, boolean incoming,
-			boolean success, int bytesReceived, int bytesSended) {
+			boolean success, long bytesReceived, long bytesSended) {
 		super();
 		this.bytesReceived = bytesReceived;
 		this.bytesSended = bytesSended;
@@ -57,11 +57,11 @@ public class ConnectionEndEvent implements IEvent {
 		address = null;
 	}
 
-	public int getBytesReceived() {
+	public long getBytesReceived() {
 		return bytesReceived;
 	}
 
-	public int getBytesSended() {
+	public long getBytesSended() {
 		return bytesSended;
 	}
 
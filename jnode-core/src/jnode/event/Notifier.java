@@ -20,45 +20,277 @@
 
 package jnode.event;
 
-import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import jnode.logger.Logger;
+
+/**
+ * Event dispatcher. Plain {@link IEventHandler}s are called on the
+ * publishing thread, {@link IAsyncEventHandler}s get events through their
+ * own bounded queue and thread. Registries are copy-on-write, so notify()
+ * never locks
+ *
+ */
 public enum Notifier {
 	INSTANCE;
-	private final ConcurrentHashMap<Class<? extends IEvent>, List<IEventHandler>> notifyMap;
+	private static final Logger logger = Logger.getLogger(Notifier.class);
+	private static final long SHUTDOWN_WAIT = 2000L;
+
+	private final ConcurrentHashMap<Class<? extends IEvent>, List<Delivery>> notifyMap;
+	private final ConcurrentHashMap<Class<? extends IEvent>, EventStats> stats;
+	// guarded by this
+	private final Map<IEventHandler, AsyncQueue> queues;
 
 	private Notifier() {
 		notifyMap = new ConcurrentHashMap<>();
+		stats = new ConcurrentHashMap<>();
+		queues = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Delivery metrics of one event type
+	 */
+	public static final class EventStats {
+		private final LongAdder delivered = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+		private final LongAdder latency = new LongAdder();
+		private final AtomicLong maxLatency = new AtomicLong();
+		private final LongAdder queued = new LongAdder();
+
+		private void delivered(long nanos) {
+			delivered.increment();
+			latency.add(nanos);
+			long max = maxLatency.get();
+			while (nanos > max && !maxLatency.compareAndSet(max, nanos)) {
+				max = maxLatency.get();
+			}
+		}
+
+		public long getDelivered() {
+			return delivered.sum();
+		}
+
+		public long getDropped() {
+			return dropped.sum();
+		}
+
+		public long getFailed() {
+			return failed.sum();
+		}
+
+		/**
+		 * @return events waiting in async queues or being handled
+		 */
+		public long getQueueDepth() {
+			return queued.sum();
+		}
+
+		/**
+		 * @return mean time from notify() till handler return, microseconds
+		 */
+		public long getAverageLatencyMicros() {
+			long count = delivered.sum();
+			return count == 0 ? 0 : latency.sum() / count / 1000L;
+		}
+
+		public long getMaxLatencyMicros() {
+			return maxLatency.get() / 1000L;
+		}
+	}
+
+	private static final class Delivery {
+		private final IEventHandler handler;
+		private final AsyncQueue queue;
+
+		private Delivery(IEventHandler handler, AsyncQueue queue) {
+			this.handler = handler;
+			this.queue = queue;
+		}
+	}
+
+	private static final class Pending {
+		private final IEvent event;
+		private final EventStats stats;
+		private final long created;
+
+		private Pending(IEvent event, EventStats stats, long created) {
+			this.event = event;
+			this.stats = stats;
+			this.created = created;
+		}
+	}
+
+	private static final Pending STOP = new Pending(null, null, 0);
+
+	private static final class AsyncQueue implements Runnable {
+		private final IAsyncEventHandler handler;
+		private final BlockingQueue<Pending> queue;
+		private final IAsyncEventHandler.Overflow overflow;
+		private final Thread thread;
+		private int registrations;
+
+		private AsyncQueue(IAsyncEventHandler handler) {
+			this.handler = handler;
+			this.queue = new ArrayBlockingQueue<>(Math.max(1,
+					handler.getQueueSize()));
+			this.overflow = handler.getOverflow();
+			this.thread = new Thread(this, "event-"
+					+ handler.getClass().getSimpleName());
+			this.thread.setDaemon(true);
+		}
+
+		private void offer(IEvent event, EventStats stats) {
+			Pending pending = new Pending(event, stats, System.nanoTime());
+			stats.queued.increment();
+			boolean queued;
+			if (overflow == IAsyncEventHandler.Overflow.DROP) {
+				queued = queue.offer(pending);
+			} else if (Thread.currentThread() == thread) {
+				// the handler published to itself, waiting for space
+				// would block its own dispatcher forever
+				queued = queue.offer(pending);
+				if (!queued) {
+					logger.l2("Queue of " + handler.getClass().getName()
+							+ " is full, dropped "
+							+ event.getClass().getSimpleName()
+							+ " it published itself");
+				}
+			} else {
+				try {
+					queue.put(pending);
+					queued = true;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					queued = false;
+				}
+			}
+			if (!queued) {
+				stats.queued.decrement();
+				stats.dropped.increment();
+			}
+		}
+
+		@Override
+		public void run() {
+			for (;;) {
+				Pending pending;
+				try {
+					pending = queue.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (pending == STOP) {
+					return;
+				}
+				try {
+					handler.handle(pending.event);
+				} catch (RuntimeException e) {
+					pending.stats.failed.increment();
+					logger.l2("Handler " + handler.getClass().getName()
+							+ " failed on " + pending.event.getClass().getSimpleName(), e);
+				}
+				pending.stats.delivered(System.nanoTime() - pending.created);
+				pending.stats.queued.decrement();
+			}
+		}
 	}
 
-	public void register(Class<? extends IEvent> clazz, IEventHandler handler) {
+	public synchronized void register(Class<? extends IEvent> clazz, IEventHandler handler) {
 		if (clazz != null && handler != null) {
-			List<IEventHandler> list = notifyMap.get(clazz);
-			if (list == null) {
-				list = new ArrayList<>();
+			AsyncQueue queue = null;
+			if (handler instanceof IAsyncEventHandler) {
+				queue = queues.get(handler);
+				if (queue == null) {
+					queue = new AsyncQueue((IAsyncEventHandler) handler);
+					queues.put(handler, queue);
+					queue.thread.start();
+				}
+				queue.registrations++;
 			}
-			list.add(handler);
-			notifyMap.put(clazz, list);
+			notifyMap.computeIfAbsent(clazz, c -> new CopyOnWriteArrayList<>())
+					.add(new Delivery(handler, queue));
 		}
 	}
 
-	public void unregister(Class<? extends IEvent> clazz, IEventHandler handler) {
+	public synchronized void unregister(Class<? extends IEvent> clazz, IEventHandler handler) {
 		if (clazz != null && handler != null) {
-			List<IEventHandler> list = notifyMap.get(clazz);
+			List<Delivery> list = notifyMap.get(clazz);
 			if (list != null) {
-				list.remove(handler);
-				notifyMap.put(clazz, list);
+				for (Delivery delivery : list) {
+					if (delivery.handler == handler) {
+						list.remove(delivery);
+						release(delivery.queue);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	// guarded by this
+	private void release(AsyncQueue queue) {
+		if (queue != null && --queue.registrations == 0) {
+			queues.remove(queue.handler);
+			// already queued events are still delivered
+			if (!queue.queue.offer(STOP)) {
+				queue.thread.interrupt();
 			}
 		}
 	}
 
 	public void notify(IEvent event) {
-		List<IEventHandler> list = notifyMap.get(event.getClass());
+		List<Delivery> list = notifyMap.get(event.getClass());
 		if (list != null) {
-			for (IEventHandler handler : list) {
-				if (handler != null) {
-					handler.handle(event);
+			EventStats stats = getStats(event.getClass());
+			for (Delivery delivery : list) {
+				if (delivery.queue != null) {
+					delivery.queue.offer(event, stats);
+				} else {
+					long start = System.nanoTime();
+					delivery.handler.handle(event);
+					stats.delivered(System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return metrics of event type, created on first use
+	 */
+	public EventStats getStats(Class<? extends IEvent> clazz) {
+		return stats.computeIfAbsent(clazz, c -> new EventStats());
+	}
+
+	/**
+	 * @return metrics of all event types published so far
+	 */
+	public Map<Class<? extends IEvent>, EventStats> getStats() {
+		return new LinkedHashMap<>(stats);
+	}
+
+	/**
+	 * Give async handlers a chance to process what is already queued
+	 */
+	public void shutdown() {
+		long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT;
+		for (EventStats eventStats : stats.values()) {
+			while (eventStats.getQueueDepth() > 0
+					&& System.currentTimeMillis() < deadline) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
 				}
 			}
 		}
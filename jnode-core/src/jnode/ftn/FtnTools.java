@@ -42,8 +42,8 @@ import java.util.Date;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -54,6 +54,7 @@ import jnode.core.FileUtils;
 import jnode.dto.Echoarea;
 import jnode.dto.Echomail;
 import jnode.dto.EchomailAwaiting;
+import jnode.dto.EchomailCursor;
 import jnode.dto.FileForLink;
 import jnode.dto.FileSubscription;
 import jnode.dto.Filearea;
@@ -67,10 +68,15 @@ import jnode.dto.Rewrite;
 import jnode.dto.Robot;
 import jnode.dto.Route;
 import jnode.dto.Subscription;
+import jnode.event.DeletedEchoareaEvent;
 import jnode.event.NewEchoareaEvent;
 import jnode.event.NewFileareaEvent;
 import jnode.event.Notifier;
 import jnode.ftn.EchoareaLookupResult;
+import jnode.ftn.rules.KnownLinks;
+import jnode.ftn.rules.NetmailAcceptPolicy;
+import jnode.ftn.rules.RewriteEngine;
+import jnode.ftn.rules.RoutingTable;
 import jnode.ftn.tosser.FtnTosser;
 import jnode.ftn.types.Ftn2D;
 import jnode.ftn.types.FtnAddress;
@@ -86,6 +92,7 @@ import jnode.ndl.NodelistScanner;
 import jnode.orm.ORMManager;
 import jnode.protocol.io.Message;
 import jnode.robot.IRobot;
+import jnode.store.EchomailStores;
 
 /**
  * Collection of various utilities
@@ -96,6 +103,7 @@ import jnode.robot.IRobot;
 public final class FtnTools {
 	private static final String BINKP_INBOUND = "binkp.inbound";
 	private static final String NETMAIL_VALID = "netmail.only_valid";
+	private static final String ECHOMAIL_CURSOR = "tosser.echomail.cursor";
 	private static final String SEEN_BY = "SEEN-BY:";
 	private static final String PATH = "\001PATH:";
 	public static final Charset CP_866 = Charset.forName("CP866");
@@ -106,6 +114,11 @@ public final class FtnTools {
 	private static final Logger logger = Logger.getLogger(FtnTools.class);
 
 	private static final Hashtable<String, IRobot> robotMaps = new Hashtable<>();
+	// link_id:echoarea_id pairs which already have a row in echomailcursor
+	private static final Set<String> knownCursors = ConcurrentHashMap
+			.newKeySet();
+	// by link_id, held while cursors of the link are moved
+	private static final ConcurrentHashMap<Long, Object> cursorLocks = new ConcurrentHashMap<>();
 
 	/**
 	 * 2D address sorter
@@ -276,7 +289,9 @@ public final class FtnTools {
 	 * @return
 	 */
 	public static String writeSeenBy(List<Ftn2D> seenby) {
-		logger.l5("WriteSeenBy: " + seenby);
+		if (logger.isNeedLog5()) {
+			logger.l5("WriteSeenBy: " + seenby);
+		}
 		StringBuilder ret = new StringBuilder();
 		Collections.sort(seenby, new Ftn2DComparator());
 		int net = 0;
@@ -291,17 +306,14 @@ public final class FtnTools {
 				ret.append(SEEN_BY);
 				linelen += SEEN_BY.length();
 			}
+			int before = ret.length();
+			ret.append(' ');
 			if (net != ftn.getNet()) {
 				net = ftn.getNet();
-				String app = String.format(" %d/%d", ftn.getNet(),
-						ftn.getNode());
-				ret.append(app);
-				linelen += app.length();
-			} else {
-				String app = String.format(" %d", ftn.getNode());
-				ret.append(app);
-				linelen += app.length();
+				ret.append(ftn.getNet()).append('/');
 			}
+			ret.append(ftn.getNode());
+			linelen += ret.length() - before;
 		}
 		if (ret.length() == 0) {
 			return "";
@@ -347,7 +359,9 @@ public final class FtnTools {
 	 * @return
 	 */
 	public static String writePath(List<Ftn2D> path) {
-		logger.l5("WritePath: " + path);
+		if (logger.isNeedLog5()) {
+			logger.l5("WritePath: " + path);
+		}
 		StringBuilder ret = new StringBuilder();
 		int net = 0;
 		int linelen = 0;
@@ -361,17 +375,14 @@ public final class FtnTools {
 				ret.append(PATH);
 				linelen += PATH.length();
 			}
+			int before = ret.length();
+			ret.append(' ');
 			if (net != ftn.getNet()) {
 				net = ftn.getNet();
-				String app = String.format(" %d/%d", ftn.getNet(),
-						ftn.getNode());
-				ret.append(app);
-				linelen += app.length();
-			} else {
-				String app = String.format(" %d", ftn.getNode());
-				ret.append(app);
-				linelen += app.length();
+				ret.append(ftn.getNet()).append('/');
 			}
+			ret.append(ftn.getNode());
+			linelen += ret.length() - before;
 		}
 		if (ret.length() == 0) {
 			return "";
@@ -477,7 +488,7 @@ public final class FtnTools {
 			} else {
 				flag = true;
 			}
-			ret.append(String.format("%d/%d", d.getNet(), d.getNode()));
+			ret.append(d.getNet()).append('/').append(d.getNode());
 		}
 		return ret.toString();
 	}
@@ -792,56 +803,7 @@ public final class FtnTools {
 	 * @return
 	 */
 	public static void rewrite(Rewrite rewrite, FtnMessage message) {
-		String[] fields = new String[] { rewrite.getNew_from_addr(),
-				rewrite.getNew_to_addr(), rewrite.getNew_from_name(),
-				rewrite.getNew_to_name(), rewrite.getNew_subject() };
-		for (int i = 0; i < 5; i++) {
-			if (fields[i] != null && !fields[i].equals("*")) {
-				switch (i) {
-				case 0:
-					FtnAddress nfa = new FtnAddress(fields[i]);
-					if (message.getMsgid() != null) {
-						Matcher msgid = Pattern.compile(
-								"^" + message.getFromAddr() + " (\\S+)$")
-								.matcher(message.getMsgid());
-						if (msgid.find()) {
-							String msg = msgid.replaceFirst(nfa + " $1");
-							message.setText(message.getText().replace(
-									message.getMsgid(), msg));
-							message.setMsgid(msg);
-
-						}
-					} // TODO : netmail msgid
-					Matcher origin = Pattern.compile(
-							"^ \\* Origin: (.*) \\(" + message.getFromAddr()
-									+ "\\)$", Pattern.MULTILINE).matcher(
-							message.getText());
-					if (origin.find()) {
-						message.setText(origin.replaceFirst(" * Origin: $1 ("
-								+ nfa + ")"));
-					}
-					message.setFromAddr(nfa);
-					logger.l5("Rewrite fromAddr to " + fields[i]);
-					break;
-				case 1:
-					message.setToAddr(new FtnAddress(fields[i]));
-					logger.l5("Rewrite toAddr to " + fields[i]);
-					break;
-				case 2:
-					message.setFromName(fields[i]);
-					logger.l5("Rewrite fromAddr to " + fields[i]);
-					break;
-				case 3:
-					message.setToName(fields[i]);
-					logger.l5("Rewrite fromAddr to " + fields[i]);
-					break;
-				case 4:
-					message.setSubject(fields[i]);
-					logger.l5("Rewrite fromAddr to " + fields[i]);
-					break;
-				}
-			}
-		}
+		RewriteEngine.rewrite(rewrite, message);
 	}
 
 	/**
@@ -911,19 +873,46 @@ public final class FtnTools {
 			routeVia = getLinkByFtnAddress(routeTo);
 			// and now - by routing
 			if (routeVia == null) {
-				List<Route> routes = ORMManager.get(Route.class).getOrderAnd(
-						"nice", true);
-				for (Route route : routes) {
-					if (completeMask(route, message)) {
-						routeVia = route.getRouteVia();
-						break;
-					}
+				Route route = RoutingTable.get().route(message);
+				if (route != null) {
+					routeVia = route.getRouteVia();
 				}
 			}
 		}
 		return routeVia;
 	}
 
+	/**
+	 * Explain routing decision for netmail, for debugging
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public static String explainRouting(FtnMessage message) {
+		StringBuilder sb = new StringBuilder();
+		FtnAddress routeTo = message.getToAddr().clone();
+		Link direct = getLinkByFtnAddress(routeTo);
+		if (direct != null) {
+			sb.append("direct link ").append(direct.getLinkAddress())
+					.append('\n');
+		}
+		if (isOurPoint(routeTo)) {
+			sb.append("our point, routing table is not used\n");
+			return sb.toString();
+		}
+		routeTo.setPoint(0);
+		direct = getLinkByFtnAddress(routeTo);
+		if (direct != null) {
+			sb.append("boss link ").append(direct.getLinkAddress())
+					.append(", routing table is not used\n");
+			return sb.toString();
+		}
+		for (String line : RoutingTable.get().explain(message)) {
+			sb.append(line).append('\n');
+		}
+		return sb.toString();
+	}
+
 	public static Link getRoutingFallback(FtnMessage message,
 			Link previousRouteVia) {
 		Link routeVia = null;
@@ -932,16 +921,9 @@ public final class FtnTools {
 			return null;
 		}
 		// direct link can be down for us - use cross way
-		List<Route> routes = ORMManager.get(Route.class).getOrderAnd("nice",
-				true);
-		for (Route route : routes) {
-			if (completeMask(route, message)) {
-				if (route.getRouteVia().equals(previousRouteVia)) {
-					continue;
-				}
-				routeVia = route.getRouteVia();
-				break;
-			}
+		Route route = RoutingTable.get().fallback(message, previousRouteVia);
+		if (route != null) {
+			routeVia = route.getRouteVia();
 		}
 		if (routeVia == null) {
 			routeVia = previousRouteVia;
@@ -1364,23 +1346,7 @@ public final class FtnTools {
 	 * @param message
 	 */
 	public static void processRewrite(FtnMessage message) {
-		List<Rewrite> rewrites = ORMManager.get(Rewrite.class).getOrderAnd(
-				"nice",
-				true,
-				"type",
-				"=",
-				(message.isNetmail()) ? (Rewrite.Type.NETMAIL)
-						: (Rewrite.Type.ECHOMAIL));
-		for (Rewrite rewrite : rewrites) {
-			if (FtnTools.completeMask(rewrite, message)) {
-				logger.l5(((message.isNetmail()) ? "NET" : "ECH")
-						+ " - match found, rewriting " + message.getMsgid());
-				rewrite(rewrite, message);
-				if (rewrite.isLast()) {
-					break;
-				}
-			}
-		}
+		RewriteEngine.get().process(message);
 	}
 
 	/**
@@ -1528,8 +1494,7 @@ public final class FtnTools {
 	}
 
 	public static boolean isADupe(Echoarea area, String msgid) {
-		return ORMManager.get(Echomail.class).getFirstAnd("msgid", "=", msgid,
-				"echoarea_id", "=", area) != null;
+		return EchomailStores.get().isDupe(area, msgid);
 	}
 
 	/**
@@ -1550,9 +1515,9 @@ public final class FtnTools {
 		// to our node
 		if (isOurPoint(netmail.getToAddr())) {
 			validTo = true;
-		} else if (getLinkByFtnAddress(netmail.getToAddr()) != null) {
+		} else if (KnownLinks.get().contains(netmail.getToAddr())) {
 			validTo = true;
-		} else if (getLinkByFtnAddress(netmail.getToAddr().cloneNode()) != null) {
+		} else if (KnownLinks.get().contains(netmail.getToAddr().cloneNode())) {
 			validTo = true;
 		} else {
 			FtnNdlAddress to = NodelistScanner.getInstance().isExists(
@@ -1591,9 +1556,9 @@ public final class FtnTools {
 
 		if (isOurPoint(netmail.getFromAddr())) {
 			validFrom = true;
-		} else if (getLinkByFtnAddress(netmail.getFromAddr()) != null) {
+		} else if (KnownLinks.get().contains(netmail.getFromAddr())) {
 			validFrom = true;
-		} else if (getLinkByFtnAddress(netmail.getFromAddr().cloneNode()) != null) {
+		} else if (KnownLinks.get().contains(netmail.getFromAddr().cloneNode())) {
 			validTo = true;
 		} else {
 			FtnNdlAddress from = NodelistScanner.getInstance().isExists(
@@ -1679,25 +1644,7 @@ public final class FtnTools {
 		}
 		
 		// Check acceptance rules in priority order
-		List<NetmailAcceptRule> rules = ORMManager.get(NetmailAcceptRule.class)
-			.getOrderAnd("nice", true);
-			
-		for (NetmailAcceptRule rule : rules) {
-			if (matchesNetmailAcceptRule(rule, netmail)) {
-				logger.l4(String.format("Netmail %s -> %s matched rule: %s (action: %s)",
-					netmail.getFromAddr(), netmail.getToAddr(), 
-					rule.getDescription(), rule.getAction()));
-					
-				boolean accept = (rule.getAction() == NetmailAcceptRule.Action.ACCEPT);
-				
-				if (rule.getStopProcessing()) {
-					return accept;
-				}
-			}
-		}
-		
-		// Default: reject if no rules matched
-		return false;
+		return NetmailAcceptPolicy.get().accepts(netmail);
 	}
 
 	/**
@@ -1761,16 +1708,144 @@ public final class FtnTools {
 		b.append(" * Origin: " + MainHandler.getVersion() + " ("
 				+ getPrimaryFtnAddress().toString() + ")\n");
 		mail.setText(b.toString());
-		ORMManager.get(Echomail.class).save(mail);
+		EchomailStores.get().save(mail);
 		if (mail.getId() != null) {
 			for (Subscription s : ORMManager.get(Subscription.class).getAnd(
 					"echoarea_id", "=", area)) {
-				ORMManager.get(EchomailAwaiting.class).save(
-						new EchomailAwaiting(s.getLink(), mail));
+				queueEchomail(s.getLink(), mail);
 			}
 		}
 	}
 
+	/**
+	 * Outbound echomail is tracked by per-link cursors instead of
+	 * echomailawait rows
+	 * 
+	 * @return
+	 */
+	public static boolean isEchomailCursorEnabled() {
+		// log store has no echomail table to reference from echomailawait
+		return EchomailStores.isLogStore()
+				|| MainHandler.getCurrentInstance().getBooleanProperty(
+						ECHOMAIL_CURSOR, false);
+	}
+
+	/**
+	 * Mark saved echomail as pending for the link. In cursor mode only the
+	 * link's cursor is created ( once ) - further messages are found by id
+	 * 
+	 * @param link
+	 * @param mail
+	 */
+	public static void queueEchomail(Link link, Echomail mail) {
+		if (mail.getId() == null) {
+			return;
+		}
+		if (isEchomailCursorEnabled()) {
+			ensureEchomailCursor(link, mail.getArea(), mail.getId() - 1);
+		} else {
+			ORMManager.get(EchomailAwaiting.class).save(
+					new EchomailAwaiting(link, mail));
+		}
+	}
+
+	/**
+	 * Create cursor for link in area pointing at lastId unless it exists
+	 * 
+	 * @param link
+	 * @param area
+	 * @param lastId
+	 */
+	public static void ensureEchomailCursor(Link link, Echoarea area,
+			long lastId) {
+		String key = link.getId() + ":" + area.getId();
+		if (knownCursors.contains(key)) {
+			return;
+		}
+		synchronized (knownCursors) {
+			EchomailCursor cursor = ORMManager.get(EchomailCursor.class)
+					.getFirstAnd("link_id", "=", link, "echoarea_id", "=",
+							area);
+			if (cursor == null) {
+				ORMManager.get(EchomailCursor.class).save(
+						new EchomailCursor(link, area, lastId,
+								EchomailStores.getName()));
+			}
+			knownCursors.add(key);
+		}
+	}
+
+	/**
+	 * Lock to hold while reading and moving echomail cursors of the link
+	 * 
+	 * @param link
+	 * @return
+	 */
+	public static Object getEchomailCursorLock(Link link) {
+		return cursorLocks.computeIfAbsent(link.getId(), id -> new Object());
+	}
+
+	/**
+	 * Unsubscribe link from area. The link's cursor there is dropped too, a
+	 * new subscription starts from the end of the area
+	 * 
+	 * @param link
+	 * @param area
+	 */
+	public static void unsubscribe(Link link, Echoarea area) {
+		synchronized (getEchomailCursorLock(link)) {
+			ORMManager.get(Subscription.class).delete("link_id", "=", link,
+					"echoarea_id", "=", area);
+			ORMManager.get(EchomailCursor.class).delete("link_id", "=", link,
+					"echoarea_id", "=", area);
+			knownCursors.remove(link.getId() + ":" + area.getId());
+		}
+	}
+
+	/**
+	 * Drop cached cursor existence after cursors were deleted
+	 */
+	public static void forgetEchomailCursors() {
+		knownCursors.clear();
+	}
+
+	/**
+	 * Resend last num messages of area to the link
+	 * 
+	 * @param link
+	 * @param area
+	 * @param num
+	 * @return number of rescanned messages
+	 */
+	public static int rescanEchomail(Link link, Echoarea area, int num) {
+		if (isEchomailCursorEnabled()) {
+			long lastId = EchomailStores.get().getRescanId(area, num);
+			if (lastId < 0) {
+				return 0;
+			}
+			// a pack running now would write its own position over ours
+			synchronized (getEchomailCursorLock(link)) {
+				EchomailCursor cursor = ORMManager.get(EchomailCursor.class)
+						.getFirstAnd("link_id", "=", link, "echoarea_id", "=",
+								area);
+				if (cursor == null) {
+					ensureEchomailCursor(link, area, lastId);
+				} else if (cursor.getLastId() > lastId) {
+					cursor.setLastId(lastId);
+					ORMManager.get(EchomailCursor.class).update(cursor);
+				}
+			}
+			return EchomailStores.get().getAfter(area, lastId, num).size();
+		}
+		List<Echomail> mails = ORMManager.get(Echomail.class)
+				.getOrderLimitAnd(num, "id", false, "echoarea_id", "=", area);
+		for (int i = mails.size() - 1; i >= 0; --i) {
+			ORMManager.get(EchomailAwaiting.class).save(
+					new EchomailAwaiting(link, mails.get(i)));
+		}
+		return mails.size();
+	}
+
 	public static FtnAddress getPrimaryFtnAddress() {
 		return MainHandler.getCurrentInstance().getInfo().getAddressList()
 				.get(0);
@@ -1886,15 +1961,13 @@ public final class FtnTools {
 				ORMManager.get(Echoarea.class).update(area);
 				ORMManager.get(Subscription.class).delete("echoarea_id", "=",
 						area);
-				List<Echomail> toDelete = ORMManager.get(Echomail.class)
-						.getAnd("echoarea_id", "=", area);
-				for (Echomail mail : toDelete) {
-					ORMManager.get(EchomailAwaiting.class).delete(
-							"echomail_id", "=", mail);
-					ORMManager.get(Echomail.class).delete(mail);
-				}
+				ORMManager.get(EchomailCursor.class).delete("echoarea_id",
+						"=", area);
+				forgetEchomailCursors();
+				EchomailStores.get().deleteArea(area);
 				ORMManager.get(Echoarea.class).delete(area);
 				logger.l2("Echoarea " + area.getName() + " deleted");
+				Notifier.INSTANCE.notify(new DeletedEchoareaEvent(area));
 			}
 		}
 
@@ -1911,6 +1984,9 @@ public final class FtnTools {
 				ORMManager.get(Link.class).update(link);
 				ORMManager.get(EchomailAwaiting.class).delete("link_id", "=",
 						link);
+				ORMManager.get(EchomailCursor.class).delete("link_id", "=",
+						link);
+				forgetEchomailCursors();
 				ORMManager.get(FilemailAwaiting.class).delete("link_id", "=",
 						link);
 				ORMManager.get(Subscription.class).delete("link_id", "=", link);
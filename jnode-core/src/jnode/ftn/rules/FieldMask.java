@@ -0,0 +1,135 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import jnode.logger.Logger;
+
+/**
+ * Compiled form of one mask field of routing/rewrite rules. Same semantics
+ * as <code>value.matches(mask)</code> with "*" or null meaning any value, but
+ * plain literals ( "2:5020/1042" ) and literal prefixes ( "2:5020/.*" ) are
+ * checked without regex
+ */
+public final class FieldMask {
+	private static final Logger logger = Logger.getLogger(FieldMask.class);
+	private static final String METACHARS = "\\^$.|?*+()[]{}";
+
+	public enum Kind {
+		ANY, EXACT, PREFIX, REGEX, NONE
+	}
+
+	public static final FieldMask ANY = new FieldMask(Kind.ANY, "*", null,
+			null);
+
+	private final Kind kind;
+	private final String source;
+	private final String literal;
+	private final Pattern pattern;
+
+	private FieldMask(Kind kind, String source, String literal,
+			Pattern pattern) {
+		this.kind = kind;
+		this.source = source;
+		this.literal = literal;
+		this.pattern = pattern;
+	}
+
+	public static FieldMask compile(String mask) {
+		if (mask == null || "*".equals(mask)) {
+			return ANY;
+		}
+		StringBuilder sb = new StringBuilder(mask.length());
+		int i = 0;
+		while (i < mask.length()) {
+			char c = mask.charAt(i);
+			if (c == '\\' && i + 1 < mask.length()
+					&& !Character.isLetterOrDigit(mask.charAt(i + 1))) {
+				sb.append(mask.charAt(i + 1));
+				i += 2;
+			} else if (METACHARS.indexOf(c) >= 0) {
+				break;
+			} else {
+				sb.append(c);
+				i++;
+			}
+		}
+		if (i == mask.length()) {
+			return new FieldMask(Kind.EXACT, mask, sb.toString(), null);
+		}
+		if (i == mask.length() - 2 && mask.endsWith(".*")) {
+			return new FieldMask(Kind.PREFIX, mask, sb.toString(), null);
+		}
+		try {
+			return new FieldMask(Kind.REGEX, mask, null, Pattern.compile(mask));
+		} catch (PatternSyntaxException e) {
+			logger.l2("Bad mask " + mask + ", it will never match: "
+					+ e.getDescription());
+			return new FieldMask(Kind.NONE, mask, null, null);
+		}
+	}
+
+	public boolean matches(String value) {
+		switch (kind) {
+		case ANY:
+			return true;
+		case EXACT:
+			return literal.equals(value);
+		case PREFIX:
+			return value != null && value.startsWith(literal)
+					&& !hasLineTerminator(value, literal.length());
+		case REGEX:
+			return value != null && pattern.matcher(value).matches();
+		default:
+			return false;
+		}
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return unescaped text for EXACT and PREFIX masks
+	 */
+	public String getLiteral() {
+		return literal;
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+
+	// "." does not match line terminators
+	private static boolean hasLineTerminator(String value, int from) {
+		for (int i = from; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\n' || c == '\r' || c == 0x85 || c == 0x2028
+					|| c == 0x2029) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
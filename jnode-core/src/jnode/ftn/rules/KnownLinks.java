@@ -0,0 +1,70 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import jnode.dao.GenericDAO;
+import jnode.dto.Link;
+import jnode.ftn.types.FtnAddress;
+import jnode.orm.ORMManager;
+
+/**
+ * Addresses of configured links for yes/no checks on hot paths; rebuilt
+ * when links are changed through DAO
+ */
+public final class KnownLinks {
+	private static volatile KnownLinks current;
+
+	private final long version;
+	private final Set<String> addresses;
+
+	KnownLinks(Collection<String> addresses, long version) {
+		this.version = version;
+		this.addresses = new HashSet<>(addresses);
+	}
+
+	public static KnownLinks get() {
+		long version = GenericDAO.getVersion(Link.class);
+		KnownLinks links = current;
+		if (links == null || links.version != version) {
+			synchronized (KnownLinks.class) {
+				links = current;
+				if (links == null || links.version != version) {
+					Set<String> addresses = new HashSet<>();
+					for (Link link : ORMManager.get(Link.class).getColumnsAnd(
+							new String[] { "ftn_address" })) {
+						addresses.add(link.getLinkAddress());
+					}
+					links = new KnownLinks(addresses, version);
+					current = links;
+				}
+			}
+		}
+		return links;
+	}
+
+	public boolean contains(FtnAddress address) {
+		return addresses.contains(address.toString());
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jnode.dao.GenericDAO;
+import jnode.dto.NetmailAcceptRule;
+import jnode.ftn.types.FtnMessage;
+import jnode.logger.Logger;
+import jnode.orm.ORMManager;
+
+/**
+ * Immutable netmail acceptance policy compiled from enabled
+ * {@link NetmailAcceptRule}s. The first matching rule with "stop processing"
+ * decides, no decision means reject. A new policy replaces the old one when
+ * rules are changed through DAO, so decisions memoized by (from, to) never
+ * outlive the rules they were made by
+ */
+public final class NetmailAcceptPolicy {
+	private static final Logger logger = Logger
+			.getLogger(NetmailAcceptPolicy.class);
+	private static final int MEMO_SIZE = 4096;
+
+	private static volatile NetmailAcceptPolicy current;
+
+	private static final class Rule {
+		private final NetmailAcceptRule rule;
+		private final int order;
+		private final FieldMask[] masks;
+
+		private Rule(NetmailAcceptRule rule, int order) {
+			this.rule = rule;
+			this.order = order;
+			this.masks = new FieldMask[] {
+					FieldMask.compile(rule.getFromAddress()),
+					FieldMask.compile(rule.getToAddress()),
+					FieldMask.compile(rule.getFromName()),
+					FieldMask.compile(rule.getToName()),
+					FieldMask.compile(rule.getSubject()) };
+		}
+
+		private boolean matches(String[] values, int from) {
+			for (int i = from; i < masks.length; i++) {
+				if (!masks[i].matches(values[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean isAddressOnly() {
+			return masks[2] == FieldMask.ANY && masks[3] == FieldMask.ANY
+					&& masks[4] == FieldMask.ANY;
+		}
+	}
+
+	private final long version;
+	private final Rule[] rules;
+	private final Rule[] general;
+	private final PrefixIndex index = new PrefixIndex();
+	private final boolean addressOnly;
+	private final Map<String, Boolean> memo;
+
+	/**
+	 * @param rules
+	 *            sorted by nice
+	 */
+	NetmailAcceptPolicy(List<NetmailAcceptRule> rules, long version) {
+		this.version = version;
+		List<Rule> enabled = new ArrayList<>();
+		List<Rule> other = new ArrayList<>();
+		boolean onlyAddresses = true;
+		for (NetmailAcceptRule rule : rules) {
+			if (!Boolean.TRUE.equals(rule.getEnabled())) {
+				continue;
+			}
+			Rule compiled = new Rule(rule, enabled.size());
+			enabled.add(compiled);
+			onlyAddresses &= compiled.isAddressOnly();
+			if (PrefixIndex.isIndexable(compiled.masks[0])) {
+				index.add(compiled.masks[0], compiled.order);
+			} else {
+				other.add(compiled);
+			}
+		}
+		this.rules = enabled.toArray(new Rule[0]);
+		this.general = other.toArray(new Rule[0]);
+		this.addressOnly = onlyAddresses;
+		this.memo = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(
+				64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > MEMO_SIZE;
+			}
+		});
+	}
+
+	public static NetmailAcceptPolicy get() {
+		long version = GenericDAO.getVersion(NetmailAcceptRule.class);
+		NetmailAcceptPolicy policy = current;
+		if (policy == null || policy.version != version) {
+			synchronized (NetmailAcceptPolicy.class) {
+				policy = current;
+				if (policy == null || policy.version != version) {
+					List<NetmailAcceptRule> rules = ORMManager.get(
+							NetmailAcceptRule.class).getOrderAnd("nice", true);
+					policy = new NetmailAcceptPolicy(rules, version);
+					current = policy;
+					logger.l4("Netmail accept policy compiled: "
+							+ policy.rules.length + " enabled rules");
+				}
+			}
+		}
+		return policy;
+	}
+
+	/**
+	 * @param netmail
+	 * @return true if rules accept netmail
+	 */
+	public boolean accepts(FtnMessage netmail) {
+		String[] values = { netmail.getFromAddr().toString(),
+				netmail.getToAddr().toString(), netmail.getFromName(),
+				netmail.getToName(), netmail.getSubject() };
+		if (!addressOnly) {
+			return decide(values);
+		}
+		String key = values[0] + ' ' + values[1];
+		Boolean accept = memo.get(key);
+		if (accept == null) {
+			accept = decide(values);
+			memo.put(key, accept);
+		}
+		return accept;
+	}
+
+	private boolean decide(String[] values) {
+		List<Integer> indexed = index.lookup(values[0]);
+		int g = 0;
+		int x = 0;
+		while (g < general.length || x < indexed.size()) {
+			Rule rule;
+			if (x >= indexed.size()
+					|| (g < general.length && general[g].order < indexed
+							.get(x))) {
+				rule = general[g++];
+				if (!rule.matches(values, 0)) {
+					continue;
+				}
+			} else {
+				rule = rules[indexed.get(x++)];
+				if (!rule.matches(values, 1)) {
+					continue;
+				}
+			}
+			logger.l4(String.format(
+					"Netmail %s -> %s matched rule: %s (action: %s)",
+					values[0], values[1], rule.rule.getDescription(),
+					rule.rule.getAction()));
+			if (Boolean.TRUE.equals(rule.rule.getStopProcessing())) {
+				return rule.rule.getAction() == NetmailAcceptRule.Action.ACCEPT;
+			}
+		}
+		// Default: reject if no rules matched
+		return false;
+	}
+}
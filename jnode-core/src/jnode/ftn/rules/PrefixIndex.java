@@ -0,0 +1,96 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Character trie of ANY, EXACT and PREFIX masks over address strings.
+ * Addresses have no line terminators, so prefix masks are plain startsWith
+ * here
+ */
+final class PrefixIndex {
+	private static final class Node {
+		private final Map<Character, Node> next = new HashMap<>();
+		private final List<Integer> prefix = new ArrayList<>();
+		private final List<Integer> exact = new ArrayList<>();
+	}
+
+	private final Node root = new Node();
+
+	static boolean isIndexable(FieldMask mask) {
+		return mask.getKind() == FieldMask.Kind.ANY
+				|| mask.getKind() == FieldMask.Kind.EXACT
+				|| mask.getKind() == FieldMask.Kind.PREFIX;
+	}
+
+	/**
+	 * @param mask
+	 *            indexable mask
+	 * @param order
+	 *            rule order
+	 */
+	void add(FieldMask mask, int order) {
+		Node node = root;
+		if (mask.getKind() == FieldMask.Kind.ANY) {
+			node.prefix.add(order);
+			return;
+		}
+		String literal = mask.getLiteral();
+		for (int j = 0; j < literal.length(); j++) {
+			Node child = node.next.get(literal.charAt(j));
+			if (child == null) {
+				child = new Node();
+				node.next.put(literal.charAt(j), child);
+			}
+			node = child;
+		}
+		if (mask.getKind() == FieldMask.Kind.PREFIX) {
+			node.prefix.add(order);
+		} else {
+			node.exact.add(order);
+		}
+	}
+
+	/**
+	 * @return orders of masks matching value, ascending
+	 */
+	List<Integer> lookup(String value) {
+		List<Integer> found = new ArrayList<>(root.prefix);
+		Node node = root;
+		int i = 0;
+		for (; i < value.length(); i++) {
+			node = node.next.get(value.charAt(i));
+			if (node == null) {
+				break;
+			}
+			found.addAll(node.prefix);
+		}
+		if (node != null && i == value.length()) {
+			found.addAll(node.exact);
+		}
+		found.sort(null);
+		return found;
+	}
+}
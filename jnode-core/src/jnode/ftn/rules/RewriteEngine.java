@@ -0,0 +1,228 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import jnode.dao.GenericDAO;
+import jnode.dto.Rewrite;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import jnode.logger.Logger;
+import jnode.orm.ORMManager;
+
+/**
+ * Rewrite rules compiled per {@link Rewrite.Type}; rebuilt when rewrites
+ * are changed through DAO
+ */
+public final class RewriteEngine {
+	private static final Logger logger = Logger.getLogger(RewriteEngine.class);
+	private static final String ORIGIN = " * Origin: ";
+
+	private static volatile RewriteEngine current;
+
+	private static final class Rule {
+		private final Rewrite rewrite;
+		private final FieldMask[] masks;
+
+		private Rule(Rewrite rewrite) {
+			this.rewrite = rewrite;
+			this.masks = new FieldMask[] {
+					FieldMask.compile(rewrite.getOrig_from_addr()),
+					FieldMask.compile(rewrite.getOrig_to_addr()),
+					FieldMask.compile(rewrite.getOrig_from_name()),
+					FieldMask.compile(rewrite.getOrig_to_name()),
+					FieldMask.compile(rewrite.getOrig_subject()) };
+		}
+
+		private boolean matches(FtnMessage message) {
+			// cheap checks first: addresses are usually literals or prefixes
+			return masks[0].matches(message.getFromAddr().toString())
+					&& masks[1].matches(message.getToAddr().toString())
+					&& masks[2].matches(message.getFromName())
+					&& masks[3].matches(message.getToName())
+					&& masks[4].matches(message.getSubject());
+		}
+	}
+
+	private final long version;
+	private final Map<Rewrite.Type, Rule[]> rules = new EnumMap<>(
+			Rewrite.Type.class);
+
+	/**
+	 * @param rewrites
+	 *            sorted by nice
+	 */
+	RewriteEngine(List<Rewrite> rewrites, long version) {
+		this.version = version;
+		for (Rewrite.Type type : Rewrite.Type.values()) {
+			List<Rule> list = new ArrayList<>();
+			for (Rewrite rewrite : rewrites) {
+				if (rewrite.getType() == type) {
+					list.add(new Rule(rewrite));
+				}
+			}
+			rules.put(type, list.toArray(new Rule[0]));
+		}
+	}
+
+	public static RewriteEngine get() {
+		long version = GenericDAO.getVersion(Rewrite.class);
+		RewriteEngine engine = current;
+		if (engine == null || engine.version != version) {
+			synchronized (RewriteEngine.class) {
+				engine = current;
+				if (engine == null || engine.version != version) {
+					List<Rewrite> rewrites = ORMManager.get(Rewrite.class)
+							.getOrderAnd("nice", true);
+					engine = new RewriteEngine(rewrites, version);
+					current = engine;
+					logger.l4("Rewrite rules compiled: " + rewrites.size());
+				}
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * Apply matching rules in nice order until the last one
+	 *
+	 * @param message
+	 */
+	public void process(FtnMessage message) {
+		Rule[] list = rules.get((message.isNetmail()) ? Rewrite.Type.NETMAIL
+				: Rewrite.Type.ECHOMAIL);
+		for (Rule rule : list) {
+			if (rule.matches(message)) {
+				logger.l5(((message.isNetmail()) ? "NET" : "ECH")
+						+ " - match found, rewriting " + message.getMsgid());
+				rewrite(rule.rewrite, message);
+				if (rule.rewrite.isLast()) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replace message fields with new values of rule
+	 *
+	 * @param rewrite
+	 * @param message
+	 */
+	public static void rewrite(Rewrite rewrite, FtnMessage message) {
+		String newFromAddr = rewrite.getNew_from_addr();
+		if (isSet(newFromAddr)) {
+			FtnAddress nfa = new FtnAddress(newFromAddr);
+			rewriteFromAddr(message, nfa);
+			message.setFromAddr(nfa);
+			logger.l5("Rewrite fromAddr to " + newFromAddr);
+		}
+		if (isSet(rewrite.getNew_to_addr())) {
+			message.setToAddr(new FtnAddress(rewrite.getNew_to_addr()));
+			logger.l5("Rewrite toAddr to " + rewrite.getNew_to_addr());
+		}
+		if (isSet(rewrite.getNew_from_name())) {
+			message.setFromName(rewrite.getNew_from_name());
+			logger.l5("Rewrite fromName to " + rewrite.getNew_from_name());
+		}
+		if (isSet(rewrite.getNew_to_name())) {
+			message.setToName(rewrite.getNew_to_name());
+			logger.l5("Rewrite toName to " + rewrite.getNew_to_name());
+		}
+		if (isSet(rewrite.getNew_subject())) {
+			message.setSubject(rewrite.getNew_subject());
+			logger.l5("Rewrite subject to " + rewrite.getNew_subject());
+		}
+	}
+
+	private static boolean isSet(String value) {
+		return value != null && !value.equals("*");
+	}
+
+	/**
+	 * MSGID "old-address serial" becomes "new-address serial" everywhere in
+	 * text and the first Origin line ending with (old-address) gets the new
+	 * one; both in a single pass over the text
+	 */
+	static void rewriteFromAddr(FtnMessage message, FtnAddress nfa) {
+		String oldAddr = message.getFromAddr().toString();
+		String newAddr = nfa.toString();
+		String oldMsgid = message.getMsgid();
+		String newMsgid = null;
+		if (oldMsgid != null && oldMsgid.startsWith(oldAddr + " ")) {
+			String serial = oldMsgid.substring(oldAddr.length() + 1);
+			if (!serial.isEmpty() && !hasWhitespace(serial)) {
+				newMsgid = newAddr + " " + serial;
+			}
+		} // TODO : netmail msgid
+		String text = message.getText();
+		if (text == null) {
+			if (newMsgid != null) {
+				message.setMsgid(newMsgid);
+			}
+			return;
+		}
+		String originEnd = " (" + oldAddr + ")";
+		boolean originDone = false;
+		StringBuilder sb = new StringBuilder(text.length() + 16);
+		int start = 0;
+		while (start <= text.length()) {
+			int end = start;
+			while (end < text.length() && text.charAt(end) != '\n'
+					&& text.charAt(end) != '\r') {
+				end++;
+			}
+			String line = text.substring(start, end);
+			if (newMsgid != null && line.contains(oldMsgid)) {
+				line = line.replace(oldMsgid, newMsgid);
+			}
+			if (!originDone && line.startsWith(ORIGIN)
+					&& line.endsWith(originEnd)
+					&& line.length() >= ORIGIN.length() + originEnd.length()) {
+				line = line.substring(0, line.length() - originEnd.length())
+						+ " (" + newAddr + ")";
+				originDone = true;
+			}
+			sb.append(line);
+			if (end < text.length()) {
+				sb.append(text.charAt(end));
+			}
+			start = end + 1;
+		}
+		message.setText(sb.toString());
+		if (newMsgid != null) {
+			message.setMsgid(newMsgid);
+		}
+	}
+
+	private static boolean hasWhitespace(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (Character.isWhitespace(s.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
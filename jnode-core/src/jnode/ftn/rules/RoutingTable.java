@@ -0,0 +1,223 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jnode.dao.GenericDAO;
+import jnode.dto.Link;
+import jnode.dto.Route;
+import jnode.ftn.types.FtnMessage;
+import jnode.logger.Logger;
+import jnode.orm.ORMManager;
+
+/**
+ * Netmail routing compiled from the routing table. Rules matching on
+ * destination address only are kept in a prefix trie over the address
+ * string, the rest are checked one by one with precompiled masks; the first
+ * matching rule by nice wins as before.
+ *
+ * The table is rebuilt when routing is changed through DAO
+ */
+public final class RoutingTable {
+	private static final Logger logger = Logger.getLogger(RoutingTable.class);
+	private static final String[] FIELDS = { "fromAddr", "toAddr",
+			"fromName", "toName", "subject" };
+
+	private static volatile RoutingTable current;
+
+	private static final class Rule {
+		private final Route route;
+		private final int order;
+		private final FieldMask[] masks;
+		private final boolean indexed;
+
+		private Rule(Route route, int order) {
+			this.route = route;
+			this.order = order;
+			this.masks = new FieldMask[] { FieldMask.compile(route.getFromAddr()),
+					FieldMask.compile(route.getToAddr()),
+					FieldMask.compile(route.getFromName()),
+					FieldMask.compile(route.getToName()),
+					FieldMask.compile(route.getSubject()) };
+			this.indexed = masks[0] == FieldMask.ANY
+					&& masks[2] == FieldMask.ANY && masks[3] == FieldMask.ANY
+					&& masks[4] == FieldMask.ANY
+					&& PrefixIndex.isIndexable(masks[1]);
+		}
+
+		/**
+		 * @return index of first field that does not match or -1
+		 */
+		private int mismatch(String[] values) {
+			for (int i = 0; i < masks.length; i++) {
+				if (!masks[i].matches(values[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private final long version;
+	private final Rule[] rules;
+	private final Rule[] general;
+	private final PrefixIndex index = new PrefixIndex();
+
+	/**
+	 * @param routes
+	 *            sorted by nice
+	 */
+	RoutingTable(List<Route> routes, long version) {
+		this.version = version;
+		this.rules = new Rule[routes.size()];
+		List<Rule> other = new ArrayList<>();
+		for (int i = 0; i < rules.length; i++) {
+			Rule rule = new Rule(routes.get(i), i);
+			rules[i] = rule;
+			if (rule.indexed) {
+				index.add(rule.masks[1], i);
+			} else {
+				other.add(rule);
+			}
+		}
+		this.general = other.toArray(new Rule[0]);
+	}
+
+	/**
+	 * @return table for current routing rules
+	 */
+	public static RoutingTable get() {
+		long version = GenericDAO.getVersion(Route.class);
+		RoutingTable table = current;
+		if (table == null || table.version != version) {
+			synchronized (RoutingTable.class) {
+				table = current;
+				if (table == null || table.version != version) {
+					List<Route> routes = ORMManager.get(Route.class)
+							.getOrderAnd("nice", true);
+					table = new RoutingTable(routes, version);
+					current = table;
+					logger.l4("Routing table compiled: " + routes.size()
+							+ " rules, " + table.general.length
+							+ " of them not indexed");
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @param message
+	 * @return first matching rule or null
+	 */
+	public Route route(FtnMessage message) {
+		return find(message, null);
+	}
+
+	/**
+	 * @param message
+	 * @param previous
+	 * @return first matching rule routing not via previous or null
+	 */
+	public Route fallback(FtnMessage message, Link previous) {
+		return find(message, previous);
+	}
+
+	/**
+	 * Routing decision step by step, for debugging
+	 *
+	 * @param message
+	 * @return
+	 */
+	public List<String> explain(FtnMessage message) {
+		String[] values = values(message);
+		List<Integer> indexed = index.lookup(values[1]);
+		List<String> trace = new ArrayList<>();
+		boolean found = false;
+		for (Rule rule : rules) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("route #").append(rule.route.getId()).append(" nice ")
+					.append(rule.route.getNice()).append(" via ")
+					.append(linkId(rule.route.getRouteVia()))
+					.append(rule.indexed ? " [indexed]: " : ": ");
+			int field = rule.mismatch(values);
+			if (field < 0) {
+				sb.append(found ? "matches, shadowed" : "MATCHES");
+				found = true;
+			} else {
+				sb.append(FIELDS[field]).append(" '").append(values[field])
+						.append("' does not match '")
+						.append(rule.masks[field]).append('\'');
+			}
+			if (rule.indexed && (field < 0) != indexed.contains(rule.order)) {
+				sb.append(" (index disagrees!)");
+			}
+			trace.add(sb.toString());
+		}
+		if (!found) {
+			trace.add("no route matches");
+		}
+		return trace;
+	}
+
+	public int size() {
+		return rules.length;
+	}
+
+	private Route find(FtnMessage message, Link skip) {
+		String[] values = values(message);
+		List<Integer> indexed = index.lookup(values[1]);
+		int g = 0;
+		int x = 0;
+		while (g < general.length || x < indexed.size()) {
+			Rule rule;
+			if (x >= indexed.size()
+					|| (g < general.length && general[g].order < indexed
+							.get(x))) {
+				rule = general[g++];
+				if (rule.mismatch(values) >= 0) {
+					continue;
+				}
+			} else {
+				rule = rules[indexed.get(x++)];
+			}
+			if (skip != null && rule.route.getRouteVia() != null
+					&& skip.getId() != null
+					&& skip.getId().equals(rule.route.getRouteVia().getId())) {
+				continue;
+			}
+			return rule.route;
+		}
+		return null;
+	}
+
+	private static String[] values(FtnMessage message) {
+		return new String[] { message.getFromAddr().toString(),
+				message.getToAddr().toString(), message.getFromName(),
+				message.getToName(), message.getSubject() };
+	}
+
+	private static String linkId(Link link) {
+		return (link == null) ? "null" : "link #" + link.getId();
+	}
+}
@@ -35,8 +35,12 @@ import jnode.logger.Logger;
 import jnode.main.MainHandler;
 import jnode.main.threads.PollQueue;
 import jnode.main.threads.TosserQueue;
+import jnode.metrics.Histogram;
+import jnode.metrics.Metrics;
 import jnode.orm.ORMManager;
 import jnode.protocol.io.Message;
+import jnode.store.EchoareaSummaries;
+import jnode.store.EchomailStores;
 
 import java.io.*;
 import java.text.MessageFormat;
@@ -64,6 +68,9 @@ public class FtnTosser {
 	private static final String LOOP_PREVENTION_NETMAIL = "tosser.loop_prevention.netmail";
 	private static final String OLD_MESSAGE_DAYS_THRESHOLD = "tosser.old_message_days_threshold";
 	private static final String TROUBLESHOOTING_DIRECTORY = "tosser.troubleshooting.directory";
+	private static final String MESSAGES_METRIC = "jnode_tosser_messages_total";
+	private static final Histogram PKT_TOSS = Metrics.timer(
+			"jnode_tosser_pkt_seconds", "Time to toss one PKT");
 	private final Map<String, Integer> tossed = new HashMap<>();
 	private final Map<String, Integer> bad = new HashMap<>();
 	private final Set<Link> pollLinks = new HashSet<>();
@@ -399,7 +406,7 @@ public class FtnTosser {
 		mail.setSeenBy(write2D(echomail.getSeenby(), true));
 		mail.setPath(write2D(echomail.getPath(), false));
 		mail.setMsgid(echomail.getMsgid());
-		ORMManager.get(Echomail.class).save(mail);
+		EchomailStores.get().save(mail);
 		if (mail.getId() != null) {
 			// Check if message is too old to forward to links
 			boolean tooOldToForward = isMessageTooOldToForward(echomail.getDate());
@@ -416,8 +423,7 @@ public class FtnTosser {
 					
 					// Only forward to links if message is not too old
 					if (!tooOldToForward) {
-						ORMManager.get(EchomailAwaiting.class).save(
-								new EchomailAwaiting(sub.getLink(), mail));
+						queueEchomail(sub.getLink(), mail);
 						pollLinks.add(sub.getLink());
 					}
 				}
@@ -469,6 +475,7 @@ public class FtnTosser {
 		if (listFiles != null) {
 			for (File file : listFiles) {
 				String loname = file.getName().toLowerCase();
+				long started = System.nanoTime();
 				if (loname.matches("^[a-f0-9]{8}\\.pkt$")) {
 					try {
 						Message m = new Message(file);
@@ -524,6 +531,7 @@ public class FtnTosser {
 						logger.l2(String.format("MAIL ERROR: Tossing failed for file %s - %s", 
 								file.getName(), e.getLocalizedMessage()), e);
 					}
+					PKT_TOSS.observeSince(started);
 				} else if (loname.matches("(s|u)inb\\d*.pkt")) {
 					try {
 						Message m = new Message(file);
@@ -599,6 +607,7 @@ public class FtnTosser {
 						logger.l2(String.format("MAIL ERROR: Tossing failed for file %s - %s", 
 								file.getName(), e.getLocalizedMessage()), e);
 					}
+					PKT_TOSS.observeSince(started);
 				} else if (loname.matches("^[a-z0-9]{8}\\.tic$")) {
 					if (!MainHandler.getCurrentInstance().getBooleanProperty(
 							FILEECHO_ENABLE, true)) {
@@ -937,12 +946,16 @@ public class FtnTosser {
 			logger.l3("Messages wrote:");
 			for (String area : tossed.keySet()) {
 				logger.l3(String.format("\t%s - %d", area, tossed.get(area)));
+				Metrics.counter(MESSAGES_METRIC, "Messages tossed and dropped",
+						"area", area, "result", "tossed").add(tossed.get(area));
 			}
 		}
 		if (!bad.isEmpty()) {
 			logger.l2("Messages dropped:");
 			for (String area : bad.keySet()) {
 				logger.l2(String.format("\t%s - %d", area, bad.get(area)));
+				Metrics.counter(MESSAGES_METRIC, "Messages tossed and dropped",
+						"area", area, "result", "dropped").add(bad.get(area));
 			}
 		}
 
@@ -1009,7 +1022,8 @@ public class FtnTosser {
 						}
 						for (Netmail n : mail) {
 							n.setSend(true);
-							ORMManager.get(Netmail.class).update(n);
+							ORMManager.get(Netmail.class).updateLater("send",
+									true, "id", n.getId());
 							logger.l4(String
 									.format("Netmail #%d %s -> %s for %s flags %d was packed",
 											n.getId(), n.getFromFTN(),
@@ -1046,6 +1060,10 @@ public class FtnTosser {
 		boolean pack = getOptionBooleanDefTrue(link,
 				LinkOption.BOOLEAN_PACK_ECHOMAIL);
 		Ftn2D link2d = new Ftn2D(address.getNet(), address.getNode());
+		FtnAddress ourAka = selectOurAka(link, "packEchomail-seenby");
+		Ftn2D me = new Ftn2D(ourAka.getNet(), ourAka.getNode());
+		// subscribers of an area do not change while packing for one link
+		Map<Long, Ftn2DSet> areaSeenBys = new HashMap<>();
 		int num = 0;
 		int orphanedRecordsFound = 0;
 		int loopCount = 0;
@@ -1108,30 +1126,12 @@ public class FtnTosser {
 							orphanedRecordsFound++;
 							continue;
 						}
-						List<Ftn2D> path = read2D(mail.getPath());
-						Set<Ftn2D> seenby = new HashSet<>(
-								read2D(mail.getSeenBy()));
-						if (seenby.contains(link2d) && address.getPoint() == 0) {
-							logger.l5(link2d + " is in seenby for " + address);
+						if (writeEchomail(os, link, address, link2d, me, mail,
+								areaSeenBys)) {
+							num++;
+						} else {
 							deleteEAmail(e);
-							continue;
-						}
-						seenby.add(link2d);
-						seenby.addAll(createSeenBy(area));
-						FtnAddress ourAka = selectOurAka(link, "packEchomail-seenby");
-						Ftn2D me = new Ftn2D(ourAka.getNet(), ourAka.getNode());
-						seenby.add(me);
-						if (!path.contains(me)) {
-							path.add(me);
 						}
-
-						FtnMessage msg = createEchomail(address, mail, area,
-								seenby, path);
-						logger.l4("Echomail #" + mail.getId() + " ("
-								+ area.getName() + ") packed for "
-								+ link.getLinkAddress());
-						msg.write(os);
-						num++;
 					}
 
 					// Remove any orphaned records from the processing list to prevent infinite loops
@@ -1142,6 +1142,11 @@ public class FtnTosser {
 					}
 				}
 			} while (!email.isEmpty());
+			if (isEchomailCursorEnabled()) {
+				// echomailawait rows left from queue mode are drained above
+				num += packEchomailCursors(os, link, address, link2d, me,
+						areaSeenBys);
+			}
 			header.finalz(os);
 			fos.close();
 			if (num == 0) {
@@ -1168,6 +1173,159 @@ public class FtnTosser {
 		return messages;
 	}
 
+	/**
+	 * Pack echomail of all areas the link is subscribed to with id above the
+	 * link's cursor and move the cursors forward
+	 * 
+	 * @return number of packed messages
+	 */
+	int packEchomailCursors(OutputStream os, Link link, FtnAddress address,
+			Ftn2D link2d, Ftn2D me, Map<Long, Ftn2DSet> areaSeenBys) {
+		// rescan moves cursors back, it must not be overwritten
+		synchronized (getEchomailCursorLock(link)) {
+			int num = 0;
+			int limit = MainHandler.getCurrentInstance().getIntegerProperty(
+					MAIL_LIMIT, 100);
+			boolean paused = getOptionBooleanDefFalse(link,
+					LinkOption.BOOLEAN_PAUSE);
+			// a smaller id may still be committing above it
+			long visibleId = EchomailStores.get().getVisibleId();
+			Map<Long, EchomailCursor> cursors = new HashMap<>();
+			for (EchomailCursor cursor : ORMManager.get(EchomailCursor.class)
+					.getAnd("link_id", "=", link)) {
+				cursors.put(cursor.getArea().getId(), cursor);
+			}
+			List<EchomailCursor> behind = new ArrayList<>();
+			for (Subscription sub : ORMManager.get(Subscription.class).getAnd(
+					"link_id", "=", link)) {
+				Echoarea area = sub.getArea();
+				EchomailCursor cursor = cursors.remove(area.getId());
+				long areaLastId = EchoareaSummaries.getLastId(area);
+				if (cursor == null) {
+					// nothing was tossed since subscribing
+					ensureEchomailCursor(link, area, areaLastId);
+				} else if (areaLastId > cursor.getLastId()
+						&& visibleId > cursor.getLastId()) {
+					behind.add(cursor);
+				}
+			}
+			if (!behind.isEmpty()) {
+				// subscriptions only carry area ids, the packet needs names
+				List<Long> ids = new ArrayList<>();
+				for (EchomailCursor cursor : behind) {
+					ids.add(cursor.getArea().getId());
+				}
+				Map<Long, Echoarea> areas = new HashMap<>();
+				for (Echoarea area : ORMManager.get(Echoarea.class).getAnd("id",
+						"in", ids)) {
+					areas.put(area.getId(), area);
+				}
+				for (EchomailCursor cursor : behind) {
+					Echoarea area = areas.get(cursor.getArea().getId());
+					if (area != null) {
+						num += packEchomailCursor(os, link, address, link2d, me,
+								areaSeenBys, cursor, area, paused, limit,
+								visibleId);
+					}
+				}
+			}
+			if (!cursors.isEmpty()) {
+				for (EchomailCursor cursor : cursors.values()) {
+					ORMManager.get(EchomailCursor.class).delete(cursor);
+				}
+				forgetEchomailCursors();
+			}
+			return num;
+		}
+	}
+
+	private int packEchomailCursor(OutputStream os, Link link,
+			FtnAddress address, Ftn2D link2d, Ftn2D me,
+			Map<Long, Ftn2DSet> areaSeenBys, EchomailCursor cursor,
+			Echoarea area, boolean paused, int limit, long visibleId) {
+		int num = 0;
+		long lastId = cursor.getLastId();
+		boolean more = true;
+		while (more) {
+			List<Echomail> mails = EchomailStores.get().getAfter(area, lastId,
+					limit);
+			more = mails.size() == limit;
+			for (Echomail mail : mails) {
+				if (mail.getId() > visibleId) {
+					more = false;
+					break;
+				}
+				lastId = mail.getId();
+				// same rules as for echomailawait rows created on toss
+				if (paused || mail.getArea() == null
+						|| isMessageTooOldToForward(mail.getDate())) {
+					continue;
+				}
+				if (address.getPoint() != 0
+						&& address.toString().equals(mail.getFromFTN())) {
+					continue;
+				}
+				if (address.getPoint() == 0 && isFromLink(mail, link2d)) {
+					continue;
+				}
+				if (writeEchomail(os, link, address, link2d, me, mail,
+						areaSeenBys)) {
+					num++;
+				}
+			}
+		}
+		if (lastId != cursor.getLastId()) {
+			cursor.setLastId(lastId);
+			ORMManager.get(EchomailCursor.class).update(cursor);
+		}
+		return num;
+	}
+
+	/**
+	 * Echomail does not keep the link it was tossed from; that link is the
+	 * last system on the PATH ( FTS-0004 )
+	 * 
+	 * @return true if the message came from link2d
+	 */
+	private boolean isFromLink(Echomail mail, Ftn2D link2d) {
+		List<Ftn2D> path = read2D(mail.getPath());
+		return !path.isEmpty() && path.get(path.size() - 1).equals(link2d);
+	}
+
+	/**
+	 * Write echomail to link's packet with our SEEN-BY and PATH added
+	 * 
+	 * @return false if link has already seen this message
+	 */
+	private boolean writeEchomail(OutputStream os, Link link,
+			FtnAddress address, Ftn2D link2d, Ftn2D me, Echomail mail,
+			Map<Long, Ftn2DSet> areaSeenBys) {
+		Echoarea area = mail.getArea();
+		Ftn2DSet seenby = Ftn2DSet.parse(mail.getSeenBy());
+		if (seenby.contains(link2d) && address.getPoint() == 0) {
+			logger.l5(link2d + " is in seenby for " + address);
+			return false;
+		}
+		List<Ftn2D> path = read2D(mail.getPath());
+		seenby.add(link2d);
+		Ftn2DSet areaSeenBy = areaSeenBys.get(area.getId());
+		if (areaSeenBy == null) {
+			areaSeenBy = createSeenBy(area);
+			areaSeenBys.put(area.getId(), areaSeenBy);
+		}
+		seenby.addAll(areaSeenBy);
+		seenby.add(me);
+		if (!path.contains(me)) {
+			path.add(me);
+		}
+
+		FtnMessage msg = createEchomail(address, mail, area, seenby, path);
+		logger.l4("Echomail #" + mail.getId() + " (" + area.getName()
+				+ ") packed for " + link.getLinkAddress());
+		msg.write(os);
+		return true;
+	}
+
 	private void deleteEAmail(EchomailAwaiting e) {
 		ORMManager.get(EchomailAwaiting.class).delete("link_id", "=",
 				e.getLink(), "echomail_id", "null");
@@ -1348,11 +1506,15 @@ public class FtnTosser {
 		List<FileForLink> ffls = ORMManager.get(FileForLink.class).getAnd(
 				"link_id", "eq", link);
 		for (FileForLink ffl : ffls) {
+			if (ORMManager.get(FileForLink.class).isDeletePending("link_id",
+					link.getId(), "filename", ffl.getFilename())) {
+				continue;
+			}
 			try {
 				File file = new File(ffl.getFilename());
 				Message m = new Message(file);
-				ORMManager.get(FileForLink.class).delete("link_id", "=", link,
-						"filename", "=", ffl.getFilename());
+				ORMManager.get(FileForLink.class).deleteLater("link_id",
+						link.getId(), "filename", ffl.getFilename());
 				msgs.add(m);
 			} catch (Exception ex) {
 				logger.l1(MessageFormat
@@ -1367,6 +1529,7 @@ public class FtnTosser {
 		LinkedList<Message> messages = new LinkedList<>();
 		String key = address.toString().intern();
 		synchronized (key) {
+			long started = System.nanoTime();
 			messages.addAll(packNetmail(address));
 			Link link = getLinkByFtnAddress(address);
 			if (link != null) {
@@ -1404,7 +1567,8 @@ public class FtnTosser {
 					}
 				}
 			}
-
+			Metrics.timer("jnode_tosser_pack_seconds", "Time to pack mail for link",
+					"link", link != null ? key : "other").observeSince(started);
 		}
 		return messages;
 	}
@@ -1454,16 +1618,15 @@ public class FtnTosser {
 		return null;
 	}
 
-	protected Set<Ftn2D> createSeenBy(Echoarea area) {
+	protected Ftn2DSet createSeenBy(Echoarea area) {
 		List<Subscription> ssubs = getSubscription(area);
-		Set<Ftn2D> seenby = new HashSet<>();
+		Ftn2DSet seenby = new Ftn2DSet(ssubs.size());
 		for (Subscription ssub : ssubs) {
 			try {
 				Link _sslink = ORMManager.get(Link.class).getById(
 						ssub.getLink().getId());
 				FtnAddress addr = new FtnAddress(_sslink.getLinkAddress());
-				Ftn2D d2 = new Ftn2D(addr.getNet(), addr.getNode());
-				seenby.add(d2);
+				seenby.add(addr.getNet(), addr.getNode());
 			} catch (NullPointerException e) {
 				logger.l1("Bad link for subscription " + ssub + " : ignored", e);
 			}
@@ -1473,7 +1636,7 @@ public class FtnTosser {
 	}
 
 	protected FtnMessage createEchomail(FtnAddress link_address, Echomail mail,
-			Echoarea area, Set<Ftn2D> seenby, List<Ftn2D> path) {
+			Echoarea area, Ftn2DSet seenby, List<Ftn2D> path) {
 		FtnMessage message = new FtnMessage();
 		message.setNetmail(false);
 		message.setArea(area.getName().toUpperCase());
@@ -1484,7 +1647,7 @@ public class FtnTosser {
 		message.setDate(mail.getDate());
 		message.setSubject(mail.getSubject());
 		message.setText(mail.getText());
-		message.setSeenby(new ArrayList<>(seenby));
+		message.setSeenby(seenby.toList());
 		message.setPath(path);
 		message.setMsgid(mail.getMsgid());
 		return message;
@@ -1492,10 +1655,18 @@ public class FtnTosser {
 
 	private List<Netmail> getNetmail(Link link) {
 		if (link.getId() != null) {
-			return ORMManager.get(Netmail.class).getLimitAnd(
+			List<Netmail> mail = ORMManager.get(Netmail.class).getLimitAnd(
 					MainHandler.getCurrentInstance().getIntegerProperty(
 							MAIL_LIMIT, 100), "send", "=", false, "route_via",
 					"=", link);
+			// already packed, but flag is not written yet
+			for (Iterator<Netmail> it = mail.iterator(); it.hasNext();) {
+				if (ORMManager.get(Netmail.class).isUpdatePending("send",
+						"id", it.next().getId())) {
+					it.remove();
+				}
+			}
+			return mail;
 		} else {
 			return new ArrayList<>();
 		}
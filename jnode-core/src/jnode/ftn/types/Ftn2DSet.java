@@ -0,0 +1,363 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.types;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sorted set of 2D addresses packed into a primitive array.
+ *
+ * Every address is kept as a single <code>long</code> (net in the high word,
+ * node in the low word), so membership tests and unions of SEEN-BY sets are
+ * done without creating {@link Ftn2D} objects. The set can be read from and
+ * written to the "net/node node net/node" text form used in the database and
+ * to a compact delta/varint encoded blob.
+ */
+public final class Ftn2DSet {
+	private static final int DEFAULT_CAPACITY = 16;
+	private long[] keys;
+	private int size;
+
+	public Ftn2DSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public Ftn2DSet(int capacity) {
+		keys = new long[Math.max(capacity, 1)];
+	}
+
+	public static Ftn2DSet of(Collection<Ftn2D> list) {
+		Ftn2DSet set = new Ftn2DSet(list.size());
+		for (Ftn2D d : list) {
+			set.keys[set.size++] = key(d.getNet(), d.getNode());
+		}
+		set.normalize();
+		return set;
+	}
+
+	/**
+	 * Parse 2d addresses through delimiter ( the format of
+	 * {@link jnode.ftn.FtnTools#write2D(List, boolean)} ). A bare node inherits
+	 * the net of the previous entry; malformed entries are skipped.
+	 *
+	 * @param list2d
+	 * @return
+	 */
+	public static Ftn2DSet parse(String list2d) {
+		Ftn2DSet set = new Ftn2DSet();
+		if (list2d == null) {
+			return set;
+		}
+		int len = list2d.length();
+		int lastNet = -1;
+		int i = 0;
+		while (i < len) {
+			char c = list2d.charAt(i);
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				i++;
+				continue;
+			}
+			int end = i;
+			while (end < len) {
+				char e = list2d.charAt(end);
+				if (e == ' ' || e == '\n' || e == '\r' || e == '\t') {
+					break;
+				}
+				end++;
+			}
+			int slash = list2d.indexOf('/', i);
+			if (slash >= 0 && slash < end) {
+				int net = parseNumber(list2d, i, slash);
+				int node = parseNumber(list2d, slash + 1, end);
+				if (net >= 0 && node >= 0) {
+					set.addKey(key(net, node));
+					lastNet = net;
+				} else {
+					lastNet = -1;
+				}
+			} else {
+				int node = parseNumber(list2d, i, end);
+				if (node >= 0 && lastNet >= 0) {
+					set.addKey(key(lastNet, node));
+				} else {
+					lastNet = -1;
+				}
+			}
+			i = end;
+		}
+		return set;
+	}
+
+	/**
+	 * Decode blob produced by {@link #encode()}
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static Ftn2DSet decode(byte[] data) {
+		if (data == null || data.length == 0) {
+			return new Ftn2DSet();
+		}
+		int[] pos = new int[] { 0 };
+		int count = readVarint(data, pos);
+		Ftn2DSet set = new Ftn2DSet(count);
+		int net = 0;
+		int node = 0;
+		for (int i = 0; i < count; i++) {
+			int netDelta = readVarint(data, pos);
+			if (netDelta == 0 && i > 0) {
+				node += readVarint(data, pos);
+			} else {
+				net += netDelta;
+				node = readVarint(data, pos);
+			}
+			set.keys[set.size++] = key(net, node);
+		}
+		return set;
+	}
+
+	/**
+	 * Encode set as varint count followed by ( net delta, node or node delta )
+	 * pairs. Addresses of one net take one or two bytes each.
+	 *
+	 * @return
+	 */
+	public byte[] encode() {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(size * 2 + 2);
+		writeVarint(bos, size);
+		int net = 0;
+		int node = 0;
+		for (int i = 0; i < size; i++) {
+			int n = net(keys[i]);
+			int d = node(keys[i]);
+			if (i > 0 && n == net) {
+				writeVarint(bos, 0);
+				writeVarint(bos, d - node);
+			} else {
+				writeVarint(bos, n - net);
+				writeVarint(bos, d);
+			}
+			net = n;
+			node = d;
+		}
+		return bos.toByteArray();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int net, int node) {
+		return Arrays.binarySearch(keys, 0, size, key(net, node)) >= 0;
+	}
+
+	public boolean contains(Ftn2D d) {
+		return contains(d.getNet(), d.getNode());
+	}
+
+	public boolean add(int net, int node) {
+		return addKey(key(net, node));
+	}
+
+	public boolean add(Ftn2D d) {
+		return add(d.getNet(), d.getNode());
+	}
+
+	/**
+	 * Union with another set ( linear merge of both sorted arrays )
+	 *
+	 * @param other
+	 */
+	public void addAll(Ftn2DSet other) {
+		if (other == null || other.size == 0) {
+			return;
+		}
+		long[] merged = new long[size + other.size];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < size && j < other.size) {
+			long a = keys[i];
+			long b = other.keys[j];
+			if (a < b) {
+				merged[k++] = a;
+				i++;
+			} else if (a > b) {
+				merged[k++] = b;
+				j++;
+			} else {
+				merged[k++] = a;
+				i++;
+				j++;
+			}
+		}
+		while (i < size) {
+			merged[k++] = keys[i++];
+		}
+		while (j < other.size) {
+			merged[k++] = other.keys[j++];
+		}
+		keys = merged;
+		size = k;
+	}
+
+	public Ftn2DSet copy() {
+		Ftn2DSet set = new Ftn2DSet(size + 4);
+		System.arraycopy(keys, 0, set.keys, 0, size);
+		set.size = size;
+		return set;
+	}
+
+	/**
+	 * Sorted list of addresses for {@link FtnMessage#setSeenby(List)}
+	 *
+	 * @return
+	 */
+	public List<Ftn2D> toList() {
+		List<Ftn2D> ret = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ret.add(new Ftn2D(net(keys[i]), node(keys[i])));
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder(size * 10);
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				ret.append(' ');
+			}
+			ret.append(net(keys[i])).append('/').append(node(keys[i]));
+		}
+		return ret.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < size; i++) {
+			result = 31 * result + Long.hashCode(keys[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Ftn2DSet other = (Ftn2DSet) obj;
+		return Arrays.equals(keys, 0, size, other.keys, 0, other.size);
+	}
+
+	private boolean addKey(long key) {
+		int pos = Arrays.binarySearch(keys, 0, size, key);
+		if (pos >= 0) {
+			return false;
+		}
+		pos = -(pos + 1);
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+		keys[pos] = key;
+		size++;
+		return true;
+	}
+
+	private void normalize() {
+		Arrays.sort(keys, 0, size);
+		int k = 0;
+		for (int i = 0; i < size; i++) {
+			if (k == 0 || keys[k - 1] != keys[i]) {
+				keys[k++] = keys[i];
+			}
+		}
+		size = k;
+	}
+
+	private static long key(int net, int node) {
+		return ((long) net << 32) | (node & 0xffffffffL);
+	}
+
+	private static int net(long key) {
+		return (int) (key >>> 32);
+	}
+
+	private static int node(long key) {
+		return (int) key;
+	}
+
+	/**
+	 * @return parsed non-negative number or -1 if the range is not a number
+	 */
+	private static int parseNumber(String s, int from, int to) {
+		if (from >= to || to - from > 9) {
+			return -1;
+		}
+		int ret = 0;
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			ret = ret * 10 + (c - '0');
+		}
+		return ret;
+	}
+
+	private static void writeVarint(ByteArrayOutputStream bos, int value) {
+		while ((value & ~0x7f) != 0) {
+			bos.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bos.write(value);
+	}
+
+	private static int readVarint(byte[] data, int[] pos) {
+		int ret = 0;
+		int shift = 0;
+		while (pos[0] < data.length) {
+			byte b = data[pos[0]++];
+			ret |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return ret;
+			}
+			shift += 7;
+			if (shift > 28) {
+				break;
+			}
+		}
+		throw new IllegalArgumentException("Malformed 2D address blob");
+	}
+}
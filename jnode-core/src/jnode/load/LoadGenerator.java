@@ -0,0 +1,392 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.load;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.j256.ormlite.logger.Level;
+
+import jnode.dao.GenericDAO;
+import jnode.dao.WriteBehind;
+import jnode.dto.*;
+import jnode.ftn.types.FtnAddress;
+import jnode.logger.Logger;
+import jnode.main.MainHandler;
+import jnode.main.threads.ThreadPool;
+import jnode.metrics.Counter;
+import jnode.metrics.Histogram;
+import jnode.metrics.Metrics;
+import jnode.orm.ORMManager;
+import jnode.protocol.binkp.BinkpAsyncServer;
+
+/**
+ * Loopback load test. Runs the station's binkp server and tosser against
+ * many simulated links exchanging generated echomail, then reports
+ * sessions/sec, tossed messages/sec, delivery latency and DB timings.
+ * 
+ * <pre>
+ * java -cp 'lib/*' jnode.load.LoadGenerator [jnode.conf] [load.peers=50 ...]
+ * </pre>
+ * 
+ * Without a config a throwaway station with H2 in a temporary directory is
+ * used. Links 2:9000/1.. and areas load.NNN are created when missing.
+ */
+public final class LoadGenerator {
+	private static final String PEERS = "load.peers";
+	private static final String AREAS = "load.areas";
+	private static final String SUBSCRIBERS = "load.subscribers";
+	private static final String MESSAGES = "load.messages";
+	private static final String SIZE = "load.size";
+	private static final String DURATION = "load.duration";
+	private static final String INTERVAL = "load.interval";
+	private static final String NET = "load.net";
+	private static final String LOG_LEVEL = "log.level";
+	private static final Class<?>[] TABLES = { Echoarea.class,
+			EchoareaSummary.class, Echomail.class, EchomailAwaiting.class,
+			EchomailCursor.class, Filearea.class, FileForLink.class,
+			Filemail.class, FilemailAwaiting.class, FileSubscription.class,
+			Jscript.class, Link.class, LinkOption.class, Netmail.class,
+			NetmailAcceptRule.class, Rewrite.class, Robot.class, Route.class,
+			Schedule.class, ScriptHelper.class, Subscription.class,
+			Version.class };
+
+	private static final Histogram SESSION_TIME = Metrics.timer(
+			"jnode_load_session_seconds", "Simulated link session duration");
+	private static final Histogram DELIVERY_TIME = Metrics.timer(
+			"jnode_load_delivery_seconds",
+			"Time from upload by one simulated link till download by another");
+	private static final Counter SESSIONS_OK = Metrics.counter(
+			"jnode_load_sessions_total", "Simulated link sessions", "result",
+			"ok");
+	private static final Counter SESSIONS_FAILED = Metrics.counter(
+			"jnode_load_sessions_total", "Simulated link sessions", "result",
+			"failed");
+	private static final Counter SENT = Metrics.counter(
+			"jnode_load_messages_total", "Messages of simulated links",
+			"direction", "sent");
+	private static final Counter DELIVERED = Metrics.counter(
+			"jnode_load_messages_total", "Messages of simulated links",
+			"direction", "delivered");
+
+	private final int peers;
+	private final int areas;
+	private final int subscribers;
+	private final int messages;
+	private final long duration;
+	private final long interval;
+	private final int net;
+	private final String text;
+	private final FtnAddress station;
+	private final InetSocketAddress server;
+
+	private final AtomicLong serial = new AtomicLong(System.currentTimeMillis());
+	// serial -> System.nanoTime() of upload
+	private final Map<Long, Long> posted = new ConcurrentHashMap<>();
+	private volatile boolean stopped;
+
+	private LoadGenerator(MainHandler config, InetSocketAddress server) {
+		this.peers = config.getIntegerProperty(PEERS, 20);
+		this.areas = config.getIntegerProperty(AREAS, 10);
+		this.subscribers = Math.min(peers,
+				config.getIntegerProperty(SUBSCRIBERS, 10));
+		this.messages = config.getIntegerProperty(MESSAGES, 20);
+		this.duration = config.getIntegerProperty(DURATION, 60) * 1000L;
+		this.interval = config.getIntegerProperty(INTERVAL, 1000);
+		this.net = config.getIntegerProperty(NET, 9000);
+		this.station = config.getInfo().getAddressList().get(0);
+		this.server = server;
+		int size = config.getIntegerProperty(SIZE, 2048);
+		StringBuilder sb = new StringBuilder(size + 80);
+		while (sb.length() < size) {
+			sb.append("The quick brown fox jumps over the lazy dog, line ")
+					.append(sb.length() / 60).append('\n');
+		}
+		this.text = sb.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		Properties config = new Properties();
+		int first = 0;
+		if (args.length > 0 && !args[0].contains("=")) {
+			try (InputStream in = new FileInputStream(args[0])) {
+				config.load(in);
+			}
+			first = 1;
+		} else {
+			throwaway(config);
+		}
+		for (int i = first; i < args.length; i++) {
+			int idx = args[i].indexOf('=');
+			if (idx < 1) {
+				System.err.println("Usage: LoadGenerator [config] [key=value ...]");
+				System.exit(-1);
+			}
+			config.setProperty(args[i].substring(0, idx),
+					args[i].substring(idx + 1));
+		}
+		// the station listens on loopback only, on a free port
+		int port;
+		try (ServerSocket probe = new ServerSocket(0)) {
+			port = probe.getLocalPort();
+		}
+		config.setProperty("binkp.server", "true");
+		config.setProperty("binkp.ipv6.enable", "false");
+		config.setProperty("binkp.bind", "127.0.0.1");
+		config.setProperty("binkp.port", Integer.toString(port));
+
+		MainHandler handler = new MainHandler(config);
+		Logger.Loglevel = handler.getIntegerProperty(LOG_LEVEL, Logger.LOG_L2);
+		com.j256.ormlite.logger.Logger.setGlobalLogLevel(Level.WARNING);
+		ORMManager.INSTANCE.start();
+		// tables are created on first use, which connectors would race for
+		for (Class<?> clazz : TABLES) {
+			ORMManager.get(clazz);
+		}
+		WriteBehind.get();
+
+		LoadGenerator load = new LoadGenerator(handler, new InetSocketAddress(
+				"127.0.0.1", port));
+		List<SimulatedPeer> peers = load.prepare();
+		new ThreadPool(load.peers + 4);
+		ThreadPool.execute(new BinkpAsyncServer());
+		load.run(peers);
+		System.exit(0);
+	}
+
+	/**
+	 * Station in a temporary directory with H2 database
+	 */
+	private static void throwaway(Properties config) throws IOException {
+		File home = Files.createTempDirectory("jnode-load").toFile();
+		for (String dir : new String[] { "inbound", "outbound", "temp",
+				"fileecho" }) {
+			new File(home, dir).mkdirs();
+		}
+		config.setProperty("ftn.primary", "2:9999/9999");
+		config.setProperty("station.name", "Load Test Station");
+		config.setProperty("sysop.name", "Load Sysop");
+		config.setProperty("ftn.inbound", new File(home, "inbound").getPath());
+		config.setProperty("ftn.outbound", new File(home, "outbound").getPath());
+		config.setProperty("ftn.temp", new File(home, "temp").getPath());
+		config.setProperty("binkp.inbound", new File(home, "inbound").getPath());
+		config.setProperty("binkp.outbound", new File(home, "outbound").getPath());
+		config.setProperty("binkp.temp", new File(home, "temp").getPath());
+		config.setProperty("fileecho.path", new File(home, "fileecho").getPath());
+		config.setProperty("tosser.sysop.notifications", "false");
+		config.setProperty("jdbc.url", "jdbc:h2:" + new File(home, "jnode")
+				.getAbsolutePath());
+		config.setProperty("jdbc.user", "sa");
+		config.setProperty("jdbc.pass", "");
+		config.setProperty("jdbc.driver", "org.h2.Driver");
+		System.out.println("Station home: " + home.getAbsolutePath());
+	}
+
+	/**
+	 * Links, areas and subscriptions: area i is subscribed by links i, i+1,
+	 * ... i+subscribers-1 (mod peers)
+	 */
+	private List<SimulatedPeer> prepare() {
+		List<Link> links = new ArrayList<>();
+		for (int i = 1; i <= peers; i++) {
+			String address = "2:" + net + "/" + i;
+			Link link = ORMManager.get(Link.class).getFirstAnd("ftn_address",
+					"=", address);
+			if (link == null) {
+				link = new Link();
+				link.setLinkAddress(address);
+				link.setLinkName("Load peer " + i);
+				link.setPaketPassword("load" + i);
+				link.setProtocolPassword("load" + i);
+				link.setProtocolHost("-");
+				link.setProtocolPort(0);
+				ORMManager.get(Link.class).save(link);
+			}
+			links.add(link);
+		}
+		List<List<Echoarea>> subscribed = new ArrayList<>();
+		for (int i = 0; i < peers; i++) {
+			subscribed.add(new ArrayList<>());
+		}
+		for (int a = 0; a < areas; a++) {
+			String name = String.format("load.%03d", a);
+			Echoarea area = ORMManager.get(Echoarea.class).getFirstAnd("name",
+					"=", name);
+			if (area == null) {
+				area = new Echoarea();
+				area.setName(name);
+				area.setDescription("Load test area " + a);
+				area.setReadlevel(0L);
+				area.setWritelevel(0L);
+				area.setGroup("");
+				ORMManager.get(Echoarea.class).save(area);
+			}
+			for (int s = 0; s < subscribers; s++) {
+				int i = (a + s) % peers;
+				Link link = links.get(i);
+				if (ORMManager.get(Subscription.class).getFirstAnd(
+						"echoarea_id", "=", area, "link_id", "=", link) == null) {
+					Subscription subscription = new Subscription();
+					subscription.setArea(area);
+					subscription.setLink(link);
+					ORMManager.get(Subscription.class).save(subscription);
+				}
+				subscribed.get(i).add(area);
+			}
+		}
+		List<SimulatedPeer> ret = new ArrayList<>();
+		for (int i = 0; i < peers; i++) {
+			ret.add(new SimulatedPeer(this, links.get(i), subscribed.get(i)));
+		}
+		return ret;
+	}
+
+	private void run(List<SimulatedPeer> peers) throws InterruptedException {
+		long echomail = ORMManager.get(Echomail.class).countAnd();
+		System.out.println(String.format(
+				"%d links, %d areas, %d subscribers per area, %d messages of "
+						+ "%d bytes per session, %d ms between sessions, %d s",
+				this.peers, areas, subscribers, messages, text.length(),
+				interval, duration / 1000));
+		long started = System.nanoTime();
+		List<Thread> threads = new ArrayList<>();
+		for (SimulatedPeer peer : peers) {
+			Thread thread = new Thread(peer, "load-peer");
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+		Thread.sleep(duration);
+		stopped = true;
+		for (Thread thread : threads) {
+			thread.join(60000L);
+		}
+		double seconds = (System.nanoTime() - started) / 1e9;
+		long tossed = ORMManager.get(Echomail.class).countAnd() - echomail;
+		report(seconds, tossed);
+	}
+
+	private void report(double seconds, long tossed) {
+		long ok = SESSIONS_OK.get();
+		System.out.println(String.format(
+				"Sessions:  %d ok, %d failed, %.1f/s", ok, SESSIONS_FAILED.get(),
+				ok / seconds));
+		System.out.println(String.format(
+				"Messages:  %d sent, %d tossed (%.1f/s), %d delivered (%.1f/s)",
+				SENT.get(), tossed, tossed / seconds, DELIVERED.get(),
+				DELIVERED.get() / seconds));
+		System.out.println("Session:   " + quantiles(SESSION_TIME));
+		System.out.println("Delivery:  " + quantiles(DELIVERY_TIME));
+		System.out.println(String.format(
+				"Database:  %d echomail, %d awaiting delivery",
+				ORMManager.get(Echomail.class).countAnd(),
+				ORMManager.get(EchomailAwaiting.class).countAnd()));
+		List<Map.Entry<String, Histogram>> calls = new ArrayList<>(Metrics
+				.histograms(GenericDAO.QUERY_METRIC).entrySet());
+		calls.sort((a, b) -> Long.compare(b.getValue().getSum(), a.getValue()
+				.getSum()));
+		for (Map.Entry<String, Histogram> call : calls.subList(0,
+				Math.min(10, calls.size()))) {
+			Histogram h = call.getValue();
+			System.out.println(String.format(
+					"  %-50s %8d calls, %8.1f ms total, %s", call.getKey(),
+					h.getCount(), h.getSum() / 1e6, quantiles(h)));
+		}
+	}
+
+	/**
+	 * Bucket upper bounds, so "p95 <= 25ms"
+	 */
+	private static String quantiles(Histogram h) {
+		if (h.getCount() == 0) {
+			return "no data";
+		}
+		return String.format("mean %s, p50 <= %s, p95 <= %s, p99 <= %s",
+				millis(h.getSum() / h.getCount()), millis(h.getQuantile(0.5)),
+				millis(h.getQuantile(0.95)), millis(h.getQuantile(0.99)));
+	}
+
+	private static String millis(long nanos) {
+		return (nanos == Long.MAX_VALUE) ? "inf" : String.format("%.1fms",
+				nanos / 1e6);
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	long getInterval() {
+		return interval;
+	}
+
+	int getMessages() {
+		return messages;
+	}
+
+	String getText() {
+		return text;
+	}
+
+	FtnAddress getStation() {
+		return station;
+	}
+
+	InetSocketAddress getServer() {
+		return server;
+	}
+
+	long nextSerial() {
+		return serial.incrementAndGet();
+	}
+
+	void posted(long serial) {
+		posted.put(serial, System.nanoTime());
+	}
+
+	void delivered(long serial) {
+		Long start = posted.get(serial);
+		if (start != null) {
+			DELIVERY_TIME.observeSince(start);
+			DELIVERED.inc();
+		}
+	}
+
+	void messagesSent(int count) {
+		SENT.add(count);
+	}
+
+	void sessionDone(boolean ok, long start) {
+		SESSION_TIME.observeSince(start);
+		(ok ? SESSIONS_OK : SESSIONS_FAILED).inc();
+	}
+}
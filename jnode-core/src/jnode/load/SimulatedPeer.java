@@ -0,0 +1,295 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Link;
+import jnode.ftn.types.Ftn2D;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import jnode.ftn.types.FtnPkt;
+import jnode.logger.Logger;
+import jnode.protocol.binkp.BinkpProtocolTools;
+import jnode.protocol.binkp.types.BinkpCommand;
+import jnode.protocol.binkp.types.BinkpFrame;
+
+/**
+ * Link polling the station over loopback: every session uploads one PKT of
+ * generated echomail and takes whatever the station has for it. Speaks
+ * plain binkp/1.0, the station side is the usual {@link
+ * jnode.protocol.binkp.connector.BinkpAsyncConnector}
+ */
+final class SimulatedPeer implements Runnable {
+	private static final Logger logger = Logger.getLogger(SimulatedPeer.class);
+	private static final int TIMEOUT = 60000;
+	private static final long RETRY = 100L;
+	private static final int MAX_DATA = 32767;
+	static final String SUBJECT = "LOAD ";
+
+	private final LoadGenerator load;
+	private final Link link;
+	private final FtnAddress address;
+	private final List<Echoarea> areas;
+	private final Random random;
+
+	SimulatedPeer(LoadGenerator load, Link link, List<Echoarea> areas) {
+		this.load = load;
+		this.link = link;
+		this.address = new FtnAddress(link.getLinkAddress());
+		this.areas = areas;
+		this.random = new Random(address.hashCode());
+	}
+
+	@Override
+	public void run() {
+		while (!load.isStopped()) {
+			long start = System.nanoTime();
+			Boolean ok;
+			try {
+				ok = session();
+			} catch (ConnectException e) {
+				// server is not listening yet, not a session
+				ok = null;
+			} catch (IOException e) {
+				logger.l3("Session of " + address + " failed: " + e.getMessage());
+				ok = false;
+			}
+			if (ok != null) {
+				load.sessionDone(ok, start);
+			}
+			try {
+				Thread.sleep(ok != null ? load.getInterval() : RETRY);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private boolean session() throws IOException {
+		try (Socket socket = new Socket()) {
+			socket.connect(load.getServer(), TIMEOUT);
+			byte[] bundle = areas.isEmpty() ? null : bundle();
+			// inbound tossing only picks up 8 hex digit names
+			String file = (bundle == null) ? null : String.format("%08x.pkt",
+					(int) load.nextSerial());
+			socket.setSoTimeout(TIMEOUT);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					socket.getInputStream()));
+			OutputStream out = new BufferedOutputStream(
+					socket.getOutputStream(), MAX_DATA + 2);
+			send(out, BinkpCommand.M_NUL, "SYS Load peer " + address);
+			send(out, BinkpCommand.M_NUL, "VER jnode-load binkp/1.0");
+			send(out, BinkpCommand.M_ADR, address + "@fidonet");
+			send(out, BinkpCommand.M_PWD, link.getProtocolPassword());
+			out.flush();
+
+			boolean acked = (bundle == null);
+			boolean remoteEob = false;
+			String receiving = null;
+			ByteArrayOutputStream data = null;
+			long left = 0;
+			long unixtime = new Date().getTime() / 1000L;
+			while (!(acked && remoteEob && receiving == null)) {
+				int header = in.readUnsignedShort();
+				byte[] frame = new byte[header & 0x7fff];
+				in.readFully(frame);
+				if ((header & 0x8000) == 0) {
+					if (receiving == null) {
+						continue;
+					}
+					int len = (int) Math.min(left, frame.length);
+					data.write(frame, 0, len);
+					left -= len;
+					if (left == 0) {
+						send(out, BinkpCommand.M_GOT, receiving);
+						out.flush();
+						received(data.toByteArray());
+						receiving = null;
+					}
+					continue;
+				}
+				BinkpCommand command = BinkpProtocolTools.getCommand(frame[0]);
+				String arg = arg(frame);
+				if (command == null) {
+					continue;
+				}
+				switch (command) {
+				case M_OK:
+					if (bundle != null) {
+						send(out, BinkpCommand.M_FILE, String.format(
+								"%s %d %d 0", file, bundle.length, unixtime));
+						for (int off = 0; off < bundle.length; off += MAX_DATA) {
+							byte[] chunk = new byte[Math.min(MAX_DATA,
+									bundle.length - off)];
+							System.arraycopy(bundle, off, chunk, 0, chunk.length);
+							out.write(new BinkpFrame(chunk).getBytes());
+						}
+					}
+					send(out, BinkpCommand.M_EOB, null);
+					out.flush();
+					break;
+				case M_FILE: {
+					String[] parts = arg.split(" ");
+					receiving = parts[0] + " " + parts[1] + " " + parts[2];
+					left = Long.parseLong(parts[1]);
+					data = new ByteArrayOutputStream((int) left);
+					if (left == 0) {
+						send(out, BinkpCommand.M_GOT, receiving);
+						out.flush();
+						receiving = null;
+					}
+					break;
+				}
+				case M_GOT:
+				case M_SKIP:
+					if (file != null && arg.startsWith(file + " ")) {
+						acked = true;
+						if (command == BinkpCommand.M_SKIP) {
+							logger.l3("Station skipped " + file + " from "
+									+ address);
+							return false;
+						}
+						load.messagesSent(load.getMessages());
+					}
+					break;
+				case M_EOB:
+					remoteEob = true;
+					break;
+				case M_ERR:
+				case M_BSY:
+					logger.l3("Station refused " + address + ": " + arg);
+					return false;
+				default:
+					break;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static void send(OutputStream out, BinkpCommand command,
+			String arg) throws IOException {
+		out.write(new BinkpFrame(command, arg).getBytes());
+	}
+
+	private static String arg(byte[] frame) {
+		int len = frame.length;
+		if (len > 1 && frame[len - 1] == 0) {
+			len--;
+		}
+		return new String(frame, 1, Math.max(0, len - 1),
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return PKT of generated echomail to random areas of ours
+	 */
+	private byte[] bundle() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FtnPkt pkt = new FtnPkt(address, load.getStation(),
+				link.getPaketPassword(), new Date());
+		pkt.write(out);
+		List<Ftn2D> path = new ArrayList<>();
+		path.add(new Ftn2D(address.getNet(), address.getNode()));
+		for (int i = 0; i < load.getMessages(); i++) {
+			long serial = load.nextSerial();
+			FtnMessage message = new FtnMessage();
+			message.setNetmail(false);
+			message.setArea(areas.get(random.nextInt(areas.size())).getName()
+					.toUpperCase());
+			message.setFromAddr(address);
+			message.setToAddr(load.getStation());
+			message.setFromName("Load Peer " + address.getNode());
+			message.setToName("All");
+			message.setSubject(SUBJECT + serial);
+			message.setDate(new Date());
+			message.setMsgid(address + " " + Long.toHexString(serial));
+			message.setText(load.getText() + "--- jnode-load\n * Origin: "
+					+ "load test (" + address + ")\n");
+			List<Ftn2D> seenBy = new ArrayList<>();
+			seenBy.add(new Ftn2D(address.getNet(), address.getNode()));
+			message.setSeenby(seenBy);
+			message.setPath(new ArrayList<>(path));
+			load.posted(serial);
+			message.write(out);
+		}
+		pkt.finalz(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Bundles come zipped or as bare PKT depending on link options
+	 */
+	private void received(byte[] file) {
+		try {
+			if (file.length > 1 && file[0] == 'P' && file[1] == 'K') {
+				try (ZipInputStream zip = new ZipInputStream(
+						new ByteArrayInputStream(file))) {
+					ZipEntry entry;
+					while ((entry = zip.getNextEntry()) != null) {
+						if (!entry.isDirectory()) {
+							parse(zip);
+						}
+					}
+				}
+			} else {
+				parse(new ByteArrayInputStream(file));
+			}
+		} catch (IOException e) {
+			logger.l3("Bad bundle for " + address + ": " + e.getMessage());
+		}
+	}
+
+	private void parse(InputStream in) throws IOException {
+		FtnPkt pkt = new FtnPkt();
+		pkt.unpack(in, false);
+		FtnMessage message;
+		while ((message = pkt.getNextMessage()) != null) {
+			String subject = message.getSubject();
+			if (subject != null && subject.startsWith(SUBJECT)) {
+				try {
+					load.delivered(Long.parseLong(subject.substring(SUBJECT
+							.length())));
+				} catch (NumberFormatException ignore) {
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,485 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.logger;
+
+import jnode.core.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log backend. Callers put entries into a lock-free ring buffer and return;
+ * the "log-writer" thread formats them, writes them in batches and rotates
+ * the log file by size and at midnight. Rotated files are renamed with a
+ * timestamp ( jnode-14-02-05-21-17-21.log ) and zipped to log.zippath.
+ * <p>
+ * When the ring is full, l1-l3 messages wait for space and l4-l5 messages
+ * are dropped and counted.
+ */
+public final class LogWriter {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long PARK_NANOS = 1000000000L;
+    private static final long SHUTDOWN_WAIT = 2000L;
+    private static final String ROTATED_PATTERN = ".*\\d{2}-\\d{2}-\\d{2}-\\d{2}-\\d{2}-\\d{2}\\.log$";
+
+    private static volatile LogWriter instance;
+
+    private static final class Entry {
+        private final long time;
+        private final long thread;
+        private final String name;
+        private final String message;
+
+        private Entry(long time, long thread, String name, String message) {
+            this.time = time;
+            this.thread = thread;
+            this.name = name;
+            this.message = message;
+        }
+    }
+
+    private final PrintStream console = System.out;
+    private final boolean async;
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> ring;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private volatile boolean sleeping;
+    private volatile boolean closing;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private Thread writer;
+
+    // guarded by this
+    private final StringBuilder line = new StringBuilder(256);
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yy HH:mm:ss");
+    private final SimpleDateFormat rotateFormat = new SimpleDateFormat("yy-MM-dd-HH-mm-ss");
+    private long dateSecond = -1;
+    private String dateString;
+    private OutputStream out;
+    private File file;
+    private String zipPath;
+    private long maxSize;
+    private boolean daily;
+    private long size;
+    private long nextMidnight;
+    private long reported;
+
+    /**
+     * @param async   write in the background thread
+     * @param capacity ring size, rounded up to a power of two
+     */
+    LogWriter(boolean async, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.async = async;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        if (async) {
+            writer = new Thread(this::drainLoop, "log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public static LogWriter get() {
+        LogWriter writer = instance;
+        if (writer == null) {
+            synchronized (LogWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    writer = new LogWriter(true, DEFAULT_CAPACITY);
+                    instance = writer;
+                    final LogWriter hooked = writer;
+                    Runtime.getRuntime().addShutdownHook(new Thread(hooked::close, "log-close"));
+                }
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Switch logging to a file; System.out and System.err are redirected to
+     * the log. Existing log is rotated first, old rotated logs are zipped
+     *
+     * @param logFile  log file path
+     * @param zipPath  where rotated logs are zipped, empty - keep them as is
+     * @param maxSize  rotate when file exceeds this many bytes, 0 - never
+     * @param daily    rotate at midnight
+     */
+    public void toFile(String logFile, String zipPath, long maxSize, boolean daily) throws IOException {
+        setFile(new File(logFile), zipPath, maxSize, daily);
+        PrintStream redirect;
+        try {
+            redirect = new PrintStream(new LineStream(), true, "UTF8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IOException(e);
+        }
+        System.setOut(redirect);
+        System.setErr(redirect);
+    }
+
+    synchronized void setFile(File logFile, String zipPath, long maxSize, boolean daily) {
+        File newFile = logFile.getAbsoluteFile();
+        File dir = newFile.getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        closeOut();
+        this.file = newFile;
+        this.zipPath = zipPath;
+        this.maxSize = maxSize;
+        this.daily = daily;
+        File[] old = needZip() ? dir.listFiles(f -> f.getName().matches(ROTATED_PATTERN)) : null;
+        if (newFile.length() > 0) {
+            rotate();
+        } else {
+            open();
+        }
+        if (old != null) {
+            for (File f : old) {
+                zipLater(f);
+            }
+        }
+    }
+
+    /**
+     * @return messages dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return lines written
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return entries waiting for the writer
+     */
+    public int getQueueDepth() {
+        return (int) (head.get() - tail);
+    }
+
+    void write(int level, String name, String message) {
+        Entry entry = new Entry(System.currentTimeMillis(), Thread.currentThread().getId(), name, message);
+        if (!async || closing || Thread.currentThread() == writer) {
+            synchronized (this) {
+                append(entry);
+                flushOut();
+            }
+            return;
+        }
+        while (!offer(entry)) {
+            if (level > Logger.LOG_L3) {
+                dropped.incrementAndGet();
+                return;
+            }
+            wake();
+            LockSupport.parkNanos(50000L);
+        }
+        if (sleeping) {
+            wake();
+        }
+    }
+
+    /**
+     * Wait until everything queued so far is written
+     */
+    public void flush() {
+        long target = head.get();
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT;
+        while (async && tail < target && System.currentTimeMillis() < deadline) {
+            wake();
+            LockSupport.parkNanos(1000000L);
+        }
+        synchronized (this) {
+            flushOut();
+        }
+    }
+
+    /**
+     * Write the rest synchronously from now on. Both the jNode and the
+     * "log-close" shutdown hooks call it, only the first call does anything
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        flush();
+        closing = true;
+        flush();
+    }
+
+    private boolean offer(Entry entry) {
+        for (;;) {
+            long h = head.get();
+            if (h - tail >= capacity) {
+                return false;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                ring.set((int) (h & mask), entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * single consumer
+     */
+    private Entry poll() {
+        long t = tail;
+        if (t == head.get()) {
+            return null;
+        }
+        int i = (int) (t & mask);
+        Entry entry;
+        // slot is claimed but may not be published yet
+        while ((entry = ring.get(i)) == null) {
+            Thread.onSpinWait();
+        }
+        ring.lazySet(i, null);
+        tail = t + 1;
+        return entry;
+    }
+
+    private void wake() {
+        Thread w = writer;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    private void drainLoop() {
+        for (;;) {
+            boolean idle;
+            synchronized (this) {
+                Entry entry = poll();
+                idle = entry == null;
+                for (; entry != null; entry = poll()) {
+                    append(entry);
+                }
+                long lost = dropped.get() - reported;
+                if (lost > 0) {
+                    reported += lost;
+                    append(new Entry(System.currentTimeMillis(), writer.getId(), "LogWriter           ",
+                            lost + " log messages dropped, ring is full"));
+                }
+                if (idle) {
+                    flushOut();
+                }
+                checkRotate(System.currentTimeMillis());
+            }
+            if (idle) {
+                sleeping = true;
+                if (tail == head.get()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    // guarded by this
+    private void append(Entry entry) {
+        line.setLength(0);
+        if (entry.name != null) {
+            long second = entry.time / 1000L;
+            if (second != dateSecond) {
+                dateSecond = second;
+                dateString = dateFormat.format(new Date(entry.time));
+            }
+            line.append(dateString).append(" [");
+            String id = Long.toString(entry.thread);
+            for (int i = id.length(); i < 8; i++) {
+                line.append('0');
+            }
+            line.append(id).append("] ").append(entry.name).append(' ');
+        }
+        line.append(entry.message);
+        if (entry.name != null) {
+            line.append(System.lineSeparator());
+        }
+        written.incrementAndGet();
+        if (out == null) {
+            console.print(line);
+            return;
+        }
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(bytes);
+            size += bytes.length;
+        } catch (IOException e) {
+            console.print(line);
+        }
+        if (maxSize > 0 && size >= maxSize) {
+            rotate();
+        }
+    }
+
+    // guarded by this
+    private void flushOut() {
+        try {
+            if (out != null) {
+                out.flush();
+            } else {
+                console.flush();
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    // guarded by this
+    private void checkRotate(long now) {
+        if (out != null && daily && now >= nextMidnight) {
+            rotate();
+        }
+    }
+
+    // guarded by this
+    private void rotate() {
+        closeOut();
+        if (file.exists()) {
+            String base = file.getName();
+            if (base.endsWith(".log")) {
+                base = base.substring(0, base.length() - 4);
+            }
+            File rotated = new File(file.getParentFile(), base + "-" + rotateFormat.format(new Date()) + ".log");
+            for (int i = 1; rotated.exists(); i++) {
+                rotated = new File(file.getParentFile(), base + "-" + rotateFormat.format(new Date()) + "-" + i
+                        + ".log");
+            }
+            if (file.renameTo(rotated)) {
+                zipLater(rotated);
+            } else {
+                console.println("fail rename log " + file + " to " + rotated);
+            }
+        }
+        open();
+    }
+
+    // guarded by this
+    private void open() {
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(file, true), 65536);
+            size = file.length();
+        } catch (IOException e) {
+            console.println("fail open log " + file + ": " + e.getMessage());
+            out = null;
+        }
+        nextMidnight = nextMidnight();
+    }
+
+    // guarded by this
+    private void closeOut() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignore) {
+            }
+            out = null;
+        }
+    }
+
+    private boolean needZip() {
+        return zipPath != null && zipPath.length() != 0;
+    }
+
+    private void zipLater(final File rotated) {
+        if (!needZip()) {
+            return;
+        }
+        final String zipDir = zipPath.endsWith(File.separator) ? zipPath : zipPath + File.separator;
+        Thread zip = new Thread(() -> {
+            new File(zipDir).mkdirs();
+            String target = zipDir + rotated.getName() + ".zip";
+            try {
+                FileUtils.zipFile(rotated.getAbsolutePath(), target, rotated.getName());
+                if (!rotated.delete()) {
+                    Logger.getLogger(LogWriter.class).l1("fail delete " + rotated);
+                }
+            } catch (IOException e) {
+                Logger.getLogger(LogWriter.class).l1("fail zip file " + rotated + " to " + target, e);
+            }
+        }, "log-zip");
+        zip.setDaemon(true);
+        zip.start();
+    }
+
+    private static long nextMidnight() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_YEAR, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * System.out / System.err lines into the log as is
+     */
+    private final class LineStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        @Override
+        public synchronized void write(int b) {
+            buffer.write(b);
+            if (b == '\n') {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (buffer.size() > 0) {
+                LogWriter.this.write(Logger.LOG_L1, null, buffer.toString(StandardCharsets.UTF_8));
+                buffer.reset();
+            }
+        }
+    }
+}
@@ -20,12 +20,14 @@
 
 package jnode.logger;
 
-import jnode.core.ConcurrentDateFormatAccess;
-
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 
+/**
+ * Lines are written by {@link LogWriter} in the background. Guard messages
+ * that are expensive to build with {@link #isNeedLog5()} and friends
+ */
 public final class Logger {
     public static final int LOG_L5 = 5;
     public static final int LOG_L4 = 4;
@@ -35,8 +37,6 @@ public final class Logger {
     public static int Loglevel = LOG_L5;
 
     private final String className;
-    private static final String LOG_FORMAT = "%s [%08d] %s %s";
-    private static final ConcurrentDateFormatAccess DATE_FORMAT = new ConcurrentDateFormatAccess("dd-MM-yy HH:mm:ss");
 
     public static Logger getLogger(Class<?> clazz) {
         String className = clazz.getSimpleName();
@@ -62,8 +62,13 @@ public final class Logger {
 
     private void log(int type, String log) {
         if (isNeedLog(type)) {
-            System.out.println(String.format(LOG_FORMAT, DATE_FORMAT.currentDateAsString(), Thread.currentThread()
-                    .getId(), className, log));
+            LogWriter.get().write(type, className, log);
+        }
+    }
+
+    private void log(int type, String log, Throwable e) {
+        if (isNeedLog(type)) {
+            LogWriter.get().write(type, className, log + ": " + th2s(e));
         }
     }
 
@@ -121,23 +126,23 @@ public final class Logger {
     }
 
     public void l5(String log, Throwable e) {
-        log(LOG_L5, log + ": " + th2s(e));
+        log(LOG_L5, log, e);
     }
 
     public void l4(String log, Throwable e) {
-        log(LOG_L4, log + ": " + th2s(e));
+        log(LOG_L4, log, e);
     }
 
     public void l3(String log, Throwable e) {
-        log(LOG_L3, log + ": " + th2s(e));
+        log(LOG_L3, log, e);
     }
 
     public void l2(String log, Throwable e) {
-        log(LOG_L2, log + ": " + th2s(e));
+        log(LOG_L2, log, e);
     }
 
     public void l1(String log, Throwable e) {
-        log(LOG_L1, log + ": " + th2s(e));
+        log(LOG_L1, log, e);
     }
 
 }
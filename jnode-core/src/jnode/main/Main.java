@@ -20,6 +20,7 @@
 
 package jnode.main;
 
+import jnode.dao.WriteBehind;
 import jnode.dto.*;
 import jnode.event.Notifier;
 import jnode.event.SharedModuleEvent;
@@ -27,13 +28,16 @@ import jnode.ftn.FtnTools;
 import jnode.install.InstallUtil;
 import jnode.jscript.JscriptExecutor;
 import jnode.logger.Logger;
-import jnode.logger.Redirector;
+import jnode.logger.LogWriter;
 import jnode.main.threads.*;
 import jnode.module.JnodeModule;
 import jnode.orm.ORMManager;
 import jnode.protocol.binkp.BinkpAsyncClientPool;
 import jnode.protocol.binkp.BinkpAsyncServer;
+import jnode.stat.ConnectionStat;
 import jnode.stat.threads.StatPoster;
+import jnode.store.EchoareaSummaries;
+import jnode.store.EchomailStores;
 
 import java.io.File;
 import java.io.IOException;
@@ -54,6 +58,8 @@ public class Main {
 	private static final String MODULES = "modules";
 	private static final String LOGFILE = "log.file";
 	private static final String LOGZIPPATH = "log.zippath";
+	private static final String LOGROTATESIZE = "log.rotate.size";
+	private static final String LOGROTATEDAILY = "log.rotate.daily";
 
 	public static void main(String[] args) {
 		// ORMLite logging is handled by default logger configuration
@@ -124,6 +130,7 @@ public class Main {
         ORMManager.get(Echoarea.class);
         ORMManager.get(Echomail.class);
         ORMManager.get(EchomailAwaiting.class);
+        ORMManager.get(EchomailCursor.class);
         ORMManager.get(Filearea.class);
         ORMManager.get(FileForLink.class);
         ORMManager.get(Filemail.class);
@@ -140,6 +147,10 @@ public class Main {
         ORMManager.get(ScriptHelper.class);
         ORMManager.get(Subscription.class);
         ORMManager.get(Version.class);
+        // replays WAL if any
+        WriteBehind.get();
+        EchoareaSummaries.start();
+        EchomailStores.resetForeignCursors();
 
         // eof
 		ThreadPool.execute(new BinkpAsyncServer());
@@ -204,7 +215,13 @@ public class Main {
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			@Override
 			public void run() {
+				Notifier.INSTANCE.shutdown();
+				ConnectionStat.shutdown();
+				EchoareaSummaries.shutdown();
+				WriteBehind.shutdown();
+				EchomailStores.close();
 				logger.l1(MainHandler.getVersion() + " shutdown");
+				LogWriter.get().close();
 			}
 		});
 	}
@@ -215,7 +232,16 @@ public class Main {
 		if (logFile.length() != 0) {
 			String zipPath = MainHandler.getCurrentInstance().getProperty(
 					LOGZIPPATH, "log/old/");
-			new Redirector(logFile, zipPath).invoke();
+			long maxSize = MainHandler.getCurrentInstance().getIntegerProperty(
+					LOGROTATESIZE, 0) * 1024L * 1024L;
+			boolean daily = MainHandler.getCurrentInstance().getBooleanProperty(
+					LOGROTATEDAILY, true);
+			try {
+				LogWriter.get().toFile(logFile, zipPath, maxSize, daily);
+				logger.l5("log redirected to " + logFile);
+			} catch (IOException e) {
+				logger.l1("fail redirect log to " + logFile, e);
+			}
 		}
 	}
 
@@ -21,9 +21,13 @@
 package jnode.main.threads;
 
 import jnode.core.SysInfo;
+import jnode.dao.WriteBehind;
+import jnode.event.IEvent;
+import jnode.event.Notifier;
 import jnode.logger.Logger;
 
 import java.text.MessageFormat;
+import java.util.Map;
 import java.util.TimerTask;
 
 /**
@@ -50,7 +54,19 @@ public class HealthReporter extends TimerTask {
                     memoryInfo.getMax(), memoryInfo.getTotal(), memoryInfo.getFree()));
 
             SysInfo.ThreadInfo threadInfo = SysInfo.threadInfo();
-            sb.append(MessageFormat.format("running threads {0,number,#########}", threadInfo.getRunningThreads()));
+            sb.append(MessageFormat.format("running threads {0,number,#########}; ", threadInfo.getRunningThreads()));
+
+            WriteBehind writeBehind = WriteBehind.get();
+            sb.append(MessageFormat.format("write-behind: queue = {0,number,#########}, flushed = {1,number,#########}, failed = {2,number,#########}, last flush = {3,number,#########} ms, max flush = {4,number,#########} ms",
+                    writeBehind.getQueueDepth(), writeBehind.getFlushed(), writeBehind.getFailed(),
+                    writeBehind.getLastFlushMillis(), writeBehind.getMaxFlushMillis()));
+
+            for (Map.Entry<Class<? extends IEvent>, Notifier.EventStats> entry : Notifier.INSTANCE.getStats().entrySet()) {
+                Notifier.EventStats stats = entry.getValue();
+                sb.append(MessageFormat.format("; {0}: delivered = {1,number,#########}, queue = {2,number,#########}, dropped = {3,number,#########}, avg = {4,number,#########} us, max = {5,number,#########} us",
+                        entry.getKey().getSimpleName(), stats.getDelivered(), stats.getQueueDepth(),
+                        stats.getDropped(), stats.getAverageLatencyMicros(), stats.getMaxLatencyMicros()));
+            }
 
             logger.l5(sb.toString());
         } catch(Exception consumed){
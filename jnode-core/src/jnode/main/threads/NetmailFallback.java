@@ -21,7 +21,6 @@
 package jnode.main.threads;
 
 import java.util.Date;
-import java.util.List;
 import java.util.TimerTask;
 
 import jnode.dto.Link;
@@ -42,28 +41,28 @@ public class NetmailFallback extends TimerTask {
 	private static final Logger logger = Logger
 			.getLogger(NetmailFallback.class);
 
+	private static final int FETCH_SIZE = 100;
+
 	@Override
 	public void run() {
 		Date date = new Date(new Date().getTime() - 3600000L); // 1 hour ago
-		List<Netmail> expiredNetmail = ORMManager.get(Netmail.class).getAnd(
-				"last_modified", "<", date, "send", "=", false);
-		if (expiredNetmail.isEmpty()) {
-			return;
-		}
-		for (Netmail netmail : expiredNetmail) {
-			
+		Date now = new Date();
+		ORMManager.get(Netmail.class).forEachAnd(FETCH_SIZE, netmail -> {
 			FtnMessage msg = FtnTools.netmailToFtnMessage(netmail);
 			msg.setToAddr(new FtnAddress(netmail.getToFTN()));
 			Link routeVia = FtnTools.getRoutingFallback(msg,
 					netmail.getRouteVia());
 			if (routeVia != null) {
 				netmail.setRouteVia(routeVia);
+				ORMManager.get(Netmail.class).updateLater("route_via",
+						routeVia.getId(), "id", netmail.getId());
 				logger.l3("Netmail #" + netmail.getId() + " re-routed via "
 						+ routeVia.getLinkAddress());
 			}
-			netmail.setLastModified(new Date());
-			ORMManager.get(Netmail.class).update(netmail);
-		}
+			netmail.setLastModified(now);
+			ORMManager.get(Netmail.class).updateLater("last_modified", now,
+					"id", netmail.getId());
+		}, "last_modified", "<", date, "send", "=", false);
 	}
 
 }
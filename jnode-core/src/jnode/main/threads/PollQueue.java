@@ -22,6 +22,7 @@ package jnode.main.threads;
 
 import jnode.dto.Link;
 import jnode.ftn.types.FtnAddress;
+import jnode.metrics.Metrics;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -47,6 +48,16 @@ public class PollQueue {
 
 	private LinkedList<Link> queue = new LinkedList<Link>();
 
+	private PollQueue() {
+		Metrics.gauge("jnode_poll_queue_depth", "Links waiting to be polled",
+				this::size);
+		Metrics.gauge("jnode_poll_active", "Polls in progress", () -> {
+			synchronized (pollMap) {
+				return pollMap.size();
+			}
+		});
+	}
+
 	public void add(Link link) {
 		// Use resolved address which includes nodelist fallback
 		String resolvedAddress = link.getResolvedProtocolAddress();
@@ -137,6 +148,12 @@ public class PollQueue {
 		}
 	}
 
+	public int size() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
 	public boolean isEmpty() {
 		synchronized (queue) {
 			return queue.isEmpty();
@@ -26,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 
 import jnode.logger.Logger;
 import jnode.main.MainHandler;
+import jnode.metrics.Metrics;
 
 public class ThreadPool {
 	private static ThreadPool self;
@@ -42,6 +43,14 @@ public class ThreadPool {
 				30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueSize));
 
 		logger.l3("Thread pool (" + numThreads + " threads) started with queue size " + queueSize);
+		Metrics.gauge("jnode_threadpool_active_threads", "Busy thread pool threads",
+				executor::getActiveCount);
+		Metrics.gauge("jnode_threadpool_max_threads", "Thread pool size limit",
+				executor::getMaximumPoolSize);
+		Metrics.gauge("jnode_threadpool_queue_depth", "Tasks waiting for a thread",
+				() -> executor.getQueue().size());
+		Metrics.gauge("jnode_threadpool_queue_free", "Free places in the task queue",
+				() -> executor.getQueue().remainingCapacity());
 		self = this;
 	}
 
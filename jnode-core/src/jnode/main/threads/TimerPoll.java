@@ -29,13 +29,15 @@ import jnode.orm.ORMManager;
 
 public class TimerPoll extends TimerTask {
 
+	private static final int FETCH_SIZE = 100;
+
 	@Override
 	public void run() {
-		for (Link l : ORMManager.get(Link.class).getAll()) {
+		ORMManager.get(Link.class).forEachAnd(FETCH_SIZE, l -> {
 			if (FtnTools.getOptionBooleanDefTrue(l,
 					LinkOption.BOOLEAN_POLL_BY_TIMEOT)) {
 				PollQueue.getSelf().add(l);
 			}
-		}
+		});
 	}
 }
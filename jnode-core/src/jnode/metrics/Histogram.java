@@ -0,0 +1,121 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram over fixed, roughly logarithmic buckets. Values are recorded as
+ * longs ( nanoseconds, bytes ) and exported multiplied by scale
+ */
+public final class Histogram {
+	/** 100us .. 5m, for nanoseconds */
+	public static final long[] DURATION = { 100000L, 250000L, 500000L,
+			1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L,
+			100000000L, 250000000L, 500000000L, 1000000000L, 2500000000L,
+			5000000000L, 10000000000L, 30000000000L, 60000000000L,
+			300000000000L };
+	/** 1k .. 1G */
+	public static final long[] SIZE = { 1024L, 4096L, 16384L, 65536L,
+			262144L, 1048576L, 4194304L, 16777216L, 67108864L, 268435456L,
+			1073741824L };
+
+	private final long[] bounds;
+	private final double scale;
+	private final LongAdder[] buckets;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+
+	Histogram(long[] bounds, double scale) {
+		this.bounds = bounds;
+		this.scale = scale;
+		this.buckets = new LongAdder[bounds.length + 1];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	public void observe(long value) {
+		int i = Arrays.binarySearch(bounds, value);
+		buckets[i < 0 ? -i - 1 : i].increment();
+		count.increment();
+		sum.add(value);
+	}
+
+	/**
+	 * @param start
+	 *            {@link System#nanoTime()} at start
+	 */
+	public void observeSince(long start) {
+		observe(System.nanoTime() - start);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @param quantile
+	 *            0..1
+	 * @return upper bound of the bucket holding the quantile, unscaled;
+	 *         Long.MAX_VALUE if it is above the last bound
+	 */
+	public long getQuantile(double quantile) {
+		long[] counts = counts();
+		long total = 0;
+		for (long c : counts) {
+			total += c;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < bounds.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) {
+				return bounds[i];
+			}
+		}
+		return total == 0 ? 0 : Long.MAX_VALUE;
+	}
+
+	long[] getBounds() {
+		return bounds;
+	}
+
+	double getScale() {
+		return scale;
+	}
+
+	/**
+	 * @return per bucket counts, the last one is above all bounds
+	 */
+	long[] counts() {
+		long[] counts = new long[buckets.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide metrics registry. Metrics are identified by name and label
+ * pairs and created on first use:
+ *
+ * <pre>
+ * Metrics.counter(&quot;jnode_tosser_messages_total&quot;, &quot;Messages tossed&quot;,
+ * 		&quot;area&quot;, area, &quot;result&quot;, &quot;tossed&quot;).add(n);
+ * </pre>
+ *
+ * Hot paths should keep label-less metrics in static fields. Output is the
+ * Prometheus text exposition format
+ */
+public final class Metrics {
+	private static final String COUNTER = "counter";
+	private static final String GAUGE = "gauge";
+	private static final String HISTOGRAM = "histogram";
+
+	private static final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+	private static final class Family {
+		private final String type;
+		private final String help;
+		// labels -> metric
+		private final ConcurrentMap<String, Object> children = new ConcurrentHashMap<>();
+
+		private Family(String type, String help) {
+			this.type = type;
+			this.help = help;
+		}
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * @param labels
+	 *            name, value, name, value ...
+	 */
+	public static Counter counter(String name, String help, String... labels) {
+		return (Counter) family(name, COUNTER, help).children.computeIfAbsent(
+				labels(labels), l -> new Counter());
+	}
+
+	/**
+	 * Histogram of durations recorded in nanoseconds, exported in seconds
+	 */
+	public static Histogram timer(String name, String help, String... labels) {
+		return histogram(name, help, Histogram.DURATION, 1e-9, labels);
+	}
+
+	public static Histogram histogram(String name, String help,
+			long[] bounds, double scale, String... labels) {
+		return (Histogram) family(name, HISTOGRAM, help).children
+				.computeIfAbsent(labels(labels), l -> new Histogram(bounds,
+						scale));
+	}
+
+	/**
+	 * Registers gauge read at scrape time; registering again replaces the
+	 * supplier
+	 */
+	public static void gauge(String name, String help, LongSupplier value,
+			String... labels) {
+		family(name, GAUGE, help).children.put(labels(labels), value);
+	}
+
+	/**
+	 * @return histograms of the family by their labels, empty if none
+	 */
+	public static Map<String, Histogram> histograms(String name) {
+		Map<String, Histogram> ret = new TreeMap<>();
+		Family family = families.get(name);
+		if (family != null && HISTOGRAM.equals(family.type)) {
+			for (Map.Entry<String, Object> child : family.children.entrySet()) {
+				ret.put(child.getKey(), (Histogram) child.getValue());
+			}
+		}
+		return ret;
+	}
+
+	private static Family family(String name, String type, String help) {
+		Family family = families.computeIfAbsent(name, n -> new Family(type,
+				help));
+		if (!family.type.equals(type)) {
+			throw new IllegalArgumentException("Metric " + name + " is a "
+					+ family.type + ", not a " + type);
+		}
+		return family;
+	}
+
+	static String labels(String... labels) {
+		if (labels.length == 0) {
+			return "";
+		}
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be name/value pairs");
+		}
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < labels.length; i += 2) {
+			if (i > 0) {
+				b.append(',');
+			}
+			b.append(labels[i]).append("=\"");
+			String value = labels[i + 1] == null ? "" : labels[i + 1];
+			for (int j = 0; j < value.length(); j++) {
+				char c = value.charAt(j);
+				if (c == '\\' || c == '"') {
+					b.append('\\').append(c);
+				} else if (c == '\n') {
+					b.append("\\n");
+				} else {
+					b.append(c);
+				}
+			}
+			b.append('"');
+		}
+		return b.toString();
+	}
+
+	/**
+	 * @return all metrics in Prometheus text format 0.0.4
+	 */
+	public static String scrape() {
+		StringBuilder out = new StringBuilder(8192);
+		for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+			String name = entry.getKey();
+			Family family = entry.getValue();
+			out.append("# HELP ").append(name).append(' ')
+					.append(family.help.replace("\\", "\\\\").replace("\n", "\\n"))
+					.append('\n');
+			out.append("# TYPE ").append(name).append(' ').append(family.type)
+					.append('\n');
+			for (Map.Entry<String, Object> child : new TreeMap<>(
+					family.children).entrySet()) {
+				String labels = child.getKey();
+				Object metric = child.getValue();
+				if (metric instanceof Counter) {
+					sample(out, name, labels, null, ((Counter) metric).get());
+				} else if (metric instanceof LongSupplier) {
+					long value;
+					try {
+						value = ((LongSupplier) metric).getAsLong();
+					} catch (RuntimeException e) {
+						continue;
+					}
+					sample(out, name, labels, null, value);
+				} else if (metric instanceof Histogram) {
+					histogram(out, name, labels, (Histogram) metric);
+				}
+			}
+		}
+		return out.toString();
+	}
+
+	private static void histogram(StringBuilder out, String name,
+			String labels, Histogram histogram) {
+		long[] bounds = histogram.getBounds();
+		long[] counts = histogram.counts();
+		double scale = histogram.getScale();
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			String le = (i < bounds.length) ? number(bounds[i] * scale)
+					: "+Inf";
+			sample(out, name + "_bucket", labels, le, cumulative);
+		}
+		out.append(name).append("_sum");
+		if (!labels.isEmpty()) {
+			out.append('{').append(labels).append('}');
+		}
+		out.append(' ').append(number(histogram.getSum() * scale)).append('\n');
+		// count is consistent with buckets read above
+		sample(out, name + "_count", labels, null, cumulative);
+	}
+
+	private static void sample(StringBuilder out, String name, String labels,
+			String le, long value) {
+		out.append(name);
+		if (!labels.isEmpty() || le != null) {
+			out.append('{').append(labels);
+			if (le != null) {
+				if (!labels.isEmpty()) {
+					out.append(',');
+				}
+				out.append("le=\"").append(le).append('"');
+			}
+			out.append('}');
+		}
+		out.append(' ').append(value).append('\n');
+	}
+
+	private static String number(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+}
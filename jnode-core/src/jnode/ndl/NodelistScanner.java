@@ -52,6 +52,11 @@ public class NodelistScanner {
 	private static final Logger logger = Logger
 			.getLogger(NodelistScanner.class);
 
+	private static final long RECHECK_INTERVAL = 60000L;
+
+	private NodelistIndex index;
+	private long checkedAt;
+
 	public static NodelistScanner getInstance() {
 		return self;
 	}
@@ -216,8 +221,33 @@ public class NodelistScanner {
 		return ndl;
 	}
 
+	/**
+	 * Index kept in memory; nodelist file is checked for updates at most
+	 * once per RECHECK_INTERVAL
+	 * 
+	 * @return
+	 */
+	private synchronized NodelistIndex getNdlIndex() {
+		long now = System.currentTimeMillis();
+		if (index == null || now - checkedAt > RECHECK_INTERVAL) {
+			checkedAt = now;
+			if (index == null) {
+				index = createNdlIndex();
+			} else {
+				File ndl = getNodelistFile();
+				if (ndl != null && ndl.lastModified() > index.getTimestamp()) {
+					NodelistIndex newIndex = createNdlIndexFile(ndl);
+					if (newIndex != null) {
+						index = newIndex;
+					}
+				}
+			}
+		}
+		return index;
+	}
+
 	public FtnNdlAddress isExists(FtnAddress address) {
-		NodelistIndex index = createNdlIndex();
+		NodelistIndex index = getNdlIndex();
 		if (index == null) {
 			logger.l3("Nodelist not found; We trust that " + address
 					+ " exists");
@@ -122,6 +122,15 @@ public class BinkpProtocolTools {
 	}
 
 	public static int write(BinkpFrame frame, SocketChannel socket) {
+		return write(frame, socket, null);
+	}
+
+	/**
+	 * @param stat
+	 *            counts writes that made no progress, may be null
+	 */
+	public static int write(BinkpFrame frame, SocketChannel socket,
+			BinkpSessionStat stat) {
 		if (frame != null) {
 			try {
 				logger.l5("write() called with frame: " + frame);
@@ -133,6 +142,9 @@ public class BinkpProtocolTools {
 					int written = socket.write(buf);
 					writtenBytes += written;
 					if (written == 0) {
+						if (stat != null) {
+							stat.zeroWrite();
+						}
 						logger.l2("CRITICAL: channel.write() returned 0, remaining=" + buf.remaining() + ", socket.isConnected()=" + socket.isConnected());
 						Thread.yield(); // Give the channel a moment
 					} else if (written > 0) {
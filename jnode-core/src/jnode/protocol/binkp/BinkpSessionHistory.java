@@ -0,0 +1,205 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.protocol.binkp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jnode.main.MainHandler;
+import jnode.metrics.Histogram;
+import jnode.metrics.Metrics;
+
+/**
+ * Recent binkp sessions and moving average throughput per link
+ */
+public class BinkpSessionHistory {
+	private static final String BINKP_HISTORY_SIZE = "binkp.history.size";
+	private static final int DEFAULT_SIZE = 100;
+	// weight of the newest session in moving averages
+	private static final double ALPHA = 0.2;
+	// smaller transfers say more about latency than throughput
+	private static final long MIN_RATE_BYTES = 16384;
+	private static final Histogram HANDSHAKE_TIME = Metrics.timer(
+			"jnode_binkp_handshake_seconds",
+			"Time from binkp session start till authentication");
+
+	private static final BinkpSessionHistory self = new BinkpSessionHistory();
+
+	public static BinkpSessionHistory getSelf() {
+		return self;
+	}
+
+	// guarded by this
+	private BinkpSessionStat[] ring;
+	private int next;
+	private long total;
+	private final ConcurrentMap<String, LinkThroughput> links = new ConcurrentHashMap<>();
+
+	/**
+	 * Moving averages of one link
+	 */
+	public static final class LinkThroughput {
+		private long sessions;
+		private long failed;
+		private long lastSession;
+		private double sendRate = -1;
+		private double receiveRate = -1;
+		private double handshakeMillis = -1;
+		private long bytesSent;
+		private long bytesReceived;
+		private long zeroWrites;
+		private long selectTimeouts;
+
+		private synchronized void add(BinkpSessionStat stat) {
+			sessions++;
+			if (!stat.isSuccess()) {
+				failed++;
+			}
+			lastSession = stat.getStarted();
+			if (stat.getHandshakeMillis() >= 0) {
+				handshakeMillis = average(handshakeMillis,
+						stat.getHandshakeMillis());
+			}
+			if (stat.getBytesSent() >= MIN_RATE_BYTES) {
+				sendRate = average(sendRate, stat.getSendRate());
+			}
+			if (stat.getBytesReceived() >= MIN_RATE_BYTES) {
+				receiveRate = average(receiveRate, stat.getReceiveRate());
+			}
+			bytesSent += stat.getBytesSent();
+			bytesReceived += stat.getBytesReceived();
+			zeroWrites += stat.getZeroWrites();
+			selectTimeouts += stat.getSelectTimeouts();
+		}
+
+		private static double average(double average, long value) {
+			return (average < 0) ? value : average + ALPHA * (value - average);
+		}
+
+		public synchronized long getSessions() {
+			return sessions;
+		}
+
+		public synchronized long getFailed() {
+			return failed;
+		}
+
+		public synchronized long getLastSession() {
+			return lastSession;
+		}
+
+		/**
+		 * @return bytes per second, -1 if no session sent enough
+		 */
+		public synchronized long getSendRate() {
+			return Math.round(sendRate);
+		}
+
+		public synchronized long getReceiveRate() {
+			return Math.round(receiveRate);
+		}
+
+		public synchronized long getHandshakeMillis() {
+			return Math.round(handshakeMillis);
+		}
+
+		public synchronized long getBytesSent() {
+			return bytesSent;
+		}
+
+		public synchronized long getBytesReceived() {
+			return bytesReceived;
+		}
+
+		public synchronized long getZeroWrites() {
+			return zeroWrites;
+		}
+
+		public synchronized long getSelectTimeouts() {
+			return selectTimeouts;
+		}
+	}
+
+	private BinkpSessionHistory() {
+	}
+
+	private int getSize() {
+		MainHandler handler = MainHandler.getCurrentInstance();
+		int size = (handler != null) ? handler.getIntegerProperty(
+				BINKP_HISTORY_SIZE, DEFAULT_SIZE) : DEFAULT_SIZE;
+		return Math.max(size, 1);
+	}
+
+	public void add(BinkpSessionStat stat) {
+		if (stat.getHandshakeMillis() >= 0) {
+			HANDSHAKE_TIME.observe(stat.getHandshakeMillis() * 1000000L);
+		}
+		if (stat.getAddress() != null) {
+			links.computeIfAbsent(stat.getAddress(), a -> new LinkThroughput())
+					.add(stat);
+		}
+		synchronized (this) {
+			if (ring == null) {
+				ring = new BinkpSessionStat[getSize()];
+			}
+			ring[next] = stat;
+			next = (next + 1) % ring.length;
+			total++;
+		}
+	}
+
+	/**
+	 * @return recent sessions, newest first
+	 */
+	public synchronized List<BinkpSessionStat> getRecent() {
+		List<BinkpSessionStat> ret = new ArrayList<>();
+		if (ring != null) {
+			for (int i = 1; i <= ring.length; i++) {
+				BinkpSessionStat stat = ring[(next - i + ring.length)
+						% ring.length];
+				if (stat == null) {
+					break;
+				}
+				ret.add(stat);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return sessions finished since start
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return links by address
+	 */
+	public Map<String, LinkThroughput> getLinks() {
+		return new TreeMap<>(links);
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.protocol.binkp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Telemetry of one binkp session. Filled by the connector thread and
+ * published to {@link BinkpSessionHistory} when the session ends
+ */
+public final class BinkpSessionStat {
+	private static final int MAX_FILES = 100;
+
+	private final long started = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private final boolean incoming;
+	private String address;
+	private boolean success;
+	private String reason;
+	private long handshakeNanos = -1;
+	private long firstByteNanos = -1;
+	private long durationNanos = -1;
+	private long bytesSent;
+	private long bytesReceived;
+	private long framesSent;
+	private long framesReceived;
+	private long zeroWrites;
+	private long selectTimeouts;
+	private final List<FileTransfer> files = new ArrayList<>();
+
+	/**
+	 * One sent or received file
+	 */
+	public static final class FileTransfer {
+		private final String name;
+		private final long size;
+		private final boolean incoming;
+		private final boolean success;
+		private final long nanos;
+
+		private FileTransfer(String name, long size, boolean incoming,
+				boolean success, long nanos) {
+			this.name = name;
+			this.size = size;
+			this.incoming = incoming;
+			this.success = success;
+			this.nanos = nanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public boolean isIncoming() {
+			return incoming;
+		}
+
+		public boolean isSuccess() {
+			return success;
+		}
+
+		public long getMillis() {
+			return nanos / 1000000L;
+		}
+
+		/**
+		 * @return bytes per second, 0 if unknown
+		 */
+		public long getRate() {
+			return rate(size, nanos);
+		}
+	}
+
+	public BinkpSessionStat(boolean incoming) {
+		this.incoming = incoming;
+	}
+
+	static long rate(long bytes, long nanos) {
+		return (nanos > 0) ? bytes * 1000000000L / nanos : 0;
+	}
+
+	private long since() {
+		return System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Authentication completed
+	 */
+	public void handshakeDone() {
+		if (handshakeNanos < 0) {
+			handshakeNanos = since();
+		}
+	}
+
+	/**
+	 * File data was sent or received
+	 */
+	public void firstByte() {
+		if (firstByteNanos < 0) {
+			firstByteNanos = since();
+		}
+	}
+
+	public void zeroWrite() {
+		zeroWrites++;
+	}
+
+	public void selectTimeout() {
+		selectTimeouts++;
+	}
+
+	/**
+	 * @param start
+	 *            {@link System#nanoTime()} of M_FILE
+	 */
+	public void file(String name, long size, boolean incoming,
+			boolean success, long start) {
+		if (files.size() < MAX_FILES) {
+			files.add(new FileTransfer(name, size, incoming, success, System
+					.nanoTime() - start));
+		}
+	}
+
+	public void finish(String address, boolean success, String reason,
+			long bytesSent, long bytesReceived, long framesSent,
+			long framesReceived) {
+		this.durationNanos = since();
+		this.address = address;
+		this.success = success;
+		this.reason = reason;
+		this.bytesSent = bytesSent;
+		this.bytesReceived = bytesReceived;
+		this.framesSent = framesSent;
+		this.framesReceived = framesReceived;
+	}
+
+	public long getStarted() {
+		return started;
+	}
+
+	public boolean isIncoming() {
+		return incoming;
+	}
+
+	/**
+	 * @return link address, null if the remote did not present one
+	 */
+	public String getAddress() {
+		return address;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return milliseconds till authentication, -1 if never authenticated
+	 */
+	public long getHandshakeMillis() {
+		return (handshakeNanos < 0) ? -1 : handshakeNanos / 1000000L;
+	}
+
+	/**
+	 * @return milliseconds till first file data, -1 if no files
+	 */
+	public long getFirstByteMillis() {
+		return (firstByteNanos < 0) ? -1 : firstByteNanos / 1000000L;
+	}
+
+	public long getDurationMillis() {
+		return durationNanos / 1000000L;
+	}
+
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	public long getFramesSent() {
+		return framesSent;
+	}
+
+	public long getFramesReceived() {
+		return framesReceived;
+	}
+
+	public long getZeroWrites() {
+		return zeroWrites;
+	}
+
+	public long getSelectTimeouts() {
+		return selectTimeouts;
+	}
+
+	/**
+	 * @return nanoseconds after authentication, when files could flow
+	 */
+	long getTransferNanos() {
+		return durationNanos - Math.max(handshakeNanos, 0);
+	}
+
+	/**
+	 * @return bytes per second after authentication
+	 */
+	public long getSendRate() {
+		return rate(bytesSent, getTransferNanos());
+	}
+
+	public long getReceiveRate() {
+		return rate(bytesReceived, getTransferNanos());
+	}
+
+	public List<FileTransfer> getFiles() {
+		return Collections.unmodifiableList(files);
+	}
+}
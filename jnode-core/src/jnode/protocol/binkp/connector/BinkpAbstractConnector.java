@@ -33,7 +33,12 @@ import jnode.main.SystemInfo;
 import jnode.main.threads.PollQueue;
 import jnode.main.threads.ThreadPool;
 import jnode.main.threads.TosserQueue;
+import jnode.metrics.Counter;
+import jnode.metrics.Histogram;
+import jnode.metrics.Metrics;
 import jnode.ndl.NodelistScanner;
+import jnode.protocol.binkp.BinkpSessionHistory;
+import jnode.protocol.binkp.BinkpSessionStat;
 import jnode.protocol.binkp.exceprion.ConnectionEndException;
 import jnode.protocol.binkp.types.BinkpCommand;
 import jnode.protocol.binkp.types.BinkpFrame;
@@ -57,6 +62,18 @@ import static jnode.protocol.binkp.BinkpProtocolTools.*;
  */
 public abstract class BinkpAbstractConnector implements Runnable {
 	private static final Logger logger = Logger.getLogger(BinkpAbstractConnector.class);
+	private static final Histogram SESSION_TIME = Metrics.timer(
+			"jnode_binkp_session_seconds", "Binkp session duration");
+	private static final Histogram RECV_BYTES = Metrics.histogram(
+			"jnode_binkp_session_bytes", "Bytes per binkp session",
+			Histogram.SIZE, 1, "direction", "received");
+	private static final Histogram SENT_BYTES = Metrics.histogram(
+			"jnode_binkp_session_bytes", "Bytes per binkp session",
+			Histogram.SIZE, 1, "direction", "sent");
+	private static final Counter RECV_FRAMES = Metrics.counter(
+			"jnode_binkp_frames_total", "Binkp frames", "direction", "received");
+	private static final Counter SENT_FRAMES = Metrics.counter(
+			"jnode_binkp_frames_total", "Binkp frames", "direction", "sent");
 
 	private static final ConcurrentDateFormatAccess format = new ConcurrentDateFormatAccess(
 			"EEE, dd MMM yyyy HH:mm:ss Z", Locale.US);
@@ -137,16 +154,23 @@ public abstract class BinkpAbstractConnector implements Runnable {
 	private long receivingBytesLeft;
 	protected boolean flag_leob = false;
 	protected boolean flag_reob = false;
-	protected int sent_bytes = 0;
-	protected int recv_bytes = 0;
-	protected int total_sent_bytes = 0;
-	protected int total_recv_bytes = 0;
+	protected long sent_bytes = 0;
+	protected long recv_bytes = 0;
+	protected long total_sent_bytes = 0;
+	protected long total_recv_bytes = 0;
 	protected int total_sent_files = 0;
 	protected int total_recv_files = 0;
+	protected int total_sent_frames = 0;
+	protected int total_recv_frames = 0;
 	protected long lastTimeout;
 
 	protected LinkedList<BinkpFrame> frames = new LinkedList<>();
 	private long time = 0;
+	protected final BinkpSessionStat stat;
+	private String endReason;
+	// System.nanoTime() of M_FILE
+	private long receivingStarted;
+	private final Map<Message, Long> sendingStarted = new IdentityHashMap<>();
 
 	public abstract void run();
 
@@ -186,6 +210,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		init();
 		this.clientConnection = true;
 		this.protocolAddress = protocolAddress; // Store for error reporting
+		this.stat = new BinkpSessionStat(false);
 		logger.l3("Created " + getClass().getSimpleName()
 				+ " client connection to " + protocolAddress);
 	}
@@ -193,6 +218,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 	public BinkpAbstractConnector() throws IOException {
 		init();
 		this.clientConnection = false;
+		this.stat = new BinkpSessionStat(true);
 		logger.l3("Created " + getClass().getSimpleName()
 				+ " server connection");
 	}
@@ -204,6 +230,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		String duration = String.format("%.2f", elapsed / 1000.0);
 		String addressInfo = getAddressInfo();
 		logger.l2("[STATE:" + getStateString() + "->ERROR] Local error connecting to " + addressInfo + " after " + duration + " seconds: " + text);
+		endReason = text;
 		connectionState = STATE_ERROR;
 	}
 
@@ -214,6 +241,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		String duration = String.format("%.2f", elapsed / 1000.0);
 		String addressInfo = getAddressInfo();
 		logger.l2("[STATE:" + getStateString() + "->ERROR] Local error connecting to " + addressInfo + " after " + duration + " seconds: " + text, e);
+		endReason = text;
 		connectionState = STATE_ERROR;
 	}
 
@@ -221,6 +249,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		if (time == 0) {
 			time = new Date().getTime();
 		}
+		total_recv_frames++;
 		addTimeout(); // it's ok :-)
 		logger.l4("[STATE:" + getStateString() + "] Processing frame: " + frame);
 		if (frame.getCommand() != null) {
@@ -268,15 +297,19 @@ public abstract class BinkpAbstractConnector implements Runnable {
 				break;
 			}
 		} else {
-			logger.l5("Processing DATA frame, receivingMessage=" + 
-				(receivingMessage != null ? receivingMessage.getMessageName() : "null") +
-				", bytesLeft=" + receivingBytesLeft);
+			if (logger.isNeedLog5()) {
+				logger.l5("Processing DATA frame, receivingMessage=" + 
+					(receivingMessage != null ? receivingMessage.getMessageName() : "null") +
+					", bytesLeft=" + receivingBytesLeft);
+			}
 			if (receivingMessage != null) {
 				if (receivingBytesLeft > 0) {
 					byte[] data = frame.getBytes();
 					int len = data.length - 2;
-					logger.l5("Writing " + len + " bytes to file, bytesLeft before=" + 
-						receivingBytesLeft);
+					if (logger.isNeedLog5()) {
+						logger.l5("Writing " + len + " bytes to file, bytesLeft before=" + 
+							receivingBytesLeft);
+					}
 					try {
 						if (receivingBytesLeft >= len) {
 							currentOS.write(data, 2, len);
@@ -287,6 +320,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 						}
 						recv_bytes += len;
 						total_recv_bytes += len;
+						stat.firstByte();
 					} catch (IOException e) {
 						logger.l3(String.format("Skipped receiving file: %s (IO error after %d bytes)",
 								receivingMessage.getMessageName(), recv_bytes));
@@ -294,6 +328,9 @@ public abstract class BinkpAbstractConnector implements Runnable {
 								"fail receive message {2}, recv_bytes={0}, " +
 										"total_recv_bytes={1}, skip",
 								recv_bytes, total_recv_bytes, receivingMessage), e);
+						stat.file(receivingMessage.getMessageName(),
+								receivingMessage.getMessageLength(), true,
+								false, receivingStarted);
 						frames.addLast(new BinkpFrame(BinkpCommand.M_SKIP,
 								getString(receivingMessage)));
 						receivingMessage = null;
@@ -313,6 +350,9 @@ public abstract class BinkpAbstractConnector implements Runnable {
 							(ret == 0) ? BinkpCommand.M_GOT
 									: BinkpCommand.M_SKIP,
 							getString(receivingMessage)));
+					stat.file(receivingMessage.getMessageName(),
+							receivingMessage.getMessageLength(), true,
+							ret == 0, receivingStarted);
 					if (ret == 0) {
 						logger.l3(String.format("Received file: %s (%d bytes)",
 								receivingMessage.getMessageName(),
@@ -344,6 +384,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 
 	private void rerror(String string) {
 		logger.l2("[STATE:" + getStateString() + "->ERROR] Remote error: " + string);
+		endReason = string;
 		connectionState = STATE_ERROR;
 	}
 
@@ -364,6 +405,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			}
 		}
 		if (found != null) {
+			fileSent(found, false);
 			messages.remove(found);
 		} else {
 			logger.l3("M_GOT for file we haven't sent: " + arg);
@@ -396,6 +438,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			total_sent_files++;
 			logger.l3(String.format("Sent file: %s (%d bytes)",
 					found.getMessageName(), found.getMessageLength()));
+			fileSent(found, true);
 			found.delete();
 			messages.remove(found);
 		} else {
@@ -403,6 +446,14 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		}
 	}
 
+	private void fileSent(Message message, boolean success) {
+		Long started = sendingStarted.remove(message);
+		if (started != null) {
+			stat.file(message.getMessageName(), message.getMessageLength(),
+					false, success, started);
+		}
+	}
+
 	private void m_file(String arg) {
 		logger.l5("M_FILE received: " + arg);
 		String[] parts = arg.split(" ");
@@ -424,6 +475,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			logger.l5("Requesting file from offset 0");
 		} else {
 			receivingBytesLeft = receivingMessage.getMessageLength();
+			receivingStarted = System.nanoTime();
 			try {
 				final String prefix = "temp";
 				final String suffix = "jnode";
@@ -480,6 +532,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 						.get(0));
 		logger.l3("[STATE:AUTH->TRANSFER] " + text);
 		connectionState = STATE_TRANSFER;
+		stat.handshakeDone();
 		
 		// CRITICAL: Check for messages immediately after authentication
 		logger.l4("[STATE:TRANSFER] Connection authenticated, checking for messages to send");
@@ -508,6 +561,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			logger.l3("[STATE:AUTH->TRANSFER] " + text);
 			frames.addLast(new BinkpFrame(BinkpCommand.M_OK, text));
 			connectionState = STATE_TRANSFER;
+			stat.handshakeDone();
 			
 			// CRITICAL: For server connections, check for messages after sending M_OK
 			if (!clientConnection) {
@@ -623,6 +677,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		frames.clear();
 		frames.addLast(new BinkpFrame(BinkpCommand.M_BSY, string));
 		connectionState = STATE_END;
+		endReason = string;
 		logger.l3("Local busy: " + string);
 	}
 
@@ -716,9 +771,11 @@ public abstract class BinkpAbstractConnector implements Runnable {
 
 	protected void checkForMessages() {
 		checkTimeout();
-		logger.l5("[STATE:" + getStateString() + "] checkForMessages: flag_leob=" + flag_leob + 
-			", messages.size=" + messages.size() + ", currentInputStream=" + (currentInputStream != null) + 
-			", frames.size=" + frames.size());
+		if (logger.isNeedLog5()) {
+			logger.l5("[STATE:" + getStateString() + "] checkForMessages: flag_leob=" + flag_leob + 
+				", messages.size=" + messages.size() + ", currentInputStream=" + (currentInputStream != null) + 
+				", frames.size=" + frames.size());
+		}
 		if (connectionState != STATE_TRANSFER) {
 			logger.l5("[STATE:" + getStateString() + "] Not in TRANSFER state, skipping message check");
 			return;
@@ -730,10 +787,14 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			return;
 		}
 		if (messages.size() > 0) {
-			logger.l5("[STATE:" + getStateString() + "] Attempting to read frame from current file");
+			if (logger.isNeedLog5()) {
+				logger.l5("[STATE:" + getStateString() + "] Attempting to read frame from current file");
+			}
 			BinkpFrame frame = readFrame();
 			if (frame != null) {
-				logger.l5("[STATE:" + getStateString() + "] DATA FRAME CREATED: " + (frame.getBytes().length - 2) + " bytes, adding to queue position " + frames.size());
+				if (logger.isNeedLog5()) {
+					logger.l5("[STATE:" + getStateString() + "] DATA FRAME CREATED: " + (frame.getBytes().length - 2) + " bytes, adding to queue position " + frames.size());
+				}
 				frames.addLast(frame);
 			} else { // error, null
 				logger.l5("[STATE:" + getStateString() + "] readFrame returned null - EOF or error");
@@ -765,6 +826,9 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		String duration = String.format("%.2f", elapsed / 1000.0);
 		String addressInfo = getAddressInfo();
 		logger.l3("[STATE:" + getStateString() + "->END] Finishing connection to " + addressInfo + " after " + duration + " seconds: " + reason);
+		if (endReason == null) {
+			endReason = reason;
+		}
 		for (FtnAddress addr : foreignAddress) {
 			PollQueue.getSelf().end(addr);
 		}
@@ -835,19 +899,27 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			logger.l5("readFrame: currentInputStream is not null");
 			try {
 				int available = currentInputStream.available();
-				logger.l5("Available bytes in stream: " + available);
+				if (logger.isNeedLog5()) {
+					logger.l5("Available bytes in stream: " + available);
+				}
 				byte[] buf = new byte[staticBufMaxSize];
 				int n = currentInputStream.read(buf);
-				logger.l5("Read " + n + " bytes from file (available was " + available + ")");
+				if (logger.isNeedLog5()) {
+					logger.l5("Read " + n + " bytes from file (available was "
+						+ available + ")");
+				}
 				if (n > 0) {
 					sent_bytes += n;
 					total_sent_bytes += n;
+					stat.firstByte();
 					addTimeout();
 					BinkpFrame frame = new BinkpFrame(buf, n);
-					logger.l5("Created data frame with " + n + " bytes, sent_bytes=" + 
-						sent_bytes + ", total_sent=" + total_sent_bytes);
+					if (logger.isNeedLog5()) {
+						logger.l5("Created data frame with " + n + " bytes, sent_bytes=" + 
+							sent_bytes + ", total_sent=" + total_sent_bytes);
+					}
 					// Log first few bytes for debugging
-					if (n > 0) {
+					if (logger.isNeedLog5()) {
 						StringBuilder sb = new StringBuilder();
 						for (int i = 0; i < Math.min(n, 16); i++) {
 							sb.append(String.format("%02X ", buf[i] & 0xFF));
@@ -894,6 +966,8 @@ public abstract class BinkpAbstractConnector implements Runnable {
 		String fileInfo = getString(message, skip);
 		logger.l5("[STATE:" + getStateString() + "] M_FILE string: " + fileInfo);
 		frames.addLast(new BinkpFrame(BinkpCommand.M_FILE, fileInfo));
+		// M_GET restarts do not reset the transfer time
+		sendingStarted.putIfAbsent(message, System.nanoTime());
 		logger.l3(String.format("[STATE:" + getStateString() + "] Sending file: %s (%d bytes)",
 				message.getMessageName(), message.getMessageLength()));
 		
@@ -991,7 +1065,7 @@ public abstract class BinkpAbstractConnector implements Runnable {
 				logger.l5("[STATE:" + getStateString() + "] Ending poll queue for: " + addr);
 				PollQueue.getSelf().end(addr);
 			}
-			long elapsed = (time > 0) ? time : 1; // Avoid division by zero
+			long elapsed = (time > 0) ? (new Date().getTime() - time) : 0;
 			long scps = (elapsed > 0) ? total_sent_bytes * 1000 / elapsed : total_sent_bytes;
 			long rcps = (elapsed > 0) ? total_recv_bytes * 1000 / elapsed : total_recv_bytes;
 
@@ -1010,6 +1084,19 @@ public abstract class BinkpAbstractConnector implements Runnable {
 			event = new ConnectionEndEvent(clientConnection, false);
 			logger.l3("[STATE:" + getStateString() + "] Connection ended as " + getAddressInfo());
 		}
+		if (time > 0) {
+			SESSION_TIME.observe((new Date().getTime() - time) * 1000000L);
+		}
+		RECV_BYTES.observe(total_recv_bytes);
+		SENT_BYTES.observe(total_sent_bytes);
+		RECV_FRAMES.add(total_recv_frames);
+		SENT_FRAMES.add(total_sent_frames);
+		stat.finish(event.getAddress() != null ? event.getAddress().toString()
+				: null, connectionState == STATE_END,
+				(connectionState == STATE_END) ? null : endReason,
+				total_sent_bytes, total_recv_bytes, total_sent_frames,
+				total_recv_frames);
+		BinkpSessionHistory.getSelf().add(stat);
 		logger.l4("[STATE:" + getStateString() + "] Notifying connection end event");
 		Notifier.INSTANCE.notify(event);
 	}
@@ -97,7 +97,9 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 			while (true) {
 				try {
 					long timeoutToUse = connectionEstablished ? staticMaxTimeout : staticConnectTimeout;
-					selector.select(timeoutToUse);
+					if (selector.select(timeoutToUse) == 0) {
+						stat.selectTimeout();
+					}
 					
 					// Check for connection timeout
 					if (!connectionEstablished) {
@@ -108,11 +110,16 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 					}
 					
 					loopCounter++;
-					logger.l5("[STATE:" + getStateString() + "] Selector loop #" + loopCounter + ", selected keys=" + selector.selectedKeys().size() + ", total keys=" + selector.keys().size());
+					final int loop = loopCounter;
+					if (logger.isNeedLog5()) {
+						logger.l5("[STATE:" + getStateString() + "] Selector loop #" + loop + ", selected keys=" + selector.selectedKeys().size() + ", total keys=" + selector.keys().size());
+					}
 					for (SelectionKey key : selector.selectedKeys()) {
 						SocketChannel channel = (SocketChannel) key.channel();
 						if (key.isValid()) {
-							logger.l5("[STATE:" + getStateString() + "] Key valid: readable=" + key.isReadable() + ", writable=" + key.isWritable() + ", connectable=" + key.isConnectable());
+							if (logger.isNeedLog5()) {
+								logger.l5("[STATE:" + getStateString() + "] Key valid: readable=" + key.isReadable() + ", writable=" + key.isWritable() + ", connectable=" + key.isConnectable());
+							}
 							if (key.isConnectable()) {
 								try {
 									if (!channel.finishConnect()) {
@@ -147,12 +154,14 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 								}
 							}
 							if (key.isWritable()) {
-								logger.l5("[STATE:" + getStateString() + "] Key is writable, checking for messages");
+								if (logger.isNeedLog5()) {
+									logger.l5("[STATE:" + getStateString() + "] Key is writable, checking for messages");
+								}
 								checkForMessages();
 								// CRITICAL: Send ALL queued frames before processing any reads
 								while (!frames.isEmpty()) {
 									// DEBUG: Log queue state before sending
-									if (frames.size() > 1) {
+									if (frames.size() > 1 && logger.isNeedLog5()) {
 										logger.l5("BEFORE SEND: Queue has " + frames.size() + " frames");
 										for (int i = 0; i < Math.min(3, frames.size()); i++) {
 											BinkpFrame peek = frames.get(i);
@@ -165,10 +174,13 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 									}
 									
 									BinkpFrame frame = frames.removeFirst();
-									logger.l5("[STATE:" + getStateString() + "] SENDING Frame: " + frame
-											+ ", next " + frames.size()
-											+ " frames, total sent "
-											+ total_sent_bytes);
+									total_sent_frames++;
+									if (logger.isNeedLog5()) {
+										logger.l5("[STATE:" + getStateString() + "] SENDING Frame: " + frame
+												+ ", next " + frames.size()
+												+ " frames, total sent "
+												+ total_sent_bytes);
+									}
 									
 									try {
 										// Track actual bytes sent
@@ -176,12 +188,14 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 										if (frame.getCommand() == null) {
 											// Data frame
 											bytesSent = frame.getBytes().length;
-											logger.l5("SENDING DATA to network: " + bytesSent + " bytes");
+											if (logger.isNeedLog5()) {
+												logger.l5("SENDING DATA to network: " + bytesSent + " bytes");
+											}
 										}
 										
-										write(frame, channel);
+										write(frame, channel, stat);
 										
-										if (frame.getCommand() == null) {
+										if (frame.getCommand() == null && logger.isNeedLog5()) {
 											// Log first few bytes of data frame to verify content
 											byte[] data = frame.getBytes();
 											StringBuilder hex = new StringBuilder();
@@ -189,11 +203,15 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 												hex.append(String.format("%02X ", data[i] & 0xFF));
 											}
 											logger.l5("DATA SENT to network: " + (data.length - 2) + " bytes, preview: " + hex.toString());
-										} else {
-											logger.l5("[STATE:" + getStateString() + "] COMMAND SENT to network: " + frame);
+										} else if (frame.getCommand() != null) {
+											if (logger.isNeedLog5()) {
+												logger.l5("[STATE:" + getStateString() + "] COMMAND SENT to network: " + frame);
+											}
 										}
 									} catch (Exception e) {
-										logger.l5("[STATE:" + getStateString() + "] SEND FAILED: " + frame + ", error: " + e.getMessage());
+										if (logger.isNeedLog5()) {
+											logger.l5("[STATE:" + getStateString() + "] SEND FAILED: " + frame + ", error: " + e.getMessage());
+										}
 										throw e;
 									}
 								}
@@ -203,9 +221,13 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 							}
 							// CRITICAL: Only process reads AFTER all writes are complete
 							if (key.isReadable()) {
-								logger.l5("[STATE:" + getStateString() + "] Key is READABLE, frames.isEmpty()=" + frames.isEmpty());
+								if (logger.isNeedLog5()) {
+									logger.l5("[STATE:" + getStateString() + "] Key is READABLE, frames.isEmpty()=" + frames.isEmpty());
+								}
 								if (!frames.isEmpty()) {
-									logger.l5("[STATE:" + getStateString() + "] SKIPPING READ: Still have " + frames.size() + " frames to send");
+									if (logger.isNeedLog5()) {
+										logger.l5("[STATE:" + getStateString() + "] SKIPPING READ: Still have " + frames.size() + " frames to send");
+									}
 								} else {
 								BinkpFrame frame = null;
 								ByteBuffer head = ByteBuffer.allocate(2);
@@ -285,7 +307,9 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 									}
 								}
 								if (frame != null) {
-									logger.l5("[STATE:" + getStateString() + "] Frame received: " + frame);
+									if (logger.isNeedLog5()) {
+										logger.l5("[STATE:" + getStateString() + "] Frame received: " + frame);
+									}
 									proccessFrame(frame);
 								}
 								}
@@ -296,12 +320,16 @@ public class BinkpAsyncConnector extends BinkpAbstractConnector {
 						}
 					}
 					// CRITICAL: Clear selected keys after processing to prevent re-processing
-					logger.l5("[STATE:" + getStateString() + "] Clearing selected keys, loop complete");
+					if (logger.isNeedLog5()) {
+						logger.l5("[STATE:" + getStateString() + "] Clearing selected keys, loop complete");
+					}
 					selector.selectedKeys().clear();
 					
 					// CRITICAL: In TRANSFER state, ensure we periodically check for messages even if no write event
 					if (connectionState == STATE_TRANSFER) {
-						logger.l5("[STATE:" + getStateString() + "] In TRANSFER state, explicitly checking for messages");
+						if (logger.isNeedLog5()) {
+							logger.l5("[STATE:" + getStateString() + "] In TRANSFER state, explicitly checking for messages");
+						}
 						checkForMessages();
 					}
 				} catch (ConnectException e) {
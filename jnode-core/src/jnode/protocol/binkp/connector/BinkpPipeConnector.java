@@ -80,6 +80,7 @@ public class BinkpPipeConnector extends BinkpAbstractConnector {
 					} else {
 						try {
 							BinkpFrame frame = frames.removeFirst();
+							total_sent_frames++;
 							try {
 								process.getOutputStream().write(
 										frame.getBytes());
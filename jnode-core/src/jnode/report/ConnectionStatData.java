@@ -18,23 +18,39 @@
  * under the License.
  */
 
+
 package jnode.report;
 
 import jnode.ftn.types.FtnAddress;
 import jnode.logger.Logger;
 import jnode.store.XMLSerializer;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.text.MessageFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
+ * Per-link connection counters file. Written as one line per link,
+ * replaced by atomic rename; files of the old XML format are still read
+ *
  * @author Manjago (kirill@temnenkov.com)
  */
 public class ConnectionStatData {
     private static final Logger logger = Logger.getLogger(ConnectionStatData.class);
+    private static final String HEADER = "# jnode connstat 1";
+    // stands for the unknown link
+    private static final String NO_LINK = "-";
     private final String statPath;
 
     public ConnectionStatData(String statPath) {
@@ -52,12 +68,10 @@ public class ConnectionStatData {
             List<ConnectionStatDataElement> result = internalLoad();
             
             try {
-                XMLSerializer.write(new ArrayList<ConnectionStatDataElement>(), statPath);
+                write(new ArrayList<ConnectionStatDataElement>());
                 logger.l4("Cleared statistics file: " + statPath);
-            } catch (FileNotFoundException e) {
-                logger.l1(MessageFormat.format(" Failed to clear data, file {0} not found", statPath), e);
-            } catch (Exception e) {
-                logger.l1("Unexpected exception while clearing statistics file: " + statPath, e);
+            } catch (IOException e) {
+                logger.l1("Failed to clear statistics file: " + statPath, e);
             }
             return result;
         }
@@ -83,19 +97,49 @@ public class ConnectionStatData {
             }
             
             try {
-                XMLSerializer.write(elements, statPath);
+                write(elements);
                 logger.l4("Updated statistics file: " + statPath);
-            } catch (FileNotFoundException e) {
-                logger.l1(MessageFormat.format(" Failed to store data, file {0} not found", statPath), e);
-            } catch (Exception e) {
-                logger.l1("Unexpected exception while storing statistics to file: " + statPath, e);
+            } catch (IOException e) {
+                logger.l1("Failed to store statistics to file: " + statPath, e);
+            }
+        }
+    }
+
+    /**
+     * Adds counters to the stored ones in a single rewrite
+     *
+     * @return false if the file was not written
+     */
+    public boolean add(Collection<ConnectionStatDataElement> deltas) {
+        synchronized (ConnectionStatData.class) {
+            List<ConnectionStatDataElement> elements = internalLoad();
+            for (ConnectionStatDataElement delta : deltas) {
+                int pos = findPos(delta.linkStr, elements);
+                if (pos == -1) {
+                    ConnectionStatDataElement element = new ConnectionStatDataElement();
+                    element.linkStr = delta.linkStr;
+                    elements.add(element);
+                    pos = elements.size() - 1;
+                }
+                elements.get(pos).add(delta);
+            }
+            try {
+                write(elements);
+                logger.l5("Added " + deltas.size() + " elements to file: " + statPath);
+                return true;
+            } catch (IOException e) {
+                logger.l1("Failed to store statistics to file: " + statPath, e);
+                return false;
             }
         }
     }
 
     public int findPos(FtnAddress ftnAddress, List<ConnectionStatDataElement> elements) {
-        String searchAddress = (ftnAddress != null) ? ftnAddress.toString() : null;
-        
+        return findPos((ftnAddress != null) ? ftnAddress.toString() : null,
+                elements);
+    }
+
+    private int findPos(String searchAddress, List<ConnectionStatDataElement> elements) {
         int pos = -1;
         for (int i = 0; i < elements.size(); ++i) {
             ConnectionStatDataElement element = elements.get(i);
@@ -105,7 +149,7 @@ public class ConnectionStatData {
                 continue;
             }
             
-            if (ftnAddress == null) {
+            if (searchAddress == null) {
                 if (element.linkStr == null) {
                     pos = i;
                     break;
@@ -121,8 +165,41 @@ public class ConnectionStatData {
         return pos;
     }
 
-    @SuppressWarnings("unchecked")
-	private List<ConnectionStatDataElement> internalLoad() {
+    private void write(List<ConnectionStatDataElement> elements) throws IOException {
+        Path target = new File(statPath).getAbsoluteFile().toPath();
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp,
+                StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (ConnectionStatDataElement element : elements) {
+                if (element == null) {
+                    continue;
+                }
+                writer.write((element.linkStr != null) ? element.linkStr : NO_LINK);
+                for (long value : new long[] { element.incomingOk,
+                        element.incomingFailed, element.outgoingOk,
+                        element.outgoingFailed, element.bytesReceived,
+                        element.bytesSended }) {
+                    writer.write(' ');
+                    writer.write(Long.toString(value));
+                }
+                writer.newLine();
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private List<ConnectionStatDataElement> internalLoad() {
         File statFile = new File(statPath);
         if (!statFile.exists()) {
             return new ArrayList<ConnectionStatDataElement>();
@@ -133,66 +210,92 @@ public class ConnectionStatData {
             return new ArrayList<ConnectionStatDataElement>();
         }
         
-        List<ConnectionStatDataElement> result;
         try {
-            Object loaded = XMLSerializer.read(statPath);
-            if (loaded == null) {
-                logger.l2("XMLSerializer returned null for file: " + statPath);
-                return new ArrayList<ConnectionStatDataElement>();
+            if (isXml(statFile)) {
+                return loadXml(statFile);
             }
-            
-            if (!(loaded instanceof List)) {
-                logger.l1("Loaded object is not a List but " + loaded.getClass().getName() + 
-                         " for file: " + statPath);
-                return new ArrayList<ConnectionStatDataElement>();
-            }
-            
-            result = (List<ConnectionStatDataElement>) loaded;
-            logger.l4("Loaded " + result.size() + " elements from file: " + statPath);
-            
-            // Validate loaded elements
-            for (int i = 0; i < result.size(); i++) {
-                ConnectionStatDataElement element = result.get(i);
-                if (element == null) {
-                    logger.l2("Found null element at index " + i + " in file: " + statPath);
+            List<ConnectionStatDataElement> result = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(
+                    statFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] parts = line.split(" ");
+                    if (parts.length != 7) {
+                        logger.l2("Skipping malformed line '" + line + "' in file: " + statPath);
+                        continue;
+                    }
+                    ConnectionStatDataElement element = new ConnectionStatDataElement();
+                    element.linkStr = NO_LINK.equals(parts[0]) ? null : parts[0];
+                    element.incomingOk = Long.parseLong(parts[1]);
+                    element.incomingFailed = Long.parseLong(parts[2]);
+                    element.outgoingOk = Long.parseLong(parts[3]);
+                    element.outgoingFailed = Long.parseLong(parts[4]);
+                    element.bytesReceived = Long.parseLong(parts[5]);
+                    element.bytesSended = Long.parseLong(parts[6]);
+                    result.add(element);
                 }
             }
-            
-        } catch (FileNotFoundException e) {
-            logger.l2("Statistics file not found: " + statPath, e);
-            return new ArrayList<ConnectionStatDataElement>();
-        } catch (ClassCastException e) {
-            logger.l1("Failed to cast loaded object to List<ConnectionStatDataElement> from file: " + 
-                     statPath, e);
-            return new ArrayList<ConnectionStatDataElement>();
-        } catch (RuntimeException e) {
-            logger.l1("Runtime exception while loading statistics from file: " + statPath + 
+            logger.l5("Loaded " + result.size() + " elements from file: " + statPath);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            logger.l1("Exception while loading statistics from file: " + statPath + 
                      ". File may be corrupted.", e);
             // Try to backup the corrupted file
-            try {
-                File backupFile = new File(statPath + ".corrupted." + System.currentTimeMillis());
-                if (statFile.renameTo(backupFile)) {
-                    logger.l2("Backed up corrupted file to: " + backupFile.getAbsolutePath());
-                }
-            } catch (Exception backupEx) {
-                logger.l2("Failed to backup corrupted file", backupEx);
+            File backupFile = new File(statPath + ".corrupted." + System.currentTimeMillis());
+            if (statFile.renameTo(backupFile)) {
+                logger.l2("Backed up corrupted file to: " + backupFile.getAbsolutePath());
             }
             return new ArrayList<ConnectionStatDataElement>();
-        } catch (Exception e) {
-            logger.l1("Unexpected exception while loading statistics from file: " + statPath, e);
+        }
+    }
+
+    private static boolean isXml(File file) throws IOException {
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            return is.read() == '<';
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ConnectionStatDataElement> loadXml(File statFile) throws FileNotFoundException {
+        Object loaded = XMLSerializer.read(statFile.getPath());
+        if (!(loaded instanceof List)) {
+            logger.l1("Loaded object is not a List but "
+                    + (loaded != null ? loaded.getClass().getName() : "null")
+                    + " for file: " + statPath);
             return new ArrayList<ConnectionStatDataElement>();
         }
+        List<ConnectionStatDataElement> result = new ArrayList<>();
+        for (Object element : (List<Object>) loaded) {
+            if (element instanceof ConnectionStatDataElement) {
+                result.add((ConnectionStatDataElement) element);
+            } else {
+                logger.l2("Skipping element " + element + " in file: " + statPath);
+            }
+        }
+        logger.l4("Loaded " + result.size() + " elements from XML file: " + statPath);
         return result;
     }
 
     public static class ConnectionStatDataElement {
         public String linkStr;
-        public int bytesReceived;
-        public int bytesSended;
-        public int incomingOk;
-        public int incomingFailed;
-        public int outgoingOk;
-        public int outgoingFailed;
+        public long bytesReceived;
+        public long bytesSended;
+        public long incomingOk;
+        public long incomingFailed;
+        public long outgoingOk;
+        public long outgoingFailed;
+
+        public void add(ConnectionStatDataElement other) {
+            bytesReceived += other.bytesReceived;
+            bytesSended += other.bytesSended;
+            incomingOk += other.incomingOk;
+            incomingFailed += other.incomingFailed;
+            outgoingOk += other.outgoingOk;
+            outgoingFailed += other.outgoingFailed;
+        }
         
         @Override
         public String toString() {
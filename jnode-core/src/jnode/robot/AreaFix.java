@@ -340,8 +340,7 @@ public class AreaFix extends AbstractRobot {
 				if (sub == null) {
 					sb.append(" is not subscribed");
 				} else {
-					ORMManager.get(Subscription.class).delete("link_id", "=",
-							link, "echoarea_id", "=", earea);
+					FtnTools.unsubscribe(link, earea);
 					sb.append(" unsubscribed");
 				}
 				sb.append('\n');
@@ -368,15 +367,8 @@ public class AreaFix extends AbstractRobot {
 				if (sub == null) {
 					sb.append(" is not subscribed");
 				} else {
-					List<Echomail> mails = ORMManager.get(Echomail.class)
-							.getOrderLimitAnd(num, "id", false, "echoarea_id",
-									"=", earea);
-					for (int i = mails.size() - 1; i >= 0; --i) {
-						Echomail mail = mails.get(i);
-						ORMManager.get(EchomailAwaiting.class).save(
-								new EchomailAwaiting(link, mail));
-					}
-					sb.append(" rescanned " + mails.size() + " messages");
+					int rescanned = FtnTools.rescanEchomail(link, earea, num);
+					sb.append(" rescanned " + rescanned + " messages");
 				}
 				sb.append('\n');
 			}
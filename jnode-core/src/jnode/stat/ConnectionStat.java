@@ -22,72 +22,186 @@ package jnode.stat;
 
 import jnode.event.ConnectionEndEvent;
 import jnode.event.IEvent;
-import jnode.event.IEventHandler;
+import jnode.event.IAsyncEventHandler;
 import jnode.event.Notifier;
 import jnode.ftn.FtnTools;
 import jnode.ftn.types.FtnAddress;
 import jnode.logger.Logger;
+import jnode.main.MainHandler;
 import jnode.report.ConnectionStatData;
 import jnode.report.ReportBuilder;
 import jnode.stat.threads.StatPoster;
 
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-
-public class ConnectionStat implements IStatPoster, IEventHandler {
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-link connection counters. Sessions only bump in-memory counters, which
+ * are added to connstat.dat every stat.connection.interval seconds, before
+ * each report and at shutdown
+ */
+public class ConnectionStat implements IStatPoster, IAsyncEventHandler {
 
     private static final Logger logger = Logger.getLogger(ConnectionStat.class);
-    private final String statPath = FtnTools.getInbound() + File.separator
-            + "connstat.xml";
-
+    private static final String INTERVAL = "stat.connection.interval";
+    private static final String STAT_FILE = "connstat.dat";
+    // written by older versions, imported once
+    private static final String LEGACY_STAT_FILE = "connstat.xml";
+    // ConcurrentHashMap has no null keys
+    private static final String NO_LINK = "";
+
+    private static final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+    private static volatile ScheduledThreadPoolExecutor flusher;
+
+    private static final class Counters {
+        private final LongAdder incomingOk = new LongAdder();
+        private final LongAdder incomingFailed = new LongAdder();
+        private final LongAdder outgoingOk = new LongAdder();
+        private final LongAdder outgoingFailed = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder bytesSended = new LongAdder();
+        // values already in the file, guarded by ConnectionStat.class
+        private final ConnectionStatData.ConnectionStatDataElement flushed =
+                new ConnectionStatData.ConnectionStatDataElement();
+    }
 
     public ConnectionStat() {
         Notifier.INSTANCE.register(ConnectionEndEvent.class, this);
+        start();
     }
 
-    public void handle(IEvent event) {
-        synchronized (ConnectionStat.class) {
-
-            if (event instanceof ConnectionEndEvent) {
-                ConnectionEndEvent evt = (ConnectionEndEvent) event;
-
-                ConnectionStatData data = new ConnectionStatData(statPath);
-
-                ConnectionStatData.ConnectionStatDataElement current;
+    private static synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        File legacy = new File(getStatDirectory(), LEGACY_STAT_FILE);
+        File current = new File(getStatPath());
+        if (legacy.exists() && !current.exists()) {
+            List<ConnectionStatData.ConnectionStatDataElement> elements = new ConnectionStatData(
+                    legacy.getPath()).load();
+            if (new ConnectionStatData(current.getPath()).add(elements)
+                    && legacy.renameTo(new File(legacy.getPath() + ".old"))) {
+                logger.l2("Imported " + elements.size() + " links from "
+                        + legacy.getPath());
+            }
+        }
+        long interval = MainHandler.getCurrentInstance().getIntegerProperty(
+                INTERVAL, 60);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                1, r -> {
+                    Thread thread = new Thread(r, "connstat");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.scheduleWithFixedDelay(ConnectionStat::flush, interval,
+                interval, TimeUnit.SECONDS);
+        flusher = executor;
+    }
 
-                List<ConnectionStatData.ConnectionStatDataElement> elements = data.load();
+    /**
+     * Writes pending counters, call after {@link Notifier#shutdown()}
+     */
+    public static synchronized void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+            flush();
+        }
+    }
 
-                int pos = data.findPos(evt.getAddress(), elements);
-                if (pos == -1) {
-                    current = new ConnectionStatData.ConnectionStatDataElement();
-                    current.linkStr = evt.getAddress() != null ? evt.getAddress().toString() : null;
+    public void handle(IEvent event) {
+        if (event instanceof ConnectionEndEvent) {
+            ConnectionEndEvent evt = (ConnectionEndEvent) event;
+            Counters current = counters.computeIfAbsent(
+                    evt.getAddress() != null ? evt.getAddress().toString()
+                            : NO_LINK, k -> new Counters());
+            if (evt.isIncoming()) {
+                if (evt.isSuccess()) {
+                    current.incomingOk.increment();
                 } else {
-                    current = elements.get(pos);
+                    current.incomingFailed.increment();
                 }
-
-                if (evt.isIncoming()) {
-                    if (evt.isSuccess()) {
-                        current.incomingOk++;
-                    } else {
-                        current.incomingFailed++;
-                    }
+            } else {
+                if (evt.isSuccess()) {
+                    current.outgoingOk.increment();
                 } else {
-                    if (evt.isSuccess()) {
-                        current.outgoingOk++;
-                    } else {
-                        current.outgoingFailed++;
-                    }
+                    current.outgoingFailed.increment();
                 }
-                current.bytesReceived += evt.getBytesReceived();
-                current.bytesSended += evt.getBytesSended();
+            }
+            current.bytesReceived.add(evt.getBytesReceived());
+            current.bytesSended.add(evt.getBytesSended());
+        }
+    }
 
-                data.store(evt.getAddress(), current);
+    /**
+     * Adds what was counted since the last flush to the stat file
+     */
+    public static synchronized void flush() {
+        List<ConnectionStatData.ConnectionStatDataElement> deltas = new ArrayList<>();
+        List<ConnectionStatData.ConnectionStatDataElement> totals = new ArrayList<>();
+        List<Counters> changed = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            ConnectionStatData.ConnectionStatDataElement total = new ConnectionStatData.ConnectionStatDataElement();
+            total.incomingOk = c.incomingOk.sum();
+            total.incomingFailed = c.incomingFailed.sum();
+            total.outgoingOk = c.outgoingOk.sum();
+            total.outgoingFailed = c.outgoingFailed.sum();
+            total.bytesReceived = c.bytesReceived.sum();
+            total.bytesSended = c.bytesSended.sum();
+
+            ConnectionStatData.ConnectionStatDataElement delta = new ConnectionStatData.ConnectionStatDataElement();
+            delta.linkStr = NO_LINK.equals(entry.getKey()) ? null : entry.getKey();
+            delta.incomingOk = total.incomingOk - c.flushed.incomingOk;
+            delta.incomingFailed = total.incomingFailed - c.flushed.incomingFailed;
+            delta.outgoingOk = total.outgoingOk - c.flushed.outgoingOk;
+            delta.outgoingFailed = total.outgoingFailed - c.flushed.outgoingFailed;
+            delta.bytesReceived = total.bytesReceived - c.flushed.bytesReceived;
+            delta.bytesSended = total.bytesSended - c.flushed.bytesSended;
+            if (delta.incomingOk != 0 || delta.incomingFailed != 0
+                    || delta.outgoingOk != 0 || delta.outgoingFailed != 0
+                    || delta.bytesReceived != 0 || delta.bytesSended != 0) {
+                deltas.add(delta);
+                totals.add(total);
+                changed.add(c);
             }
         }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // on failure the same deltas are retried next time
+        if (new ConnectionStatData(getStatPath()).add(deltas)) {
+            for (int i = 0; i < changed.size(); i++) {
+                ConnectionStatData.ConnectionStatDataElement flushed = changed.get(i).flushed;
+                ConnectionStatData.ConnectionStatDataElement total = totals.get(i);
+                flushed.incomingOk = total.incomingOk;
+                flushed.incomingFailed = total.incomingFailed;
+                flushed.outgoingOk = total.outgoingOk;
+                flushed.outgoingFailed = total.outgoingFailed;
+                flushed.bytesReceived = total.bytesReceived;
+                flushed.bytesSended = total.bytesSended;
+            }
+            logger.l5("Flushed connection stat of " + deltas.size() + " links");
+        }
+    }
+
+    private static String getStatDirectory() {
+        return FtnTools.getInbound();
+    }
+
+    public static String getStatPath() {
+        return getStatDirectory() + File.separator + STAT_FILE;
     }
 
     @Override
@@ -97,6 +211,13 @@ public class ConnectionStat implements IStatPoster, IEventHandler {
 
     public static String getText(String path, boolean reset){
         logger.l5("getText path = [" + path + "], reset = [" + reset + "]");
+        File file = new File(path).getAbsoluteFile();
+        if (file.equals(new File(getStatPath()).getAbsoluteFile())
+                || file.equals(new File(getStatDirectory(), LEGACY_STAT_FILE).getAbsoluteFile())) {
+            // scripts may still name the old file
+            path = getStatPath();
+            flush();
+        }
         ConnectionStatData data = new ConnectionStatData(path);
         logger.l5("get ConnectionStatData " + data);
         List<ConnectionStatData.ConnectionStatDataElement> elements = reset ? data.loadAndDrop() : data.load();
@@ -127,12 +248,12 @@ public class ConnectionStat implements IStatPoster, IEventHandler {
         });
 
 
-        int iOkT = 0;
-        int iFaT = 0;
-        int oOkT = 0;
-        int oFaT = 0;
-        int bsT = 0;
-        int brT = 0;
+        long iOkT = 0;
+        long iFaT = 0;
+        long oOkT = 0;
+        long oFaT = 0;
+        long bsT = 0;
+        long brT = 0;
         for (ConnectionStatData.ConnectionStatDataElement element : elements) {
             FtnAddress link = element.linkStr != null ? new FtnAddress(element.linkStr) : null;
             String linkName = (link != null) ? link.toString()
@@ -175,10 +296,10 @@ public class ConnectionStat implements IStatPoster, IEventHandler {
 
     @Override
     public String getText() {
-        return getText(statPath, true);
+        return getText(getStatPath(), true);
     }
 
-    private static String b2s(int bytes) {
+    private static String b2s(long bytes) {
         String format = "%4.2f %s";
         String type = (bytes > 1024) ? (bytes > 1048576) ? (bytes > 1073741824) ? "Gb"
                 : "Mb"
@@ -65,10 +65,20 @@ public class EchoareaStat implements IStatPoster, IEventHandler {
 		builder.setColumns(Arrays.asList("Area", "Count", "Description"));
 		builder.setColLength(Arrays.asList(35, 5, 35));
 
-		for (String[] res : results) {
-
-			builder.printLine(res[0], res[2], res[1]);
-
+		if (results != null) {
+			try {
+				// rows are read lazily from the cursor
+				for (String[] res : results) {
+
+					builder.printLine(res[0], res[2], res[1]);
+
+				}
+			} finally {
+				try {
+					results.close();
+				} catch (Exception ignore) {
+				}
+			}
 		}
 		return builder.getText().toString();
 	}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.orm.ORMManager;
+
+/**
+ * Per-echoarea state built from the messages of the area: echoarea
+ * summaries, the NNTP overview. Saved states are loaded once; on first use
+ * an area catches up from the echomail store, after that new messages come
+ * through {@link #added(Echomail)}. Every message is applied once, also when
+ * a smaller id is committed after a bigger one.
+ *
+ * @param <S>
+ *            state of an area, accessed under the follower's lock only
+ */
+public abstract class AreaFollower<S> {
+	private static final int BATCH = 500;
+
+	private final ConcurrentMap<Long, Area<S>> areas = new ConcurrentHashMap<>();
+	private volatile boolean loaded;
+
+	private static final class Area<S> {
+		private final S state;
+		// messages up to it were read by sync, later ones come to added();
+		// -1 until synced
+		private long syncedTo = -1;
+		// added() while a sync waits for the visible id, applied by it
+		private List<Echomail> early;
+
+		private Area(S state) {
+			this.state = state;
+		}
+	}
+
+	/**
+	 * @return saved states by echoarea id
+	 */
+	protected abstract Map<Long, S> load();
+
+	/**
+	 * @return state of an area that was never saved
+	 */
+	protected abstract S create(Long areaId);
+
+	/**
+	 * @return id of the newest message applied to state
+	 */
+	protected abstract long lastId(S state);
+
+	/**
+	 * Apply messages of area, ascending by id within one call
+	 */
+	protected abstract void apply(Echoarea area, S state, List<Echomail> mails);
+
+	private Area<S> area(Long areaId) {
+		if (!loaded) {
+			synchronized (areas) {
+				if (!loaded) {
+					for (Map.Entry<Long, S> e : load().entrySet()) {
+						areas.putIfAbsent(e.getKey(), new Area<>(e.getValue()));
+					}
+					loaded = true;
+				}
+			}
+		}
+		return areas.computeIfAbsent(areaId, id -> new Area<>(create(id)));
+	}
+
+	/**
+	 * Apply a saved message; before the area is synced it is left to the
+	 * sync. Stores call it before the id becomes visible, see
+	 * {@link EchomailStore#getVisibleId()}
+	 *
+	 * @param mail
+	 *            message with id
+	 */
+	public void added(Echomail mail) {
+		if (mail.getId() == null || mail.getArea() == null) {
+			return;
+		}
+		Area<S> area = area(mail.getArea().getId());
+		synchronized (area) {
+			if (area.syncedTo >= 0) {
+				if (mail.getId() > area.syncedTo) {
+					apply(mail.getArea(), area.state,
+							Collections.singletonList(mail));
+				}
+			} else if (area.early != null) {
+				area.early.add(mail);
+			}
+		}
+	}
+
+	/**
+	 * Apply messages saved after the last applied one, once per area
+	 */
+	public void sync(Echoarea area) {
+		Area<S> a = area(area.getId());
+		synchronized (a) {
+			if (a.syncedTo >= 0) {
+				return;
+			}
+			if (a.early == null) {
+				a.early = new ArrayList<>();
+			}
+		}
+		// waits for running saves, which are in added() with the area
+		// locked; bigger ids come to added() and are kept in early
+		long visibleId = EchomailStores.get().getVisibleId();
+		synchronized (a) {
+			if (a.syncedTo >= 0) {
+				return;
+			}
+			long lastId = lastId(a.state);
+			boolean more = true;
+			while (more) {
+				List<Echomail> batch = EchomailStores.get().getAfter(area,
+						lastId, BATCH);
+				more = batch.size() == BATCH;
+				List<Echomail> visible = new ArrayList<>(batch.size());
+				for (Echomail mail : batch) {
+					if (mail.getId() > visibleId) {
+						more = false;
+						break;
+					}
+					visible.add(mail);
+				}
+				if (!visible.isEmpty()) {
+					apply(area, a.state, visible);
+					lastId = visible.get(visible.size() - 1).getId();
+				}
+			}
+			a.syncedTo = lastId;
+			List<Echomail> early = new ArrayList<>();
+			for (Echomail mail : a.early) {
+				if (mail.getId() > lastId) {
+					early.add(mail);
+				}
+			}
+			a.early = null;
+			if (!early.isEmpty()) {
+				early.sort(Comparator.comparing(Echomail::getId));
+				apply(area, a.state, early);
+			}
+		}
+	}
+
+	/**
+	 * Sync every echoarea
+	 */
+	public void syncAll() {
+		for (Echoarea area : ORMManager.get(Echoarea.class).getAll()) {
+			sync(area);
+		}
+	}
+
+	/**
+	 * Sync area and read its state
+	 */
+	public <R> R read(Echoarea area, Function<S, R> reader) {
+		sync(area);
+		return read(area.getId(), reader);
+	}
+
+	/**
+	 * Read state of area as it is, without syncing
+	 */
+	public <R> R read(Long areaId, Function<S, R> reader) {
+		Area<S> area = area(areaId);
+		synchronized (area) {
+			return reader.apply(area.state);
+		}
+	}
+
+	/**
+	 * Visit state of every known area
+	 */
+	public void forEach(Consumer<S> action) {
+		for (Area<S> area : areas.values()) {
+			synchronized (area) {
+				action.accept(area.state);
+			}
+		}
+	}
+
+	/**
+	 * Drop state of a removed area
+	 */
+	public void forget(Long areaId) {
+		areas.remove(areaId);
+	}
+}
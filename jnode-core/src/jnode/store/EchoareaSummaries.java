@@ -0,0 +1,223 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jnode.dto.Echoarea;
+import jnode.dto.EchoareaSummary;
+import jnode.dto.Echomail;
+import jnode.logger.Logger;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+
+/**
+ * Per-echoarea message count, newest date, last id and size. Stores report
+ * every saved message here, the counters live in memory and are written to
+ * echoarea_summary every echomail.summary.interval seconds and at shutdown.
+ * On start messages saved after the last write are counted from the store,
+ * so readers never scan echomail, see {@link AreaFollower}. A summary is
+ * written only while its last id is not above
+ * {@link EchomailStore#getVisibleId()}, so no smaller id still committing
+ * is skipped after a crash
+ */
+public final class EchoareaSummaries {
+	private static final Logger logger = Logger
+			.getLogger(EchoareaSummaries.class);
+	private static final String INTERVAL = "echomail.summary.interval";
+
+	private static final Follower follower = new Follower();
+	private static volatile ScheduledThreadPoolExecutor flusher;
+
+	private static final class Summary {
+		private final EchoareaSummary data;
+		private boolean dirty;
+
+		private Summary(EchoareaSummary data) {
+			this.data = data;
+		}
+	}
+
+	private static final class Follower extends AreaFollower<Summary> {
+		@Override
+		protected Map<Long, Summary> load() {
+			Map<Long, Summary> ret = new HashMap<>();
+			for (EchoareaSummary row : ORMManager.get(EchoareaSummary.class)
+					.getAll()) {
+				ret.put(row.getAreaId(), new Summary(row));
+			}
+			return ret;
+		}
+
+		@Override
+		protected Summary create(Long areaId) {
+			EchoareaSummary data = new EchoareaSummary();
+			data.setAreaId(areaId);
+			return new Summary(data);
+		}
+
+		@Override
+		protected long lastId(Summary summary) {
+			return summary.data.getLastId();
+		}
+
+		@Override
+		protected void apply(Echoarea area, Summary summary,
+				List<Echomail> mails) {
+			for (Echomail mail : mails) {
+				count(summary, mail);
+			}
+			if (mails.size() > 1) {
+				logger.l4("Counted " + mails.size() + " messages of "
+						+ area.getName());
+			}
+		}
+	}
+
+	private EchoareaSummaries() {
+	}
+
+	public static synchronized void start() {
+		if (flusher != null) {
+			return;
+		}
+		ORMManager.get(EchoareaSummary.class);
+		long interval = MainHandler.getCurrentInstance().getIntegerProperty(
+				INTERVAL, 60);
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+				1, r -> {
+					Thread thread = new Thread(r, "echoarea-summary");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.execute(EchoareaSummaries::syncAll);
+		executor.scheduleWithFixedDelay(EchoareaSummaries::flush, interval,
+				interval, TimeUnit.SECONDS);
+		flusher = executor;
+	}
+
+	/**
+	 * Writes pending counters, call after {@link jnode.event.Notifier#shutdown()}
+	 */
+	public static synchronized void shutdown() {
+		if (flusher != null) {
+			flusher.shutdownNow();
+			flusher = null;
+			flush();
+		}
+	}
+
+	/**
+	 * Count a saved message
+	 * 
+	 * @param mail
+	 *            message with id
+	 */
+	public static void added(Echomail mail) {
+		// not started: the first sync counts it
+		if (flusher != null) {
+			follower.added(mail);
+		}
+	}
+
+	/**
+	 * Forget a removed area
+	 */
+	public static void deleted(Echoarea area) {
+		follower.forget(area.getId());
+		if (flusher == null) {
+			return;
+		}
+		ORMManager.get(EchoareaSummary.class).delete("echoarea_id", "=",
+				area.getId());
+	}
+
+	/**
+	 * @return copy of the summary of area
+	 */
+	public static EchoareaSummary get(Echoarea area) {
+		return follower.read(area, s -> new EchoareaSummary(s.data));
+	}
+
+	/**
+	 * @return id of the newest message of area; read from the store until
+	 *         started
+	 */
+	public static long getLastId(Echoarea area) {
+		if (flusher == null) {
+			return EchomailStores.get().getLastId(area);
+		}
+		return follower.read(area, s -> s.data.getLastId());
+	}
+
+	/**
+	 * Count what was saved after the last written summary, for every area
+	 */
+	public static void syncAll() {
+		follower.syncAll();
+	}
+
+	private static void count(Summary summary, Echomail mail) {
+		EchoareaSummary data = summary.data;
+		data.setNum(data.getNum() + 1);
+		// a smaller id may be committed after a bigger one
+		data.setLastId(Math.max(data.getLastId(), mail.getId()));
+		if (mail.getDate() != null
+				&& (data.getLatest() == null || mail.getDate().after(
+						data.getLatest()))) {
+			data.setLatest(mail.getDate());
+		}
+		if (mail.getText() != null) {
+			data.setBytes(data.getBytes()
+					+ mail.getText().getBytes(StandardCharsets.UTF_8).length);
+		}
+		summary.dirty = true;
+	}
+
+	/**
+	 * Writes changed summaries
+	 */
+	public static synchronized void flush() {
+		// every id up to it is counted, a summary past it waits for the
+		// next flush
+		long visibleId = EchomailStores.get().getVisibleId();
+		List<EchoareaSummary> changed = new ArrayList<>();
+		follower.forEach(summary -> {
+			if (summary.dirty && summary.data.getLastId() <= visibleId) {
+				changed.add(new EchoareaSummary(summary.data));
+				summary.dirty = false;
+			}
+		});
+		for (EchoareaSummary row : changed) {
+			ORMManager.get(EchoareaSummary.class).saveOrUpdate(row);
+		}
+		if (!changed.isEmpty()) {
+			logger.l5("Flushed summaries of " + changed.size() + " echoareas");
+		}
+	}
+}
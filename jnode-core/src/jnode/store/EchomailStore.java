@@ -0,0 +1,101 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import java.util.List;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+
+/**
+ * Storage of echomail bodies. Links, areas and subscriptions always live in
+ * SQL; only the messages themselves go through this interface.
+ *
+ * An id is only meaningful together with its echoarea: the sql store numbers
+ * messages globally, the log store per area. Ids grow within an area and are
+ * never reused
+ */
+public interface EchomailStore {
+	/**
+	 * Save new message; id is assigned to the mail
+	 *
+	 * @param mail
+	 */
+	void save(Echomail mail);
+
+	/**
+	 * @param area
+	 * @param msgid
+	 * @return true if area already has message with such MSGID
+	 */
+	boolean isDupe(Echoarea area, String msgid);
+
+	/**
+	 * Messages of area with id greater than afterId, ascending
+	 *
+	 * @param area
+	 * @param afterId
+	 * @param limit
+	 * @return
+	 */
+	List<Echomail> getAfter(Echoarea area, long afterId, int limit);
+
+	/**
+	 * @param area
+	 * @param id
+	 *            id of the message as assigned by {@link #save(Echomail)}
+	 * @return message or null if area has no such message
+	 */
+	Echomail get(Echoarea area, long id);
+
+	/**
+	 * @param area
+	 * @return id of the newest message in area or 0
+	 */
+	long getLastId(Echoarea area);
+
+	/**
+	 * Every message with id up to the returned one is already visible to
+	 * {@link #getAfter(Echoarea, long, int)} and counted by
+	 * {@link EchoareaSummaries}; a save still running gets a greater id.
+	 * Cursors are never moved past it
+	 *
+	 * @return
+	 */
+	long getVisibleId();
+
+	/**
+	 * @param area
+	 * @param num
+	 * @return id right before the last num messages of area or -1 if area
+	 *         is empty
+	 */
+	long getRescanId(Echoarea area, int num);
+
+	/**
+	 * Remove all messages of area
+	 *
+	 * @param area
+	 */
+	void deleteArea(Echoarea area);
+
+	void close();
+}
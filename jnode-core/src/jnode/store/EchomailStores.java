@@ -0,0 +1,150 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jnode.dto.EchomailAwaiting;
+import jnode.dto.EchomailCursor;
+import jnode.ftn.FtnTools;
+import jnode.logger.Logger;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+
+/**
+ * Selects echomail store from configuration:
+ *
+ * <pre>
+ * echomail.store = sql | log
+ * echomail.store.path = /opt/jnode/store
+ * echomail.store.segment_size = 64 ( megabytes )
+ * echomail.store.fsync = false
+ * echomail.store.retention = 0 ( days, 0 keeps all segments )
+ * </pre>
+ *
+ * The log store keeps messages out of the echomail table: ids are numbered
+ * per echoarea, and everything reading the table directly ( httpd pages,
+ * echoarea statistics ) sees no messages.
+ */
+public final class EchomailStores {
+	private static final Logger logger = Logger.getLogger(EchomailStores.class);
+	private static final String STORE = "echomail.store";
+	private static final String STORE_PATH = "echomail.store.path";
+	private static final String STORE_SEGMENT_SIZE = "echomail.store.segment_size";
+	private static final String STORE_FSYNC = "echomail.store.fsync";
+	private static final String STORE_RETENTION = "echomail.store.retention";
+	private static final String LOG = "log";
+	private static final String SQL = "sql";
+	private static final int MAX_SEGMENT_SIZE = 1024;
+
+	private static EchomailStore store;
+
+	private EchomailStores() {
+	}
+
+	public static synchronized EchomailStore get() {
+		if (store == null) {
+			store = create();
+		}
+		return store;
+	}
+
+	/**
+	 * @return true if echomail is not kept in SQL
+	 */
+	public static boolean isLogStore() {
+		return LOG.equalsIgnoreCase(MainHandler.getCurrentInstance()
+				.getProperty(STORE, SQL));
+	}
+
+	/**
+	 * @return name of the configured store as recorded in echomail cursors
+	 */
+	public static String getName() {
+		return (isLogStore()) ? LOG : SQL;
+	}
+
+	/**
+	 * Echomail ids of one store mean nothing in another. Cursors left from
+	 * the previous store are moved to the current end of their area, so
+	 * nothing is resent and ids of the old store are not skipped over. Must
+	 * be called at startup, before the first pack
+	 * 
+	 * @return number of reset cursors
+	 */
+	public static int resetForeignCursors() {
+		String name = getName();
+		List<EchomailCursor> cursors = ORMManager.get(EchomailCursor.class)
+				.getAnd("store", "<>", name);
+		for (EchomailCursor cursor : cursors) {
+			cursor.setLastId(get().getLastId(cursor.getArea()));
+			cursor.setStore(name);
+			ORMManager.get(EchomailCursor.class).update(cursor);
+		}
+		if (!cursors.isEmpty()) {
+			FtnTools.forgetEchomailCursors();
+			logger.l1("Echomail store changed to " + name + ": "
+					+ cursors.size() + " echomail cursors were reset, "
+					+ "messages not yet sent from the old store are not sent");
+		}
+		if (FtnTools.isEchomailCursorEnabled()) {
+			long awaiting = ORMManager.get(EchomailAwaiting.class).countAnd();
+			if (awaiting > 0) {
+				logger.l2(awaiting + " echomailawait rows are still sent "
+						+ "from the sql echomail table");
+			}
+		}
+		return cursors.size();
+	}
+
+	public static synchronized void close() {
+		if (store != null) {
+			store.close();
+			store = null;
+		}
+	}
+
+	private static EchomailStore create() {
+		if (isLogStore()) {
+			MainHandler handler = MainHandler.getCurrentInstance();
+			File root = new File(handler.getProperty(STORE_PATH, "store"));
+			int segmentSize = Math.min(Math.max(
+					handler.getIntegerProperty(STORE_SEGMENT_SIZE, 64), 1),
+					MAX_SEGMENT_SIZE);
+			int retention = Math.max(
+					handler.getIntegerProperty(STORE_RETENTION, 0), 0);
+			logger.l2("Using echomail log store at " + root.getAbsolutePath());
+			logger.l1("Echomail log store: message ids are per echoarea and "
+					+ "the echomail table is not written, httpd pages and "
+					+ "statistics reading it show no messages");
+			if (retention == 0) {
+				logger.l1("Echomail log store: " + STORE_RETENTION
+						+ " is not set, segments are never deleted");
+			}
+			return new LogEchomailStore(root, segmentSize * 1024L * 1024L,
+					handler.getBooleanProperty(STORE_FSYNC, false),
+					TimeUnit.DAYS.toMillis(retention));
+		}
+		return new SqlEchomailStore();
+	}
+}
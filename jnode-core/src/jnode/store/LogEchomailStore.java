@@ -0,0 +1,617 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.ftn.types.Ftn2DSet;
+import jnode.logger.Logger;
+
+/**
+ * Append-only echomail store for store-and-forward hubs.
+ *
+ * Every echoarea is a directory of segment files named by the id of their
+ * first message. A record is
+ * <code>[length][crc32][msgid digest][payload]</code>; ids are the record
+ * numbers inside the area, so packing by cursor is a sequential read. Ids
+ * are unique within their area only, unlike the global ids of the sql store.
+ * Sealed segments are read through read-only memory mappings. The
+ * position index and the MSGID digest set are rebuilt by scanning segments
+ * on first access; a torn or corrupted tail found by the checksum is cut off.
+ *
+ * Sealed segments not written for longer than the retention are deleted
+ * when a segment is rolled or the area is opened; the segment being written
+ * is always kept, so ids are never reused.
+ */
+public class LogEchomailStore implements EchomailStore {
+	private static final Logger logger = Logger
+			.getLogger(LogEchomailStore.class);
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final int HEADER_SIZE = 16;
+	private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+	private static final int SEGMENT_BITS = 40;
+
+	private final File root;
+	private final long segmentSize;
+	private final boolean fsync;
+	private final long retention;
+	private final Map<Long, AreaLog> areas = new ConcurrentHashMap<>();
+
+	public LogEchomailStore(File root, long segmentSize, boolean fsync) {
+		this(root, segmentSize, fsync, 0L);
+	}
+
+	/**
+	 * @param retention
+	 *            milliseconds a sealed segment is kept, 0 keeps everything
+	 */
+	public LogEchomailStore(File root, long segmentSize, boolean fsync,
+			long retention) {
+		this.root = root;
+		this.segmentSize = segmentSize;
+		this.fsync = fsync;
+		this.retention = retention;
+		if (!root.isDirectory() && !root.mkdirs()) {
+			throw new IllegalStateException("Cannot create store directory "
+					+ root.getAbsolutePath());
+		}
+	}
+
+	@Override
+	public void save(Echomail mail) {
+		try {
+			AreaLog log = open(mail.getArea());
+			// summaries get the ids of an area in order
+			synchronized (log.saving) {
+				mail.setId(log.append(mail));
+				EchoareaSummaries.added(mail);
+			}
+		} catch (IOException e) {
+			logger.l1("Failed to append echomail to store "
+					+ mail.getArea().getName(), e);
+			mail.setId(null);
+		}
+	}
+
+	@Override
+	public boolean isDupe(Echoarea area, String msgid) {
+		try {
+			return open(area).containsMsgid(msgid);
+		} catch (IOException e) {
+			logger.l1("Failed to open store for " + area.getName(), e);
+		}
+		return false;
+	}
+
+	@Override
+	public List<Echomail> getAfter(Echoarea area, long afterId, int limit) {
+		List<Echomail> ret = new ArrayList<>();
+		try {
+			AreaLog log = open(area);
+			long last = log.lastId();
+			// ids up to the base were dropped by retention
+			for (long id = Math.max(afterId, log.baseId()) + 1; id <= last
+					&& ret.size() < limit; id++) {
+				Echomail mail = log.read(id);
+				if (mail != null) {
+					mail.setArea(area);
+					ret.add(mail);
+				}
+			}
+		} catch (IOException e) {
+			logger.l1("Failed to read store for " + area.getName(), e);
+		}
+		return ret;
+	}
+
+	@Override
+	public Echomail get(Echoarea area, long id) {
+		try {
+			Echomail mail = open(area).read(id);
+			if (mail != null) {
+				mail.setArea(area);
+			}
+			return mail;
+		} catch (IOException e) {
+			logger.l1("Failed to read store for " + area.getName(), e);
+		}
+		return null;
+	}
+
+	@Override
+	public long getLastId(Echoarea area) {
+		try {
+			return open(area).lastId();
+		} catch (IOException e) {
+			logger.l1("Failed to open store for " + area.getName(), e);
+		}
+		return 0L;
+	}
+
+	@Override
+	public long getVisibleId() {
+		// ids of an area are appended in order under the area lock
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public long getRescanId(Echoarea area, int num) {
+		long last = getLastId(area);
+		if (last == 0) {
+			return -1L;
+		}
+		return Math.max(last - num, 0L);
+	}
+
+	@Override
+	public void deleteArea(Echoarea area) {
+		AreaLog log = areas.remove(area.getId());
+		if (log != null) {
+			log.close();
+		}
+		File dir = new File(root, String.valueOf(area.getId()));
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+		EchoareaSummaries.deleted(area);
+	}
+
+	@Override
+	public void close() {
+		for (AreaLog log : areas.values()) {
+			log.close();
+		}
+		areas.clear();
+	}
+
+	private AreaLog open(Echoarea area) throws IOException {
+		AreaLog log = areas.get(area.getId());
+		if (log == null) {
+			synchronized (areas) {
+				log = areas.get(area.getId());
+				if (log == null) {
+					log = new AreaLog(new File(root, String.valueOf(area
+							.getId())));
+					areas.put(area.getId(), log);
+				}
+			}
+		}
+		return log;
+	}
+
+	/**
+	 * 64-bit FNV-1a digest of MSGID
+	 */
+	static long digest(String msgid) {
+		long hash = 0xcbf29ce484222325L;
+		byte[] bytes = msgid.getBytes(StandardCharsets.UTF_8);
+		for (byte b : bytes) {
+			hash ^= (b & 0xff);
+			hash *= 0x100000001b3L;
+		}
+		return (hash == 0) ? 1 : hash;
+	}
+
+	static byte[] encode(Echomail mail) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(
+				(mail.getText() != null) ? mail.getText().length() + 256 : 256);
+		DataOutputStream os = new DataOutputStream(bos);
+		os.writeLong((mail.getDate() != null) ? mail.getDate().getTime()
+				: Long.MIN_VALUE);
+		writeString(os, mail.getFromName());
+		writeString(os, mail.getToName());
+		writeString(os, mail.getFromFTN());
+		writeString(os, mail.getSubject());
+		writeString(os, mail.getMsgid());
+		writeString(os, mail.getText());
+		writeString(os, mail.getPath());
+		byte[] seenBy = Ftn2DSet.parse(mail.getSeenBy()).encode();
+		os.writeInt(seenBy.length);
+		os.write(seenBy);
+		os.close();
+		return bos.toByteArray();
+	}
+
+	static Echomail decode(byte[] data) throws IOException {
+		DataInputStream is = new DataInputStream(new ByteArrayInputStream(data));
+		Echomail mail = new Echomail();
+		long date = is.readLong();
+		mail.setDate((date != Long.MIN_VALUE) ? new Date(date) : null);
+		mail.setFromName(readString(is));
+		mail.setToName(readString(is));
+		mail.setFromFTN(readString(is));
+		mail.setSubject(readString(is));
+		mail.setMsgid(readString(is));
+		mail.setText(readString(is));
+		mail.setPath(readString(is));
+		byte[] seenBy = new byte[is.readInt()];
+		is.readFully(seenBy);
+		mail.setSeenBy(Ftn2DSet.decode(seenBy).toString());
+		return mail;
+	}
+
+	private static void writeString(DataOutputStream os, String s)
+			throws IOException {
+		if (s == null) {
+			os.writeInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			os.writeInt(bytes.length);
+			os.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream is) throws IOException {
+		int len = is.readInt();
+		if (len < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[len];
+		is.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int crc(long digest, byte[] data) {
+		CRC32 crc = new CRC32();
+		for (int i = 56; i >= 0; i -= 8) {
+			crc.update((int) (digest >>> i) & 0xff);
+		}
+		crc.update(data);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * One segment file
+	 */
+	private static final class Segment {
+		private final File file;
+		private final long firstId;
+		private final FileChannel channel;
+		private long size;
+		private MappedByteBuffer map;
+
+		private Segment(File file, long firstId) throws IOException {
+			this.file = file;
+			this.firstId = firstId;
+			this.channel = FileChannel.open(file.toPath(),
+					StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			this.size = channel.size();
+		}
+
+		private void seal() throws IOException {
+			if (map == null && size > 0) {
+				map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+		}
+
+		private void read(long pos, ByteBuffer dst) throws IOException {
+			if (map != null) {
+				ByteBuffer src = map.duplicate();
+				src.position((int) pos);
+				src.limit((int) pos + dst.remaining());
+				dst.put(src);
+			} else {
+				while (dst.hasRemaining()) {
+					if (channel.read(dst, pos + dst.position()) < 0) {
+						throw new IOException("Unexpected end of segment");
+					}
+				}
+			}
+			dst.flip();
+		}
+	}
+
+	/**
+	 * Log of one echoarea
+	 */
+	private final class AreaLog {
+		private final File dir;
+		// held over append and EchoareaSummaries.added(), never inside the
+		// log's own lock
+		private final Object saving = new Object();
+		private final List<Segment> segments = new ArrayList<>();
+		// segments deleted by retention, numbers in index locations count
+		// them too
+		private int dropped;
+		// location of record id ( index + base + 1 ): segment number and
+		// offset
+		private long[] index = new long[1024];
+		// ids up to base are no longer kept
+		private long base;
+		private long count;
+		private final LongSet msgids = new LongSet();
+
+		private AreaLog(File dir) throws IOException {
+			this.dir = dir;
+			if (!dir.isDirectory() && !dir.mkdirs()) {
+				throw new IOException("Cannot create "
+						+ dir.getAbsolutePath());
+			}
+			File[] files = dir.listFiles((d, name) -> name
+					.endsWith(SEGMENT_SUFFIX));
+			if (files != null) {
+				Arrays.sort(files);
+				for (File f : files) {
+					String name = f.getName();
+					long firstId;
+					try {
+						firstId = Long.parseLong(name.substring(0,
+								name.length() - SEGMENT_SUFFIX.length()));
+					} catch (NumberFormatException e) {
+						logger.l2("Skipping unknown file " + f);
+						continue;
+					}
+					recover(new Segment(f, firstId));
+				}
+			}
+			for (int i = 0; i < segments.size() - 1; i++) {
+				segments.get(i).seal();
+			}
+			expire();
+		}
+
+		/**
+		 * Scan segment, index records and cut off everything after the first
+		 * record that fails length or checksum validation
+		 */
+		private void recover(Segment segment) throws IOException {
+			int segNo = segments.size();
+			segments.add(segment);
+			if (segNo == 0) {
+				// older segments were deleted by retention
+				base = count = Math.max(segment.firstId - 1, 0);
+			}
+			while (count + 1 < segment.firstId) {
+				// records lost in a previously cut segment
+				addIndex(-1L);
+			}
+			long pos = 0;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (pos < segment.size) {
+				if (segment.size - pos < HEADER_SIZE) {
+					break;
+				}
+				header.clear();
+				segment.read(pos, header);
+				int len = header.getInt();
+				int crc = header.getInt();
+				long digest = header.getLong();
+				if (len <= 0 || len > MAX_RECORD_SIZE
+						|| pos + HEADER_SIZE + len > segment.size) {
+					break;
+				}
+				ByteBuffer payload = ByteBuffer.allocate(len);
+				segment.read(pos + HEADER_SIZE, payload);
+				if (crc(digest, payload.array()) != crc) {
+					break;
+				}
+				if (digest != 0) {
+					msgids.add(digest);
+				}
+				addIndex(((long) segNo << SEGMENT_BITS) | pos);
+				pos += HEADER_SIZE + len;
+			}
+			if (pos < segment.size) {
+				logger.l1(String.format(
+						"Store %s: segment %d is damaged at %d, truncating",
+						dir.getName(), segment.firstId, pos));
+				segment.channel.truncate(pos);
+				segment.size = pos;
+			}
+		}
+
+		private void addIndex(long location) {
+			int n = (int) (count - base);
+			if (n == index.length) {
+				index = Arrays.copyOf(index, n * 2);
+			}
+			index[n] = location;
+			count++;
+		}
+
+		/**
+		 * Delete sealed segments written before the retention period
+		 */
+		private void expire() {
+			if (retention <= 0) {
+				return;
+			}
+			long before = System.currentTimeMillis() - retention;
+			while (segments.size() > 1
+					&& segments.get(0).file.lastModified() < before) {
+				Segment segment = segments.remove(0);
+				dropped++;
+				long last = segments.get(0).firstId - 1;
+				int n = (int) (last - base);
+				System.arraycopy(index, n, index, 0, (int) (count - last));
+				base = last;
+				try {
+					segment.channel.close();
+				} catch (IOException ignore) {
+				}
+				if (!segment.file.delete()) {
+					logger.l2("Failed to delete " + segment.file);
+				} else {
+					logger.l3(String.format(
+							"Store %s: segment %d expired, ids up to %d removed",
+							dir.getName(), segment.firstId, last));
+				}
+			}
+		}
+
+		private synchronized long append(Echomail mail) throws IOException {
+			byte[] data = encode(mail);
+			long digest = (mail.getMsgid() != null) ? digest(mail.getMsgid())
+					: 0L;
+			Segment segment = (segments.isEmpty()) ? null : segments
+					.get(segments.size() - 1);
+			if (segment == null || segment.size >= segmentSize) {
+				if (segment != null) {
+					segment.seal();
+				}
+				long firstId = count + 1;
+				segment = new Segment(new File(dir, String.format("%020d%s",
+						firstId, SEGMENT_SUFFIX)), firstId);
+				segments.add(segment);
+				expire();
+			}
+			ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + data.length);
+			buf.putInt(data.length);
+			buf.putInt(crc(digest, data));
+			buf.putLong(digest);
+			buf.put(data);
+			buf.flip();
+			long pos = segment.size;
+			while (buf.hasRemaining()) {
+				segment.channel.write(buf, pos + buf.position());
+			}
+			if (fsync) {
+				segment.channel.force(false);
+			}
+			segment.size = pos + HEADER_SIZE + data.length;
+			addIndex(((long) (dropped + segments.size() - 1) << SEGMENT_BITS)
+					| pos);
+			if (digest != 0) {
+				msgids.add(digest);
+			}
+			return count;
+		}
+
+		private synchronized Echomail read(long id) throws IOException {
+			if (id <= base || id > count) {
+				return null;
+			}
+			long location = index[(int) (id - base - 1)];
+			if (location < 0) {
+				return null;
+			}
+			Segment segment = segments.get((int) (location >>> SEGMENT_BITS)
+					- dropped);
+			long pos = location & ((1L << SEGMENT_BITS) - 1);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			segment.read(pos, header);
+			int len = header.getInt();
+			ByteBuffer payload = ByteBuffer.allocate(len);
+			segment.read(pos + HEADER_SIZE, payload);
+			Echomail mail = decode(payload.array());
+			mail.setId(id);
+			return mail;
+		}
+
+		private synchronized boolean containsMsgid(String msgid) {
+			return msgids.contains(digest(msgid));
+		}
+
+		private synchronized long lastId() {
+			return count;
+		}
+
+		private synchronized long baseId() {
+			return base;
+		}
+
+		private synchronized void close() {
+			for (Segment segment : segments) {
+				try {
+					segment.channel.close();
+				} catch (IOException ignore) {
+				}
+			}
+			segments.clear();
+		}
+	}
+
+	/**
+	 * Open addressing set of non-zero longs
+	 */
+	private static final class LongSet {
+		private long[] table = new long[1024];
+		private int size;
+
+		private boolean contains(long value) {
+			int mask = table.length - 1;
+			int i = mix(value) & mask;
+			while (table[i] != 0) {
+				if (table[i] == value) {
+					return true;
+				}
+				i = (i + 1) & mask;
+			}
+			return false;
+		}
+
+		private void add(long value) {
+			if ((size + 1) * 2 > table.length) {
+				long[] old = table;
+				table = new long[old.length * 2];
+				size = 0;
+				for (long v : old) {
+					if (v != 0) {
+						insert(v);
+					}
+				}
+			}
+			insert(value);
+		}
+
+		private void insert(long value) {
+			int mask = table.length - 1;
+			int i = mix(value) & mask;
+			while (table[i] != 0) {
+				if (table[i] == value) {
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			table[i] = value;
+			size++;
+		}
+
+		private static int mix(long value) {
+			long h = value * 0x9e3779b97f4a7c15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.field.DataType;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.dto.EchomailAwaiting;
+import jnode.logger.Logger;
+import jnode.orm.ORMManager;
+
+/**
+ * Default store: echomail table through ORMLite
+ */
+public class SqlEchomailStore implements EchomailStore {
+	private static final Logger logger = Logger
+			.getLogger(SqlEchomailStore.class);
+	// inserts share the read lock: ids are taken in order but a smaller
+	// one may commit later, getVisibleId() waits for running inserts and
+	// their summaries
+	private final ReentrantReadWriteLock saving = new ReentrantReadWriteLock();
+
+	@Override
+	public void save(Echomail mail) {
+		saving.readLock().lock();
+		try {
+			ORMManager.get(Echomail.class).save(mail);
+			EchoareaSummaries.added(mail);
+		} finally {
+			saving.readLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean isDupe(Echoarea area, String msgid) {
+		return ORMManager.get(Echomail.class).getFirstAnd("msgid", "=", msgid,
+				"echoarea_id", "=", area) != null;
+	}
+
+	@Override
+	public List<Echomail> getAfter(Echoarea area, long afterId, int limit) {
+		return ORMManager.get(Echomail.class).getOrderLimitAnd(limit, "id",
+				true, "echoarea_id", "=", area, "id", ">", afterId);
+	}
+
+	@Override
+	public Echomail get(Echoarea area, long id) {
+		return ORMManager.get(Echomail.class).getFirstAnd("id", "=", id,
+				"echoarea_id", "=", area);
+	}
+
+	@Override
+	public long getLastId(Echoarea area) {
+		List<Echomail> last = ORMManager.get(Echomail.class).getOrderLimitAnd(
+				1, "id", false, "echoarea_id", "=", area);
+		return (last.isEmpty()) ? 0L : last.get(0).getId();
+	}
+
+	@Override
+	public long getVisibleId() {
+		saving.writeLock().lock();
+		try {
+			GenericRawResults<Object[]> max = ORMManager.get(Echomail.class)
+					.getRaw("SELECT MAX(id) FROM echomail",
+							new DataType[] { DataType.LONG_OBJ });
+			if (max == null) {
+				return 0L;
+			}
+			try {
+				Object[] first = max.getFirstResult();
+				return (first == null || first[0] == null) ? 0L
+						: (Long) first[0];
+			} finally {
+				max.close();
+			}
+		} catch (Exception e) {
+			logger.l2("Failed to read last echomail id", e);
+			return 0L;
+		} finally {
+			saving.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public long getRescanId(Echoarea area, int num) {
+		List<Echomail> mails = ORMManager.get(Echomail.class)
+				.getOrderLimitAnd(num, "id", false, "echoarea_id", "=", area);
+		if (mails.isEmpty()) {
+			return -1L;
+		}
+		return mails.get(mails.size() - 1).getId() - 1;
+	}
+
+	@Override
+	public void deleteArea(Echoarea area) {
+		List<Echomail> toDelete = ORMManager.get(Echomail.class).getAnd(
+				"echoarea_id", "=", area);
+		for (Echomail mail : toDelete) {
+			ORMManager.get(EchomailAwaiting.class).delete("echomail_id", "=",
+					mail);
+			ORMManager.get(Echomail.class).delete(mail);
+		}
+		EchoareaSummaries.deleted(area);
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.dao;
+
+import jnode.dto.FileForLink;
+import jnode.dto.Netmail;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindTest {
+
+    @TempDir
+    File root;
+
+    private static class RecordingSink implements WriteBehind.Sink {
+        private final List<String> calls = new ArrayList<>();
+        private int failures;
+
+        @Override
+        public void update(Class<?> type, String field, Object value, String scopeColumn,
+                           Object scopeValue, String keyColumn, List<Object> keys) throws SQLException {
+            if (failures > 0) {
+                failures--;
+                throw new SQLException("boom");
+            }
+            calls.add("UPDATE " + type.getSimpleName() + " " + field + "=" + value + " " + keyColumn + " " + keys);
+        }
+
+        @Override
+        public void delete(Class<?> type, String scopeColumn, Object scopeValue, String keyColumn,
+                           List<Object> keys) {
+            calls.add("DELETE " + type.getSimpleName() + " " + scopeColumn + "=" + scopeValue + " "
+                    + keyColumn + " " + keys);
+        }
+    }
+
+    @Test
+    public void testCoalesceAndGroup() {
+        RecordingSink sink = new RecordingSink();
+        WriteBehind wb = new WriteBehind(sink, true, 100, 1000, null);
+        wb.update(Netmail.class, "send", true, "id", 1L);
+        wb.update(Netmail.class, "send", true, "id", 2L);
+        wb.update(Netmail.class, "route_via", 5L, "id", 1L);
+        wb.update(Netmail.class, "route_via", 6L, "id", 1L);
+        wb.delete(FileForLink.class, "link_id", 3L, "filename", "a.zip");
+
+        assertEquals(4, wb.getQueueDepth());
+        assertTrue(wb.isPending(Netmail.class, "send", null, null, "id", 2L));
+        assertFalse(wb.isPending(Netmail.class, "send", null, null, "id", 3L));
+        assertTrue(wb.isPending(FileForLink.class, null, "link_id", 3L, "filename", "a.zip"));
+
+        wb.flush();
+        assertEquals(Arrays.asList(
+                "UPDATE Netmail send=true id [1, 2]",
+                "UPDATE Netmail route_via=6 id [1]",
+                "DELETE FileForLink link_id=3 filename [a.zip]"), sink.calls);
+        assertEquals(0, wb.getQueueDepth());
+        assertEquals(4, wb.getFlushed());
+        assertFalse(wb.isPending(Netmail.class, "send", null, null, "id", 2L));
+    }
+
+    @Test
+    public void testBatchSizeSplitsStatements() {
+        RecordingSink sink = new RecordingSink();
+        WriteBehind wb = new WriteBehind(sink, true, 2, 1000, null);
+        for (long id = 1; id <= 5; id++) {
+            wb.update(Netmail.class, "send", true, "id", id);
+        }
+        wb.flush();
+        assertEquals(3, sink.calls.size());
+        assertEquals("UPDATE Netmail send=true id [5]", sink.calls.get(2));
+    }
+
+    @Test
+    public void testFailedBatchIsRetried() {
+        RecordingSink sink = new RecordingSink();
+        sink.failures = 1;
+        WriteBehind wb = new WriteBehind(sink, true, 100, 1000, null);
+        wb.update(Netmail.class, "send", true, "id", 1L);
+        wb.flush();
+        assertTrue(sink.calls.isEmpty());
+        assertEquals(1, wb.getQueueDepth());
+        wb.flush();
+        assertEquals(1, sink.calls.size());
+        assertEquals(0, wb.getFailed());
+    }
+
+    @Test
+    public void testFailingOperationIsKept() {
+        RecordingSink sink = new RecordingSink();
+        sink.failures = 5;
+        WriteBehind wb = new WriteBehind(sink, true, 100, 1000, null);
+        wb.update(Netmail.class, "send", true, "id", 1L);
+        for (int i = 0; i < 5; i++) {
+            wb.flush();
+        }
+        assertTrue(sink.calls.isEmpty());
+        assertEquals(1, wb.getFailed());
+        assertTrue(wb.isPending(Netmail.class, "send", null, null, "id", 1L));
+        wb.flush();
+        assertEquals(Arrays.asList("UPDATE Netmail send=true id [1]"), sink.calls);
+        assertEquals(0, wb.getQueueDepth());
+    }
+
+    @Test
+    public void testConcurrentFlushKeepsInflight() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void update(Class<?> type, String field, Object value, String scopeColumn,
+                               Object scopeValue, String keyColumn, List<Object> keys) throws SQLException {
+                if (keys.contains(1L)) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                }
+                super.update(type, field, value, scopeColumn, scopeValue, keyColumn, keys);
+            }
+        };
+        WriteBehind wb = new WriteBehind(sink, true, 100, 1000, null);
+        wb.update(Netmail.class, "send", true, "id", 1L);
+        Thread first = new Thread(wb::flush);
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        wb.update(Netmail.class, "send", false, "id", 2L);
+        Thread second = new Thread(wb::flush);
+        second.start();
+        second.join(200);
+        // the second flush waits instead of replacing the batch being written
+        assertTrue(wb.isPending(Netmail.class, "send", null, null, "id", 1L));
+        assertTrue(wb.isPending(Netmail.class, "send", null, null, "id", 2L));
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        assertEquals(0, wb.getQueueDepth());
+        assertEquals(2, sink.calls.size());
+    }
+
+    @Test
+    public void testDisabledWritesThrough() {
+        RecordingSink sink = new RecordingSink();
+        WriteBehind wb = new WriteBehind(sink, false, 100, 1000, null);
+        wb.update(Netmail.class, "send", true, "id", 1L);
+        assertEquals(1, sink.calls.size());
+        assertEquals(0, wb.getQueueDepth());
+    }
+
+    @Test
+    public void testWalReplay() {
+        File wal = new File(root, "wb.wal");
+        RecordingSink lost = new RecordingSink();
+        WriteBehind crashed = new WriteBehind(lost, true, 100, 1000, wal);
+        Date date = new Date(1700000000000L);
+        crashed.update(Netmail.class, "last_modified", date, "id", 7L);
+        crashed.delete(FileForLink.class, "link_id", 3L, "filename", "c:\\in\tbound\\a.zip");
+        assertTrue(wal.length() > 0);
+        // no flush: process died
+
+        RecordingSink sink = new RecordingSink();
+        WriteBehind wb = new WriteBehind(sink, true, 100, 1000, wal);
+        assertEquals(Arrays.asList(
+                "UPDATE Netmail last_modified=" + date + " id [7]",
+                "DELETE FileForLink link_id=3 filename [c:\\in\tbound\\a.zip]"), sink.calls);
+        assertEquals(0, wb.getQueueDepth());
+        assertEquals(0, wal.length());
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        for (Object value : new Object[]{null, true, false, 42, 42L, new Date(5L), "", "a\\b\tc\nd"}) {
+            assertEquals(value, WriteBehind.decode(WriteBehind.encode(value)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> WriteBehind.encode(new Object()));
+    }
+}
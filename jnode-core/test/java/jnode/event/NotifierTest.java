@@ -0,0 +1,178 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotifierTest {
+
+    private static class SyncEvent implements IEvent {
+        @Override
+        public String getEvent() {
+            return "";
+        }
+    }
+
+    private static class AsyncEvent implements IEvent {
+        @Override
+        public String getEvent() {
+            return "";
+        }
+    }
+
+    private static class DropEvent implements IEvent {
+        @Override
+        public String getEvent() {
+            return "";
+        }
+    }
+
+    private static class SelfEvent implements IEvent {
+        @Override
+        public String getEvent() {
+            return "";
+        }
+    }
+
+    @Test
+    public void testSyncHandlerRunsOnPublisherAndMayUnregisterItself() {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        IEventHandler handler = new IEventHandler() {
+            @Override
+            public void handle(IEvent event) {
+                threads.add(Thread.currentThread());
+                Notifier.INSTANCE.unregister(SyncEvent.class, this);
+            }
+        };
+        Notifier.INSTANCE.register(SyncEvent.class, handler);
+        Notifier.INSTANCE.notify(new SyncEvent());
+        Notifier.INSTANCE.notify(new SyncEvent());
+        assertEquals(1, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+        assertEquals(1, Notifier.INSTANCE.getStats(SyncEvent.class).getDelivered());
+    }
+
+    @Test
+    public void testAsyncHandlerRunsOnItsOwnThread() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(100);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        IAsyncEventHandler handler = event -> {
+            threads.add(Thread.currentThread());
+            latch.countDown();
+        };
+        Notifier.INSTANCE.register(AsyncEvent.class, handler);
+        try {
+            for (int i = 0; i < 100; i++) {
+                Notifier.INSTANCE.notify(new AsyncEvent());
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), threads.get(0));
+            Notifier.INSTANCE.shutdown();
+            Notifier.EventStats stats = Notifier.INSTANCE.getStats(AsyncEvent.class);
+            assertEquals(100, stats.getDelivered());
+            assertEquals(0, stats.getDropped());
+            assertEquals(0, stats.getQueueDepth());
+        } finally {
+            Notifier.INSTANCE.unregister(AsyncEvent.class, handler);
+        }
+    }
+
+    @Test
+    public void testDropPolicyDoesNotBlockPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        IAsyncEventHandler handler = new IAsyncEventHandler() {
+            @Override
+            public void handle(IEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignore) {
+                }
+            }
+
+            @Override
+            public int getQueueSize() {
+                return 2;
+            }
+
+            @Override
+            public Overflow getOverflow() {
+                return Overflow.DROP;
+            }
+        };
+        Notifier.INSTANCE.register(DropEvent.class, handler);
+        try {
+            for (int i = 0; i < 10; i++) {
+                Notifier.INSTANCE.notify(new DropEvent());
+            }
+            Notifier.EventStats stats = Notifier.INSTANCE.getStats(DropEvent.class);
+            // one in the handler, two in the queue
+            assertTrue(stats.getDropped() >= 7, "dropped " + stats.getDropped());
+            release.countDown();
+            Notifier.INSTANCE.shutdown();
+            assertEquals(10, stats.getDelivered() + stats.getDropped());
+        } finally {
+            release.countDown();
+            Notifier.INSTANCE.unregister(DropEvent.class, handler);
+        }
+    }
+
+    @Test
+    public void testHandlerPublishingToItsFullQueueDoesNotBlock() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        IAsyncEventHandler handler = new IAsyncEventHandler() {
+            private boolean published;
+
+            @Override
+            public void handle(IEvent event) {
+                if (!published) {
+                    published = true;
+                    for (int i = 0; i < 5; i++) {
+                        Notifier.INSTANCE.notify(new SelfEvent());
+                    }
+                    done.countDown();
+                }
+            }
+
+            @Override
+            public int getQueueSize() {
+                return 2;
+            }
+        };
+        Notifier.INSTANCE.register(SelfEvent.class, handler);
+        try {
+            Notifier.INSTANCE.notify(new SelfEvent());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            Notifier.INSTANCE.shutdown();
+            Notifier.EventStats stats = Notifier.INSTANCE.getStats(SelfEvent.class);
+            assertEquals(3, stats.getDropped());
+            assertEquals(6, stats.getDelivered() + stats.getDropped());
+        } finally {
+            Notifier.INSTANCE.unregister(SelfEvent.class, handler);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import jnode.dto.NetmailAcceptRule;
+import jnode.ftn.FtnTools;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetmailAcceptPolicyTest {
+
+    private static NetmailAcceptRule rule(String from, String to, NetmailAcceptRule.Action action,
+                                          boolean stop) {
+        NetmailAcceptRule rule = new NetmailAcceptRule();
+        rule.setFromAddress(from);
+        rule.setToAddress(to);
+        rule.setAction(action);
+        rule.setStopProcessing(stop);
+        rule.setDescription(from + " -> " + to);
+        return rule;
+    }
+
+    private static FtnMessage netmail(String from, String to, String subject) {
+        FtnMessage message = new FtnMessage();
+        message.setNetmail(true);
+        message.setFromAddr(new FtnAddress(from));
+        message.setToAddr(new FtnAddress(to));
+        message.setFromName("Someone");
+        message.setToName("Sysop");
+        message.setSubject(subject);
+        return message;
+    }
+
+    @Test
+    public void testFirstStopRuleDecides() {
+        NetmailAcceptRule disabled = rule("*", "*", NetmailAcceptRule.Action.REJECT, true);
+        disabled.setEnabled(false);
+        List<NetmailAcceptRule> rules = Arrays.asList(
+                disabled,
+                rule("2:5020/.*", "*", NetmailAcceptRule.Action.REJECT, false),
+                rule("2:5020/666", "*", NetmailAcceptRule.Action.REJECT, true),
+                rule("2:(5020|5030)/.*", "*", NetmailAcceptRule.Action.ACCEPT, true),
+                rule("1:.*", "2:5020/1042", NetmailAcceptRule.Action.ACCEPT, true));
+        NetmailAcceptPolicy policy = new NetmailAcceptPolicy(rules, 0);
+
+        for (String[] c : new String[][]{
+                {"2:5020/1", "2:5020/1042"}, {"2:5020/666", "2:5020/1042"}, {"2:5030/1", "2:5020/1042"},
+                {"2:463/68", "2:5020/1042"}, {"1:1/1", "2:5020/1042"}, {"1:1/1", "2:5020/1"}}) {
+            FtnMessage netmail = netmail(c[0], c[1], "Hi");
+            assertEquals(expected(rules, netmail), policy.accepts(netmail), c[0] + " -> " + c[1]);
+            // memoized answer is the same
+            assertEquals(expected(rules, netmail), policy.accepts(netmail), c[0] + " -> " + c[1]);
+        }
+        assertFalse(policy.accepts(netmail("2:5020/666", "2:5020/1042", "Hi")));
+        assertTrue(policy.accepts(netmail("2:5030/1", "2:5020/1042", "Hi")));
+    }
+
+    @Test
+    public void testSubjectRulesAreNotMemoizedByAddress() {
+        NetmailAcceptRule spam = rule("*", "*", NetmailAcceptRule.Action.REJECT, true);
+        spam.setSubject("(?i).*viagra.*");
+        NetmailAcceptPolicy policy = new NetmailAcceptPolicy(Arrays.asList(
+                spam,
+                rule("*", "*", NetmailAcceptRule.Action.ACCEPT, true)), 0);
+        assertTrue(policy.accepts(netmail("2:463/68", "2:5020/1042", "Hello")));
+        assertFalse(policy.accepts(netmail("2:463/68", "2:5020/1042", "Cheap VIAGRA")));
+    }
+
+    @Test
+    public void testNoRulesRejects() {
+        NetmailAcceptPolicy policy = new NetmailAcceptPolicy(Arrays.<NetmailAcceptRule>asList(), 0);
+        assertFalse(policy.accepts(netmail("2:463/68", "2:5020/1042", "Hi")));
+    }
+
+    // reference: old loop over all rules
+    private static boolean expected(List<NetmailAcceptRule> rules, FtnMessage netmail) {
+        for (NetmailAcceptRule rule : rules) {
+            if (FtnTools.matchesNetmailAcceptRule(rule, netmail) && rule.getStopProcessing()) {
+                return rule.getAction() == NetmailAcceptRule.Action.ACCEPT;
+            }
+        }
+        return false;
+    }
+}
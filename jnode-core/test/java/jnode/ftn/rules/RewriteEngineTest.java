@@ -0,0 +1,109 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import jnode.dto.Rewrite;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RewriteEngineTest {
+
+    private static Rewrite rewrite(Rewrite.Type type, String origFromAddr, String newFromAddr,
+                                   String newSubject, boolean last) {
+        Rewrite rewrite = new Rewrite();
+        rewrite.setType(type);
+        rewrite.setLast(last);
+        rewrite.setOrig_from_addr(origFromAddr);
+        rewrite.setOrig_to_addr("*");
+        rewrite.setOrig_from_name("*");
+        rewrite.setOrig_to_name("*");
+        rewrite.setOrig_subject("*");
+        rewrite.setNew_from_addr(newFromAddr);
+        rewrite.setNew_to_addr("*");
+        rewrite.setNew_from_name("*");
+        rewrite.setNew_to_name("*");
+        rewrite.setNew_subject(newSubject);
+        return rewrite;
+    }
+
+    private static FtnMessage echomail() {
+        FtnMessage message = new FtnMessage();
+        message.setArea("TEST");
+        message.setFromAddr(new FtnAddress("2:5020/1042.1"));
+        message.setToAddr(new FtnAddress("2:5020/1042"));
+        message.setFromName("Point");
+        message.setToName("All");
+        message.setSubject("Hello");
+        message.setMsgid("2:5020/1042.1 12345678");
+        message.setText("\001MSGID: 2:5020/1042.1 12345678\nHello\n"
+                + "--- jNode\n * Origin: Somewhere (2:5020/1042.1)\n");
+        return message;
+    }
+
+    @Test
+    public void testRewriteFromAddressAndOrigin() {
+        RewriteEngine engine = new RewriteEngine(Arrays.asList(
+                rewrite(Rewrite.Type.ECHOMAIL, "2:5020/1042\\.1", "2:5020/1042", "*", false)), 0);
+        FtnMessage message = echomail();
+        engine.process(message);
+        assertEquals("2:5020/1042", message.getFromAddr().toString());
+        assertEquals("2:5020/1042 12345678", message.getMsgid());
+        assertEquals("\001MSGID: 2:5020/1042 12345678\nHello\n"
+                + "--- jNode\n * Origin: Somewhere (2:5020/1042)\n", message.getText());
+    }
+
+    @Test
+    public void testTypeAndLast() {
+        RewriteEngine engine = new RewriteEngine(Arrays.asList(
+                rewrite(Rewrite.Type.NETMAIL, "*", "*", "Netmail", false),
+                rewrite(Rewrite.Type.ECHOMAIL, "2:5020/.*", "*", "First", true),
+                rewrite(Rewrite.Type.ECHOMAIL, "*", "*", "Second", false)), 0);
+        FtnMessage message = echomail();
+        engine.process(message);
+        assertEquals("First", message.getSubject());
+    }
+
+    @Test
+    public void testNoMatchKeepsMessage() {
+        RewriteEngine engine = new RewriteEngine(Arrays.asList(
+                rewrite(Rewrite.Type.ECHOMAIL, "2:463/.*", "2:463/68", "*", false)), 0);
+        FtnMessage message = echomail();
+        String text = message.getText();
+        engine.process(message);
+        assertEquals("2:5020/1042.1", message.getFromAddr().toString());
+        assertEquals(text, message.getText());
+    }
+
+    @Test
+    public void testForeignOriginIsKept() {
+        FtnMessage message = echomail();
+        message.setText("Hello\n * Origin: Other (2:463/68)\n");
+        message.setMsgid("2:463/68 abcdef01");
+        RewriteEngine.rewriteFromAddr(message, new FtnAddress("2:5020/1042"));
+        assertEquals("Hello\n * Origin: Other (2:463/68)\n", message.getText());
+        assertEquals("2:463/68 abcdef01", message.getMsgid());
+    }
+}
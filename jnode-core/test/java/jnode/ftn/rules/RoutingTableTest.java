@@ -0,0 +1,137 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.rules;
+
+import jnode.dto.Link;
+import jnode.dto.Route;
+import jnode.ftn.types.FtnAddress;
+import jnode.ftn.types.FtnMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingTableTest {
+
+    private static Link link(long id) {
+        Link link = new Link();
+        link.setId(id);
+        return link;
+    }
+
+    private static Route route(long id, String toAddr, long via) {
+        Route route = new Route();
+        route.setId(id);
+        route.setNice(id);
+        route.setFromAddr("*");
+        route.setFromName("*");
+        route.setToName("*");
+        route.setSubject("*");
+        route.setToAddr(toAddr);
+        route.setRouteVia(link(via));
+        return route;
+    }
+
+    private static FtnMessage message(String to, String toName) {
+        FtnMessage message = new FtnMessage();
+        message.setFromAddr(new FtnAddress("2:5020/1042"));
+        message.setToAddr(new FtnAddress(to));
+        message.setFromName("Sysop");
+        message.setToName(toName);
+        message.setSubject("Hello");
+        return message;
+    }
+
+    @Test
+    public void testFieldMask() {
+        assertEquals(FieldMask.Kind.ANY, FieldMask.compile("*").getKind());
+        assertEquals(FieldMask.Kind.ANY, FieldMask.compile(null).getKind());
+        assertEquals(FieldMask.Kind.EXACT, FieldMask.compile("2:5020/1042").getKind());
+        assertEquals(FieldMask.Kind.EXACT, FieldMask.compile("2:5020/1042\\.1").getKind());
+        assertEquals(FieldMask.Kind.PREFIX, FieldMask.compile("2:5020/.*").getKind());
+        assertEquals(FieldMask.Kind.REGEX, FieldMask.compile("2:50(20|30)/.*").getKind());
+        assertEquals(FieldMask.Kind.NONE, FieldMask.compile("2:50(20").getKind());
+
+        String[] masks = {"2:5020/1042", "2:5020/1042\\.1", "2:5020/.*", "2:50(20|30)/.*", "2:.*",
+                "Sysop", "Sys.*", ".*op"};
+        String[] values = {"2:5020/1042", "2:5020/1042.1", "2:5030/1", "2:5020/10420", "Sysop",
+                "Sysop\nX", null, ""};
+        for (String mask : masks) {
+            for (String value : values) {
+                boolean expected = value != null && value.matches(mask);
+                assertEquals(expected, FieldMask.compile(mask).matches(value), mask + " ~ " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testFirstMatchByNice() {
+        Route general = route(2, "2:50(20|30)/.*", 20);
+        general.setToName("Robot");
+        RoutingTable table = new RoutingTable(Arrays.asList(
+                route(1, "2:5020/1042", 10),
+                general,
+                route(3, "2:5020/.*", 30),
+                route(4, "2:.*", 40),
+                route(5, "*", 50)), 0);
+
+        assertEquals(Long.valueOf(1), table.route(message("2:5020/1042", "Robot")).getId());
+        assertEquals(Long.valueOf(2), table.route(message("2:5020/1", "Robot")).getId());
+        assertEquals(Long.valueOf(3), table.route(message("2:5020/1", "Sysop")).getId());
+        assertEquals(Long.valueOf(3), table.route(message("2:5020/10420", "Sysop")).getId());
+        assertEquals(Long.valueOf(4), table.route(message("2:463/68", "Sysop")).getId());
+        assertEquals(Long.valueOf(5), table.route(message("1:1/1", "Sysop")).getId());
+    }
+
+    @Test
+    public void testNoMatch() {
+        RoutingTable table = new RoutingTable(Arrays.asList(route(1, "2:5020/.*", 10)), 0);
+        assertNull(table.route(message("2:463/68", "Sysop")));
+        List<String> trace = table.explain(message("2:463/68", "Sysop"));
+        assertEquals("no route matches", trace.get(trace.size() - 1));
+    }
+
+    @Test
+    public void testFallbackSkipsPreviousLink() {
+        RoutingTable table = new RoutingTable(Arrays.asList(
+                route(1, "2:5020/.*", 10),
+                route(2, "2:.*", 10),
+                route(3, "*", 30)), 0);
+        FtnMessage message = message("2:5020/1", "Sysop");
+        assertEquals(Long.valueOf(3), table.fallback(message, link(10)).getId());
+        assertEquals(Long.valueOf(1), table.fallback(message, link(30)).getId());
+    }
+
+    @Test
+    public void testExplain() {
+        RoutingTable table = new RoutingTable(Arrays.asList(
+                route(1, "2:463/.*", 10),
+                route(2, "2:5020/.*", 20),
+                route(3, "*", 30)), 0);
+        List<String> trace = table.explain(message("2:5020/1", "Sysop"));
+        assertEquals(3, trace.size());
+        assertTrue(trace.get(0).contains("toAddr '2:5020/1' does not match '2:463/.*'"), trace.get(0));
+        assertTrue(trace.get(1).endsWith("MATCHES"), trace.get(1));
+        assertTrue(trace.get(2).endsWith("matches, shadowed"), trace.get(2));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.tosser;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.dto.EchomailCursor;
+import jnode.dto.Link;
+import jnode.dto.LinkOption;
+import jnode.dto.Subscription;
+import jnode.ftn.FtnTools;
+import jnode.ftn.types.Ftn2D;
+import jnode.ftn.types.FtnAddress;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+import jnode.store.EchomailStores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Packing echomail by per-link cursors against in-memory H2
+ */
+public class FtnTosserCursorTest {
+
+    private FtnAddress address;
+    private Link link;
+    private Echoarea area;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("jdbc.url",
+                "jdbc:h2:mem:jnode;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false");
+        props.setProperty("jdbc.user", "sa");
+        props.setProperty("jdbc.pass", "");
+        props.setProperty("ftn.primary", "2:9999/9999");
+        props.setProperty("tosser.echomail.cursor", "true");
+        new MainHandler(props);
+        ORMManager.INSTANCE.start();
+        ORMManager.get(EchomailCursor.class).executeRaw("DELETE FROM echomailcursor");
+        ORMManager.get(Subscription.class).executeRaw("DELETE FROM subscription");
+        ORMManager.get(LinkOption.class).executeRaw("DELETE FROM linkoptions");
+
+        address = new FtnAddress("2:9999/" + (1 + System.nanoTime() % 9000));
+        link = new Link();
+        link.setLinkName("cursor");
+        link.setLinkAddress(address.toString());
+        ORMManager.get(Link.class).save(link);
+        area = new Echoarea();
+        area.setName("cursor." + System.nanoTime());
+        area.setDescription("");
+        ORMManager.get(Echoarea.class).save(area);
+        Subscription sub = new Subscription();
+        sub.setLink(link);
+        sub.setArea(area);
+        ORMManager.get(Subscription.class).save(sub);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EchomailStores.close();
+        FtnTools.forgetEchomailCursors();
+    }
+
+    private Echomail save(String seenBy) {
+        Echomail mail = new Echomail();
+        mail.setArea(area);
+        mail.setDate(new Date());
+        mail.setFromName("Sender");
+        mail.setToName("All");
+        mail.setFromFTN("2:9999/9999");
+        mail.setSubject("Subject");
+        mail.setMsgid("2:9999/9999 " + Long.toHexString(System.nanoTime()));
+        mail.setText("Text\n");
+        mail.setSeenBy(seenBy);
+        mail.setPath("9999/9999");
+        EchomailStores.get().save(mail);
+        return mail;
+    }
+
+    private int pack() {
+        return new FtnTosser().packEchomailCursors(new ByteArrayOutputStream(),
+                link, address, new Ftn2D(address.getNet(), address.getNode()),
+                new Ftn2D(9999, 9999), new HashMap<>());
+    }
+
+    private long cursor() {
+        return ORMManager.get(EchomailCursor.class).getFirstAnd("link_id", "=",
+                link, "echoarea_id", "=", area).getLastId();
+    }
+
+    @Test
+    public void testCursorAdvances() {
+        save("9999/9999");
+        assertEquals(0, pack());
+        long start = cursor();
+
+        save("9999/9999");
+        Echomail last = save("9999/9999");
+        assertEquals(2, pack());
+        assertEquals(last.getId().longValue(), cursor());
+        assertTrue(cursor() > start);
+        assertEquals(0, pack());
+    }
+
+    @Test
+    public void testSeenBySkipped() {
+        pack();
+        save("9999/9999 " + address.getNet() + "/" + address.getNode());
+        Echomail last = save("9999/9999");
+        assertEquals(1, pack());
+        assertEquals(last.getId().longValue(), cursor());
+    }
+
+    @Test
+    public void testPausedLinkSkipped() {
+        pack();
+        ORMManager.get(LinkOption.class).save(
+                new LinkOption(link, LinkOption.BOOLEAN_PAUSE, "true"));
+        Echomail last = save("9999/9999");
+        assertEquals(0, pack());
+        assertEquals(last.getId().longValue(), cursor());
+    }
+
+    @Test
+    public void testMessageFromLinkSkipped() {
+        pack();
+        Echomail echoed = save("9999/9999");
+        echoed.setPath("9999/9999 " + address.getNet() + "/" + address.getNode());
+        ORMManager.get(Echomail.class).update(echoed);
+        Echomail last = save("9999/9999");
+        assertEquals(1, pack());
+        assertEquals(last.getId().longValue(), cursor());
+    }
+
+    @Test
+    public void testRescanMovesCursorBack() {
+        pack();
+        save("9999/9999");
+        save("9999/9999");
+        assertEquals(2, pack());
+        assertEquals(2, FtnTools.rescanEchomail(link, area, 2));
+        assertEquals(2, pack());
+    }
+
+    @Test
+    public void testResubscribeDoesNotResendBacklog() {
+        pack();
+        save("9999/9999");
+        save("9999/9999");
+        FtnTools.unsubscribe(link, area);
+        assertNull(ORMManager.get(EchomailCursor.class).getFirstAnd("link_id",
+                "=", link, "echoarea_id", "=", area));
+
+        Subscription sub = new Subscription();
+        sub.setLink(link);
+        sub.setArea(area);
+        ORMManager.get(Subscription.class).save(sub);
+        assertEquals(0, pack());
+        Echomail last = save("9999/9999");
+        assertEquals(1, pack());
+        assertEquals(last.getId().longValue(), cursor());
+    }
+}
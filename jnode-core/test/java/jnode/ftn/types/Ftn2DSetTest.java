@@ -0,0 +1,101 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.ftn.types;
+
+import jnode.ftn.FtnTools;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Ftn2DSetTest {
+
+    @Test
+    public void testParseMatchesRead2D() {
+        String list = "5030/2104 2404 5051/41 5020/2141 2140";
+        Ftn2DSet set = Ftn2DSet.parse(list);
+        List<Ftn2D> expected = FtnTools.read2D(list);
+
+        assertEquals(expected.size(), set.size());
+        for (Ftn2D d : expected) {
+            assertTrue(set.contains(d), d.toString());
+        }
+    }
+
+    @Test
+    public void testParseSkipsBadEntries() {
+        Ftn2DSet set = Ftn2DSet.parse("5020/2141 as2140 141 5030/141");
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(5020, 2141));
+        assertTrue(set.contains(5030, 141));
+        assertFalse(set.contains(5020, 141));
+    }
+
+    @Test
+    public void testParseEmpty() {
+        assertTrue(Ftn2DSet.parse(null).isEmpty());
+        assertTrue(Ftn2DSet.parse("").isEmpty());
+        assertTrue(Ftn2DSet.parse("   ").isEmpty());
+    }
+
+    @Test
+    public void testToStringIsSortedWrite2D() {
+        List<Ftn2D> list = Arrays.asList(new Ftn2D(5030, 10), new Ftn2D(463, 68),
+                new Ftn2D(5020, 1042), new Ftn2D(5020, 2));
+        Ftn2DSet set = Ftn2DSet.of(list);
+
+        assertEquals(FtnTools.write2D(list, true), set.toString());
+        assertEquals("463/68 5020/2 5020/1042 5030/10", set.toString());
+    }
+
+    @Test
+    public void testAddAndUnion() {
+        Ftn2DSet set = Ftn2DSet.parse("5020/1 3 5");
+        assertTrue(set.add(5020, 2));
+        assertFalse(set.add(5020, 3));
+
+        Ftn2DSet subscribers = Ftn2DSet.parse("463/68 5020/5 6");
+        set.addAll(subscribers);
+
+        assertEquals("463/68 5020/1 5020/2 5020/3 5020/5 5020/6", set.toString());
+        assertEquals(set.toList(), Ftn2DSet.parse(set.toString()).toList());
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        Ftn2DSet set = Ftn2DSet.parse("1/1 2 3 100 5020/1042 65535 6000/1");
+        byte[] blob = set.encode();
+
+        assertEquals(set, Ftn2DSet.decode(blob));
+        assertTrue(blob.length < set.toString().length());
+        assertTrue(Ftn2DSet.decode(null).isEmpty());
+        assertEquals(new Ftn2DSet(), Ftn2DSet.decode(new Ftn2DSet().encode()));
+    }
+
+    @Test
+    public void testDecodeMalformed() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Ftn2DSet.decode(new byte[] { 2, 0, (byte) 0x80 }));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogWriterTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void testAsyncKeepsOrderAndFormat() throws IOException {
+        File log = new File(dir, "jnode.log");
+        LogWriter writer = new LogWriter(true, 64);
+        writer.setFile(log, "", 0, false);
+        for (int i = 0; i < 1000; i++) {
+            writer.write(Logger.LOG_L5, "Test                ", "line " + i);
+        }
+        writer.flush();
+        List<String> lines = Files.readAllLines(log.toPath(), StandardCharsets.UTF_8);
+        lines.removeIf(line -> line.endsWith("log messages dropped, ring is full"));
+        assertEquals(1000 - writer.getDropped(), lines.size());
+        assertTrue(lines.get(0).matches("\\d{2}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} \\[\\d{8}\\] Test {16} line \\d+"),
+                lines.get(0));
+        int last = -1;
+        for (String line : lines) {
+            int n = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+            assertTrue(n > last, line);
+            last = n;
+        }
+    }
+
+    @Test
+    public void testImportantMessagesAreNotDropped() throws IOException {
+        File log = new File(dir, "jnode.log");
+        LogWriter writer = new LogWriter(true, 4);
+        writer.setFile(log, "", 0, false);
+        for (int i = 0; i < 500; i++) {
+            writer.write(Logger.LOG_L1, "Test                ", "line " + i);
+        }
+        writer.flush();
+        assertEquals(0, writer.getDropped());
+        assertEquals(500, Files.readAllLines(log.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    public void testRotateBySizeAndOnStart() throws IOException {
+        File log = new File(dir, "jnode.log");
+        Files.write(log.toPath(), "previous run\n".getBytes(StandardCharsets.UTF_8));
+        LogWriter writer = new LogWriter(false, 16);
+        writer.setFile(log, "", 1024, false);
+        assertEquals(0, log.length());
+        for (int i = 0; i < 100; i++) {
+            writer.write(Logger.LOG_L3, "Test                ", "some long enough line number " + i);
+        }
+        assertTrue(log.length() < 1024);
+        File[] rotated = dir.listFiles((d, name) -> name.startsWith("jnode-") && name.endsWith(".log"));
+        assertNotNull(rotated);
+        assertTrue(rotated.length >= 4, "rotated: " + rotated.length);
+    }
+
+    @Test
+    public void testCloseTwiceKeepsWriting() throws IOException {
+        File log = new File(dir, "jnode.log");
+        LogWriter writer = new LogWriter(true, 64);
+        writer.setFile(log, "", 0, false);
+        writer.write(Logger.LOG_L1, "Test                ", "before");
+        writer.close();
+        writer.close();
+        writer.write(Logger.LOG_L1, "Test                ", "after");
+        List<String> lines = Files.readAllLines(log.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).endsWith("after"), lines.get(1));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testCounterIsSharedByNameAndLabels() {
+        Metrics.counter("test_messages_total", "Test", "area", "A").add(2);
+        Metrics.counter("test_messages_total", "Test", "area", "A").inc();
+        Metrics.counter("test_messages_total", "Test", "area", "B \"quoted\"").inc();
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("# TYPE test_messages_total counter\n"), scrape);
+        assertTrue(scrape.contains("test_messages_total{area=\"A\"} 3\n"), scrape);
+        assertTrue(scrape.contains("test_messages_total{area=\"B \\\"quoted\\\"\"} 1\n"), scrape);
+    }
+
+    @Test
+    public void testHistogramBucketsAreCumulative() {
+        Histogram timer = Metrics.timer("test_toss_seconds", "Test");
+        timer.observe(50000L);       // 50us
+        timer.observe(2000000L);     // 2ms
+        timer.observe(400000000000L); // above last bound
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("test_toss_seconds_bucket{le=\"1.0E-4\"} 1\n"), scrape);
+        assertTrue(scrape.contains("test_toss_seconds_bucket{le=\"0.0025\"} 2\n"), scrape);
+        assertTrue(scrape.contains("test_toss_seconds_bucket{le=\"300\"} 2\n"), scrape);
+        assertTrue(scrape.contains("test_toss_seconds_bucket{le=\"+Inf\"} 3\n"), scrape);
+        assertTrue(scrape.contains("test_toss_seconds_count 3\n"), scrape);
+        assertEquals(3, timer.getCount());
+        assertEquals(2500000L, timer.getQuantile(0.5));
+        assertEquals(Long.MAX_VALUE, timer.getQuantile(1));
+    }
+
+    @Test
+    public void testGauge() {
+        Metrics.gauge("test_queue_depth", "Test", () -> 42L);
+        assertTrue(Metrics.scrape().contains("test_queue_depth 42\n"));
+    }
+
+    @Test
+    public void testTypeConflict() {
+        Metrics.counter("test_conflict", "Test");
+        assertThrows(IllegalArgumentException.class, () -> Metrics.timer("test_conflict", "Test"));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.counter("test_odd", "Test", "label"));
+    }
+}
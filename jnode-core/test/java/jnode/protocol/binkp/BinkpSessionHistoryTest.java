@@ -0,0 +1,85 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package jnode.protocol.binkp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class BinkpSessionHistoryTest {
+
+    private static BinkpSessionStat session(String address, boolean success,
+            long sent, long received) throws InterruptedException {
+        BinkpSessionStat stat = new BinkpSessionStat(true);
+        stat.handshakeDone();
+        Thread.sleep(2);
+        stat.finish(address, success, success ? null : "Connection timeout",
+                sent, received, 10, 12);
+        return stat;
+    }
+
+    @Test
+    void testRingKeepsNewestFirst() throws InterruptedException {
+        BinkpSessionHistory history = BinkpSessionHistory.getSelf();
+        long total = history.getTotal();
+        BinkpSessionStat last = null;
+        for (int i = 0; i < 150; i++) {
+            last = session(null, true, 0, 0);
+            history.add(last);
+        }
+        List<BinkpSessionStat> recent = history.getRecent();
+        assertEquals(100, recent.size());
+        assertSame(last, recent.get(0));
+        assertEquals(total + 150, history.getTotal());
+    }
+
+    @Test
+    void testLinkAverages() throws InterruptedException {
+        BinkpSessionHistory history = BinkpSessionHistory.getSelf();
+        String address = "2:9999/4321.7";
+        history.add(session(address, true, 1048576, 100));
+        history.add(session(address, false, 0, 0));
+
+        BinkpSessionHistory.LinkThroughput link = history.getLinks().get(address);
+        assertNotNull(link);
+        assertEquals(2, link.getSessions());
+        assertEquals(1, link.getFailed());
+        assertEquals(1048576, link.getBytesSent());
+        assertTrue(link.getSendRate() > 0);
+        // too few bytes for a rate
+        assertEquals(-1, link.getReceiveRate());
+        assertTrue(link.getHandshakeMillis() >= 0);
+    }
+
+    @Test
+    void testFileRate() {
+        BinkpSessionStat stat = new BinkpSessionStat(false);
+        stat.file("00000001.pkt", 1000, true, true, System.nanoTime() - 1000000000L);
+        BinkpSessionStat.FileTransfer file = stat.getFiles().get(0);
+        assertTrue(file.getMillis() >= 1000);
+        assertTrue(file.getRate() > 0 && file.getRate() <= 1000);
+        assertEquals(-1, stat.getHandshakeMillis());
+        assertEquals(-1, stat.getFirstByteMillis());
+    }
+}
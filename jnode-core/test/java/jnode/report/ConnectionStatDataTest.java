@@ -25,8 +25,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.net.URL;
@@ -170,6 +172,32 @@ public class ConnectionStatDataTest {
         assertEquals(61, loaded.get(1).outgoingOk);
     }
 
+    @Test
+    public void testAddKeepsLongCounters() throws Exception {
+        ConnectionStatData data = new ConnectionStatData(path);
+        data.store(new FtnAddress("2:5020/828.17"), e1);
+
+        ConnectionStatData.ConnectionStatDataElement big = new ConnectionStatData.ConnectionStatDataElement();
+        big.linkStr = "2:5020/828.17";
+        big.bytesReceived = 3L * Integer.MAX_VALUE;
+        big.incomingOk = 1;
+        ConnectionStatData.ConnectionStatDataElement unknown = new ConnectionStatData.ConnectionStatDataElement();
+        unknown.incomingFailed = 2;
+        List<ConnectionStatData.ConnectionStatDataElement> deltas = new ArrayList<>();
+        deltas.add(big);
+        deltas.add(unknown);
+        assertTrue(data.add(deltas));
+
+        List<ConnectionStatData.ConnectionStatDataElement> loaded = data.load();
+        assertEquals(2, loaded.size());
+        assertEquals(1 + 3L * Integer.MAX_VALUE, loaded.get(0).bytesReceived);
+        assertEquals(2, loaded.get(0).bytesSended);
+        assertEquals(5, loaded.get(0).incomingOk);
+        assertNull(loaded.get(1).linkStr);
+        assertEquals(2, loaded.get(1).incomingFailed);
+        assertFalse(new File(path + ".tmp").exists());
+    }
+
     @Test
     public void testFindPos() throws Exception {
         ConnectionStatData data = new ConnectionStatData(path);
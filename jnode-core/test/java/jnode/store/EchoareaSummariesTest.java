@@ -0,0 +1,146 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import jnode.dto.Echoarea;
+import jnode.dto.EchoareaSummary;
+import jnode.dto.Echomail;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EchoareaSummariesTest {
+
+    private Echoarea area;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("jdbc.url",
+                "jdbc:h2:mem:jnode;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false");
+        props.setProperty("jdbc.user", "sa");
+        props.setProperty("jdbc.pass", "");
+        props.setProperty("echomail.summary.interval", "3600");
+        new MainHandler(props);
+        ORMManager.INSTANCE.start();
+        area = new Echoarea();
+        area.setName("summary." + System.nanoTime());
+        area.setDescription("");
+        ORMManager.get(Echoarea.class).save(area);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EchoareaSummaries.shutdown();
+        EchomailStores.close();
+    }
+
+    private Echomail mail(String text, Date date) {
+        Echomail mail = new Echomail();
+        mail.setArea(area);
+        mail.setDate(date);
+        mail.setFromName("Sender");
+        mail.setToName("All");
+        mail.setFromFTN("2:9999/9999");
+        mail.setSubject("Subject");
+        mail.setMsgid("2:9999/9999 " + Long.toHexString(System.nanoTime()));
+        mail.setText(text);
+        mail.setSeenBy("");
+        mail.setPath("");
+        return mail;
+    }
+
+    @Test
+    public void testCountsStoredAndNewMessages() {
+        // saved while not started: counted from the store
+        EchomailStores.get().save(mail("one\n", new Date(1000)));
+        EchomailStores.get().save(mail("two\n", new Date(3000)));
+        EchoareaSummaries.start();
+        EchoareaSummary summary = EchoareaSummaries.get(area);
+        assertEquals(2, summary.getNum());
+        assertEquals(8, summary.getBytes());
+        assertEquals(new Date(3000), summary.getLatest());
+
+        Echomail third = mail("three\n", new Date(2000));
+        EchomailStores.get().save(third);
+        summary = EchoareaSummaries.get(area);
+        assertEquals(3, summary.getNum());
+        assertEquals(14, summary.getBytes());
+        assertEquals(new Date(3000), summary.getLatest());
+        assertEquals(third.getId().longValue(), summary.getLastId());
+        assertEquals(third.getId().longValue(), EchoareaSummaries.getLastId(area));
+    }
+
+    @Test
+    public void testSmallerIdCommittedLaterIsCounted() {
+        EchoareaSummaries.start();
+        assertEquals(0, EchoareaSummaries.get(area).getNum());
+
+        Echomail bigger = mail("b\n", new Date());
+        bigger.setId(1000001L);
+        Echomail smaller = mail("s\n", new Date());
+        smaller.setId(1000000L);
+        EchoareaSummaries.added(bigger);
+        EchoareaSummaries.added(smaller);
+        EchoareaSummary summary = EchoareaSummaries.get(area);
+        assertEquals(2, summary.getNum());
+        assertEquals(1000001L, summary.getLastId());
+    }
+
+    @Test
+    public void testFlushWritesSummary() {
+        EchomailStores.get().save(mail("one\n", new Date(1000)));
+        EchoareaSummaries.start();
+        EchoareaSummary summary = EchoareaSummaries.get(area);
+        EchoareaSummaries.flush();
+
+        EchoareaSummary row = ORMManager.get(EchoareaSummary.class).getById(area.getId());
+        assertNotNull(row);
+        assertEquals(summary.getNum(), row.getNum());
+        assertEquals(summary.getLastId(), row.getLastId());
+        assertEquals(summary.getBytes(), row.getBytes());
+
+        EchomailStores.get().deleteArea(area);
+        assertNull(ORMManager.get(EchoareaSummary.class).getById(area.getId()));
+    }
+
+    @Test
+    public void testFlushWaitsForVisibleId() {
+        EchomailStores.get().save(mail("one\n", new Date(1000)));
+        EchoareaSummaries.start();
+        assertEquals(1, EchoareaSummaries.get(area).getNum());
+
+        // a bigger id counted while a smaller one may still commit
+        Echomail ahead = mail("a\n", new Date());
+        ahead.setId(EchomailStores.get().getVisibleId() + 1000);
+        EchoareaSummaries.added(ahead);
+        EchoareaSummaries.flush();
+        assertNull(ORMManager.get(EchoareaSummary.class).getById(area.getId()));
+        assertEquals(2, EchoareaSummaries.get(area).getNum());
+    }
+}
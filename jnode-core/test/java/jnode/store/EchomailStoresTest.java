@@ -0,0 +1,138 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.dto.EchomailCursor;
+import jnode.dto.Link;
+import jnode.ftn.FtnTools;
+import jnode.main.MainHandler;
+import jnode.orm.ORMManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EchomailStoresTest {
+
+    @TempDir
+    File root;
+
+    private Link link;
+    private Echoarea area;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("jdbc.url",
+                "jdbc:h2:mem:jnode;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false");
+        props.setProperty("jdbc.user", "sa");
+        props.setProperty("jdbc.pass", "");
+        props.setProperty("echomail.store.path", root.getAbsolutePath());
+        new MainHandler(props);
+        ORMManager.INSTANCE.start();
+        ORMManager.get(EchomailCursor.class).executeRaw("DELETE FROM echomailcursor");
+        ORMManager.get(Echomail.class).executeRaw("DELETE FROM echomail");
+
+        link = new Link();
+        link.setLinkName("stores");
+        link.setLinkAddress("2:9999/" + System.nanoTime() % 10000);
+        ORMManager.get(Link.class).save(link);
+        area = new Echoarea();
+        area.setName("stores." + System.nanoTime());
+        area.setDescription("");
+        ORMManager.get(Echoarea.class).save(area);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EchomailStores.close();
+        FtnTools.forgetEchomailCursors();
+    }
+
+    private void store(String name) {
+        EchomailStores.close();
+        MainHandler.getCurrentInstance().setProperty("echomail.store", name);
+    }
+
+    private EchomailCursor cursor() {
+        return ORMManager.get(EchomailCursor.class).getFirstAnd("link_id", "=",
+                link, "echoarea_id", "=", area);
+    }
+
+    private void save(int n) {
+        Echomail mail = new Echomail();
+        mail.setArea(area);
+        mail.setDate(new Date());
+        mail.setFromName("Sender");
+        mail.setToName("All");
+        mail.setFromFTN("2:9999/9999");
+        mail.setSubject("Subject " + n);
+        mail.setMsgid("2:9999/9999 " + Long.toHexString(System.nanoTime()));
+        mail.setText("Text " + n + "\n");
+        mail.setSeenBy("");
+        mail.setPath("");
+        EchomailStores.get().save(mail);
+    }
+
+    @Test
+    public void testSqlCursorResetForLogStore() {
+        store("sql");
+        save(1);
+        save(2);
+        FtnTools.ensureEchomailCursor(link, area, 1L);
+        assertEquals("sql", cursor().getStore());
+
+        store("log");
+        save(1);
+        save(2);
+        save(3);
+        assertEquals(1, EchomailStores.resetForeignCursors());
+        EchomailCursor cursor = cursor();
+        assertEquals("log", cursor.getStore());
+        assertEquals(Long.valueOf(3), cursor.getLastId());
+        assertEquals(0, EchomailStores.resetForeignCursors());
+    }
+
+    @Test
+    public void testLogCursorResetForSqlStore() {
+        store("log");
+        for (int i = 1; i <= 5; i++) {
+            save(i);
+        }
+        FtnTools.ensureEchomailCursor(link, area, 5L);
+
+        store("sql");
+        save(1);
+        long last = EchomailStores.get().getLastId(area);
+        assertEquals(1, EchomailStores.resetForeignCursors());
+        EchomailCursor cursor = cursor();
+        assertEquals("sql", cursor.getStore());
+        assertEquals(Long.valueOf(last), cursor.getLastId());
+    }
+}
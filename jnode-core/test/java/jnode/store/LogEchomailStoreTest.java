@@ -0,0 +1,206 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jnode.store;
+
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogEchomailStoreTest {
+
+    @TempDir
+    File root;
+
+    private static Echoarea area(long id) {
+        Echoarea area = new Echoarea();
+        area.setId(id);
+        area.setName("test." + id);
+        return area;
+    }
+
+    private static Echomail mail(Echoarea area, int n) {
+        Echomail mail = new Echomail();
+        mail.setArea(area);
+        mail.setDate(new Date(1700000000000L + n));
+        mail.setFromName("Sender " + n);
+        mail.setToName("All");
+        mail.setFromFTN("2:5020/1042");
+        mail.setSubject("Subject " + n);
+        mail.setMsgid("2:5020/1042 " + Integer.toHexString(0x1000 + n));
+        mail.setText("Text of message " + n + "\nПривет\n");
+        mail.setSeenBy("5020/1042 5020/2 463/68");
+        mail.setPath("5020/1042");
+        return mail;
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        LogEchomailStore store = new LogEchomailStore(root, 1024 * 1024, false);
+        Echoarea area = area(1);
+        for (int i = 1; i <= 5; i++) {
+            Echomail mail = mail(area, i);
+            store.save(mail);
+            assertEquals(Long.valueOf(i), mail.getId());
+        }
+
+        List<Echomail> mails = store.getAfter(area, 2, 10);
+        assertEquals(3, mails.size());
+        Echomail third = mails.get(0);
+        assertEquals(Long.valueOf(3), third.getId());
+        assertEquals("Subject 3", third.getSubject());
+        assertEquals("Text of message 3\nПривет\n", third.getText());
+        assertEquals("463/68 5020/2 5020/1042", third.getSeenBy());
+        assertEquals("5020/1042", third.getPath());
+        assertEquals(new Date(1700000000003L), third.getDate());
+        assertSame(area, third.getArea());
+
+        assertEquals(2, store.getAfter(area, 0, 2).size());
+        assertEquals(5L, store.getLastId(area));
+        assertEquals(3L, store.getRescanId(area, 2));
+        assertEquals(-1L, store.getRescanId(area(2), 2));
+
+        Echomail fourth = store.get(area, 4);
+        assertEquals("Subject 4", fourth.getSubject());
+        assertSame(area, fourth.getArea());
+        assertNull(store.get(area, 6));
+        assertNull(store.get(area(2), 4));
+        store.close();
+    }
+
+    @Test
+    public void testDupeAndReopen() {
+        LogEchomailStore store = new LogEchomailStore(root, 1024 * 1024, false);
+        Echoarea area = area(1);
+        store.save(mail(area, 1));
+        assertTrue(store.isDupe(area, "2:5020/1042 1001"));
+        assertFalse(store.isDupe(area, "2:5020/1042 1002"));
+        assertFalse(store.isDupe(area(2), "2:5020/1042 1001"));
+        store.close();
+
+        store = new LogEchomailStore(root, 1024 * 1024, false);
+        assertTrue(store.isDupe(area, "2:5020/1042 1001"));
+        assertEquals(1L, store.getLastId(area));
+        store.close();
+    }
+
+    @Test
+    public void testSegmentRoll() {
+        LogEchomailStore store = new LogEchomailStore(root, 256, false);
+        Echoarea area = area(3);
+        for (int i = 1; i <= 20; i++) {
+            store.save(mail(area, i));
+        }
+        File[] segments = new File(root, "3").listFiles();
+        assertNotNull(segments);
+        assertTrue(segments.length > 1);
+        assertEquals("Subject 20", store.getAfter(area, 19, 1).get(0).getSubject());
+        store.close();
+
+        store = new LogEchomailStore(root, 256, false);
+        List<Echomail> all = store.getAfter(area, 0, 100);
+        assertEquals(20, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(Long.valueOf(i + 1), all.get(i).getId());
+        }
+        store.close();
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws Exception {
+        LogEchomailStore store = new LogEchomailStore(root, 1024 * 1024, false);
+        Echoarea area = area(4);
+        for (int i = 1; i <= 3; i++) {
+            store.save(mail(area, i));
+        }
+        store.close();
+
+        File segment = new File(root, "4").listFiles()[0];
+        long length = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            // corrupt the last record's payload and leave a partial header
+            raf.seek(length - 3);
+            raf.write(new byte[] { 1, 2, 3 });
+            raf.seek(length);
+            raf.write(new byte[] { 0, 0, 1 });
+        }
+
+        store = new LogEchomailStore(root, 1024 * 1024, false);
+        assertEquals(2L, store.getLastId(area));
+        assertFalse(store.isDupe(area, "2:5020/1042 1003"));
+        Echomail mail = mail(area, 4);
+        store.save(mail);
+        assertEquals(Long.valueOf(3), mail.getId());
+        assertEquals("Subject 4", store.getAfter(area, 2, 1).get(0).getSubject());
+        store.close();
+    }
+
+    @Test
+    public void testDeleteArea() {
+        LogEchomailStore store = new LogEchomailStore(root, 1024 * 1024, false);
+        Echoarea area = area(5);
+        store.save(mail(area, 1));
+        store.deleteArea(area);
+        assertFalse(new File(root, "5").exists());
+        assertEquals(0L, store.getLastId(area));
+        store.close();
+    }
+
+    @Test
+    public void testExpiredSegmentsAreDeleted() {
+        LogEchomailStore store = new LogEchomailStore(root, 256, false);
+        Echoarea area = area(6);
+        for (int i = 1; i <= 20; i++) {
+            store.save(mail(area, i));
+        }
+        store.close();
+        File[] segments = new File(root, "6").listFiles();
+        Arrays.sort(segments);
+        assertTrue(segments.length > 2);
+        long old = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        for (int i = 0; i < segments.length - 1; i++) {
+            assertTrue(segments[i].setLastModified(old));
+        }
+
+        store = new LogEchomailStore(root, 256, false, TimeUnit.DAYS.toMillis(1));
+        assertEquals(20L, store.getLastId(area));
+        assertEquals(1, new File(root, "6").listFiles().length);
+        assertNull(store.get(area, 1));
+        List<Echomail> kept = store.getAfter(area, 0, 100);
+        assertFalse(kept.isEmpty());
+        assertEquals(Long.valueOf(20), kept.get(kept.size() - 1).getId());
+        assertEquals("Subject 20", store.get(area, 20).getSubject());
+        Echomail mail = mail(area, 21);
+        store.save(mail);
+        assertEquals(Long.valueOf(21), mail.getId());
+        assertEquals("Subject 21", store.getAfter(area, 20, 1).get(0).getSubject());
+        store.close();
+    }
+}
@@ -80,4 +80,62 @@ function _getParameterByName(name) {
 			.exec(document.location.href);
 	return results == null ? "" : decodeURIComponent(results[1].replace(/\+/g,
 			" "));
-}
\ No newline at end of file
+}
+function _json(url, callback) {
+	var xmlhttp = _getXmlHttp();
+	xmlhttp.open('GET', url, true);
+	xmlhttp.onreadystatechange = function() {
+		if (xmlhttp.readyState == 4 && xmlhttp.status == 200) {
+			callback(JSON.parse(xmlhttp.responseText));
+		}
+	};
+	xmlhttp.send(null);
+}
+
+function _escape(text) {
+	if (text === null || text === undefined) {
+		return "";
+	}
+	return String(text).replace(/&/g, "&amp;").replace(/</g, "&lt;")
+			.replace(/>/g, "&gt;").replace(/"/g, "&quot;");
+}
+
+/*
+ * Fills tbody page by page from a JSON list (/secure/api/...): row(item)
+ * returns HTML of one row, element "more" is shown while pages are left.
+ * search(q) starts over with a filter.
+ */
+function _pager(url, body, more, row) {
+	var pager = {
+		page : 0,
+		q : "",
+		seq : 0
+	};
+	pager.load = function() {
+		var seq = ++pager.seq;
+		_json(url + ((url.indexOf("?") >= 0) ? "&" : "?") + "page="
+				+ (pager.page + 1) + "&q=" + encodeURIComponent(pager.q),
+				function(data) {
+					if (seq != pager.seq) {
+						return;
+					}
+					var html = "";
+					for (var i = 0; i < data.items.length; i++) {
+						html += row(data.items[i]);
+					}
+					pager.page = data.page;
+					document.getElementById(body).insertAdjacentHTML(
+							"beforeend", html);
+					document.getElementById(more).style.display = (data.page
+							* data.size < data.total) ? "" : "none";
+				});
+	};
+	pager.search = function(q) {
+		pager.q = q;
+		pager.page = 0;
+		document.getElementById(body).innerHTML = "";
+		pager.load();
+	};
+	pager.load();
+	return pager;
+}
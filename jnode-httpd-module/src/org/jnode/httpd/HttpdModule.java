@@ -34,6 +34,7 @@ import org.jnode.httpd.routes.get.secure.*;
 import org.jnode.httpd.routes.post.*;
 import org.jnode.httpd.routes.post.secure.*;
 import org.jnode.httpd.util.HTML;
+import org.jnode.httpd.util.Passwords;
 import org.jnode.httpd.i18n.LocaleManager;
 import org.jnode.httpd.i18n.TranslationService;
 
@@ -101,6 +102,8 @@ public class HttpdModule extends JnodeModule {
 	public void start() {
 		// Create base configuration for both servers
 		Consumer<JavalinConfig> configurer = config -> {
+			// pages and JSON lists over 1.5k go out gzipped
+			config.http.gzipOnlyCompression();
 			config.staticFiles.add(staticFiles -> {
 				staticFiles.hostedPath = "/";
 				staticFiles.directory = "/www";
@@ -167,6 +170,8 @@ public class HttpdModule extends JnodeModule {
 
 		/**** SECURE LINKS ****/
 		app.get("/secure/index.html", new HealthRoute());
+		app.get("/secure/metrics", new MetricsRoute());
+		app.get("/secure/sessions.html", new SessionsRoute());
 		app.get("/secure/links", new LinksRoute());
 		app.get("/secure/links.html", new LinksRoute());
 		app.get("/secure/linkoptions", new LinkoptionsRoute());
@@ -178,6 +183,9 @@ public class HttpdModule extends JnodeModule {
 		app.get("/secure/fileareas", new FileareasRoute());
 		app.get("/secure/fechoes.html", new FileareasRoute());
 		app.get("/secure/file-links.html", new FileLinksRoute());
+		app.get("/secure/api/links", new ApiLinksRoute());
+		app.get("/secure/api/echoareas", new ApiEchoareasRoute());
+		app.get("/secure/api/subscriptions", new ApiSubscriptionsRoute());
 		app.get("/secure/routings", new RoutingsRoute());
 		app.get("/secure/route.html", new RoutingsRoute());
 		app.get("/secure/rewrites", new RewritesRoute());
@@ -224,7 +232,7 @@ public class HttpdModule extends JnodeModule {
 				admin = new WebAdmin();
 				admin.setUsername("admin");
 				String password = FtnTools.generate8d();
-				admin.setPassword(FtnTools.md5(password));
+				admin.setPassword(Passwords.hash(password));
 				ORMManager.get(WebAdmin.class).save(admin);
 				String text = "You can login to jNode site with those credentials:\n  > login: admin\n > password "
 						+ password + "\n";
@@ -29,9 +29,11 @@ public class CharsetFilter implements Handler {
 
 	@Override
 	public void handle(Context ctx) throws Exception {
-		// Set UTF-8 for all text responses
+		// Set UTF-8 for all text responses; routes which set charset
+		// themselves (csv, metrics) keep their type
 		String contentType = ctx.res().getContentType();
-		if (contentType == null || contentType.startsWith("text/")) {
+		if (contentType == null || (contentType.startsWith("text/")
+				&& !contentType.contains("charset"))) {
 			ctx.contentType("text/html; charset=utf-8");
 		}
 		
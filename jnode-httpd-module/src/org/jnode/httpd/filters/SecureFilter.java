@@ -20,19 +20,33 @@
 
 package org.jnode.httpd.filters;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 
-import jnode.ftn.FtnTools;
+import jnode.logger.Logger;
 import jnode.orm.ORMManager;
 
 import org.jnode.httpd.dto.WebAdmin;
 import org.jnode.httpd.util.Base64Util;
+import org.jnode.httpd.util.LoginThrottle;
+import org.jnode.httpd.util.Passwords;
+import org.jnode.httpd.util.Sessions;
 
 import io.javalin.http.Context;
+import io.javalin.http.Cookie;
 import io.javalin.http.Handler;
+import io.javalin.http.SameSite;
 
+/**
+ * Basic auth for the secure area. The password is checked against the
+ * database once, then the session cookie or the same Authorization header
+ * let requests in without a database lookup, see {@link Sessions}. Clients
+ * sending wrong passwords are slowed down by {@link LoginThrottle}
+ * 
+ * @author kreon
+ * 
+ */
 public class SecureFilter implements Handler {
-	private HashMap<String, Boolean> cache = new HashMap<>();
+	private static final Logger logger = Logger.getLogger(SecureFilter.class);
 
 	public SecureFilter() {
 	}
@@ -45,35 +59,81 @@ public class SecureFilter implements Handler {
 
 	@Override
 	public void handle(Context ctx) throws Exception {
-		boolean authenticated = false;
-		String authBase64 = ctx.header("Authorization");
-		if (authBase64 != null) {
-			Boolean test = cache.get(authBase64);
-			if (test != null && test) {
-				authenticated = true;
-			} else {
-				try {
-					String authText = new String(Base64Util.decode(authBase64
-							.split(" ")[1]));
-					String[] creds = authText.split(":");
-					WebAdmin admin = ORMManager.get(WebAdmin.class)
-							.getFirstAnd("username", "=", creds[0]);
-					if (admin != null) {
-						String password = FtnTools.md5(creds[1]);
-						if (password.equals(admin.getPassword())) {
-							authenticated = true;
-							cache.put(authBase64, authenticated);
-						}
-					}
-				} catch (RuntimeException e) {
+		if (Sessions.byCookie(ctx.cookie(Sessions.COOKIE)) != null) {
+			return;
+		}
+		String authorization = ctx.header("Authorization");
+		if (Sessions.byAuthorization(authorization) == null) {
+			String client = ctx.ip();
+			long delay = LoginThrottle.delay(client);
+			if (delay > 0) {
+				ctx.header("Retry-After",
+						String.valueOf((delay + 999) / 1000));
+				ctx.status(429);
+				ctx.skipRemainingHandlers();
+				return;
+			}
+			String username = login(authorization);
+			if (username == null) {
+				if (authorization != null) {
+					LoginThrottle.failed(client);
 				}
+				ctx.header("WWW-Authenticate",
+						"Basic realm=\"Secure area for operators only\"");
+				ctx.status(401);
+				ctx.skipRemainingHandlers();
+				return;
 			}
+			LoginThrottle.succeeded(client);
+			Cookie cookie = new Cookie(Sessions.COOKIE, Sessions.open(
+					username, authorization));
+			cookie.setPath("/secure");
+			cookie.setHttpOnly(true);
+			cookie.setSameSite(SameSite.STRICT);
+			cookie.setSecure("https".equals(ctx.scheme()));
+			ctx.cookie(cookie);
+		}
+	}
+
+	/**
+	 * @return username if the Basic credentials are valid
+	 */
+	private String login(String authorization) {
+		if (authorization == null || !authorization.startsWith("Basic ")) {
+			return null;
 		}
-		if (!authenticated) {
-			ctx.header("WWW-Authenticate",
-					"Basic realm=\"Secure area for operators only\"");
-			ctx.status(401);
+		try {
+			String authText = new String(Base64Util.decode(authorization
+					.substring(6).trim()), StandardCharsets.UTF_8);
+			int colon = authText.indexOf(':');
+			if (colon < 0) {
+				return null;
+			}
+			String username = authText.substring(0, colon);
+			String password = authText.substring(colon + 1);
+			WebAdmin admin = find(username);
+			// unknown users are checked against a dummy hash
+			if (!Passwords.verify(password, (admin != null) ? admin
+					.getPassword() : null)) {
+				return null;
+			}
+			if (Passwords.isLegacy(admin.getPassword())) {
+				admin.setPassword(Passwords.hash(password));
+				update(admin);
+				logger.l3("Password hash of " + username + " upgraded");
+			}
+			return username;
+		} catch (RuntimeException e) {
+			return null;
 		}
 	}
 
+	WebAdmin find(String username) {
+		return ORMManager.get(WebAdmin.class).getFirstAnd("username", "=",
+				username);
+	}
+
+	void update(WebAdmin admin) {
+		ORMManager.get(WebAdmin.class).update(admin);
+	}
 }
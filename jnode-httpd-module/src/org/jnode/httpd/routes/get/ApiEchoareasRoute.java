@@ -0,0 +1,65 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jnode.httpd.routes.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jnode.dto.Echoarea;
+import jnode.orm.ORMManager;
+import jnode.store.EchoareaSummaries;
+
+import org.jnode.httpd.util.JsonPage;
+
+import com.j256.ormlite.field.DataType;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * GET /secure/api/echoareas?page=&size=&sort=&q= - page of echoareas with
+ * message counts, searched by name and description
+ */
+public class ApiEchoareasRoute implements Handler {
+	private static final Map<String, String> SORTS = Map.of("id", "id",
+			"name", "name");
+	private static final DataType[] TYPES = { DataType.LONG, DataType.STRING,
+			DataType.STRING, DataType.LONG, DataType.LONG, DataType.STRING };
+
+	@Override
+	public void handle(Context ctx) throws Exception {
+		JsonPage page = new JsonPage(ctx, SORTS, "name");
+		List<String> args = new ArrayList<>();
+		for (Object[] row : page.query(ORMManager.get(Echoarea.class),
+				"id, name, description, rlevel, wlevel, grp", "echoarea",
+				TYPES, args, page.search(args, "name", "description"))) {
+			Echoarea area = new Echoarea();
+			area.setId((Long) row[0]);
+			area.setName((String) row[1]);
+			page.item().put("id", area.getId()).put("name", area.getName())
+					.put("descr", (String) row[2]).put("rl", (Long) row[3])
+					.put("wl", (Long) row[4]).put("gr", (String) row[5])
+					.put("num", EchoareaSummaries.get(area).getNum());
+		}
+		page.send(ctx);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jnode.httpd.routes.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jnode.dto.Link;
+import jnode.orm.ORMManager;
+
+import org.jnode.httpd.util.JsonPage;
+
+import com.j256.ormlite.field.DataType;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * GET /secure/api/links?page=&size=&sort=&q= - page of links, searched by
+ * name and address
+ */
+public class ApiLinksRoute implements Handler {
+	private static final Map<String, String> SORTS = Map.of("id", "id",
+			"name", "station_name", "addr", "ftn_address");
+	private static final DataType[] TYPES = { DataType.LONG, DataType.STRING,
+			DataType.STRING, DataType.STRING, DataType.STRING, DataType.STRING };
+
+	@Override
+	public void handle(Context ctx) throws Exception {
+		JsonPage page = new JsonPage(ctx, SORTS, "addr");
+		List<String> args = new ArrayList<>();
+		for (Object[] row : page.query(ORMManager.get(Link.class),
+				"id, station_name, ftn_address, address, password, pkt_password",
+				"links", TYPES, args,
+				page.search(args, "station_name", "ftn_address"))) {
+			page.item().put("id", (Long) row[0]).put("name", (String) row[1])
+					.put("addr", (String) row[2])
+					.put("address", (String) row[3])
+					.put("password", (String) row[4])
+					.put("pktpassword", (String) row[5]);
+		}
+		page.send(ctx);
+	}
+}
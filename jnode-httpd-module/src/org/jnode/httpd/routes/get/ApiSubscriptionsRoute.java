@@ -0,0 +1,110 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jnode.httpd.routes.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import jnode.dto.Subscription;
+import jnode.orm.ORMManager;
+
+import org.jnode.httpd.util.JsonPage;
+
+import com.j256.ormlite.field.DataType;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * GET /secure/api/subscriptions?link=ID - page of echoareas with the
+ * subscription flag of the link,<br>
+ * GET /secure/api/subscriptions?echo=ID - page of links with the
+ * subscription flag of the echoarea;<br>
+ * subscribed=true|false keeps one side only, page, size, sort and q work as
+ * in the other lists
+ */
+public class ApiSubscriptionsRoute implements Handler {
+	private static final Map<String, String> AREA_SORTS = Map.of("id",
+			"e.id", "name", "e.name");
+	private static final Map<String, String> LINK_SORTS = Map.of("id",
+			"l.id", "name", "l.station_name", "addr", "l.ftn_address");
+	private static final DataType[] TYPES = { DataType.LONG, DataType.STRING,
+			DataType.STRING, DataType.LONG_OBJ };
+
+	@Override
+	public void handle(Context ctx) throws Exception {
+		Long link = id(ctx.queryParam("link"));
+		Long echo = id(ctx.queryParam("echo"));
+		if ((link == null) == (echo == null)) {
+			ctx.status(400).result("Either link or echo is required");
+			return;
+		}
+		String subscribed = ctx.queryParam("subscribed");
+		String only = "";
+		if ("true".equals(subscribed)) {
+			only = "s.echoarea_id IS NOT NULL";
+		} else if ("false".equals(subscribed)) {
+			only = "s.echoarea_id IS NULL";
+		}
+		JsonPage page;
+		List<String> args = new ArrayList<>();
+		List<Object[]> rows;
+		if (link != null) {
+			page = new JsonPage(ctx, AREA_SORTS, "name");
+			rows = page.query(ORMManager.get(Subscription.class),
+					"e.id, e.name, e.description, s.echoarea_id",
+					"echoarea e LEFT JOIN subscription s ON (e.id = s.echoarea_id AND s.link_id = "
+							+ link + ")", TYPES, args, only,
+					page.search(args, "e.name", "e.description"));
+			for (Object[] row : rows) {
+				page.item().put("id", (Long) row[0])
+						.put("name", (String) row[1])
+						.put("descr", (String) row[2])
+						.put("subscribed", row[3] != null);
+			}
+		} else {
+			page = new JsonPage(ctx, LINK_SORTS, "addr");
+			rows = page.query(ORMManager.get(Subscription.class),
+					"l.id, l.station_name, l.ftn_address, s.echoarea_id",
+					"links l LEFT JOIN subscription s ON (l.id = s.link_id AND s.echoarea_id = "
+							+ echo + ")", TYPES, args, only,
+					page.search(args, "l.station_name", "l.ftn_address"));
+			for (Object[] row : rows) {
+				page.item().put("id", (Long) row[0])
+						.put("name", (String) row[1])
+						.put("addr", (String) row[2])
+						.put("subscribed", row[3] != null);
+			}
+		}
+		page.send(ctx);
+	}
+
+	private static Long id(String value) {
+		if (value != null) {
+			try {
+				return Long.valueOf(value);
+			} catch (NumberFormatException e) {
+			}
+		}
+		return null;
+	}
+}
@@ -27,16 +27,10 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class BecomeLinkRoute implements Handler {
-	private static String request = null;
 	private boolean enabled;
 
 	public BecomeLinkRoute(boolean enabled) {
 		this.enabled = enabled;
-		if (enabled) {
-			if (request == null) {
-				request = HTML.getContents("/parts/requestlink_i18n.html");
-			}
-		}
 	}
 
 	@Override
@@ -49,7 +43,7 @@ public class BecomeLinkRoute implements Handler {
 			ctx.html(html.get());
 			return;
 		}
-		html.append(request);
+		html.append(HTML.getTemplate("/parts/requestlink_i18n.html"));
 		html.footer();
 		ctx.html(html.get());
 	}
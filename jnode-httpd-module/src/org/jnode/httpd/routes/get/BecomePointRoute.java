@@ -30,16 +30,10 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class BecomePointRoute implements Handler {
-	private static String requestPoint = null;
 	private boolean enabled;
 
 	public BecomePointRoute(boolean enabled) {
 		this.enabled = enabled;
-		if (enabled) {
-			if (requestPoint == null) {
-				requestPoint = HTML.getContents("/parts/requestpoint_i18n.html");
-			}
-		}
 	}
 
 	@Override
@@ -57,7 +51,7 @@ public class BecomePointRoute implements Handler {
 				.getAddressList()) {
 			sb.append("<option>" + a.toString() + "</option>");
 		}
-		html.append(String.format(requestPoint, sb.toString()));
+		html.append(HTML.getTemplate("/parts/requestpoint_i18n.html"), sb.toString());
 		html.footer();
 		ctx.html(html.get());
 	}
@@ -31,29 +31,15 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class EchoareasRoute implements Handler {
-	private static String echoareas = null;
-
-	public EchoareasRoute() {
-		if (echoareas == null) {
-			echoareas = HTML.getContents("/parts/echoes_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
 		String id = ctx.queryParam("id");
 		StringBuilder sb = new StringBuilder();
 		if (id == null) {
+			// rows come from /secure/api/echoareas
 			HTMLi18n html = HTMLi18n.create(ctx, true);
-			for (Echoarea e : ORMManager.get(Echoarea.class).getOrderAnd(
-					"name", true)) {
-				sb.append(String
-						.format("<tr><td>%s</td><td>%s</td><td>r:%d|w:%d|g:%s</td><td><a href=\"#new\" class=\"css-link-1\" onclick=\"edit(%d);\">%s</a>&nbsp;<a href=\"/secure/echo-links.html?echo=%d\" class=\"css-link-1\">%s</a>&nbsp;<a href=\"#\" class=\"css-link-1\" onclick=\"del(%d);\">%s</a></td></tr>",
-								e.getName(), e.getDescription(),
-								e.getReadlevel(), e.getWritelevel(),
-								e.getGroup(), e.getId(), html.t("action.edit"), e.getId(), html.t("label.view_links"), e.getId(), html.t("action.delete")));
-			}
-			html.append(String.format(echoareas, sb.toString()));
+			html.append(HTML.getTemplate("/parts/echoes_i18n.html"));
 			html.footer();
 			ctx.html(html.get());
 			return;
@@ -35,13 +35,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class FileLinksRoute implements Handler {
-	private static String fileLinks = null;
-
-	public FileLinksRoute() {
-		if (fileLinks == null) {
-			fileLinks = HTML.getContents("/parts/file-links_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -101,12 +94,12 @@ public class FileLinksRoute implements Handler {
 			String title = html.t("file_links.title", filearea.getName());
 			
 			ctx.html(html
-					.append(String.format(fileLinks, 
+					.append(HTML.getTemplate("/parts/file-links_i18n.html"),
 						title,
 						filearea.getDescription(),
 						filearea.getId(),
 						subscribedLinks.toString(),
-						unsubscribedLinks.toString()))
+						unsubscribedLinks.toString())
 					.footer().get());
 			
 		} catch (NumberFormatException e) {
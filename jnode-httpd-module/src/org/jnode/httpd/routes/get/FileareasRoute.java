@@ -31,13 +31,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class FileareasRoute implements Handler {
-	private static String echoareas = null;
-
-	public FileareasRoute() {
-		if (echoareas == null) {
-			echoareas = HTML.getContents("/parts/fechoes_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -54,7 +47,7 @@ public class FileareasRoute implements Handler {
 								e.getGroup(), e.getId(), html.t("action.edit"), e.getId(), html.t("label.view_links"), e.getId(), html.t("action.delete")));
 			}
 			ctx.html(html
-					.append(String.format(echoareas, sb.toString())).footer()
+					.append(HTML.getTemplate("/parts/fechoes_i18n.html"), sb.toString()).footer()
 					.get());
 			return;
 		} else {
@@ -52,6 +52,9 @@ public class HealthRoute implements Handler {
 								html.t("health.available") + ": " + max + "MB / " + 
 								html.t("health.used") + ": " + (total - free) + " MB"));
 		html.append(text);
+		html.append("<p><a href=\"/secure/sessions.html\" class=\"css-link-1\">"
+				+ html.t("health.sessions") + "</a>: "
+				+ html.t("health.sessions_info") + "</p>");
 		
 		// Settings Export/Import section with consistent styling
 		html.append("<br/><h3>Settings Import/Export</h3>");
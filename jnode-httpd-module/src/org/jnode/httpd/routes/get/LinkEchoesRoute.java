@@ -20,28 +20,16 @@
 
 package org.jnode.httpd.routes.get;
 
-import java.sql.SQLException;
-
 import jnode.dto.Link;
-import jnode.dto.Echoarea;
 import jnode.orm.ORMManager;
 
 import org.jnode.httpd.util.HTML;
 import org.jnode.httpd.util.HTMLi18n;
 
-import com.j256.ormlite.dao.GenericRawResults;
-
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class LinkEchoesRoute implements Handler {
-	private static String linkEchoes = null;
-
-	public LinkEchoesRoute() {
-		if (linkEchoes == null) {
-			linkEchoes = HTML.getContents("/parts/link-echoes_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -61,57 +49,22 @@ public class LinkEchoesRoute implements Handler {
 				return;
 			}
 			
-			StringBuilder subscribedEchoes = new StringBuilder();
-			StringBuilder unsubscribedEchoes = new StringBuilder();
-			
-			// Get all echoes with subscription status
-			GenericRawResults<String[]> echoes = ORMManager
-					.get(Echoarea.class)
-					.getRaw(String.format(
-						"SELECT e.id, e.name, e.description, " +
-						"CASE WHEN s.link_id IS NOT NULL THEN 1 ELSE 0 END as subscribed " +
-						"FROM echoarea e " +
-						"LEFT JOIN subscription s ON (e.id = s.echoarea_id AND s.link_id = %d) " +
-						"ORDER BY e.name",
-						link.getId()));
-			
-			for (String[] echo : echoes.getResults()) {
-				String echoId = echo[0];
-				String echoName = echo[1] != null ? echo[1] : "";
-				String echoDescription = echo[2] != null ? echo[2] : "";
-				boolean isSubscribed = "1".equals(echo[3]);
-				
-				String row = String.format(
-					"<tr><td><input type=\"checkbox\" name=\"echo_%s\" value=\"%s\" %s /></td>" +
-					"<td>%s</td><td>%s</td></tr>", 
-					echoId, echoId, isSubscribed ? "checked" : "",
-					echoName, echoDescription);
-				
-				if (isSubscribed) {
-					subscribedEchoes.append(row);
-				} else {
-					unsubscribedEchoes.append(row);
-				}
-			}
-			echoes.close();
-			
+			// rows come from /secure/api/subscriptions
 			HTMLi18n html = HTMLi18n.create(ctx, true);
 			
 			// Format the title with link name and address
 			String title = html.t("link_echoes.title", link.getLinkName(), link.getLinkAddress());
 			
 			ctx.html(html
-					.append(String.format(linkEchoes, 
+					.append(HTML.getTemplate("/parts/link-echoes_i18n.html"),
 						title,
 						link.getId(),
-						subscribedEchoes.toString(),
-						unsubscribedEchoes.toString()))
+						link.getId(),
+						link.getId())
 					.footer().get());
 			
 		} catch (NumberFormatException e) {
 			ctx.status(400).result("Invalid link ID");
-		} catch (SQLException e) {
-			ctx.status(500).result("Database error: " + e.getMessage());
 		}
 	}
 }
\ No newline at end of file
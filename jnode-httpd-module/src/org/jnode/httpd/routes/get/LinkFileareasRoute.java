@@ -35,13 +35,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class LinkFileareasRoute implements Handler {
-	private static String linkFileareas = null;
-
-	public LinkFileareasRoute() {
-		if (linkFileareas == null) {
-			linkFileareas = HTML.getContents("/parts/link-fileareas_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -101,11 +94,11 @@ public class LinkFileareasRoute implements Handler {
 			String title = html.t("link_fileareas.title", link.getLinkName(), link.getLinkAddress());
 			
 			ctx.html(html
-					.append(String.format(linkFileareas, 
+					.append(HTML.getTemplate("/parts/link-fileareas_i18n.html"),
 						title,
 						link.getId(),
 						subscribedFileareas.toString(),
-						unsubscribedFileareas.toString()))
+						unsubscribedFileareas.toString())
 					.footer().get());
 			
 		} catch (NumberFormatException e) {
@@ -36,13 +36,6 @@ import io.javalin.http.Handler;
  * @author jnode
  */
 public class NetmailAcceptRulesRoute implements Handler {
-	private static String template = null;
-
-	public NetmailAcceptRulesRoute() {
-		if (template == null) {
-			template = HTML.getContents("/parts/netmail-accept_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -88,7 +81,7 @@ public class NetmailAcceptRulesRoute implements Handler {
 		}
 		
 		ctx.html(html
-			.append(String.format(template, rulesTable.toString()))
+			.append(HTML.getTemplate("/parts/netmail-accept_i18n.html"), rulesTable.toString())
 			.footer().get());
 	}
 	
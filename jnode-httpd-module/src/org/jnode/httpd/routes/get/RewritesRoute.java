@@ -32,13 +32,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class RewritesRoute implements Handler {
-	private static String rewrites = null;
-
-	public RewritesRoute() {
-		if (rewrites == null) {
-			rewrites = HTML.getContents("/parts/rewrite_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -102,7 +95,7 @@ public class RewritesRoute implements Handler {
 							r.getId(), html.t("action.delete")));
 		}
 		ctx.html(html
-				.append(String.format(RewritesRoute.rewrites, sb.toString()))
+				.append(HTML.getTemplate("/parts/rewrite_i18n.html"), sb.toString())
 				.footer().get());
 	}
 	
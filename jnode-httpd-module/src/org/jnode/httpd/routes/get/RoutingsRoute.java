@@ -33,13 +33,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class RoutingsRoute implements Handler {
-	private static String routings = null;
-
-	public RoutingsRoute() {
-		if (routings == null) {
-			routings = HTML.getContents("/parts/route_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -98,7 +91,7 @@ public class RoutingsRoute implements Handler {
 			}
 		}
 		ctx.html(html
-				.append(String.format(routings, sb.toString(), sb2.toString()))
+				.append(HTML.getTemplate("/parts/route_i18n.html"), sb.toString(), sb2.toString())
 				.footer().get());
 	}
 	
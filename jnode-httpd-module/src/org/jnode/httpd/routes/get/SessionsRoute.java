@@ -0,0 +1,147 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jnode.httpd.routes.get;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+
+import jnode.main.MainHandler;
+import jnode.protocol.binkp.BinkpSessionHistory;
+import jnode.protocol.binkp.BinkpSessionStat;
+
+import org.jnode.httpd.util.HTMLi18n;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * Per link throughput and recent binkp sessions from
+ * {@link BinkpSessionHistory}
+ */
+public class SessionsRoute implements Handler {
+	private static final String FORMAT_TH = "<th>%s</th>";
+	private static final String FORMAT_TD = "<td>%s</td>";
+
+	@Override
+	public void handle(Context ctx) throws Exception {
+		BinkpSessionHistory history = BinkpSessionHistory.getSelf();
+		SimpleDateFormat format = new SimpleDateFormat("dd.MM.yy HH:mm:ss");
+		HTMLi18n html = HTMLi18n.create(ctx, true);
+		MainHandler handler = MainHandler.getCurrentInstance();
+
+		html.append("<h3>Binkp Sessions</h3>");
+		html.append(String.format(
+				"<p>%d sessions since start; binkp.size = %s, binkp.timeout = %s s. "
+						+ "Rates are bytes per second after authentication, "
+						+ "per link as moving averages of sessions moving 16 KB or more.</p>",
+				history.getTotal(), handler.getProperty("binkp.size", "32767"),
+				handler.getProperty("binkp.timeout", "30")));
+
+		html.append("<table class=\"info\"><tr>");
+		for (String title : new String[] { "Link", "Sessions", "Failed",
+				"Last", "Send rate", "Receive rate", "Handshake", "Sent",
+				"Received", "Zero writes", "Select timeouts" }) {
+			html.append(String.format(FORMAT_TH, title));
+		}
+		html.append("</tr>");
+		for (Map.Entry<String, BinkpSessionHistory.LinkThroughput> entry : history
+				.getLinks().entrySet()) {
+			BinkpSessionHistory.LinkThroughput link = entry.getValue();
+			html.append("<tr>");
+			row(html, escape(entry.getKey()), link.getSessions(),
+					link.getFailed(), format.format(new Date(link
+							.getLastSession())), rate(link.getSendRate()),
+					rate(link.getReceiveRate()), link.getHandshakeMillis()
+							+ " ms", size(link.getBytesSent()),
+					size(link.getBytesReceived()), link.getZeroWrites(),
+					link.getSelectTimeouts());
+			html.append("</tr>");
+		}
+		html.append("</table>");
+
+		html.append("<br/><table class=\"info\"><tr>");
+		for (String title : new String[] { "Started", "Link", "Result",
+				"Duration", "Handshake", "First byte", "Sent", "Received",
+				"Send rate", "Receive rate", "Frames S/R", "Zero writes",
+				"Select timeouts", "Files" }) {
+			html.append(String.format(FORMAT_TH, title));
+		}
+		html.append("</tr>");
+		for (BinkpSessionStat stat : history.getRecent()) {
+			StringBuilder files = new StringBuilder();
+			for (BinkpSessionStat.FileTransfer file : stat.getFiles()) {
+				files.append(String.format("%s %s %s %s%s<br/>",
+						file.isIncoming() ? "&lt;" : "&gt;",
+						escape(file.getName()), size(file.getSize()),
+						rate(file.getRate()), file.isSuccess() ? ""
+								: " skipped"));
+			}
+			html.append("<tr>");
+			row(html, format.format(new Date(stat.getStarted())),
+					(stat.isIncoming() ? "from " : "to ")
+							+ (stat.getAddress() != null ? escape(stat
+									.getAddress()) : "unknown"),
+					stat.isSuccess() ? "OK" : "ERROR"
+							+ (stat.getReason() != null ? ": "
+									+ escape(stat.getReason()) : ""),
+					stat.getDurationMillis() + " ms",
+					millis(stat.getHandshakeMillis()),
+					millis(stat.getFirstByteMillis()),
+					size(stat.getBytesSent()), size(stat.getBytesReceived()),
+					rate(stat.getSendRate()), rate(stat.getReceiveRate()),
+					stat.getFramesSent() + "/" + stat.getFramesReceived(),
+					stat.getZeroWrites(), stat.getSelectTimeouts(), files);
+			html.append("</tr>");
+		}
+		html.append("</table>");
+		html.footer();
+		ctx.html(html.get());
+	}
+
+	private static void row(HTMLi18n html, Object... cells) {
+		for (Object cell : cells) {
+			html.append(String.format(FORMAT_TD, cell));
+		}
+	}
+
+	private static String millis(long millis) {
+		return (millis < 0) ? "-" : millis + " ms";
+	}
+
+	private static String rate(long rate) {
+		return (rate <= 0) ? "-" : size(rate) + "/s";
+	}
+
+	private static String size(long bytes) {
+		if (bytes >= 1048576) {
+			return String.format("%.1f MB", bytes / 1048576.0);
+		} else if (bytes >= 1024) {
+			return String.format("%.1f KB", bytes / 1024.0);
+		}
+		return bytes + " B";
+	}
+
+	private static String escape(String str) {
+		return str.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
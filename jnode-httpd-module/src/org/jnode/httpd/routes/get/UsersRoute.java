@@ -32,13 +32,6 @@ import io.javalin.http.Context;
 import io.javalin.http.Handler;
 
 public class UsersRoute implements Handler {
-	private static String request = null;
-
-	public UsersRoute() {
-		if (request == null) {
-			request = HTML.getContents("/parts/users_i18n.html");
-		}
-	}
 
 	@Override
 	public void handle(Context ctx) throws Exception {
@@ -52,7 +45,7 @@ public class UsersRoute implements Handler {
 							+ "<a href=\"#\" onclick=\"deleteUser(%d);\" class=\"css-link-1\">%s</a>&nbsp;",
 							admin.getUsername(), admin.getId(), html.t("label.password"), admin.getId(), html.t("action.delete")));
 		}
-		html.append(String.format(request, sb.toString()));
+		html.append(HTML.getTemplate("/parts/users_i18n.html"), sb.toString());
 		html.footer();
 		ctx.html(html.get());
 	}
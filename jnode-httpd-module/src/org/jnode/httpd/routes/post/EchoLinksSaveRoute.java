@@ -28,6 +28,7 @@ import java.util.Set;
 import jnode.dto.Link;
 import jnode.dto.Echoarea;
 import jnode.dto.Subscription;
+import jnode.ftn.FtnTools;
 import jnode.orm.ORMManager;
 
 import io.javalin.http.Context;
@@ -55,6 +56,18 @@ public class EchoLinksSaveRoute implements Handler {
 			
 			// Get all form parameters to find checked links
 			Map<String, List<String>> formParams = ctx.formParamMap();
+			// ids of the rows the page loaded, the others are left as they are
+			Set<Long> shownIds = null;
+			if (formParams.containsKey("shown")) {
+				shownIds = new HashSet<>();
+				for (String shown : formParams.get("shown")) {
+					try {
+						shownIds.add(Long.valueOf(shown));
+					} catch (NumberFormatException e) {
+						// the empty marker
+					}
+				}
+			}
 			Set<Long> checkedLinkIds = new HashSet<>();
 			
 			// Find all checked link checkboxes
@@ -77,10 +90,10 @@ public class EchoLinksSaveRoute implements Handler {
 			
 			// Process unsubscriptions (remove unchecked links)
 			for (Subscription sub : currentSubs) {
-				if (!checkedLinkIds.contains(sub.getLink().getId())) {
-					// Use delete with conditions for composite key
-					ORMManager.get(Subscription.class).delete("link_id", "=",
-							sub.getLink(), "echoarea_id", "=", echo);
+				if ((shownIds == null || shownIds.contains(sub.getLink().getId()))
+						&& !checkedLinkIds.contains(sub.getLink().getId())) {
+					// the link's cursor in the area goes too
+					FtnTools.unsubscribe(sub.getLink(), echo);
 				}
 			}
 			
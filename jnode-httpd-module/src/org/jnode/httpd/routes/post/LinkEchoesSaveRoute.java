@@ -28,6 +28,7 @@ import java.util.Set;
 import jnode.dto.Link;
 import jnode.dto.Echoarea;
 import jnode.dto.Subscription;
+import jnode.ftn.FtnTools;
 import jnode.orm.ORMManager;
 
 import com.j256.ormlite.dao.GenericRawResults;
@@ -57,6 +58,18 @@ public class LinkEchoesSaveRoute implements Handler {
 			
 			// Get all form parameters to find checked echoes
 			Map<String, List<String>> formParams = ctx.formParamMap();
+			// ids of the rows the page loaded, the others are left as they are
+			Set<Long> shownIds = null;
+			if (formParams.containsKey("shown")) {
+				shownIds = new HashSet<>();
+				for (String shown : formParams.get("shown")) {
+					try {
+						shownIds.add(Long.valueOf(shown));
+					} catch (NumberFormatException e) {
+						// the empty marker
+					}
+				}
+			}
 			Set<Long> checkedEchoIds = new HashSet<>();
 			
 			// Find all checked echo checkboxes
@@ -79,10 +92,10 @@ public class LinkEchoesSaveRoute implements Handler {
 			
 			// Process unsubscriptions (remove unchecked echoes)
 			for (Subscription sub : currentSubs) {
-				if (!checkedEchoIds.contains(sub.getArea().getId())) {
-					// Use delete with conditions for composite key
-					ORMManager.get(Subscription.class).delete("link_id", "=",
-							link, "echoarea_id", "=", sub.getArea());
+				if ((shownIds == null || shownIds.contains(sub.getArea().getId()))
+						&& !checkedEchoIds.contains(sub.getArea().getId())) {
+					// the link's cursor in the area goes too
+					FtnTools.unsubscribe(link, sub.getArea());
 				}
 			}
 			
@@ -20,10 +20,11 @@
 
 package org.jnode.httpd.routes.post;
 
-import jnode.ftn.FtnTools;
 import jnode.orm.ORMManager;
 
 import org.jnode.httpd.dto.WebAdmin;
+import org.jnode.httpd.util.Passwords;
+import org.jnode.httpd.util.Sessions;
 
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
@@ -39,8 +40,10 @@ public class UserRoute implements Handler {
 			try {
 				Long lid = Long.valueOf(id);
 				WebAdmin admin = ORMManager.get(WebAdmin.class).getById(lid);
-				if (admin != null)
+				if (admin != null) {
 					ORMManager.get(WebAdmin.class).delete(admin);
+					Sessions.close(admin.getUsername());
+				}
 			} catch (RuntimeException e) {
 				code = "ERROR";
 				e.printStackTrace();
@@ -52,8 +55,9 @@ public class UserRoute implements Handler {
 				Long lid = Long.valueOf(id);
 				WebAdmin admin = ORMManager.get(WebAdmin.class).getById(lid);
 				if (admin != null) {
-					admin.setPassword(FtnTools.md5(password));
+					admin.setPassword(Passwords.hash(password));
 					ORMManager.get(WebAdmin.class).update(admin);
+					Sessions.close(admin.getUsername());
 				}
 			} catch (RuntimeException e) {
 				code = "ERROR";
@@ -64,7 +68,7 @@ public class UserRoute implements Handler {
 			String password = ctx.formParam("password");
 			WebAdmin admin = new WebAdmin();
 			admin.setUsername(username);
-			admin.setPassword(FtnTools.md5(password));
+			admin.setPassword(Passwords.hash(password));
 			ORMManager.get(WebAdmin.class).save(admin);
 		} else {
 			code = "ERROR";
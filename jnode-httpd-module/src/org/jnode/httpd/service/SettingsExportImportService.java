@@ -1,8 +1,8 @@
 package org.jnode.httpd.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import jnode.dto.*;
 import jnode.orm.ORMManager;
@@ -11,6 +11,8 @@ import jnode.install.DefaultVersion;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -20,6 +22,7 @@ import java.util.*;
 public class SettingsExportImportService {
     private static final Logger logger = Logger.getLogger(SettingsExportImportService.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int FETCH_SIZE = 500;
     
     // Tables to include in export (configuration/settings only)
     private static final Class<?>[] EXPORT_ENTITIES = {
@@ -51,56 +54,70 @@ public class SettingsExportImportService {
      * @return JSON string containing all settings
      */
     public String exportSettings() throws SQLException, IOException {
+        StringWriter writer = new StringWriter();
+        exportSettings(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Export all settings to JSON format. Rows are written to the generator
+     * page by page as they are read, no tree of a whole table is built
+     * @param writer destination of the JSON document
+     */
+    public void exportSettings(Writer writer) throws SQLException, IOException {
         logger.l4("Starting settings export");
         
-        ObjectNode root = objectMapper.createObjectNode();
-        root.put("jnode_version", DefaultVersion.getSelf().toString());
-        root.put("export_timestamp", System.currentTimeMillis());
-        root.put("export_date", new Date().toString());
-        
-        ObjectNode tables = objectMapper.createObjectNode();
-        
-        for (Class<?> entityClass : EXPORT_ENTITIES) {
-            try {
-                String tableName = getTableName(entityClass);
-                List<?> entities = ORMManager.get(entityClass).getAll();
-                
-                ArrayNode tableData = objectMapper.createArrayNode();
-                for (Object entity : entities) {
-                    ObjectNode entityNode;
-                    if (entity instanceof LinkOption) {
-                        // Handle LinkOption specially to avoid circular reference
-                        entityNode = serializeLinkOption((LinkOption) entity);
-                    } else if (entity instanceof Subscription) {
-                        // Handle Subscription specially to avoid circular reference
-                        entityNode = serializeSubscription((Subscription) entity);
-                    } else if (entity instanceof FileSubscription) {
-                        // Handle FileSubscription specially to avoid circular reference
-                        entityNode = serializeFileSubscription((FileSubscription) entity);
-                    } else if (entity instanceof Route) {
-                        // Handle Route specially to avoid circular reference
-                        entityNode = serializeRoute((Route) entity);
-                    } else {
-                        entityNode = objectMapper.valueToTree(entity);
-                    }
-                    tableData.add(entityNode);
+        try (JsonGenerator json = objectMapper.writerWithDefaultPrettyPrinter()
+                .createGenerator(writer)) {
+            // the writer belongs to the caller
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeStringField("jnode_version", DefaultVersion.getSelf().toString());
+            json.writeNumberField("export_timestamp", System.currentTimeMillis());
+            json.writeStringField("export_date", new Date().toString());
+            
+            json.writeObjectFieldStart("tables");
+            for (Class<?> entityClass : EXPORT_ENTITIES) {
+                try {
+                    String tableName = getTableName(entityClass);
+                    int[] count = new int[1];
+                    json.writeArrayFieldStart(tableName);
+                    ORMManager.get(entityClass).forEachAnd(FETCH_SIZE, entity -> {
+                        ObjectNode entityNode;
+                        if (entity instanceof LinkOption) {
+                            // Handle LinkOption specially to avoid circular reference
+                            entityNode = serializeLinkOption((LinkOption) entity);
+                        } else if (entity instanceof Subscription) {
+                            // Handle Subscription specially to avoid circular reference
+                            entityNode = serializeSubscription((Subscription) entity);
+                        } else if (entity instanceof FileSubscription) {
+                            // Handle FileSubscription specially to avoid circular reference
+                            entityNode = serializeFileSubscription((FileSubscription) entity);
+                        } else if (entity instanceof Route) {
+                            // Handle Route specially to avoid circular reference
+                            entityNode = serializeRoute((Route) entity);
+                        } else {
+                            entityNode = objectMapper.valueToTree(entity);
+                        }
+                        try {
+                            json.writeTree(entityNode);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count[0]++;
+                    });
+                    json.writeEndArray();
+                    logger.l4("Exported " + count[0] + " records from " + tableName);
+                } catch (Exception e) {
+                    logger.l2("Error exporting " + entityClass.getSimpleName() + ": " + e.getMessage());
+                    throw new SQLException("Failed to export " + entityClass.getSimpleName(), e);
                 }
-                
-                tables.set(tableName, tableData);
-                logger.l4("Exported " + entities.size() + " records from " + tableName);
-            } catch (Exception e) {
-                logger.l2("Error exporting " + entityClass.getSimpleName() + ": " + e.getMessage());
-                throw new SQLException("Failed to export " + entityClass.getSimpleName(), e);
             }
+            json.writeEndObject();
+            json.writeEndObject();
         }
         
-        root.set("tables", tables);
-        
-        StringWriter writer = new StringWriter();
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(writer, root);
-        
         logger.l4("Settings export completed successfully");
-        return writer.toString();
     }
     
     /**
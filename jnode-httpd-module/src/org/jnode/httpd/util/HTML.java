@@ -25,56 +25,63 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jnode.ftn.FtnTools;
 
 public class HTML {
-	private static final int MAX_SIZE = 65535;
-	private static String header = null;
-	private static String footer = null;
-	private static String menu = null;
-	private static String secureMenu = null;
+	// how often a cached template is checked against the external directory
+	private static final long CHECK_INTERVAL = 2000;
+	private static final ConcurrentMap<String, Cached> templates = new ConcurrentHashMap<>();
 	private static String externalPath;
 
 	protected StringBuilder data;
 
-	private HTML() {
-		if (header == null) {
-			header = String.format(getContents("/parts/header.html"), FtnTools
-					.getPrimaryFtnAddress().toString());
-		}
-		if (footer == null) {
-			footer = getContents("/parts/footer.html");
-		}
-		if (menu == null) {
-			menu = getContents("/parts/menu.html");
-		}
-		if (secureMenu == null) {
-			secureMenu = getContents("/parts/secure_menu.html");
+	private static final class Cached {
+		private final Template template;
+		private final long modified;
+		private volatile long checked;
+
+		private Cached(Template template, long modified, long checked) {
+			this.template = template;
+			this.modified = modified;
+			this.checked = checked;
 		}
+	}
+
+	private HTML() {
 		data = new StringBuilder();
 	}
 
 	public HTML header() {
-		data.append(header);
+		data.append(getTemplate("/parts/header.html").render(getJNodeAddress()));
 		return this;
 	}
 
 	public HTML menu() {
-		data.append(menu);
+		data.append(getContents("/parts/menu.html"));
 		return this;
 	}
 
 	public HTML footer() {
-		data.append(footer);
+		data.append(getContents("/parts/footer.html"));
 		return this;
 	}
 
 	public HTML secureMenu() {
-		data.append(secureMenu);
+		data.append(getContents("/parts/secure_menu.html"));
 		return this;
 	}
 
+	/**
+	 * @return page without header and menu
+	 */
+	public static HTML create() {
+		return new HTML();
+	}
+
 	public static HTML start(boolean secure) {
 		HTML html = new HTML();
 		html.header().menu();
@@ -93,8 +100,49 @@ public class HTML {
 		return this;
 	}
 
-	@SuppressWarnings("resource")
 	public static String getContents(String path) {
+		return getTemplate(path).getText();
+	}
+
+	/**
+	 * Template from the external directory or the classpath; read once and
+	 * kept in memory, files of the external directory are re-read when they
+	 * change.
+	 * 
+	 * @param path
+	 *            path under www
+	 * @return template, empty if there is no such file
+	 */
+	public static Template getTemplate(String path) {
+		Cached cached = templates.get(path);
+		if (cached != null && externalPath == null) {
+			return cached.template;
+		}
+		long now = System.currentTimeMillis();
+		if (cached != null) {
+			if (now - cached.checked < CHECK_INTERVAL) {
+				return cached.template;
+			}
+			if (modified(path) == cached.modified) {
+				cached.checked = now;
+				return cached.template;
+			}
+		}
+		long modified = modified(path);
+		cached = new Cached(new Template(read(path)), modified, now);
+		templates.put(path, cached);
+		return cached.template;
+	}
+
+	private static long modified(String path) {
+		if (externalPath == null) {
+			return 0;
+		}
+		return new File(externalPath + File.separator + path).lastModified();
+	}
+
+	@SuppressWarnings("resource")
+	private static String read(String path) {
 		// check for external
 		InputStream is = null;
 		if (externalPath != null) {
@@ -109,28 +157,23 @@ public class HTML {
 			is = Thread.currentThread().getContextClassLoader()
 					.getResourceAsStream(search);
 		}
-		byte[] buf = new byte[MAX_SIZE];
 		if (is != null) {
-			StringBuilder sb = new StringBuilder();
 			try {
-				int n = 0;
-				do {
-					n = is.read(buf);
-					if (n > 0) {
-						sb.append(new String(buf, 0, n, "UTF-8"));
-					}
-				} while (n > 0);
-				is.close();
+				return new String(is.readAllBytes(), StandardCharsets.UTF_8);
 			} catch (IOException e) {
+			} finally {
+				try {
+					is.close();
+				} catch (IOException e) {
+				}
 			}
-			return sb.toString();
-		} else {
 		}
 		return "";
 	}
 
 	public static void setExternalPath(String externalPath) {
 		HTML.externalPath = externalPath;
+		templates.clear();
 	}
 	
 	public static String getJNodeAddress() {
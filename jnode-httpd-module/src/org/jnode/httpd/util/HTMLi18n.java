@@ -21,7 +21,6 @@
 package org.jnode.httpd.util;
 
 import io.javalin.http.Context;
-import jnode.logger.Logger;
 import org.jnode.httpd.filters.LocaleFilter;
 import org.jnode.httpd.i18n.TranslationService;
 
@@ -35,7 +34,6 @@ import java.util.regex.Pattern;
  * Enhanced HTML builder with i18n support
  */
 public class HTMLi18n {
-    private static final Logger logger = Logger.getLogger(HTMLi18n.class);
     private static final Pattern TRANSLATION_PATTERN = Pattern.compile("\\{\\{\\s*(\\w+(?:\\.\\w+)*)\\s*\\}\\}");
     private final Context ctx;
     private final LocaleFilter.TranslationHelper translator;
@@ -44,55 +42,11 @@ public class HTMLi18n {
     private HTMLi18n(Context ctx, boolean secure) {
         this.ctx = ctx;
         this.translator = (LocaleFilter.TranslationHelper) ctx.attribute("t");
-        
-        // Instead of HTML.start(), create custom HTML structure with i18n menus
-        this.html = buildI18nHTML(secure);
-    }
-    
-    /**
-     * Build HTML structure with i18n menus instead of using HTML.start()
-     */
-    private HTML buildI18nHTML(boolean secure) {
-        // Get a basic HTML instance but override its content
-        HTML baseHtml = HTML.start(false); // Start without secure menu
-        
-        // Get the current content and replace the English menu with i18n menu
-        String content = baseHtml.get();
-        
-        // Replace English menu with i18n menu
-        String englishMenu = HTML.getContents("/parts/menu.html");
-        String i18nMenu = HTML.getContents("/parts/menu_i18n.html");
-        
-        if (i18nMenu.length() > 0) {
-            String translatedMenu = processTemplate(i18nMenu);
-            content = content.replace(englishMenu, translatedMenu);
-        }
-        
-        // Add secure menu if needed
+        this.html = HTML.create();
+        header().menu();
         if (secure) {
-            String secureMenu = HTML.getContents("/parts/secure_menu_i18n.html");
-            if (secureMenu.length() > 0) {
-                String translatedSecureMenu = processTemplate(secureMenu);
-                content = content + translatedSecureMenu;
-            }
-        }
-        
-        // Create a new HTML instance and set its content
-        HTML result = HTML.start(false);
-        // Clear and rebuild content - we'll use a simple string replacement approach
-        try {
-            // Use reflection to replace the internal content
-            java.lang.reflect.Field dataField = HTML.class.getDeclaredField("data");
-            dataField.setAccessible(true);
-            StringBuilder data = (StringBuilder) dataField.get(result);
-            data.setLength(0);
-            data.append(content);
-        } catch (Exception e) {
-            // If reflection fails, fall back to normal behavior
-            logger.l2("HTTP: Failed to replace menu content, using fallback", e);
+            secureMenu();
         }
-        
-        return result;
     }
     
     /**
@@ -106,7 +60,7 @@ public class HTMLi18n {
      * Process template and replace translation keys
      */
     private String processTemplate(String template) {
-        if (translator == null) {
+        if (translator == null || !template.contains("{{")) {
             return template;
         }
         
@@ -230,39 +184,38 @@ public class HTMLi18n {
         return this;
     }
     
-    public HTMLi18n header() {
-        // Get the header template and process translations
-        String headerContent = HTML.getContents("/parts/header.html");
-        String processed = processTemplate(headerContent);
-        html.append(String.format(processed, HTML.getJNodeAddress()));
+    /**
+     * Append template with translations and %s arguments filled in
+     */
+    public HTMLi18n append(Template template, Object... args) {
+        html.append(template.localize(translator).render(args));
         return this;
     }
     
+    public HTMLi18n header() {
+        return append(HTML.getTemplate("/parts/header.html"), HTML.getJNodeAddress());
+    }
+    
     public HTMLi18n menu() {
         // Use i18n version if available, otherwise use standard
-        String menuContent = HTML.getContents("/parts/menu_i18n.html");
-        if (menuContent.length() == 0) {
-            menuContent = HTML.getContents("/parts/menu.html");
+        Template menu = HTML.getTemplate("/parts/menu_i18n.html");
+        if (menu.isEmpty()) {
+            menu = HTML.getTemplate("/parts/menu.html");
         }
-        logger.l4("HTTP: Loading menu content, length: " + menuContent.length());
-        html.append(processTemplate(menuContent));
-        return this;
+        return append(menu);
     }
     
     public HTMLi18n footer() {
-        String footerContent = HTML.getContents("/parts/footer.html");
-        html.append(processTemplate(footerContent));
-        return this;
+        return append(HTML.getTemplate("/parts/footer.html"));
     }
     
     public HTMLi18n secureMenu() {
         // Use i18n version if available, otherwise use standard
-        String secureMenuContent = HTML.getContents("/parts/secure_menu_i18n.html");
-        if (secureMenuContent.length() == 0) {
-            secureMenuContent = HTML.getContents("/parts/secure_menu.html");
+        Template secureMenu = HTML.getTemplate("/parts/secure_menu_i18n.html");
+        if (secureMenu.isEmpty()) {
+            secureMenu = HTML.getTemplate("/parts/secure_menu.html");
         }
-        html.append(processTemplate(secureMenuContent));
-        return this;
+        return append(secureMenu);
     }
     
     public HTMLi18n start(boolean secure) {
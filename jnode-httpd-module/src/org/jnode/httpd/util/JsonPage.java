@@ -0,0 +1,268 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jnode.httpd.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jnode.dao.GenericDAO;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.field.DataType;
+
+import io.javalin.http.Context;
+
+/**
+ * One page of a JSON list. Parses page, size, sort and q from the query
+ * string, builds the WHERE/ORDER BY/LIMIT tail of a raw query from them and
+ * sends {"page":..,"size":..,"total":..,"items":[..]} with an ETag, so an
+ * unchanged page costs the client a 304. Sort columns come from a whitelist
+ * given by the route, its "id" column breaks ties so pages do not overlap;
+ * q is matched case-insensitively by LIKE against the search columns, with
+ * its wildcards escaped, and always goes to the database as an argument.
+ */
+public class JsonPage {
+	public static final int DEFAULT_SIZE = 50;
+	public static final int MAX_SIZE = 500;
+	private static final char ESCAPE = '!';
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final int page;
+	private final int size;
+	private final String order;
+	private final String tiebreak;
+	private final boolean asc;
+	private final String search;
+	private final ArrayNode items = mapper.createArrayNode();
+	private long total;
+
+	/**
+	 * @param ctx
+	 *            request
+	 * @param sorts
+	 *            sort name to column, "id" should be unique
+	 * @param sort
+	 *            default sort name, '-' in front for descending
+	 */
+	public JsonPage(Context ctx, Map<String, String> sorts, String sort) {
+		this.page = Math.max(1, number(ctx.queryParam("page"), 1));
+		this.size = Math.min(MAX_SIZE,
+				Math.max(1, number(ctx.queryParam("size"), DEFAULT_SIZE)));
+		String requested = ctx.queryParam("sort");
+		if (requested == null
+				|| !sorts.containsKey(requested.startsWith("-") ? requested
+						.substring(1) : requested)) {
+			requested = sort;
+		}
+		this.asc = !requested.startsWith("-");
+		this.order = sorts.get(asc ? requested : requested.substring(1));
+		String id = sorts.get("id");
+		this.tiebreak = (id == null || id.equals(order)) ? null : id;
+		String q = ctx.queryParam("q");
+		this.search = (q == null || q.trim().isEmpty()) ? null : "%"
+				+ escape(q.trim().toUpperCase(Locale.ROOT)) + "%";
+	}
+
+	// LIKE wildcards of q match themselves
+	private static String escape(String q) {
+		StringBuilder sb = new StringBuilder(q.length());
+		for (char c : q.toCharArray()) {
+			if (c == '%' || c == '_' || c == ESCAPE) {
+				sb.append(ESCAPE);
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	private static int number(String value, int def) {
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+			}
+		}
+		return def;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Search condition over columns, empty when there is no q
+	 * 
+	 * @param args
+	 *            receives one argument per column
+	 * @param columns
+	 * @return "(UPPER(a) LIKE ? ESCAPE '!' OR ...)" or ""
+	 */
+	public String search(List<String> args, String... columns) {
+		if (search == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				sb.append(" OR ");
+			}
+			sb.append("UPPER(").append(columns[i]).append(") LIKE ? ESCAPE '")
+					.append(ESCAPE).append('\'');
+			args.add(search);
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * Reads rows of this page and the number of rows on all pages
+	 * 
+	 * @param dao
+	 *            any DAO, only runs the query
+	 * @param columns
+	 *            select list
+	 * @param from
+	 *            tables with joins
+	 * @param types
+	 *            types of columns
+	 * @param args
+	 *            arguments for ? in from and conditions
+	 * @param conditions
+	 *            joined by AND, empty ones are skipped
+	 * @return rows
+	 */
+	public List<Object[]> query(GenericDAO<?> dao, String columns,
+			String from, DataType[] types, List<String> args,
+			String... conditions) throws Exception {
+		StringBuilder where = new StringBuilder();
+		for (String condition : conditions) {
+			if (!condition.isEmpty()) {
+				where.append(where.length() == 0 ? " WHERE " : " AND ")
+						.append(condition);
+			}
+		}
+		String[] arguments = args.toArray(new String[0]);
+		GenericRawResults<Object[]> count = dao.getRaw("SELECT COUNT(*) FROM "
+				+ from + where, new DataType[] { DataType.LONG }, arguments);
+		if (count == null) {
+			throw new SQLException("Count of " + from + " failed");
+		}
+		try {
+			Object[] first = count.getFirstResult();
+			total = (first == null) ? 0 : (Long) first[0];
+		} finally {
+			count.close();
+		}
+		GenericRawResults<Object[]> rows = dao.getRaw("SELECT " + columns
+				+ " FROM " + from + where + tail(), types, arguments);
+		if (rows == null) {
+			throw new SQLException("Select from " + from + " failed");
+		}
+		try {
+			return rows.getResults();
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * @return " ORDER BY column [DESC][, id] LIMIT size OFFSET n"
+	 */
+	String tail() {
+		return String.format(" ORDER BY %s%s%s LIMIT %d OFFSET %d", order,
+				asc ? "" : " DESC", (tiebreak != null) ? ", " + tiebreak : "",
+				size, (long) (page - 1) * size);
+	}
+
+	/**
+	 * Adds an item
+	 * 
+	 * @return empty object to fill
+	 */
+	public ObjectNode item() {
+		return items.addObject();
+	}
+
+	/**
+	 * Sends the page, or 304 if the client has it already
+	 * 
+	 * @param ctx
+	 */
+	public void send(Context ctx) throws JsonProcessingException {
+		ObjectNode root = mapper.createObjectNode();
+		root.put("page", page);
+		root.put("size", size);
+		root.put("total", total);
+		root.set("items", items);
+		byte[] body = mapper.writeValueAsBytes(root);
+		String etag = etag(body);
+		ctx.header("ETag", etag);
+		ctx.header("Cache-Control", "private, no-cache");
+		if (matches(ctx.header("If-None-Match"), etag)) {
+			ctx.status(304);
+			return;
+		}
+		ctx.contentType("application/json; charset=utf-8");
+		ctx.result(body);
+	}
+
+	static String etag(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			StringBuilder sb = new StringBuilder("\"");
+			for (int i = 0; i < 16; i++) {
+				sb.append(String.format("%02x", digest[i]));
+			}
+			return sb.append('"').toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				// gzip may have weakened it
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ * The jNode Team licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jnode.httpd.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backoff for failed logins per client address. After FREE_FAILURES wrong
+ * passwords every next one doubles the wait, up to MAX_DELAY; a client
+ * that waits is refused before any password is hashed. A successful login
+ * or FORGET milliseconds without failures clear the client. At most
+ * MAX_CLIENTS are tracked.
+ */
+public final class LoginThrottle {
+	static final int FREE_FAILURES = 3;
+	static final int MAX_CLIENTS = 4096;
+	static final long BASE_DELAY = TimeUnit.SECONDS.toMillis(1);
+	static final long MAX_DELAY = TimeUnit.MINUTES.toMillis(5);
+	static final long FORGET = TimeUnit.MINUTES.toMillis(15);
+	private static final ConcurrentMap<String, Failures> clients = new ConcurrentHashMap<>();
+
+	private static final class Failures {
+		private final int count;
+		private final long last;
+		private final long until;
+
+		private Failures(int count, long last, long until) {
+			this.count = count;
+			this.last = last;
+			this.until = until;
+		}
+	}
+
+	private LoginThrottle() {
+	}
+
+	/**
+	 * @param client
+	 *            client address
+	 * @return milliseconds the client has to wait before the next attempt,
+	 *         0 if it may try now
+	 */
+	public static long delay(String client) {
+		Failures failures = clients.get(client);
+		if (failures == null) {
+			return 0;
+		}
+		return Math.max(failures.until - System.currentTimeMillis(), 0);
+	}
+
+	/**
+	 * Count a wrong password of client
+	 */
+	public static void failed(String client) {
+		if (!clients.containsKey(client) && clients.size() >= MAX_CLIENTS) {
+			evict();
+		}
+		clients.compute(client, (k, f) -> {
+			long now = System.currentTimeMillis();
+			int count = (f == null || f.last + FORGET < now) ? 1 : f.count + 1;
+			long delay = 0;
+			if (count > FREE_FAILURES) {
+				int shift = Math.min(count - FREE_FAILURES - 1, 20);
+				delay = Math.min(BASE_DELAY << shift, MAX_DELAY);
+			}
+			return new Failures(count, now, now + delay);
+		});
+	}
+
+	/**
+	 * Forget failures of client after a successful login
+	 */
+	public static void succeeded(String client) {
+		clients.remove(client);
+	}
+
+	static int size() {
+		return clients.size();
+	}
+
+	// drops forgotten clients, then the least recent one if there is still
+	// no room
+	private static synchronized void evict() {
+		long now = System.currentTimeMillis();
+		clients.values().removeIf(f -> f.last + FORGET < now);
+		while (clients.size() >= MAX_CLIENTS) {
+			Map.Entry<String, Failures> oldest = null;
+			for (Map.Entry<String, Failures> entry : clients.entrySet()) {
+				if (oldest == null
+						|| entry.getValue().last < oldest.getValue().last) {
+					oldest = entry;
+				}
+			}
+			if (oldest == null) {
+				break;
+			}
+			clients.remove(oldest.getKey(), oldest.getValue());
+		}
+	}
+}
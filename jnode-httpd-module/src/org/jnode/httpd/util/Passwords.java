@@ -0,0 +1,123 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jnode.httpd.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import jnode.ftn.FtnTools;
+
+/**
+ * Password hashes of web admins: PBKDF2 with a random salt, stored as
+ * pbkdf2$iterations$salt$hash. Plain MD5 hashes written by older versions
+ * are still accepted, {@link #isLegacy(String)} tells the caller to replace
+ * them. Hashes are compared in constant time.
+ */
+public final class Passwords {
+	private static final String PREFIX = "pbkdf2$";
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final int ITERATIONS = 120000;
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+	private static final SecureRandom random = new SecureRandom();
+	// checked for unknown users so they take as long as known ones
+	private static final String NOBODY = hash(Long.toHexString(random
+			.nextLong()));
+
+	private Passwords() {
+	}
+
+	/**
+	 * @return salted hash of password to store
+	 */
+	public static String hash(String password) {
+		byte[] salt = new byte[SALT_BYTES];
+		random.nextBytes(salt);
+		return PREFIX + ITERATIONS + "$" + encode(salt) + "$"
+				+ encode(pbkdf2(password, salt, ITERATIONS));
+	}
+
+	/**
+	 * @param password
+	 *            as entered
+	 * @param stored
+	 *            result of {@link #hash(String)}, an old MD5 hash or null
+	 *            for an unknown user
+	 * @return true if password matches
+	 */
+	public static boolean verify(String password, String stored) {
+		if (password == null) {
+			return false;
+		}
+		if (stored == null) {
+			verify(password, NOBODY);
+			return false;
+		}
+		if (isLegacy(stored)) {
+			return MessageDigest.isEqual(
+					FtnTools.md5(password).getBytes(StandardCharsets.UTF_8),
+					stored.getBytes(StandardCharsets.UTF_8));
+		}
+		String[] parts = stored.split("\\$");
+		if (parts.length != 4) {
+			return false;
+		}
+		try {
+			byte[] salt = Base64.getDecoder().decode(parts[2]);
+			byte[] hash = Base64.getDecoder().decode(parts[3]);
+			return MessageDigest.isEqual(
+					pbkdf2(password, salt, Integer.parseInt(parts[1])), hash);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return true for an unsalted MD5 hash
+	 */
+	public static boolean isLegacy(String stored) {
+		return !stored.startsWith(PREFIX);
+	}
+
+	private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt,
+				iterations, HASH_BITS);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM)
+					.generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getEncoder().encodeToString(bytes);
+	}
+}
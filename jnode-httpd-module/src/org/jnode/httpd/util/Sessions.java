@@ -0,0 +1,193 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jnode.httpd.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Authenticated sessions of the secure area. A session is found by the
+ * SHA-256 of its token: the id from the session cookie or the whole
+ * Authorization header, so neither is kept in memory as is. Cookies are
+ * signed with a key made at start, forged ones are rejected before any
+ * lookup. Only successful logins create sessions, at most MAX_SESSIONS of
+ * them, each living TTL; a restart or a password change ends them.
+ */
+public final class Sessions {
+	public static final String COOKIE = "jnode_session";
+	static final int MAX_SESSIONS = 1024;
+	static final long TTL = TimeUnit.HOURS.toMillis(1);
+	private static final int TOKEN_BYTES = 24;
+	private static final SecureRandom random = new SecureRandom();
+	private static final byte[] key = new byte[32];
+	private static final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+	static {
+		random.nextBytes(key);
+	}
+
+	private static final class Session {
+		private final String username;
+		private final long expires;
+
+		private Session(String username, long expires) {
+			this.username = username;
+			this.expires = expires;
+		}
+	}
+
+	private Sessions() {
+	}
+
+	/**
+	 * Starts a session for the Authorization header and a cookie
+	 * 
+	 * @param username
+	 *            authenticated user
+	 * @param authorization
+	 *            header the user authenticated with
+	 * @return cookie value
+	 */
+	public static String open(String username, String authorization) {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		random.nextBytes(bytes);
+		String id = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(bytes);
+		long expires = System.currentTimeMillis() + TTL;
+		put(digest(id), new Session(username, expires));
+		if (authorization != null) {
+			put(digest(authorization), new Session(username, expires));
+		}
+		return id + "." + sign(id);
+	}
+
+	/**
+	 * @param cookie
+	 *            value of the session cookie
+	 * @return username, null if the cookie is forged, unknown or expired
+	 */
+	public static String byCookie(String cookie) {
+		if (cookie == null) {
+			return null;
+		}
+		int dot = cookie.indexOf('.');
+		if (dot < 0
+				|| !MessageDigest.isEqual(
+						sign(cookie.substring(0, dot)).getBytes(
+								StandardCharsets.US_ASCII),
+						cookie.substring(dot + 1).getBytes(
+								StandardCharsets.US_ASCII))) {
+			return null;
+		}
+		return get(digest(cookie.substring(0, dot)));
+	}
+
+	/**
+	 * @param authorization
+	 *            Authorization header
+	 * @return username if the header opened a session that is still alive
+	 */
+	public static String byAuthorization(String authorization) {
+		return (authorization == null) ? null : get(digest(authorization));
+	}
+
+	/**
+	 * Ends all sessions of a user
+	 */
+	public static void close(String username) {
+		sessions.values().removeIf(s -> s.username.equals(username));
+	}
+
+	static int size() {
+		return sessions.size();
+	}
+
+	private static String get(String hash) {
+		Session session = sessions.get(hash);
+		if (session == null) {
+			return null;
+		}
+		if (session.expires < System.currentTimeMillis()) {
+			sessions.remove(hash, session);
+			return null;
+		}
+		return session.username;
+	}
+
+	private static void put(String hash, Session session) {
+		if (sessions.size() >= MAX_SESSIONS) {
+			evict();
+		}
+		sessions.put(hash, session);
+	}
+
+	// drops expired sessions, then the oldest one if there is still no room
+	private static synchronized void evict() {
+		long now = System.currentTimeMillis();
+		sessions.values().removeIf(s -> s.expires < now);
+		while (sessions.size() >= MAX_SESSIONS) {
+			Map.Entry<String, Session> oldest = null;
+			for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+				if (oldest == null
+						|| entry.getValue().expires < oldest.getValue().expires) {
+					oldest = entry;
+				}
+			}
+			if (oldest == null) {
+				break;
+			}
+			sessions.remove(oldest.getKey(), oldest.getValue());
+		}
+	}
+
+	private static String digest(String token) {
+		try {
+			return Base64.getEncoder().encodeToString(
+					MessageDigest.getInstance("SHA-256").digest(
+							token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String sign(String id) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(key, "HmacSHA256"));
+			return Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(mac.doFinal(id.getBytes(StandardCharsets.UTF_8)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the jNode FTN Platform Development Team (jNode Team)
+ * under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for 
+ * additional information regarding copyright ownership.  
+ * The jNode Team licenses this file to you under the 
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jnode.httpd.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jnode.httpd.filters.LocaleFilter;
+
+/**
+ * HTML template split once into literal text, {{key}} translations and %s
+ * arguments, so rendering a page is concatenation instead of a regex pass
+ * and String.format over the whole page.
+ */
+public class Template {
+	private static final Pattern PLACEHOLDER = Pattern
+			.compile("\\{\\{\\s*(\\w+(?:\\.\\w+)*)\\s*\\}\\}|%s");
+
+	private final String text;
+	// literals[i] goes before placeholder i, the last one after all of them
+	private final String[] literals;
+	// translation key of placeholder i, null for an argument
+	private final String[] keys;
+	private final String[] raw;
+	private final ConcurrentMap<Locale, Template> localized = new ConcurrentHashMap<>();
+
+	public Template(String text) {
+		this.text = text;
+		List<String> literals = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+		List<String> raw = new ArrayList<>();
+		Matcher m = PLACEHOLDER.matcher(text);
+		int start = 0;
+		while (m.find()) {
+			literals.add(text.substring(start, m.start()));
+			keys.add(m.group(1));
+			raw.add(m.group());
+			start = m.end();
+		}
+		literals.add(text.substring(start));
+		this.literals = literals.toArray(new String[0]);
+		this.keys = keys.toArray(new String[0]);
+		this.raw = raw.toArray(new String[0]);
+	}
+
+	private Template(String text, String[] literals, String[] keys,
+			String[] raw) {
+		this.text = text;
+		this.literals = literals;
+		this.keys = keys;
+		this.raw = raw;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public boolean isEmpty() {
+		return text.isEmpty();
+	}
+
+	/**
+	 * @param translator
+	 *            translations of the request, may be null
+	 * @return template with translations filled in; built once per locale
+	 */
+	public Template localize(LocaleFilter.TranslationHelper translator) {
+		if (translator == null || !hasKeys()) {
+			return this;
+		}
+		return localized.computeIfAbsent(translator.getLocale(),
+				locale -> translate(translator));
+	}
+
+	private boolean hasKeys() {
+		for (String key : keys) {
+			if (key != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Template translate(LocaleFilter.TranslationHelper translator) {
+		List<String> literals = new ArrayList<>();
+		List<String> raw = new ArrayList<>();
+		StringBuilder literal = new StringBuilder(this.literals[0]);
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				literal.append(translator.get(keys[i]))
+						.append(this.literals[i + 1]);
+			} else {
+				literals.add(literal.toString());
+				raw.add(this.raw[i]);
+				literal = new StringBuilder(this.literals[i + 1]);
+			}
+		}
+		literals.add(literal.toString());
+		return new Template(text, literals.toArray(new String[0]),
+				new String[raw.size()], raw.toArray(new String[0]));
+	}
+
+	/**
+	 * @param args
+	 *            values of %s in order; translations are left as is
+	 * @return rendered text
+	 */
+	public String render(Object... args) {
+		int length = text.length();
+		for (Object arg : args) {
+			if (arg instanceof CharSequence) {
+				length += ((CharSequence) arg).length();
+			}
+		}
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(literals[0]);
+		int arg = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				sb.append(raw[i]);
+			} else if (arg < args.length) {
+				sb.append(args[arg++]);
+			}
+			sb.append(literals[i + 1]);
+		}
+		return sb.toString();
+	}
+}
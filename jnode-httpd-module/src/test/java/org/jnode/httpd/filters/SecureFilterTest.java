@@ -0,0 +1,146 @@
+package org.jnode.httpd.filters;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import jnode.ftn.FtnTools;
+
+import org.jnode.httpd.dto.WebAdmin;
+import org.jnode.httpd.util.Passwords;
+import org.jnode.httpd.util.Sessions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.javalin.http.Context;
+import io.javalin.http.Cookie;
+
+public class SecureFilterTest {
+
+    private final Map<String, WebAdmin> admins = new HashMap<>();
+    private int updates;
+
+    private final SecureFilter filter = new SecureFilter() {
+        @Override
+        WebAdmin find(String username) {
+            return admins.get(username);
+        }
+
+        @Override
+        void update(WebAdmin admin) {
+            updates++;
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        Sessions.close("admin");
+    }
+
+    private void admin(String password) {
+        WebAdmin admin = new WebAdmin();
+        admin.setUsername("admin");
+        admin.setPassword(password);
+        admins.put("admin", admin);
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString(
+                (username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Context request(String ip, String authorization, String cookie) {
+        Context ctx = mock(Context.class);
+        when(ctx.ip()).thenReturn(ip);
+        when(ctx.scheme()).thenReturn("http");
+        when(ctx.header("Authorization")).thenReturn(authorization);
+        when(ctx.cookie(Sessions.COOKIE)).thenReturn(cookie);
+        return ctx;
+    }
+
+    @Test
+    public void testBasicLoginOpensSession() throws Exception {
+        admin(Passwords.hash("secret"));
+        Context ctx = request("10.0.0.1", basic("admin", "secret"), null);
+        filter.handle(ctx);
+
+        ArgumentCaptor<Cookie> cookie = ArgumentCaptor.forClass(Cookie.class);
+        verify(ctx).cookie(cookie.capture());
+        verify(ctx, never()).status(anyInt());
+        verify(ctx, never()).skipRemainingHandlers();
+        assertEquals("/secure", cookie.getValue().getPath());
+        assertTrue(cookie.getValue().isHttpOnly());
+        assertEquals("admin", Sessions.byCookie(cookie.getValue().getValue()));
+        assertEquals(0, updates);
+    }
+
+    @Test
+    public void testCookieLetsIn() throws Exception {
+        String cookie = Sessions.open("admin", null);
+        Context ctx = request("10.0.0.2", null, cookie);
+        filter.handle(ctx);
+
+        verify(ctx, never()).status(anyInt());
+        verify(ctx, never()).skipRemainingHandlers();
+        verify(ctx, never()).cookie(any(Cookie.class));
+    }
+
+    @Test
+    public void testWrongPasswordIsRejected() throws Exception {
+        admin(Passwords.hash("secret"));
+        Context ctx = request("10.0.0.3", basic("admin", "wrong"), null);
+        filter.handle(ctx);
+
+        verify(ctx).status(401);
+        verify(ctx).header(eq("WWW-Authenticate"), anyString());
+        verify(ctx).skipRemainingHandlers();
+        verify(ctx, never()).cookie(any(Cookie.class));
+    }
+
+    @Test
+    public void testUnknownUserIsRejected() throws Exception {
+        Context ctx = request("10.0.0.4", basic("nobody", "secret"), null);
+        filter.handle(ctx);
+
+        verify(ctx).status(401);
+        verify(ctx).skipRemainingHandlers();
+    }
+
+    @Test
+    public void testLegacyHashIsUpgraded() throws Exception {
+        admin(FtnTools.md5("secret"));
+        Context ctx = request("10.0.0.5", basic("admin", "secret"), null);
+        filter.handle(ctx);
+
+        verify(ctx, never()).status(anyInt());
+        assertEquals(1, updates);
+        String stored = admins.get("admin").getPassword();
+        assertFalse(Passwords.isLegacy(stored));
+        assertTrue(Passwords.verify("secret", stored));
+    }
+
+    @Test
+    public void testRepeatedFailuresAreThrottled() throws Exception {
+        admin(Passwords.hash("secret"));
+        for (int i = 0; i < 4; i++) {
+            filter.handle(request("10.0.0.6", basic("admin", "wrong" + i), null));
+        }
+        Context ctx = request("10.0.0.6", basic("admin", "secret"), null);
+        filter.handle(ctx);
+
+        verify(ctx).status(429);
+        verify(ctx).header(eq("Retry-After"), anyString());
+        verify(ctx).skipRemainingHandlers();
+        verify(ctx, never()).cookie(any(Cookie.class));
+
+        Context other = request("10.0.0.7", basic("admin", "secret"), null);
+        filter.handle(other);
+        verify(other, never()).status(anyInt());
+    }
+}
@@ -0,0 +1,98 @@
+package org.jnode.httpd.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.javalin.http.Context;
+
+public class JsonPageTest {
+
+    private static final Map<String, String> SORTS = Map.of("id", "id", "name", "station_name", "addr", "ftn_address");
+
+    private Context request(String page, String size, String sort, String q) {
+        Context ctx = mock(Context.class);
+        when(ctx.queryParam("page")).thenReturn(page);
+        when(ctx.queryParam("size")).thenReturn(size);
+        when(ctx.queryParam("sort")).thenReturn(sort);
+        when(ctx.queryParam("q")).thenReturn(q);
+        return ctx;
+    }
+
+    @Test
+    public void testDefaults() {
+        JsonPage page = new JsonPage(request(null, null, null, null), SORTS, "addr");
+        assertEquals(1, page.getPage());
+        assertEquals(JsonPage.DEFAULT_SIZE, page.getSize());
+        assertEquals(" ORDER BY ftn_address, id LIMIT 50 OFFSET 0", page.tail());
+        List<String> args = new ArrayList<>();
+        assertEquals("", page.search(args, "station_name"));
+        assertTrue(args.isEmpty());
+    }
+
+    @Test
+    public void testPagingAndSort() {
+        JsonPage page = new JsonPage(request("3", "20", "-name", null), SORTS, "addr");
+        assertEquals(" ORDER BY station_name DESC, id LIMIT 20 OFFSET 40", page.tail());
+        page = new JsonPage(request("0", "100000", "password", null), SORTS, "addr");
+        assertEquals(" ORDER BY ftn_address, id LIMIT " + JsonPage.MAX_SIZE + " OFFSET 0", page.tail());
+        page = new JsonPage(request("x", "-5", "-id; DROP TABLE links", null), SORTS, "-name");
+        assertEquals(" ORDER BY station_name DESC, id LIMIT 1 OFFSET 0", page.tail());
+    }
+
+    @Test
+    public void testSearch() {
+        JsonPage page = new JsonPage(request(null, null, null, " ru.' "), SORTS, "addr");
+        List<String> args = new ArrayList<>();
+        assertEquals("(UPPER(station_name) LIKE ? ESCAPE '!' OR UPPER(ftn_address) LIKE ? ESCAPE '!')",
+                page.search(args, "station_name", "ftn_address"));
+        assertEquals(List.of("%RU.'%", "%RU.'%"), args);
+
+        page = new JsonPage(request(null, null, null, "100%_ok!"), SORTS, "addr");
+        args.clear();
+        page.search(args, "station_name");
+        assertEquals(List.of("%100!%!_OK!!%"), args);
+    }
+
+    @Test
+    public void testIdSortHasNoTiebreak() {
+        JsonPage page = new JsonPage(request(null, null, "-id", null), SORTS, "addr");
+        assertEquals(" ORDER BY id DESC LIMIT 50 OFFSET 0", page.tail());
+    }
+
+    @Test
+    public void testETag() {
+        String etag = JsonPage.etag("{\"total\":0}".getBytes());
+        assertEquals(etag, JsonPage.etag("{\"total\":0}".getBytes()));
+        assertNotEquals(etag, JsonPage.etag("{\"total\":1}".getBytes()));
+        assertTrue(JsonPage.matches(etag, etag));
+        assertTrue(JsonPage.matches("\"other\", W/" + etag, etag));
+        assertTrue(JsonPage.matches("*", etag));
+        assertFalse(JsonPage.matches("\"other\"", etag));
+        assertFalse(JsonPage.matches(null, etag));
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        Context first = request(null, null, null, null);
+        JsonPage page = new JsonPage(first, SORTS, "addr");
+        page.item().put("id", 1L);
+        page.send(first);
+        verify(first).result(any(byte[].class));
+        verify(first).header(eq("ETag"), anyString());
+
+        String etag = JsonPage.etag("{\"page\":1,\"size\":50,\"total\":0,\"items\":[{\"id\":1}]}".getBytes());
+        Context second = request(null, null, null, null);
+        when(second.header("If-None-Match")).thenReturn(etag);
+        page = new JsonPage(second, SORTS, "addr");
+        page.item().put("id", 1L);
+        page.send(second);
+        verify(second).status(304);
+        verify(second, never()).result(any(byte[].class));
+    }
+}
@@ -0,0 +1,42 @@
+package org.jnode.httpd.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class LoginThrottleTest {
+
+    @Test
+    public void testBackoffAfterFreeFailures() {
+        String client = "192.0.2.1";
+        for (int i = 0; i < LoginThrottle.FREE_FAILURES; i++) {
+            LoginThrottle.failed(client);
+            assertEquals(0, LoginThrottle.delay(client));
+        }
+        LoginThrottle.failed(client);
+        long first = LoginThrottle.delay(client);
+        assertTrue(first > 0 && first <= LoginThrottle.BASE_DELAY);
+        LoginThrottle.failed(client);
+        assertTrue(LoginThrottle.delay(client) > LoginThrottle.BASE_DELAY);
+        LoginThrottle.succeeded(client);
+        assertEquals(0, LoginThrottle.delay(client));
+    }
+
+    @Test
+    public void testDelayIsCapped() {
+        String client = "192.0.2.2";
+        for (int i = 0; i < 100; i++) {
+            LoginThrottle.failed(client);
+        }
+        assertTrue(LoginThrottle.delay(client) <= LoginThrottle.MAX_DELAY);
+        LoginThrottle.succeeded(client);
+    }
+
+    @Test
+    public void testClientsAreBounded() {
+        for (int i = 0; i < LoginThrottle.MAX_CLIENTS * 2; i++) {
+            LoginThrottle.failed("198.51.100." + i);
+        }
+        assertTrue(LoginThrottle.size() <= LoginThrottle.MAX_CLIENTS);
+    }
+}
@@ -0,0 +1,37 @@
+package org.jnode.httpd.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import jnode.ftn.FtnTools;
+
+public class PasswordsTest {
+
+    @Test
+    public void testHashIsSaltedAndVerifies() {
+        String first = Passwords.hash("secret");
+        String second = Passwords.hash("secret");
+        assertNotEquals(first, second);
+        assertFalse(Passwords.isLegacy(first));
+        assertTrue(Passwords.verify("secret", first));
+        assertTrue(Passwords.verify("secret", second));
+        assertFalse(Passwords.verify("Secret", first));
+        assertFalse(Passwords.verify(null, first));
+    }
+
+    @Test
+    public void testLegacyMd5IsAccepted() {
+        String stored = FtnTools.md5("secret");
+        assertTrue(Passwords.isLegacy(stored));
+        assertTrue(Passwords.verify("secret", stored));
+        assertFalse(Passwords.verify("other", stored));
+    }
+
+    @Test
+    public void testMalformedHashIsRejected() {
+        assertFalse(Passwords.verify("secret", "pbkdf2$x$y"));
+        assertFalse(Passwords.verify("secret", "pbkdf2$1000$!!$!!"));
+        assertFalse(Passwords.verify("secret", null));
+    }
+}
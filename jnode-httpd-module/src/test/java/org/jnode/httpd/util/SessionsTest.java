@@ -0,0 +1,42 @@
+package org.jnode.httpd.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class SessionsTest {
+
+    @Test
+    public void testCookieAndHeaderFindSession() {
+        String cookie = Sessions.open("alice", "Basic YWxpY2U6c2VjcmV0");
+        assertEquals("alice", Sessions.byCookie(cookie));
+        assertEquals("alice", Sessions.byAuthorization("Basic YWxpY2U6c2VjcmV0"));
+        assertNull(Sessions.byAuthorization("Basic YWxpY2U6b3RoZXI="));
+        assertNull(Sessions.byCookie(null));
+        assertNull(Sessions.byAuthorization(null));
+        Sessions.close("alice");
+        assertNull(Sessions.byCookie(cookie));
+        assertNull(Sessions.byAuthorization("Basic YWxpY2U6c2VjcmV0"));
+    }
+
+    @Test
+    public void testForgedCookieIsRejected() {
+        String cookie = Sessions.open("bob", null);
+        String id = cookie.substring(0, cookie.indexOf('.'));
+        assertNull(Sessions.byCookie(id));
+        assertNull(Sessions.byCookie(id + ".AAAA"));
+        assertNull(Sessions.byCookie("x" + cookie));
+        assertEquals("bob", Sessions.byCookie(cookie));
+        Sessions.close("bob");
+    }
+
+    @Test
+    public void testSessionsAreBounded() {
+        for (int i = 0; i < Sessions.MAX_SESSIONS * 2; i++) {
+            Sessions.open("carol", "Basic " + i);
+        }
+        assertTrue(Sessions.size() <= Sessions.MAX_SESSIONS);
+        Sessions.close("carol");
+        assertEquals(0, Sessions.size());
+    }
+}
@@ -0,0 +1,35 @@
+package org.jnode.httpd.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Locale;
+
+import org.jnode.httpd.filters.LocaleFilter;
+import org.junit.jupiter.api.Test;
+
+public class TemplateTest {
+
+    @Test
+    public void testArgumentsAreFilledInOrder() {
+        Template template = new Template("<h1>%s</h1><table>%s</table>");
+        assertEquals("<h1>Links</h1><table><tr>50%s</tr></table>", template.render("Links", "<tr>50%s</tr>"));
+    }
+
+    @Test
+    public void testTranslationsAreKeptWithoutTranslator() {
+        Template template = new Template("<a>{{ action.edit }}</a>%s");
+        assertSame(template, template.localize(null));
+        assertEquals("<a>{{ action.edit }}</a>1", template.render(1L));
+    }
+
+    @Test
+    public void testLocalizedTemplateIsBuiltOncePerLocale() {
+        Template template = new Template("<a>{{action.edit}}</a>%s<b>{{action.edit}}</b>");
+        LocaleFilter.TranslationHelper en = new LocaleFilter.TranslationHelper(Locale.ENGLISH);
+        Template localized = template.localize(en);
+        assertSame(localized, template.localize(new LocaleFilter.TranslationHelper(Locale.ENGLISH)));
+        assertEquals("<a>Edit</a>{{x}}<b>Edit</b>", localized.render("{{x}}"));
+        assertEquals("<a>Bearbeiten</a><b>Bearbeiten</b>",
+                template.localize(new LocaleFilter.TranslationHelper(Locale.GERMAN)).render(""));
+    }
+}
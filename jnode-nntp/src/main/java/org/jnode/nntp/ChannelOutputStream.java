@@ -0,0 +1,62 @@
+package org.jnode.nntp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking stream over a non-blocking channel for the worker that runs a
+ * command. When the socket buffer is full it waits on a private selector,
+ * so a slow reader holds its worker but never the server selector.
+ */
+class ChannelOutputStream extends OutputStream {
+
+    private final SocketChannel channel;
+    private final long timeout;
+    private Selector selector;
+
+    ChannelOutputStream(SocketChannel channel, long timeout) {
+        this.channel = channel;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                await();
+            }
+        }
+    }
+
+    private void await() throws IOException {
+        if (selector == null) {
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_WRITE);
+        }
+        if (selector.select(timeout) == 0) {
+            throw new SocketTimeoutException("Write timed out");
+        }
+        selector.selectedKeys().clear();
+    }
+
+    /**
+     * Release the selector; the channel is closed by its owner.
+     */
+    @Override
+    public void close() throws IOException {
+        if (selector != null) {
+            selector.close();
+        }
+    }
+}
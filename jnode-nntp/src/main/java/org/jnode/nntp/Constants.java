@@ -3,6 +3,7 @@ package org.jnode.nntp;
 public class Constants {
     public static final Long NETMAIL_NEWSGROUP_ID = -1l;
     public static final String NETMAIL_NEWSGROUP_NAME = "NETMAIL";
+    public static final String MESSAGE_ID_DOMAIN = "fidonet.jnode";
 
     public static final String FROM = "from";
     public static final String NEWSGROUPS = "newsgroups";
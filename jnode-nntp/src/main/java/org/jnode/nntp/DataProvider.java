@@ -7,15 +7,22 @@ import jnode.dto.Netmail;
 import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NewsGroup;
 import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.Overview;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface DataProvider {
     Echoarea echoarea(String echoareaName);
     NewsGroup newsGroup(String groupName, Auth auth);
     Collection<NewsGroup> newsGroups(Auth auth);
 
-    Collection<NewsMessage> messagesByIdRange(String fromId, String toId, long groupId, Auth auth);
+    /**
+     * Overview of articles from..to of the group in ascending order.
+     */
+    void overview(long groupId, long from, long to, Auth auth, Consumer<Overview> action);
+
+    Collection<Long> articleNumbers(long groupId, long from, long to, Auth auth);
 
     NewsMessage messageById(String id, Long groupId);
     NewsMessage messageByMessageId(String messageId);
@@ -6,31 +6,35 @@ import com.google.common.collect.Lists;
 import jnode.dao.GenericDAO;
 import jnode.dto.Echoarea;
 import jnode.dto.Echomail;
-import jnode.dto.EchomailAwaiting;
-import jnode.dto.Entity;
 import jnode.dto.Link;
 import jnode.dto.Netmail;
 import jnode.dto.Subscription;
+import jnode.ftn.FtnTools;
 import jnode.logger.Logger;
 import jnode.orm.ORMManager;
+import jnode.store.EchomailStores;
 import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NewsGroup;
 import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.Overview;
+import org.jnode.nntp.util.MessageIds;
 import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.field.DataType;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
 
 public class DataProviderImpl implements DataProvider {
 
 	private static final Logger logger = Logger.getLogger(DataProviderImpl.class);
 	
 	private GenericDAO<Echoarea> echoareaDAO = ORMManager.get(Echoarea.class);
-	private GenericDAO<Echomail> echomailDao = ORMManager.get(Echomail.class);
 	private GenericDAO<Netmail> netmailDao = ORMManager.get(Netmail.class);
 	private GenericDAO<Link> linkDao = ORMManager.get(Link.class);
-	private GenericDAO<Subscription> subscriptionDAO = ORMManager
-			.get(Subscription.class);
 
 	@Override
 	public Echoarea echoarea(String echoareaName) {
@@ -61,72 +65,37 @@ public class DataProviderImpl implements DataProvider {
 		if (Constants.NETMAIL_NEWSGROUP_ID.equals(area.getId())) {
 			// Handle netmail separately
 			newsGroup.setReportedLowWatermark(1L);
-			newsGroup.setReportedHighWatermark(getNetmailHighWatermark(auth) + 1);
+			newsGroup.setReportedHighWatermark(getNetmailHighWatermark(auth));
 			newsGroup.setNumberOfArticles(getNetmailCount(auth));
 		} else {
-			// Handle regular echoareas
+			// articles are numbered 1..high without gaps
+			long high = OverviewIndex.getSelf().getHigh(area);
 			newsGroup.setReportedLowWatermark(1L);
-			newsGroup.setReportedHighWatermark(getEchomailHighWatermark(area.getId()) + 1);
-			newsGroup.setNumberOfArticles(getEchomailCount(area.getId()));
+			newsGroup.setReportedHighWatermark(high);
+			newsGroup.setNumberOfArticles((int) high);
 		}
 		
 		return newsGroup;
 	}
 
-	private Long countHighWatermark(Collection<Entity> entities) {
-
-		long watermark = 0;
-
-		for (Entity entity : entities) {
-			if (entity.getId() > watermark) {
-				watermark = entity.getId();
-			}
-		}
-
-		// +1 because client didn't recognize id 0
-		return watermark + 1;
-	}
-
-	private long countLowWatermark(Collection<Entity> entities) {
-
-		long watermark = 0;
-
-		for (Entity entity : entities) {
-			if (entity.getId() < watermark) {
-				watermark = entity.getId();
-			}
-		}
-
-		// +1 because client didn't recognize id 0
-		return watermark + 1;
-	}
-
-	private Collection<Entity> retrieveEntities(Long areaId, Auth auth) {
-		Collection<Entity> entities = Lists.newArrayList();
-
-		if (Constants.NETMAIL_NEWSGROUP_ID.equals(areaId)) {
-			entities.addAll(netmailDao.getOr("to_address", "=",
-					auth.getFtnAddress(), "from_address", "=",
-					auth.getFtnAddress()));
-		} else {
-			entities.addAll(echomailDao.getAnd("echoarea_id", "=", areaId));
-		}
-		return entities;
-	}
-
-	private int countArticles(Collection<Entity> entities) {
-		return entities.size();
-	}
-
 	@Override
 	public Collection<NewsGroup> newsGroups(final Auth auth) {
 
-		Collection<Subscription> subscriptions = subscriptionDAO.getAnd(
-				"link_id", "=", auth.getLinkId());
+		// one join instead of a lookup per subscription
 		Collection<Echoarea> echoareas = Lists.newArrayList();
-		for (Subscription subscription : subscriptions) {
-			echoareas.addAll(echoareaDAO.getAnd("id", "=", subscription
-					.getArea().getId()));
+		GenericRawResults<Object[]> results = echoareaDAO.getRaw(String.format(
+				"SELECT a.id, a.name FROM echoarea a"
+						+ " JOIN subscription s ON (a.id=s.echoarea_id)"
+						+ " WHERE s.link_id=%d ORDER BY a.name",
+				auth.getLinkId()), new DataType[] { DataType.LONG,
+				DataType.STRING });
+		if (results != null) {
+			for (Object[] row : results) {
+				Echoarea area = new Echoarea();
+				area.setId((Long) row[0]);
+				area.setName((String) row[1]);
+				echoareas.add(area);
+			}
 		}
 		return Collections2.transform(echoareas,
 				new Function<Echoarea, NewsGroup>() {
@@ -148,41 +117,69 @@ public class DataProviderImpl implements DataProvider {
 		newsMessage.setSubject(echomail.getSubject());
 		newsMessage.setCreatedDate(echomail.getDate());
 		newsMessage.setBody(echomail.getText());
-		newsMessage.setMessageId(echomail.getMsgid());
+		newsMessage.setMessageId(MessageIds.messageId(echomail.getMsgid()));
+		if (echomail.getText() != null) {
+			newsMessage.setReferences(MessageIds.messageId(OverviewIndex
+					.reply(echomail.getText())));
+		}
 
 		return newsMessage;
 	}
 
 	@Override
-	public Collection<NewsMessage> messagesByIdRange(String fromId,
-			String toId, final long groupId, Auth auth) {
-
-		// -1 because id was incremented during watermark counting
-		long trueFromId = Long.valueOf(fromId) - 1;
-		long trueToId = Long.valueOf(toId) - 1;
-
+	public void overview(long groupId, long from, long to, Auth auth,
+			Consumer<Overview> action) {
 		if (Constants.NETMAIL_NEWSGROUP_ID.equals(groupId)) {
-			return Collections2.transform(netmailDao.getOr("to_address", "=",
-					auth.getFtnAddress(), "from_address", "=",
-					auth.getFtnAddress()),
-					new Function<Netmail, NewsMessage>() {
-						@Override
-						public NewsMessage apply(Netmail input) {
-							return convert(input);
-						}
-					});
+			for (Netmail netmail : netmails(from, to, auth)) {
+				action.accept(overview(netmail));
+			}
+		} else {
+			OverviewIndex.getSelf().forEach(groupId, from, to, action);
+		}
+	}
 
+	@Override
+	public Collection<Long> articleNumbers(long groupId, long from, long to,
+			Auth auth) {
+		List<Long> numbers = new ArrayList<>();
+		if (Constants.NETMAIL_NEWSGROUP_ID.equals(groupId)) {
+			for (Netmail netmail : netmails(from, to, auth)) {
+				numbers.add(netmail.getId());
+			}
 		} else {
-			return Collections2.transform(
-					echomailDao.getAnd("echoarea_id", "=", groupId, "id", ">=",
-							trueFromId, "id", "<=", trueToId),
-					new Function<Echomail, NewsMessage>() {
-						@Override
-						public NewsMessage apply(Echomail input) {
-							return convert(input);
-						}
-					});
+			long high = Math.min(to, OverviewIndex.getSelf().getHigh(groupId));
+			for (long n = Math.max(from, 1); n <= high; n++) {
+				numbers.add(n);
+			}
 		}
+		return numbers;
+	}
+
+	// netmail is numbered by its id
+	private List<Netmail> netmails(long from, long to, Auth auth) {
+		List<Netmail> netmails = new ArrayList<>();
+		for (Netmail netmail : netmailDao.getOr("to_address", "=",
+				auth.getFtnAddress(), "from_address", "=",
+				auth.getFtnAddress())) {
+			if (netmail.getId() >= from && netmail.getId() <= to) {
+				netmails.add(netmail);
+			}
+		}
+		netmails.sort(Comparator.comparing(Netmail::getId));
+		return netmails;
+	}
+
+	private Overview overview(Netmail netmail) {
+		Overview overview = new Overview();
+		overview.setArticle(netmail.getId());
+		overview.setSubject(netmail.getSubject());
+		overview.setFrom(netmail.getFromName() + " " + netmail.getFromFTN());
+		overview.setDate(netmail.getDate());
+		String text = netmail.getText() == null ? "" : netmail.getText();
+		overview.setReply(OverviewIndex.reply(text));
+		overview.setBytes((long) text.getBytes(StandardCharsets.UTF_8).length);
+		overview.setLines(OverviewIndex.lines(text));
+		return overview;
 	}
 
 	private NewsMessage convert(Netmail netmail) {
@@ -200,16 +197,51 @@ public class DataProviderImpl implements DataProvider {
 
 	@Override
 	public NewsMessage messageById(String id, Long groupId) {
+		long article;
+		try {
+			article = Long.parseLong(id);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (groupId == null) {
+			return null;
+		}
 		if (Constants.NETMAIL_NEWSGROUP_ID.equals(groupId)) {
-			return convert(netmailDao.getById(id));
-		} else {
-			return convert(echomailDao.getById(id));
+			Netmail netmail = netmailDao.getById(article);
+			return netmail == null ? null : convert(netmail);
+		}
+		Overview overview = OverviewIndex.getSelf().get(groupId, article);
+		if (overview == null) {
+			return null;
 		}
+		Echomail echomail = echomail(overview);
+		if (echomail == null) {
+			return null;
+		}
+		NewsMessage message = convert(echomail);
+		message.setId(article);
+		return message;
 	}
 
 	@Override
 	public NewsMessage messageByMessageId(String messageId) {
-		throw new UnsupportedOperationException();
+		Overview overview = OverviewIndex.getSelf().get(messageId);
+		if (overview == null) {
+			return null;
+		}
+		Echomail echomail = echomail(overview);
+		if (echomail == null) {
+			return null;
+		}
+		NewsMessage message = convert(echomail);
+		message.setId(overview.getArticle());
+		return message;
+	}
+
+	// ids in the overview are those of the echomail store, not always SQL ids
+	private Echomail echomail(Overview overview) {
+		Echoarea area = echoareaDAO.getById(overview.getAreaId());
+		return area == null ? null : EchomailStores.get().get(area, overview.getEchomailId());
 	}
 
 	@Override
@@ -219,7 +251,7 @@ public class DataProviderImpl implements DataProvider {
 		newsGroup.setName(Constants.NETMAIL_NEWSGROUP_NAME);
 		newsGroup.setNumberOfArticles(getNetmailCount(auth));
 		newsGroup.setReportedLowWatermark(1L);
-		newsGroup.setReportedHighWatermark(getNetmailHighWatermark(auth) + 1);
+		newsGroup.setReportedHighWatermark(getNetmailHighWatermark(auth));
 		return newsGroup;
 	}
 
@@ -236,47 +268,15 @@ public class DataProviderImpl implements DataProvider {
 
 	@Override
 	public void post(Auth auth, Echomail echomail) {
-		echomailDao.save(echomail);
+		EchomailStores.get().save(echomail);
+		OverviewIndex.getSelf().add(echomail);
 		for (Subscription s : ORMManager.get(Subscription.class).getAnd(
 				"echoarea_id", "=", echomail.getArea())) {
-			ORMManager.get(EchomailAwaiting.class).save(
-					new EchomailAwaiting(s.getLink(), echomail));
+			FtnTools.queueEchomail(s.getLink(), echomail);
 		}
 	}
 	
 	// Optimized methods for watermark calculation
-	private long getEchomailHighWatermark(Long areaId) {
-		try {
-			GenericRawResults<String[]> results = echomailDao.getRaw(
-				"SELECT MAX(id) FROM echomail WHERE echoarea_id = " + areaId);
-			
-			String[] firstResult = results.getFirstResult();
-			if (firstResult != null && firstResult[0] != null) {
-				return Long.parseLong(firstResult[0]);
-			}
-			results.close();
-		} catch (Exception e) {
-			logger.l2("Error getting echomail high watermark for area " + areaId, e);
-		}
-		return 0L;
-	}
-	
-	private int getEchomailCount(Long areaId) {
-		try {
-			GenericRawResults<String[]> results = echomailDao.getRaw(
-				"SELECT COUNT(*) FROM echomail WHERE echoarea_id = " + areaId);
-			
-			String[] firstResult = results.getFirstResult();
-			if (firstResult != null && firstResult[0] != null) {
-				return Integer.parseInt(firstResult[0]);
-			}
-			results.close();
-		} catch (Exception e) {
-			logger.l2("Error getting echomail count for area " + areaId, e);
-		}
-		return 0;
-	}
-	
 	private long getNetmailHighWatermark(Auth auth) {
 		try {
 			GenericRawResults<String[]> results = netmailDao.getRaw(
@@ -295,19 +295,8 @@ public class DataProviderImpl implements DataProvider {
 	}
 	
 	private int getNetmailCount(Auth auth) {
-		try {
-			GenericRawResults<String[]> results = netmailDao.getRaw(
-				"SELECT COUNT(*) FROM netmail WHERE to_address = '" + auth.getFtnAddress() + 
-				"' OR from_address = '" + auth.getFtnAddress() + "'");
-			
-			String[] firstResult = results.getFirstResult();
-			if (firstResult != null && firstResult[0] != null) {
-				return Integer.parseInt(firstResult[0]);
-			}
-			results.close();
-		} catch (Exception e) {
-			logger.l2("Error getting netmail count for " + auth.getFtnAddress(), e);
-		}
-		return 0;
+		return (int) netmailDao.countOr("to_address", "=",
+				auth.getFtnAddress(), "from_address", "=",
+				auth.getFtnAddress());
 	}
 }
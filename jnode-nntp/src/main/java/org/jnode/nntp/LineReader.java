@@ -0,0 +1,146 @@
+package org.jnode.nntp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Splits bytes read from a connection into lines, so several pipelined
+ * commands can arrive in one read and one command can span several reads.
+ * After {@link #startInflating()} input is raw deflate (RFC 8054). Not
+ * thread safe.
+ */
+public class LineReader {
+
+    private static final int INITIAL_SIZE = 512;
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int start;
+    private int end;
+    // bytes before it hold no LF
+    private int scanned;
+    private Inflater inflater;
+    private byte[] inflated;
+
+    /**
+     * Add bytes read from the connection.
+     */
+    public void feed(ByteBuffer bytes) throws IOException {
+        if (inflater == null) {
+            int length = bytes.remaining();
+            ensure(length);
+            bytes.get(buffer, end, length);
+            end += length;
+        } else {
+            byte[] input = new byte[bytes.remaining()];
+            bytes.get(input);
+            inflate(input);
+        }
+    }
+
+    private void inflate(byte[] input) throws IOException {
+        if (inflated == null) {
+            inflated = new byte[8192];
+        }
+        inflater.setInput(input);
+        try {
+            while (!inflater.needsInput() && !inflater.finished()) {
+                int length = inflater.inflate(inflated);
+                if (length == 0 && inflater.needsDictionary()) {
+                    throw new IOException("Unexpected deflate dictionary");
+                }
+                ensure(length);
+                System.arraycopy(inflated, 0, buffer, end, length);
+                end += length;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Broken deflate stream", e);
+        }
+    }
+
+    private void ensure(int length) {
+        if (end + length <= buffer.length) {
+            return;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            scanned -= start;
+            start = 0;
+        }
+        if (end + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, end + length));
+        }
+    }
+
+    /**
+     * @return true if {@link #readLine()} would return a line.
+     */
+    public boolean hasLine() {
+        while (scanned < end) {
+            if (buffer[scanned] == '\n') {
+                return true;
+            }
+            scanned++;
+        }
+        return false;
+    }
+
+    /**
+     * @return next line without CRLF, null if no complete line was read yet.
+     */
+    public String readLine() {
+        if (!hasLine()) {
+            return null;
+        }
+        int length = scanned - start;
+        if (length > 0 && buffer[scanned - 1] == '\r') {
+            length--;
+        }
+        String line = new String(buffer, start, length, StandardCharsets.UTF_8);
+        start = scanned + 1;
+        scanned = start;
+        if (start == end) {
+            start = 0;
+            end = 0;
+            scanned = 0;
+            if (buffer.length > INITIAL_SIZE) {
+                // do not keep a large buffer for an idle connection
+                buffer = new byte[INITIAL_SIZE];
+            }
+        }
+        return line;
+    }
+
+    /**
+     * @return number of bytes read but not returned as lines yet.
+     */
+    public int pending() {
+        return end - start;
+    }
+
+    /**
+     * Inflate everything after the line read last.
+     */
+    public void startInflating() throws IOException {
+        inflater = new Inflater(true);
+        byte[] rest = Arrays.copyOfRange(buffer, start, end);
+        start = 0;
+        end = 0;
+        scanned = 0;
+        inflate(rest);
+    }
+
+    public boolean isInflating() {
+        return inflater != null;
+    }
+
+    public void close() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
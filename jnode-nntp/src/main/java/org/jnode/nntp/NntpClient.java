@@ -1,227 +1,288 @@
 package org.jnode.nntp;
 
-import com.google.common.collect.Lists;
-import jnode.event.IEvent;
-import jnode.event.IEventHandler;
-import jnode.event.Notifier;
 import jnode.logger.Logger;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jnode.nntp.event.ArticleSelectedEvent;
-import org.jnode.nntp.event.AuthUserEvent;
-import org.jnode.nntp.event.GroupSelectedEvent;
-import org.jnode.nntp.event.PostEndEvent;
-import org.jnode.nntp.event.PostStartEvent;
 import org.jnode.nntp.exception.EndOfSessionException;
 import org.jnode.nntp.exception.ProcessorNotFoundException;
 import org.jnode.nntp.exception.UnknownCommandException;
-import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NntpCommand;
 import org.jnode.nntp.model.NntpResponse;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.concurrent.Executor;
 
+/**
+ * Connection of a newsreader. {@link NntpServer} reads from the channel and
+ * hands the connection to a worker when a complete command line is there;
+ * the worker runs every pipelined command in order and sends the responses
+ * together (RFC 3977 section 3.5). An idle connection holds no thread.
+ */
 public class NntpClient implements Runnable {
 
     private static final Logger logger = Logger.getLogger(NntpClient.class);
 
     private static final String DELIMITER = " ";
+    // stop reading from a client which sends faster than it is served
+    private static final int MAX_PENDING = 1024 * 1024;
 
-    private PrintWriter out;
-    private BufferedReader in;
-    private Socket socket;
+    private final NntpServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Executor executor;
+    private final ChannelOutputStream stream;
+    private final NntpWriter out;
+    private final LineReader in = new LineReader();
 
-    private Long selectedGroupId;
-    private Long selectedArticleId;
-    private Auth auth;
+    private final NntpSession session = new NntpSession();
 
-    private boolean isPost = false;
-    private Collection<String> postParams;
+    // guarded by this
+    private boolean busy;
+    private boolean paused;
+    private boolean greeted;
+    private boolean closed;
+    private boolean eof;
+    private long lastActivity = System.currentTimeMillis();
 
-    public NntpClient(Socket socket) {
-        try {
-            this.socket = socket;
-            this.out = new PrintWriter(socket.getOutputStream(), true);
-            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        } catch (IOException e) {
-            logger.l1("NNTP client can't be initialised.", e);
+    NntpClient(NntpServer server, SocketChannel channel, SelectionKey key, Executor executor, long writeTimeout) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+        this.executor = executor;
+        this.stream = new ChannelOutputStream(channel, writeTimeout);
+        this.out = new NntpWriter(stream);
+    }
+
+    /**
+     * Send the greeting.
+     */
+    void start() {
+        synchronized (this) {
+            busy = true;
         }
+        executor.execute(this);
     }
 
-    @Override
-    public void run() {
-        Notifier.INSTANCE.register(GroupSelectedEvent.class, new IEventHandler() {
-            @Override
-            public void handle(IEvent event) {
-                GroupSelectedEvent groupSelectedEvent = (GroupSelectedEvent) event;
-                selectedGroupId = groupSelectedEvent.getSelectedGroup().getId();
-            }
-        });
-        Notifier.INSTANCE.register(ArticleSelectedEvent.class, new IEventHandler() {
-            @Override
-            public void handle(IEvent event) {
-                selectedArticleId = ((ArticleSelectedEvent) event).getSelectedArticleId();
+    /**
+     * Called by the server selector when the channel is readable.
+     *
+     * @param buffer buffer of the selector thread.
+     * @return false if the client closed the connection and nothing is left to answer.
+     */
+    boolean read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (channel.read(buffer) < 0) {
+            synchronized (this) {
+                if (busy) {
+                    // answer what was sent before closing
+                    eof = true;
+                    key.interestOps(0);
+                    return true;
+                }
             }
-        });
-        Notifier.INSTANCE.register(AuthUserEvent.class, new IEventHandler() {
-            @Override
-            public void handle(IEvent event) {
-                auth = ((AuthUserEvent) event).getAuth();
+            return false;
+        }
+        buffer.flip();
+        synchronized (this) {
+            lastActivity = System.currentTimeMillis();
+            in.feed(buffer);
+            if (!busy) {
+                if (in.hasLine()) {
+                    busy = true;
+                    executor.execute(this);
+                } else if (in.pending() > MAX_PENDING) {
+                    throw new IOException("Line too long");
+                }
+            } else if (in.pending() > MAX_PENDING) {
+                paused = true;
+                key.interestOps(0);
             }
-        });
-        Notifier.INSTANCE.register(PostStartEvent.class, new IEventHandler() {
-            @Override
-            public void handle(IEvent event) {
-                isPost = true;
-                postParams = Lists.newLinkedList();
+        }
+        return true;
+    }
+
+    /**
+     * Close the connection if nothing happened on it for the given time.
+     */
+    void checkIdle(long now, long timeout) {
+        synchronized (this) {
+            if (busy || now - lastActivity < timeout) {
+                return;
             }
-        });
-        Notifier.INSTANCE.register(PostEndEvent.class, new IEventHandler() {
-            @Override
-            public void handle(IEvent event) {
-                isPost = false;
+            busy = true;
+        }
+        executor.execute(() -> {
+            logger.l4("Idle timeout for " + channel.socket().getRemoteSocketAddress());
+            try {
+                out.status(NntpResponse.Unavailable.IDLE_TIMEOUT);
+                out.flush();
+            } catch (Exception e) {
+                logger.l5("Failed to send timeout response", e);
             }
+            close();
         });
+    }
 
-        String line = StringUtils.EMPTY;
-
+    @Override
+    public void run() {
         try {
-            // Send greetings - authentication will be enforced on actual commands
-            send(Arrays.asList(NntpResponse.InitialGreetings.SERVICE_AVAILABLE_POSTING_ALLOWED));
-
-            while ((line = in.readLine()) != null) {
-                logger.l4("[C] " + line);
-
-                Collection<String> response = Lists.newLinkedList();
-
-                if (line.equalsIgnoreCase(NntpResponse.END)) {
-                    // end of post
-                    response.addAll(process(NntpCommand.POST, postParams));
-                } else {
-                    if (isPost) {
-                        // post in progress
-                        postParams.add(line);
-                    } else {
-                        // casual line
-                        response.addAll(process(line));
+            if (!greeted) {
+                greeted = true;
+                // Send greetings - authentication will be enforced on actual commands
+                out.status(NntpResponse.InitialGreetings.SERVICE_AVAILABLE_POSTING_ALLOWED);
+            }
+            while (true) {
+                String line;
+                synchronized (this) {
+                    line = in.readLine();
+                }
+                if (line == null) {
+                    // everything pipelined so far is answered
+                    out.flush();
+                    synchronized (this) {
+                        if (!in.hasLine()) {
+                            if (eof) {
+                                break;
+                            }
+                            busy = false;
+                            lastActivity = System.currentTimeMillis();
+                            if (paused) {
+                                paused = false;
+                                key.interestOps(SelectionKey.OP_READ);
+                                key.selector().wakeup();
+                            }
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                handle(line);
+                if (out.isCompressed() && !in.isInflating()) {
+                    // client compresses from the next command on
+                    synchronized (this) {
+                        in.startInflating();
                     }
                 }
-
-                send(response);
-
             }
-
-        } catch (UnknownCommandException uce) {
-            logger.l4("Unknown line '" + line + "'.");
+            logger.l4("Client closed connection");
+            close();
+        } catch (EndOfSessionException eose) {
+            logger.l4("Client cancel session.");
             try {
-                send(Arrays.asList(NntpResponse.Error.UNKNOWN_COMMAND));
+                out.flush();
             } catch (IOException e) {
-                logger.l4("Failed to send error response", e);
+                logger.l4("Failed to send response", e);
             }
-        } catch (EndOfSessionException eose) {
-            logger.l4("Client cancel session.");
+            close();
         } catch (Throwable e) {
             logger.l4("Unknown problem during line processing.", e);
-        } finally {
-            IOUtils.closeQuietly(out);
-            IOUtils.closeQuietly(in);
-            IOUtils.closeQuietly(socket);
+            close();
+        }
+    }
+
+    private void handle(String line) {
+        if (session.isPost() && line.equals(NntpResponse.END)) {
+            // end of post
+            process(NntpCommand.POST, session.getPostParams());
+        } else if (session.isPost()) {
+            // post in progress, undo dot-stuffing
+            session.getPostParams().add(line.startsWith(".") ? line.substring(1) : line);
+        } else {
+            // casual line
+            logger.l4("[C] " + line);
+            try {
+                process(line);
+            } catch (UnknownCommandException | ProcessorNotFoundException e) {
+                logger.l4("Unknown line '" + line + "'.");
+                out.status(NntpResponse.Error.UNKNOWN_COMMAND);
+            }
         }
+    }
 
+    /**
+     * Close the connection; safe to call more than once.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            in.close();
+        }
+        IOUtils.closeQuietly(channel);
+        IOUtils.closeQuietly(stream);
+        server.closed(this);
     }
 
-    private Collection<String> process(NntpCommand command, Collection<String> params) {
+    private void process(NntpCommand command, Collection<String> params) {
         Processor processor = ProcessorResolver.processor(command);
         if (processor == null) {
             logger.l4("Can't find processor for command '" + command + "'.");
             throw new ProcessorNotFoundException();
         }
-        return processor.process(params, selectedGroupId, selectedArticleId, auth);
+        processor.process(params, session, out);
     }
 
     /**
-     * Send response to client.
+     * Process command from client.
      *
-     * @param response response.
+     * @param line command line.
      */
-    private void send(Collection<String> response) throws IOException {
-        logger.l3("Sending response with " + response.size() + " lines");
-        int lineCount = 0;
-        for (String message : response) {
-            lineCount++;
-            logger.l4("[S] " + message);
-            out.print(message + "\r\n");
-            out.flush();
-            if (lineCount % 10 == 0) {
-                logger.l4("Sent " + lineCount + " lines so far...");
-            }
-        }
-        logger.l3("Response send completed - total lines: " + lineCount);
+    private void process(String line) {
+        Command command = findCommand(line);
+        process(command.command, command.params);
     }
 
     /**
-     * Process command from client.
-     *
-     * @param command command.
-     * @return response.
+     * Command with its arguments, made per line so sessions served by
+     * different workers never share arguments.
      */
-    private Collection<String> process(String command) {
-        NntpCommand parsedCommand = findCommand(command);
-        if (parsedCommand != null) {
-            Processor processor = ProcessorResolver.processor(parsedCommand);
-            if (processor == null) {
-                logger.l4("Can't find processor for command '" + command + "'.");
-                throw new ProcessorNotFoundException();
-            }
-            return processor.process(parsedCommand.getParams(), selectedGroupId, selectedArticleId, auth);
-        }
+    private static final class Command {
+        private final NntpCommand command;
+        private final Collection<String> params;
 
-        throw new UnknownCommandException();
+        private Command(NntpCommand command, Collection<String> params) {
+            this.command = command;
+            this.params = params;
+        }
     }
 
     /**
      * Find command in supported commands.
      *
-     * @param command command.
-     * @return supported command.
+     * @param line command line.
+     * @return supported command with its arguments.
      */
-    private NntpCommand findCommand(String command) {
-        String[] parts = StringUtils.split(command, DELIMITER);
-        NntpCommand foundedCommand;
-
-        if (parts == null) {
+    private Command findCommand(String line) {
+        String[] parts = StringUtils.split(line, DELIMITER);
+        if (parts == null || parts.length == 0) {
             throw new UnknownCommandException();
         }
 
         if (parts.length == 1) {
-            foundedCommand = NntpCommand.find(command);
-            if (foundedCommand == null) {
+            NntpCommand command = NntpCommand.find(line);
+            if (command == null) {
                 throw new UnknownCommandException();
             }
-            foundedCommand.setParams(Collections.emptyList());
-            return foundedCommand;
+            return new Command(command, Collections.emptyList());
         }
 
-        foundedCommand = NntpCommand.find(parts[0] + DELIMITER + parts[1]);
-        if (foundedCommand == null) {
-            foundedCommand = findCommand(parts[0]);
-            if (foundedCommand == null) {
-                throw new UnknownCommandException();
-            } else {
-                foundedCommand.setParams(prepareParams(parts, true));
-            }
-        } else {
-            foundedCommand.setParams(prepareParams(parts, false));
+        NntpCommand command = NntpCommand.find(parts[0] + DELIMITER + parts[1]);
+        if (command != null) {
+            return new Command(command, prepareParams(parts, false));
+        }
+        command = NntpCommand.find(parts[0]);
+        if (command == null) {
+            throw new UnknownCommandException();
         }
-        return foundedCommand;
+        return new Command(command, prepareParams(parts, true));
     }
 
     /**
@@ -1,15 +1,16 @@
 package org.jnode.nntp;
 
+import jnode.event.DeletedEchoareaEvent;
 import jnode.event.IEvent;
+import jnode.event.NewEchomailEvent;
+import jnode.event.Notifier;
 import jnode.logger.Logger;
 import jnode.module.JnodeModule;
 import jnode.module.JnodeModuleException;
+import jnode.orm.ORMManager;
+import org.jnode.nntp.model.GroupState;
+import org.jnode.nntp.model.Overview;
 
-import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,81 +24,49 @@ import java.util.concurrent.TimeUnit;
 public class NntpModule extends JnodeModule {
 
 	private static final Logger logger = Logger.getLogger(NntpModule.class);
-	private ExecutorService executor;
-	private ServerSocket serverSocket;
 
 	private static final String DEFAULT_PORT = "1119";
 	private static final String PORT_PROPERTY = "nntp.port";
-	private static final int THREAD_POOL_SIZE = 50;
+	private static final String THREADS_PROPERTY = "nntp.threads";
+	private static final String DEFAULT_THREADS = "16";
+	private static final String CONNECTIONS_PROPERTY = "nntp.connections";
+	private static final String DEFAULT_CONNECTIONS = "500";
+	// RFC 3977 asks for at least three minutes
+	private static final String IDLE_PROPERTY = "nntp.idle";
+	private static final String DEFAULT_IDLE = "600";
 
 	public NntpModule(String configFile) throws JnodeModuleException {
 		super(configFile);
-		this.executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+		// create the tables before clients and the tosser race for them
+		ORMManager.get(Overview.class);
+		ORMManager.get(GroupState.class);
+		Notifier.INSTANCE.register(NewEchomailEvent.class, this);
+		Notifier.INSTANCE.register(DeletedEchoareaEvent.class, this);
 	}
 
 	@Override
 	public void start() {
 		String port = properties.getProperty(PORT_PROPERTY, DEFAULT_PORT);
 		logger.l4("Using the following port for NNTP: " + port);
-		
-		try {
-			serverSocket = new ServerSocket(Integer.valueOf(port));
-			logger.l4("NNTP server started on port " + port);
-			
-			while (!Thread.currentThread().isInterrupted()) {
-				try {
-					Socket socket = serverSocket.accept();
-					logger.l4("New client accepted from " + socket.getRemoteSocketAddress());
-					
-					// Use thread pool instead of creating new threads
-					executor.submit(new NntpClient(socket));
-					
-				} catch (IOException e) {
-					if (!Thread.currentThread().isInterrupted()) {
-						logger.l2("Error accepting client connection", e);
-					}
-				}
-			}
 
-		} catch (IOException e) {
-			Thread.currentThread().interrupt();
-			logger.l1("NNTP module can't be initialised.", e);
-		} finally {
-			cleanup();
-		}
-	}
-	
-	private void cleanup() {
-		logger.l4("Shutting down NNTP module");
-		
-		// Close server socket
-		if (serverSocket != null && !serverSocket.isClosed()) {
-			try {
-				serverSocket.close();
-			} catch (IOException e) {
-				logger.l2("Error closing server socket", e);
-			}
-		}
-		
-		// Shutdown executor
-		if (executor != null && !executor.isShutdown()) {
-			executor.shutdown();
-			try {
-				if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
-					executor.shutdownNow();
-					if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
-						logger.l2("Thread pool did not terminate");
-					}
-				}
-			} catch (InterruptedException e) {
-				executor.shutdownNow();
-				Thread.currentThread().interrupt();
-			}
-		}
+		// catch up with echomail stored while the module was down
+		Thread indexer = new Thread(() -> OverviewIndex.getSelf().syncAll(), "nntp-index");
+		indexer.setDaemon(true);
+		indexer.start();
+
+		new NntpServer(Integer.parseInt(port),
+				Integer.parseInt(properties.getProperty(THREADS_PROPERTY, DEFAULT_THREADS)),
+				Integer.parseInt(properties.getProperty(CONNECTIONS_PROPERTY, DEFAULT_CONNECTIONS)),
+				TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty(IDLE_PROPERTY, DEFAULT_IDLE))))
+				.run();
 	}
 
 	@Override
 	public void handle(IEvent event) {
-
+		if (event instanceof NewEchomailEvent) {
+			OverviewIndex.getSelf().add(((NewEchomailEvent) event).getEchomail());
+		} else if (event instanceof DeletedEchoareaEvent) {
+			OverviewIndex.getSelf().deleted(((DeletedEchoareaEvent) event).getEchoarea());
+		}
 	}
 }
@@ -0,0 +1,160 @@
+package org.jnode.nntp;
+
+import jnode.logger.Logger;
+import org.apache.commons.io.IOUtils;
+import org.jnode.nntp.model.NntpResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector based NNTP server. One thread accepts connections and reads
+ * from all of them; commands run on a fixed pool of workers, so the number
+ * of connections is limited by memory, not by threads.
+ */
+public class NntpServer implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(NntpServer.class);
+    private static final long SELECT_TIMEOUT = 1000;
+
+    private final int port;
+    private final int maxConnections;
+    private final long idleTimeout;
+    private final ExecutorService executor;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(16384);
+
+    /**
+     * @param port           port to listen on.
+     * @param threads        number of workers running commands.
+     * @param maxConnections connections over it are refused with 400.
+     * @param idleTimeout    idle connections are closed after it, ms.
+     */
+    public NntpServer(int port, int threads, int maxConnections, long idleTimeout) {
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.idleTimeout = idleTimeout;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "nntp-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run() {
+        try (Selector selector = Selector.open();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            logger.l4("NNTP server started on port " + port);
+
+            long lastCheck = System.currentTimeMillis();
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select(SELECT_TIMEOUT);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(selector, server);
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastCheck >= SELECT_TIMEOUT) {
+                    lastCheck = now;
+                    for (SelectionKey key : selector.keys()) {
+                        if (key.isValid() && key.attachment() instanceof NntpClient) {
+                            ((NntpClient) key.attachment()).checkIdle(now, idleTimeout);
+                        }
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NntpClient) {
+                    ((NntpClient) key.attachment()).close();
+                }
+            }
+        } catch (IOException e) {
+            logger.l1("NNTP module can't be initialised.", e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept(Selector selector, ServerSocketChannel server) {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            if (connections.get() >= maxConnections) {
+                logger.l3("Refused " + channel.getRemoteAddress() + ": " + maxConnections + " connections");
+                // fits into the socket buffer of a new connection
+                channel.write(ByteBuffer.wrap((NntpResponse.Unavailable.TOO_MANY_CONNECTIONS + "\r\n")
+                        .getBytes(StandardCharsets.US_ASCII)));
+                channel.close();
+                return;
+            }
+            logger.l4("New client accepted from " + channel.getRemoteAddress());
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            NntpClient client = new NntpClient(this, channel, key, executor, idleTimeout);
+            key.attach(client);
+            connections.incrementAndGet();
+            client.start();
+        } catch (IOException e) {
+            logger.l2("Error accepting client connection", e);
+            IOUtils.closeQuietly(channel);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        NntpClient client = (NntpClient) key.attachment();
+        try {
+            if (!client.read(buffer)) {
+                logger.l4("Client closed connection");
+                client.close();
+            }
+        } catch (IOException | CancelledKeyException e) {
+            logger.l4("Closing connection: " + e.getMessage());
+            client.close();
+        }
+    }
+
+    void closed(NntpClient client) {
+        connections.decrementAndGet();
+    }
+
+    private void shutdown() {
+        logger.l4("Shutting down NNTP module");
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
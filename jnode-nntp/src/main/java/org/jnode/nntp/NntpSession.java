@@ -0,0 +1,72 @@
+package org.jnode.nntp;
+
+import com.google.common.collect.Lists;
+import org.jnode.nntp.model.Auth;
+import org.jnode.nntp.model.NewsGroup;
+
+import java.util.Collection;
+
+/**
+ * State of one client connection: selected group and article, credentials
+ * and the article being posted. Owned by {@link NntpClient} and passed to
+ * every {@link Processor}.
+ */
+public class NntpSession {
+
+    private Long selectedGroupId;
+    private String selectedGroupName;
+    private Long selectedArticleId;
+    private Auth auth;
+    private Collection<String> postParams;
+
+    public Long getSelectedGroupId() {
+        return selectedGroupId;
+    }
+
+    public String getSelectedGroupName() {
+        return selectedGroupName;
+    }
+
+    public void setSelectedGroup(NewsGroup group) {
+        this.selectedGroupId = group.getId();
+        this.selectedGroupName = group.getName();
+    }
+
+    public Long getSelectedArticleId() {
+        return selectedArticleId;
+    }
+
+    public void setSelectedArticleId(Long selectedArticleId) {
+        this.selectedArticleId = selectedArticleId;
+    }
+
+    public Auth getAuth() {
+        return auth;
+    }
+
+    public void setAuth(Auth auth) {
+        this.auth = auth;
+    }
+
+    /**
+     * Start collecting article lines after POST.
+     */
+    public void startPost() {
+        postParams = Lists.newLinkedList();
+    }
+
+    public void endPost() {
+        postParams = null;
+    }
+
+    public boolean isPost() {
+        return postParams != null;
+    }
+
+    /**
+     * @return lines of the article being posted, null if there is no post in progress.
+     */
+    public Collection<String> getPostParams() {
+        return postParams;
+    }
+}
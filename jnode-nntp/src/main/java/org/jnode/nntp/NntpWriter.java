@@ -0,0 +1,123 @@
+package org.jnode.nntp;
+
+import jnode.logger.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Response sink of a connection. Lines are buffered and go to the socket
+ * when the response is complete, or when the buffer fills up, so a response
+ * of any size takes constant memory. Processors write a status line, then
+ * data lines and {@link #end()} for multi-line responses.
+ */
+public class NntpWriter {
+
+    private static final Logger logger = Logger.getLogger(NntpWriter.class);
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] END = {'.', '\r', '\n'};
+
+    private final OutputStream socket;
+    private OutputStream out;
+    private boolean compressed;
+    private int lines;
+
+    public NntpWriter(OutputStream socket) {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket, BUFFER_SIZE);
+    }
+
+    /**
+     * Write status line of the response.
+     */
+    public void status(String status) {
+        logger.l4("[S] " + status);
+        write(status);
+    }
+
+    /**
+     * Write data line of a multi-line response; a leading '.' is doubled.
+     */
+    public void line(String line) {
+        if (!line.isEmpty() && line.charAt(0) == '.') {
+            write("." + line);
+        } else {
+            write(line);
+        }
+    }
+
+    /**
+     * Write text as data lines; any of CRLF, CR or LF ends a line.
+     */
+    public void text(String text) {
+        if (text == null) {
+            return;
+        }
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && text.charAt(end) != '\r' && text.charAt(end) != '\n') {
+                end++;
+            }
+            line(text.substring(start, end));
+            if (end < length && text.charAt(end) == '\r' && end + 1 < length && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Terminate multi-line response.
+     */
+    public void end() {
+        try {
+            out.write(END);
+            lines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(String line) {
+        try {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+            lines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Send everything written so far; called once per response.
+     */
+    public void flush() throws IOException {
+        out.flush();
+        logger.l5("Response sent - total lines: " + lines);
+        lines = 0;
+    }
+
+    /**
+     * Send what was written so far as is and compress everything after it
+     * (RFC 8054).
+     */
+    public void startCompression() throws IOException {
+        out.flush();
+        // raw deflate, flushed at the end of every response
+        out = new BufferedOutputStream(new DeflaterOutputStream(socket,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, true), BUFFER_SIZE, true), BUFFER_SIZE);
+        compressed = true;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+}
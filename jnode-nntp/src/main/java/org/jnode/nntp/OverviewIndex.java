@@ -0,0 +1,222 @@
+package org.jnode.nntp;
+
+import jnode.dao.GenericDAO;
+import jnode.dto.Echoarea;
+import jnode.dto.Echomail;
+import jnode.logger.Logger;
+import jnode.orm.ORMManager;
+import jnode.store.AreaFollower;
+import org.jnode.nntp.model.GroupState;
+import org.jnode.nntp.model.Overview;
+import org.jnode.nntp.util.MessageIds;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Overview index of echoareas. Articles of a group are numbered 1..high in
+ * the order they were stored, so there are no gaps. New echomail is appended
+ * on {@link jnode.event.NewEchomailEvent}; anything stored while the module
+ * was down is picked up from the echomail store by {@link #syncAll()} or the
+ * first time the group is used, see {@link AreaFollower}. Watermarks are kept
+ * in memory and in the nntp_group table, so LIST and GROUP never run aggregate
+ * queries.
+ */
+public class OverviewIndex extends AreaFollower<OverviewIndex.Group> {
+
+    private static final Logger logger = Logger.getLogger(OverviewIndex.class);
+    private static final String REPLY = "\001REPLY:";
+    private static final int BATCH = 500;
+
+    private static final OverviewIndex self = new OverviewIndex();
+
+    static final class Group {
+        private long high;
+        private long lastEchomailId;
+    }
+
+    public static OverviewIndex getSelf() {
+        return self;
+    }
+
+    private OverviewIndex() {
+    }
+
+    private GenericDAO<Overview> dao() {
+        return ORMManager.get(Overview.class);
+    }
+
+    private GenericDAO<GroupState> stateDao() {
+        return ORMManager.get(GroupState.class);
+    }
+
+    @Override
+    protected Map<Long, Group> load() {
+        Map<Long, Group> groups = new HashMap<>();
+        for (GroupState state : stateDao().getAll()) {
+            Group group = new Group();
+            group.high = state.getHigh();
+            group.lastEchomailId = state.getLastEchomailId();
+            groups.put(state.getAreaId(), group);
+        }
+        return groups;
+    }
+
+    @Override
+    protected Group create(Long areaId) {
+        // indexed before watermarks were saved
+        Group group = new Group();
+        List<Overview> last = dao().getOrderLimitAnd(1, "article", false, "echoarea_id", "=", areaId);
+        if (!last.isEmpty()) {
+            group.high = last.get(0).getArticle();
+            last = dao().getOrderLimitAnd(1, "echomail_id", false, "echoarea_id", "=", areaId);
+            group.lastEchomailId = last.get(0).getEchomailId();
+        }
+        return group;
+    }
+
+    @Override
+    protected long lastId(Group group) {
+        return group.lastEchomailId;
+    }
+
+    @Override
+    protected void apply(Echoarea area, Group group, List<Echomail> mails) {
+        long article = group.high;
+        long lastEchomailId = group.lastEchomailId;
+        for (Echomail mail : mails) {
+            lastEchomailId = Math.max(lastEchomailId, mail.getId());
+        }
+        reserve(group, area.getId(), mails.size(), lastEchomailId);
+        for (Echomail mail : mails) {
+            append(area.getId(), ++article, mail);
+        }
+        if (mails.size() > 1) {
+            logger.l3("Indexed " + mails.size() + " articles of " + area.getName());
+        }
+    }
+
+    /**
+     * Index echomail stored after the last indexed one.
+     *
+     * @param area echoarea.
+     * @return number of the last article in the group, 0 if it is empty.
+     */
+    public long getHigh(Echoarea area) {
+        return read(area, group -> group.high);
+    }
+
+    /**
+     * Append new echomail to its group.
+     *
+     * @param mail saved echomail.
+     */
+    public void add(Echomail mail) {
+        if (mail.getId() == null || mail.getArea() == null) {
+            return;
+        }
+        // picks this one up as well
+        sync(mail.getArea());
+        added(mail);
+    }
+
+    /**
+     * Drop the group of a deleted echoarea.
+     *
+     * @param area deleted echoarea.
+     */
+    public void deleted(Echoarea area) {
+        forget(area.getId());
+        dao().delete("echoarea_id", "=", area.getId());
+        stateDao().delete("echoarea_id", "=", area.getId());
+        logger.l4("Dropped overview of " + area.getName());
+    }
+
+    // saved before the articles, so a crash leaves a gap rather than a number given out twice
+    private void reserve(Group group, Long areaId, int count, long lastEchomailId) {
+        group.high += count;
+        group.lastEchomailId = lastEchomailId;
+        GroupState state = new GroupState();
+        state.setAreaId(areaId);
+        state.setHigh(group.high);
+        state.setLastEchomailId(group.lastEchomailId);
+        stateDao().saveOrUpdate(state);
+    }
+
+    private void append(Long areaId, long article, Echomail mail) {
+        Overview overview = new Overview();
+        overview.setAreaId(areaId);
+        overview.setArticle(article);
+        overview.setEchomailId(mail.getId());
+        overview.setSubject(mail.getSubject());
+        overview.setFrom(mail.getFromName() + " " + mail.getFromFTN());
+        overview.setDate(mail.getDate());
+        overview.setMsgid(mail.getMsgid());
+        overview.setMsgidHash(MessageIds.hash(mail.getMsgid()));
+        String text = mail.getText() == null ? "" : mail.getText();
+        overview.setReply(reply(text));
+        overview.setBytes((long) text.getBytes(StandardCharsets.UTF_8).length);
+        overview.setLines(lines(text));
+        dao().save(overview);
+    }
+
+    /**
+     * @param areaId echoarea id.
+     * @return number of the last article, 0 if the group is empty or was not synced.
+     */
+    public long getHigh(Long areaId) {
+        return read(areaId, group -> group.high);
+    }
+
+    public Overview get(Long areaId, long article) {
+        return dao().getFirstAnd("echoarea_id", "=", areaId, "article", "=", article);
+    }
+
+    /**
+     * @param messageId Message-ID as returned by {@link MessageIds#messageId(String)}.
+     * @return overview of the article, null if there is none.
+     */
+    public Overview get(String messageId) {
+        Long hash = MessageIds.parse(messageId);
+        return hash == null ? null : dao().getFirstAnd("msgid_hash", "=", hash);
+    }
+
+    /**
+     * Visit overview of articles from..to in ascending order without holding the whole range in memory.
+     */
+    public void forEach(Long areaId, long from, long to, Consumer<Overview> action) {
+        dao().forEachAnd(BATCH, action, "echoarea_id", "=", areaId, "article", ">=", from, "article", "<=", to);
+    }
+
+    static String reply(String text) {
+        int start = text.indexOf(REPLY);
+        if (start < 0) {
+            return null;
+        }
+        start += REPLY.length();
+        int end = start;
+        while (end < text.length() && text.charAt(end) != '\r' && text.charAt(end) != '\n') {
+            end++;
+        }
+        String reply = text.substring(start, end).trim();
+        return reply.isEmpty() ? null : reply;
+    }
+
+    static int lines(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        int lines = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+                lines++;
+            }
+        }
+        char last = text.charAt(text.length() - 1);
+        return (last == '\n' || last == '\r') ? lines : lines + 1;
+    }
+}
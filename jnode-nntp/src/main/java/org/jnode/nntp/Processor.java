@@ -1,10 +1,11 @@
 package org.jnode.nntp;
 
-import org.jnode.nntp.model.Auth;
-
 import java.util.Collection;
 
 public interface Processor {
 
-    Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth);
+    /**
+     * Write the response to the command; the client flushes it afterwards.
+     */
+    void process(Collection<String> params, NntpSession session, NntpWriter out);
 }
@@ -11,12 +11,20 @@ public class ProcessorResolver {
     private static final Map<NntpCommand, Processor> map = Maps.newHashMap();
 
     static {
+        map.put(NntpCommand.CAPABILITIES, new CapabilitiesProcessor());
+        map.put(NntpCommand.COMPRESS, new CompressProcessor());
         map.put(NntpCommand.MODE_READER, new ModeReaderProcessor());
         map.put(NntpCommand.LIST, new ListProcessor());
+        map.put(NntpCommand.LIST_OVERVIEW_FMT, new ListOverviewFmtProcessor());
         map.put(NntpCommand.GROUP, new GroupProcessor());
+        map.put(NntpCommand.LISTGROUP, new ListGroupProcessor());
         map.put(NntpCommand.XOVER, new XoverProcessor());
+        map.put(NntpCommand.OVER, map.get(NntpCommand.XOVER));
+        map.put(NntpCommand.HDR, new HdrProcessor());
         map.put(NntpCommand.HEAD, new HeadProcessor());
         map.put(NntpCommand.ARTICLE, new ArticleProcessor());
+        map.put(NntpCommand.BODY, new BodyProcessor());
+        map.put(NntpCommand.STAT, new StatProcessor());
         map.put(NntpCommand.QUIT, new QuitProcessor());
         map.put(NntpCommand.AUTHINFO_USER, new AuthInfoUserProcessor());
         map.put(NntpCommand.AUTHINFO_PASS, new AuthInfoPassProcessor());
@@ -1,23 +0,0 @@
-package org.jnode.nntp.event;
-
-import jnode.event.IEvent;
-import org.apache.commons.lang3.StringUtils;
-import org.jnode.nntp.model.NewsGroup;
-
-public class GroupSelectedEvent implements IEvent {
-
-    private NewsGroup selectedGroup;
-
-    public GroupSelectedEvent(NewsGroup selectedGroup) {
-        this.selectedGroup = selectedGroup;
-    }
-
-    public NewsGroup getSelectedGroup() {
-        return selectedGroup;
-    }
-
-    @Override
-    public String getEvent() {
-        return StringUtils.EMPTY;
-    }
-}
@@ -0,0 +1,48 @@
+package org.jnode.nntp.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Article range argument of OVER, HDR and LISTGROUP: "n", "n-" or "n-m".
+ */
+public class ArticleRange {
+
+    private final long low;
+    private final long high;
+
+    public ArticleRange(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * @param range range argument.
+     * @return parsed range, null if it is not a range.
+     */
+    public static ArticleRange parse(String range) {
+        if (StringUtils.isEmpty(range)) {
+            return null;
+        }
+        int dash = range.indexOf('-');
+        try {
+            if (dash < 0) {
+                long n = Long.parseLong(range);
+                return n < 0 ? null : new ArticleRange(n, n);
+            }
+            long low = Long.parseLong(range.substring(0, dash));
+            String to = range.substring(dash + 1);
+            long high = to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to);
+            return (low < 0 || high < 0) ? null : new ArticleRange(low, high);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+}
@@ -0,0 +1,45 @@
+package org.jnode.nntp.model;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * Watermarks of an indexed group, so they are known after a restart
+ * without scanning the overview table.
+ */
+@DatabaseTable(tableName = "nntp_group")
+public class GroupState {
+    @DatabaseField(columnName = "echoarea_id", id = true)
+    private Long areaId;
+    @DatabaseField(columnName = "high", canBeNull = false, defaultValue = "0")
+    private Long high;
+    @DatabaseField(columnName = "last_echomail_id", canBeNull = false, defaultValue = "0")
+    private Long lastEchomailId;
+
+    public Long getAreaId() {
+        return areaId;
+    }
+
+    public void setAreaId(Long areaId) {
+        this.areaId = areaId;
+    }
+
+    /**
+     * @return highest article number given out; numbers are reserved before the articles are indexed.
+     */
+    public Long getHigh() {
+        return high;
+    }
+
+    public void setHigh(Long high) {
+        this.high = high;
+    }
+
+    public Long getLastEchomailId() {
+        return lastEchomailId;
+    }
+
+    public void setLastEchomailId(Long lastEchomailId) {
+        this.lastEchomailId = lastEchomailId;
+    }
+}
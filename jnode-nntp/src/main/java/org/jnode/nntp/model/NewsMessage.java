@@ -8,6 +8,7 @@ public class NewsMessage extends NntpEntity {
     private String body;
     private String path;
     private String messageId;
+    private String references;
 
     public String getMessageId() {
         return messageId;
@@ -17,6 +18,14 @@ public class NewsMessage extends NntpEntity {
         this.messageId = messageId;
     }
 
+    public String getReferences() {
+        return references;
+    }
+
+    public void setReferences(String references) {
+        this.references = references;
+    }
+
     public String getPath() {
         return path;
     }
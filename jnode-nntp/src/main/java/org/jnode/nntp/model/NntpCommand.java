@@ -1,16 +1,15 @@
 package org.jnode.nntp.model;
 
-import java.util.Collection;
-
 public enum NntpCommand {
     ARTICLE("ARTICLE"),
     AUTHINFO_USER("AUTHINFO user"),
     AUTHINFO_PASS("AUTHINFO pass"),
-    BODY,
-    CAPABILITIES,
+    BODY("BODY"),
+    CAPABILITIES("CAPABILITIES"),
+    COMPRESS("COMPRESS"),
     DATE,
     GROUP("GROUP"),
-    HDR,
+    HDR("HDR"),
     HEAD("HEAD"),
     HELP,
     IHAVE,
@@ -21,20 +20,19 @@ public enum NntpCommand {
     LIST_DISTRIB_PATS,
     LIST_HEADERS,
     LIST_NEWSGROUPS,
-    LIST_OVERVIEW_FMT,
-    LISTGROUP,
+    LIST_OVERVIEW_FMT("LIST OVERVIEW.FMT"),
+    LISTGROUP("LISTGROUP"),
     MODE_READER("MODE READER"),
     NEWGROUPS,
     NEWNEWS,
     NEXT,
-    OVER,
+    OVER("OVER"),
     XOVER("XOVER"),
     POST("POST"),
     QUIT("QUIT"),
-    STAT;
+    STAT("STAT");
 
     private String command;
-    private Collection<String> params;
 
     NntpCommand(String command) {
         this.command = command;
@@ -47,14 +45,6 @@ public enum NntpCommand {
         return command;
     }
 
-    public Collection<String> getParams() {
-        return params;
-    }
-
-    public void setParams(Collection<String> params) {
-        this.params = params;
-    }
-
     public static NntpCommand find(String command) {
         for (NntpCommand nntpCommand : NntpCommand.values()) {
              if (command.equalsIgnoreCase(nntpCommand.getCommand())) {
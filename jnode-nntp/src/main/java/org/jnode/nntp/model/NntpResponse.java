@@ -25,9 +25,15 @@ public class NntpResponse {
         public static final String SERVICE_AVAILABLE_POSTING_PROHIBITED = "201 jnode NNTP Service Ready - no posting";
     }
 
+    public static class Unavailable {
+        public static final String TOO_MANY_CONNECTIONS = "400 Too many connections, try again later";
+        public static final String IDLE_TIMEOUT = "400 Idle timeout, closing connection";
+    }
+
     public static class List {
         public static final String LIST_OF_NEWSGROUPS = "215 list of newsgroups follows";
         public static final String SYNTAX_ERROR = "501 Syntax Error";
+        public static final String ORDER_OF_FIELDS = "215 Order of fields in overview database";
     }
 
     public static class Group {
@@ -40,6 +46,11 @@ public class NntpResponse {
         public static final String GROUP_SUCCESSFULLY_SELECTED = "211 {number} {low} {high} {group} Group successfully selected";
 
         public static final String NO_SUCH_NEWSGROUP = "411 No such newsgroup";
+        public static final String NO_NEWSGROUP_SELECTED = "412 No newsgroup selected";
+    }
+
+    public static class ListGroup {
+        public static final String ARTICLE_NUMBERS_FOLLOW = "211 {number} {low} {high} {group} Article numbers follow";
     }
 
     public static class Head {
@@ -49,6 +60,14 @@ public class NntpResponse {
         public static final String CURRENT_ARTICLE_NUMBER_IS_INVALID = "420 Current article number is invalid";
     }
 
+    public static class Body {
+        public static final String BODY_FOLLOWS = "222 {n} {message-id} Body follows";
+    }
+
+    public static class Stat {
+        public static final String ARTICLE_EXISTS = "223 {n} {message-id} Article exists";
+    }
+
     public static class ModeReader {
         public static final String POSTING_ALLOWED = "200 Posting allowed";
         public static final String POSTING_PROHIBITED = "201 Posting prohibited";
@@ -80,8 +99,21 @@ public class NntpResponse {
         public static final String NO_NEWS_GROUP_CURRENT_SELECTED = "412 No news group current selected";
         public static final String NO_ARTICLE_SELECTED = "420 No article(s) selected";
         public static final String NO_PERMISSION = "502 no permission";
+        public static final String NO_ARTICLES_IN_THAT_RANGE = "423 No articles in that range";
+    }
+
+    public static class Hdr {
+        public static final String HEADERS_FOLLOW = "225 Headers follow";
     }
     
+    public static class Capabilities {
+        public static final String CAPABILITY_LIST = "101 Capability list:";
+    }
+
+    public static class Compress {
+        public static final String COMPRESSION_ACTIVE = "206 Compression active";
+    }
+
     public static class Quit {
         public static final String CONNECTION_CLOSING = "205 Connection closing";
     }
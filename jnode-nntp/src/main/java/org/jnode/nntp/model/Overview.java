@@ -0,0 +1,141 @@
+package org.jnode.nntp.model;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+import java.util.Date;
+
+/**
+ * Overview line of an echomail: article number inside the group and the
+ * headers OVER/HDR return, so range scans never touch message bodies.
+ */
+@DatabaseTable(tableName = "nntp_overview")
+public class Overview {
+    @DatabaseField(columnName = "id", generatedId = true)
+    private Long id;
+    @DatabaseField(columnName = "echoarea_id", canBeNull = false, uniqueIndexName = "nntp_overview_idx")
+    private Long areaId;
+    @DatabaseField(columnName = "article", canBeNull = false, uniqueIndexName = "nntp_overview_idx")
+    private Long article;
+    @DatabaseField(columnName = "echomail_id", canBeNull = false, index = true)
+    private Long echomailId;
+    @DatabaseField(columnName = "subject", dataType = DataType.LONG_STRING)
+    private String subject;
+    @DatabaseField(columnName = "from_name")
+    private String from;
+    @DatabaseField(columnName = "date", dataType = DataType.DATE_LONG)
+    private Date date;
+    @DatabaseField(columnName = "msgid")
+    private String msgid;
+    @DatabaseField(columnName = "msgid_hash", index = true)
+    private Long msgidHash;
+    @DatabaseField(columnName = "reply")
+    private String reply;
+    @DatabaseField(columnName = "bytes", canBeNull = false, defaultValue = "0")
+    private Long bytes;
+    @DatabaseField(columnName = "lines", canBeNull = false, defaultValue = "0")
+    private Integer lines;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAreaId() {
+        return areaId;
+    }
+
+    public void setAreaId(Long areaId) {
+        this.areaId = areaId;
+    }
+
+    public Long getArticle() {
+        return article;
+    }
+
+    public void setArticle(Long article) {
+        this.article = article;
+    }
+
+    public Long getEchomailId() {
+        return echomailId;
+    }
+
+    public void setEchomailId(Long echomailId) {
+        this.echomailId = echomailId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public String getMsgid() {
+        return msgid;
+    }
+
+    public void setMsgid(String msgid) {
+        this.msgid = msgid;
+    }
+
+    /**
+     * @return 64-bit digest of the MSGID, see {@link org.jnode.nntp.util.MessageIds}.
+     */
+    public Long getMsgidHash() {
+        return msgidHash;
+    }
+
+    public void setMsgidHash(Long msgidHash) {
+        this.msgidHash = msgidHash;
+    }
+
+    /**
+     * @return MSGID from the REPLY kludge, null if the message is not a reply.
+     */
+    public String getReply() {
+        return reply;
+    }
+
+    public void setReply(String reply) {
+        this.reply = reply;
+    }
+
+    public Long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(Long bytes) {
+        this.bytes = bytes;
+    }
+
+    public Integer getLines() {
+        return lines;
+    }
+
+    public void setLines(Integer lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,101 @@
+package org.jnode.nntp.processor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jnode.nntp.Constants;
+import org.jnode.nntp.DataProvider;
+import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.NntpResponse;
+import org.jnode.nntp.util.HeaderEncodingUtil;
+import org.jnode.nntp.util.OverviewFormatter;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * ARTICLE, HEAD, BODY and STAT: the article is given by Message-ID, by
+ * number in the current group or is the current article (RFC 3977 section
+ * 6.2).
+ */
+public abstract class AbstractArticleProcessor extends BaseProcessor implements Processor {
+
+    private DataProvider dataProvider = new DataProviderImpl();
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        // Check authentication
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
+        }
+
+        String id = params.isEmpty() ? null : params.iterator().next();
+        if (id != null && id.startsWith("<")) {
+            // the current article stays as is
+            NewsMessage message = dataProvider.messageByMessageId(id);
+            if (message == null) {
+                out.status(NntpResponse.Article.NO_ARTICLE_WITH_THAT_MESSAGE_ID);
+            } else {
+                respond(status(0, message), message, out);
+            }
+            return;
+        }
+
+        if (session.getSelectedGroupId() == null) {
+            out.status(NntpResponse.Article.NO_NEWSGROUP_SELECTED);
+            return;
+        }
+        if (id == null && session.getSelectedArticleId() == null) {
+            out.status(NntpResponse.Article.CURRENT_ARTICLE_NUMBER_IS_INVALID);
+            return;
+        }
+
+        NewsMessage message = dataProvider.messageById(id == null ? session.getSelectedArticleId().toString() : id,
+                session.getSelectedGroupId());
+        if (message == null) {
+            out.status(id == null ? NntpResponse.Article.CURRENT_ARTICLE_NUMBER_IS_INVALID
+                    : NntpResponse.Article.NO_ARTICLE_WITH_THAT_NUMBER);
+            return;
+        }
+        session.setSelectedArticleId(message.getId());
+        respond(status(message.getId(), message), message, out);
+    }
+
+    /**
+     * @return status line with {n} and {message-id} filled in.
+     */
+    private String status(long n, NewsMessage message) {
+        String messageId = message.getMessageId();
+        if (messageId == null) {
+            // message without MSGID
+            messageId = "<" + message.getId() + "." + StringUtils.lowerCase(message.getGroupName()) + "@"
+                    + Constants.MESSAGE_ID_DOMAIN + ">";
+        }
+        String status = StringUtils.replace(status(), "{n}", Long.toString(n));
+        return StringUtils.replace(status, "{message-id}", messageId);
+    }
+
+    /**
+     * @return status line template with {n} and {message-id}.
+     */
+    protected abstract String status();
+
+    protected abstract void respond(String status, NewsMessage message, NntpWriter out);
+
+    protected void headers(NewsMessage message, NntpWriter out) {
+        out.line("Path: " + Objects.toString(message.getPath(), "not-for-mail"));
+        out.line("From: " + HeaderEncodingUtil.encodeFrom(message.getFrom()));
+        out.line("Newsgroups: " + message.getGroupName());
+        out.line("Subject: " + HeaderEncodingUtil.encodeSubject(message.getSubject()));
+        out.line("Date: " + OverviewFormatter.date(message.getCreatedDate()));
+        if (message.getMessageId() != null) {
+            out.line("Message-ID: " + message.getMessageId());
+        }
+        if (message.getReferences() != null) {
+            out.line("References: " + message.getReferences());
+        }
+    }
+}
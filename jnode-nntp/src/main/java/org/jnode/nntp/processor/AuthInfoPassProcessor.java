@@ -1,9 +1,10 @@
 package org.jnode.nntp.processor;
 
-import com.google.common.collect.Lists;
 import jnode.dto.Link;
 import org.jnode.nntp.DataProvider;
 import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
 import org.jnode.nntp.exception.UnknownCommandException;
 import org.jnode.nntp.model.Auth;
@@ -16,34 +17,31 @@ public class AuthInfoPassProcessor implements Processor {
     private DataProvider dataProvider = new DataProviderImpl();
 
     @Override
-    public Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        Auth auth = session.getAuth();
 
         if (params == null || params.size() != 1) {
             throw new UnknownCommandException();
         }
         
         if (auth == null) {
-            Collection<String> errorResponse = Lists.newLinkedList();
-            errorResponse.add(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
-            return errorResponse;
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
+            return;
         }
 
         String pass = params.iterator().next();
         
         // Validate password parameter
         if (pass == null || pass.trim().isEmpty() || pass.length() > 256) {
-            Collection<String> errorResponse = Lists.newLinkedList();
-            errorResponse.add(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
             auth.reset();
-            return errorResponse;
+            return;
         }
 
         Link link = dataProvider.link(auth, pass.trim());
 
-        Collection<String> response = Lists.newLinkedList();
-
         if (link == null) {
-            response.add(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_FAILED_OR_REJECTED);
             // Always reset auth state on failed authentication
             synchronized (auth) {
                 auth.reset();
@@ -53,10 +51,8 @@ public class AuthInfoPassProcessor implements Processor {
             synchronized (auth) {
                 auth.setLinkId(link.getId());
             }
-            response.add(NntpResponse.AuthInfo.AUTHENTIFICATION_ACCEPTED);
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_ACCEPTED);
         }
-
-        return response;
     }
 
 }
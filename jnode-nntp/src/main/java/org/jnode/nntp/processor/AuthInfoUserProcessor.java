@@ -1,10 +1,9 @@
 package org.jnode.nntp.processor;
 
-import com.google.common.collect.Lists;
-import jnode.event.Notifier;
 import org.apache.commons.lang3.StringUtils;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
-import org.jnode.nntp.event.AuthUserEvent;
 import org.jnode.nntp.exception.UnknownCommandException;
 import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NntpResponse;
@@ -16,7 +15,7 @@ public class AuthInfoUserProcessor implements Processor {
 
 
     @Override
-    public Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
         if (params == null || params.size() != 1) {
             throw new UnknownCommandException();
         }
@@ -26,10 +25,8 @@ public class AuthInfoUserProcessor implements Processor {
         String username = StringUtils.substring(user, 0, StringUtils.indexOf(user, "@"));
         String ftnAddress = Converter.convertEmailToFtn(user);
 
-        Notifier.INSTANCE.notify(new AuthUserEvent(new Auth(user, username, ftnAddress)));
+        session.setAuth(new Auth(user, username, ftnAddress));
 
-        Collection<String> response = Lists.newLinkedList();
-        response.add(NntpResponse.AuthInfo.PASSWORD_REQUIRED);
-        return response;
+        out.status(NntpResponse.AuthInfo.PASSWORD_REQUIRED);
     }
 }
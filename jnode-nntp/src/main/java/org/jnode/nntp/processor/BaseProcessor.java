@@ -1,6 +1,8 @@
 package org.jnode.nntp.processor;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.model.ArticleRange;
 import org.jnode.nntp.model.Auth;
 
 public class BaseProcessor {
@@ -19,4 +21,16 @@ public class BaseProcessor {
     public boolean requiresAuthentication() {
         return true;
     }
+
+    /**
+     * @param param range argument, null for the current article.
+     * @return requested range, null if the argument is malformed or no article is selected.
+     */
+    protected ArticleRange range(String param, NntpSession session) {
+        if (param == null) {
+            Long current = session.getSelectedArticleId();
+            return current == null ? null : new ArticleRange(current, current);
+        }
+        return ArticleRange.parse(param);
+    }
 }
@@ -0,0 +1,20 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.NntpResponse;
+
+public class BodyProcessor extends AbstractArticleProcessor {
+
+    @Override
+    protected String status() {
+        return NntpResponse.Body.BODY_FOLLOWS;
+    }
+
+    @Override
+    protected void respond(String status, NewsMessage message, NntpWriter out) {
+        out.status(status);
+        out.text(message.getBody());
+        out.end();
+    }
+}
@@ -0,0 +1,31 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.NntpResponse;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * RFC 3977 section 5.2; newsreaders only use OVER, HDR and COMPRESS when they are listed here.
+ */
+public class CapabilitiesProcessor implements Processor {
+
+    private static final List<String> CAPABILITIES = Arrays.asList("VERSION 2", "READER", "POST",
+            "AUTHINFO USER", "HDR", "OVER", "LIST ACTIVE OVERVIEW.FMT", "COMPRESS DEFLATE");
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        out.status(NntpResponse.Capabilities.CAPABILITY_LIST);
+        for (String capability : CAPABILITIES) {
+            if (capability.startsWith("COMPRESS") && out.isCompressed()) {
+                continue;
+            }
+            out.line(capability);
+        }
+        out.end();
+    }
+}
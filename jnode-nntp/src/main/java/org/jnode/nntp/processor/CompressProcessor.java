@@ -0,0 +1,39 @@
+package org.jnode.nntp.processor;
+
+import jnode.logger.Logger;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.NntpResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * COMPRESS DEFLATE (RFC 8054): both directions are deflated after the 206 response.
+ */
+public class CompressProcessor implements Processor {
+
+    private static final Logger logger = Logger.getLogger(CompressProcessor.class);
+    private static final String DEFLATE = "DEFLATE";
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        if (params.size() != 1 || !DEFLATE.equalsIgnoreCase(params.iterator().next())) {
+            out.status(NntpResponse.Error.SYNTAX_ERROR);
+            return;
+        }
+        if (out.isCompressed()) {
+            out.status(NntpResponse.AuthInfo.COMMAND_UNAVAILABLE);
+            return;
+        }
+        out.status(NntpResponse.Compress.COMPRESSION_ACTIVE);
+        try {
+            out.startCompression();
+        } catch (IOException e) {
+            logger.l2("Can't start compression", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,59 +1,47 @@
 package org.jnode.nntp.processor;
 
-import jnode.event.Notifier;
 import org.apache.commons.lang3.StringUtils;
 import org.jnode.nntp.DataProvider;
 import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
-import org.jnode.nntp.event.GroupSelectedEvent;
-import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NewsGroup;
 import org.jnode.nntp.model.NntpResponse;
 
 import java.util.Collection;
-import java.util.LinkedList;
 
 public class GroupProcessor extends BaseProcessor implements Processor {
 
     private DataProvider dataProvider = new DataProviderImpl();
 
     @Override
-    public Collection<String> process(Collection<String> params, Long id, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
         // Check authentication
-        if (!isAuthorized(auth)) {
-            Collection<String> response = new LinkedList<>();
-            response.add(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
-            return response;
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
         }
 
         String groupName = params.iterator().next();
-        NewsGroup group = dataProvider.newsGroup(groupName, auth);
+        NewsGroup group = dataProvider.newsGroup(groupName, session.getAuth());
         if (group == null) {
-            return responseNotFound();
+            out.status(NntpResponse.Group.NO_SUCH_NEWSGROUP);
+            return;
         }
 
-        Notifier.INSTANCE.notify(new GroupSelectedEvent(group));
+        session.setSelectedGroup(group);
+        session.setSelectedArticleId(group.getNumberOfArticles() > 0 ? group.getReportedLowWatermark() : null);
 
-        return responseGroup(groupName, group);
+        out.status(responseGroup(groupName, group));
     }
 
-    private Collection<String> responseNotFound() {
-        Collection<String> response = new LinkedList<>();
-        response.add(NntpResponse.Group.NO_SUCH_NEWSGROUP);
-        return response;
-    }
-
-    private Collection<String> responseGroup(String groupName, NewsGroup group) {
-        Collection<String> response = new LinkedList<>();
-
+    private String responseGroup(String groupName, NewsGroup group) {
         String resposeCode = NntpResponse.Group.GROUP_SUCCESSFULLY_SELECTED;
         resposeCode = StringUtils.replace(resposeCode, "{number}", Long.toString(group.getNumberOfArticles()));
         resposeCode = StringUtils.replace(resposeCode, "{low}", Long.toString(group.getReportedLowWatermark()));
         resposeCode = StringUtils.replace(resposeCode, "{high}", Long.toString(group.getReportedHighWatermark()));
         resposeCode = StringUtils.replace(resposeCode, "{group}", groupName);
-
-        response.add(resposeCode);
-
-        return response;
+        return resposeCode;
     }
 }
@@ -0,0 +1,54 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.DataProvider;
+import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.ArticleRange;
+import org.jnode.nntp.model.NntpResponse;
+import org.jnode.nntp.util.OverviewFormatter;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * HDR field [range], served from the overview index; fields that are not in
+ * the overview come back empty.
+ */
+public class HdrProcessor extends BaseProcessor implements Processor {
+
+    private DataProvider dataProvider = new DataProviderImpl();
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        // Check authentication
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
+        }
+
+        if (params.isEmpty() || params.size() > 2) {
+            out.status(NntpResponse.Error.SYNTAX_ERROR);
+            return;
+        }
+
+        if (session.getSelectedGroupId() == null) {
+            out.status(NntpResponse.Xover.NO_NEWS_GROUP_CURRENT_SELECTED);
+            return;
+        }
+
+        Iterator<String> it = params.iterator();
+        final String field = it.next();
+        ArticleRange range = range(it.hasNext() ? it.next() : null, session);
+        if (range == null) {
+            out.status(params.size() == 1 ? NntpResponse.Xover.NO_ARTICLE_SELECTED : NntpResponse.Error.SYNTAX_ERROR);
+            return;
+        }
+
+        MultiLine response = new MultiLine(out, NntpResponse.Hdr.HEADERS_FOLLOW);
+        dataProvider.overview(session.getSelectedGroupId(), range.getLow(), range.getHigh(), session.getAuth(),
+                overview -> response.line(overview.getArticle() + " " + OverviewFormatter.field(overview, field)));
+        response.end(NntpResponse.Xover.NO_ARTICLES_IN_THAT_RANGE);
+    }
+}
@@ -1,95 +1,21 @@
 package org.jnode.nntp.processor;
 
-import org.apache.commons.lang3.StringUtils;
-import org.jnode.nntp.DataProvider;
-import org.jnode.nntp.DataProviderImpl;
-import org.jnode.nntp.Processor;
-import org.jnode.nntp.model.Auth;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.model.NewsMessage;
 import org.jnode.nntp.model.NntpResponse;
-import org.jnode.nntp.util.HeaderEncodingUtil;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
-public class HeadProcessor extends BaseProcessor implements Processor {
-
-    private DataProvider dataProvider = new DataProviderImpl();
+public class HeadProcessor extends AbstractArticleProcessor {
 
     @Override
-    public Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth) {
-        // Check authentication
-        if (!isAuthorized(auth)) {
-            Collection<String> response = new LinkedList<>();
-            response.add(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
-            return response;
-        }
-
-        String id;
-        if (params.isEmpty()) {
-            id = Long.toString(selectedArticleId);
-        } else {
-            id = params.iterator().next();
-        }
-
-        // try to find message by id
-        NewsMessage message = dataProvider.messageById(id, selectedGroupId);
-        if (message == null) {
-            // try to find message by message id
-            message = dataProvider.messageByMessageId(id);
-            if (message == null) {
-                // message not found
-                return responseCantFind();
-            } else {
-                return responseHeadByMessageId(message);
-            }
-        } else {
-            return responseHeadById(message);
-        }
+    protected String status() {
+        return NntpResponse.Head.HEADERS_FOLLOW;
     }
 
-    private Collection<String> responseHeadByMessageId(NewsMessage message) {
-        Collection<String> response = new LinkedList<>();
-
-        String responseCode = NntpResponse.Head.HEADERS_FOLLOW;
-        responseCode = StringUtils.replace(responseCode, "{message-id}", message.getMessageId());
-        responseCode = StringUtils.replace(responseCode, "{n}", "0");
-
-        response.add(responseCode);
-        response.add("Path: " + message.getPath());
-        response.add("From: " + HeaderEncodingUtil.encodeFrom(message.getFrom()));
-        response.add("Newsgroup: " + message.getGroupName());
-        response.add("Subject: " + HeaderEncodingUtil.encodeSubject(message.getSubject()));
-        response.add("Date: " + message.getCreatedDate());
-        response.add("Message-ID: " + message.getMessageId());
-        response.add(NntpResponse.END);
-
-        return response;
-    }
-
-    private Collection<String> responseCantFind() {
-        Collection<String> response = new LinkedList<>();
-        response.add(NntpResponse.Head.NO_ARTICLE_WITH_THAT_NUMBER);
-        return response;
-    }
-
-    private Collection<String> responseHeadById(NewsMessage message) {
-        Collection<String> response = new LinkedList<>();
-
-        String responseCode = NntpResponse.Head.HEADERS_FOLLOW;
-        responseCode = StringUtils.replace(responseCode, "{n}", Long.toString(message.getId()));
-        responseCode = StringUtils.replace(responseCode, "{message-id}", message.getMessageId());
-
-        response.add(responseCode);
-        response.add("Path: " + message.getPath());
-        response.add("From: " + HeaderEncodingUtil.encodeFrom(message.getFrom()));
-        response.add("Newsgroup: " + message.getGroupName());
-        response.add("Subject: " + HeaderEncodingUtil.encodeSubject(message.getSubject()));
-        response.add("Date: " + message.getCreatedDate());
-        response.add("Message-ID: " + message.getMessageId());
-        response.add(NntpResponse.END);
-
-        return response;
+    @Override
+    protected void respond(String status, NewsMessage message, NntpWriter out) {
+        out.status(status);
+        headers(message, out);
+        out.end();
     }
 
 }
@@ -0,0 +1,74 @@
+package org.jnode.nntp.processor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jnode.nntp.DataProvider;
+import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.ArticleRange;
+import org.jnode.nntp.model.NewsGroup;
+import org.jnode.nntp.model.NntpResponse;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * LISTGROUP [group [range]]: selects the group like GROUP and lists its article numbers.
+ */
+public class ListGroupProcessor extends BaseProcessor implements Processor {
+
+    private DataProvider dataProvider = new DataProviderImpl();
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        // Check authentication
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
+        }
+
+        Iterator<String> it = params.iterator();
+        NewsGroup group;
+        if (it.hasNext()) {
+            group = dataProvider.newsGroup(it.next(), session.getAuth());
+            if (group == null) {
+                out.status(NntpResponse.Group.NO_SUCH_NEWSGROUP);
+                return;
+            }
+        } else if (session.getSelectedGroupName() != null) {
+            group = dataProvider.newsGroup(session.getSelectedGroupName(), session.getAuth());
+        } else {
+            group = null;
+        }
+        if (group == null) {
+            out.status(NntpResponse.Group.NO_NEWSGROUP_SELECTED);
+            return;
+        }
+
+        ArticleRange range = new ArticleRange(group.getReportedLowWatermark(), group.getReportedHighWatermark());
+        if (it.hasNext()) {
+            range = ArticleRange.parse(it.next());
+            if (range == null) {
+                out.status(NntpResponse.Error.SYNTAX_ERROR);
+                return;
+            }
+        }
+
+        session.setSelectedGroup(group);
+        session.setSelectedArticleId(group.getNumberOfArticles() > 0 ? group.getReportedLowWatermark() : null);
+
+        String responseCode = NntpResponse.ListGroup.ARTICLE_NUMBERS_FOLLOW;
+        responseCode = StringUtils.replace(responseCode, "{number}", Long.toString(group.getNumberOfArticles()));
+        responseCode = StringUtils.replace(responseCode, "{low}", Long.toString(group.getReportedLowWatermark()));
+        responseCode = StringUtils.replace(responseCode, "{high}", Long.toString(group.getReportedHighWatermark()));
+        responseCode = StringUtils.replace(responseCode, "{group}", group.getName());
+        out.status(responseCode);
+
+        for (Long number : dataProvider.articleNumbers(group.getId(), range.getLow(), range.getHigh(),
+                session.getAuth())) {
+            out.line(Long.toString(number));
+        }
+        out.end();
+    }
+}
@@ -0,0 +1,21 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.Processor;
+import org.jnode.nntp.model.NntpResponse;
+import org.jnode.nntp.util.OverviewFormatter;
+
+import java.util.Collection;
+
+public class ListOverviewFmtProcessor implements Processor {
+
+    @Override
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        out.status(NntpResponse.List.ORDER_OF_FIELDS);
+        for (String field : OverviewFormatter.FORMAT) {
+            out.line(field);
+        }
+        out.end();
+    }
+}
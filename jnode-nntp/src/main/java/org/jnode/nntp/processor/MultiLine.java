@@ -0,0 +1,39 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.NntpWriter;
+
+/**
+ * Multi-line response whose status is only known once the first line is
+ * there: the status is written with the first line, the error if there are
+ * no lines at all.
+ */
+class MultiLine {
+
+    private final NntpWriter out;
+    private final String status;
+    private boolean started;
+
+    MultiLine(NntpWriter out, String status) {
+        this.out = out;
+        this.status = status;
+    }
+
+    void line(String line) {
+        if (!started) {
+            out.status(status);
+            started = true;
+        }
+        out.line(line);
+    }
+
+    /**
+     * @param empty status to send if there were no lines.
+     */
+    void end(String empty) {
+        if (started) {
+            out.end();
+        } else {
+            out.status(empty);
+        }
+    }
+}
@@ -1,22 +1,19 @@
 package org.jnode.nntp.processor;
 
-import com.google.common.collect.Lists;
 import jnode.dto.Echoarea;
 import jnode.dto.Echomail;
 import jnode.dto.Mail;
 import jnode.dto.Netmail;
-import jnode.event.Notifier;
 import jnode.ftn.FtnTools;
 import jnode.logger.Logger;
 import org.apache.commons.lang3.StringUtils;
 import org.jnode.nntp.Constants;
 import org.jnode.nntp.DataProvider;
 import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
-import org.jnode.nntp.event.PostEndEvent;
-import org.jnode.nntp.event.PostStartEvent;
 import org.jnode.nntp.exception.NntpException;
-import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NntpResponse;
 import org.jnode.nntp.util.Converter;
 
@@ -35,32 +32,29 @@ public class PostProcessor extends BaseProcessor implements Processor {
     private DataProvider dataProvider = new DataProviderImpl();
 
     @Override
-    public Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
         
         // Check authorization for posting
-        if (!isAuthorized(auth)) {
-            Collection<String> errorResponse = Lists.newLinkedList();
-            errorResponse.add(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
-            return errorResponse;
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
         }
 
-        Collection<String> response = Lists.newLinkedList();
-
-        if (params.isEmpty()) {
+        if (!session.isPost()) {
             // start posting
-            Notifier.INSTANCE.notify(new PostStartEvent());
-            response.add(NntpResponse.Post.SEND_ARTICLE_TO_BE_POSTED);
+            session.startPost();
+            out.status(NntpResponse.Post.SEND_ARTICLE_TO_BE_POSTED);
         } else {
             // end posting
-            Notifier.INSTANCE.notify(new PostEndEvent());
+            session.endPost();
             
             // Validate input parameters before processing
             if (!validatePostParams(params)) {
-                response.add(NntpResponse.Post.POSTING_FAILED);
-                return response;
+                out.status(NntpResponse.Post.POSTING_FAILED);
+                return;
             }
             
-            response.add(NntpResponse.Post.ARTICLE_RECEIVED_OK);
+            out.status(NntpResponse.Post.ARTICLE_RECEIVED_OK);
 
             if (isNetmail(params)) {
                 try {
@@ -74,14 +68,12 @@ public class PostProcessor extends BaseProcessor implements Processor {
                 try {
                     Echomail echomail = convertToEchomail(params);
                     // todo validate
-                    dataProvider.post(auth, echomail);
+                    dataProvider.post(session.getAuth(), echomail);
                 } catch (NntpException e) {
                     logger.l1("Can't save echomail.", e);
                 }
             }
         }
-
-        return response;
     }
 
     private Echomail convertToEchomail(Collection<String> params) {
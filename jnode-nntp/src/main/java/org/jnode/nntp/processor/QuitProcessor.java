@@ -1,18 +1,19 @@
 package org.jnode.nntp.processor;
 
 
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
 import org.jnode.nntp.exception.EndOfSessionException;
-import org.jnode.nntp.model.Auth;
 import org.jnode.nntp.model.NntpResponse;
 
 import java.util.Collection;
-import java.util.Collections;
 
 public class QuitProcessor implements Processor {
 
     @Override
-    public Collection<String> process(Collection<String> params, Long id, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
+        out.status(NntpResponse.Quit.CONNECTION_CLOSING);
         throw new EndOfSessionException();
     }
 }
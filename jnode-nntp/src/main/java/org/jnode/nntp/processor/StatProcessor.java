@@ -0,0 +1,18 @@
+package org.jnode.nntp.processor;
+
+import org.jnode.nntp.NntpWriter;
+import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.NntpResponse;
+
+public class StatProcessor extends AbstractArticleProcessor {
+
+    @Override
+    protected String status() {
+        return NntpResponse.Stat.ARTICLE_EXISTS;
+    }
+
+    @Override
+    protected void respond(String status, NewsMessage message, NntpWriter out) {
+        out.status(status);
+    }
+}
@@ -1,77 +1,46 @@
 package org.jnode.nntp.processor;
 
-import com.google.common.collect.Lists;
-import org.apache.commons.lang3.StringUtils;
 import org.jnode.nntp.DataProvider;
 import org.jnode.nntp.DataProviderImpl;
+import org.jnode.nntp.NntpSession;
+import org.jnode.nntp.NntpWriter;
 import org.jnode.nntp.Processor;
-import org.jnode.nntp.model.Auth;
-import org.jnode.nntp.model.NewsMessage;
+import org.jnode.nntp.model.ArticleRange;
 import org.jnode.nntp.model.NntpResponse;
-import org.jnode.nntp.util.HeaderEncodingUtil;
+import org.jnode.nntp.util.OverviewFormatter;
 
 import java.util.Collection;
 
+/**
+ * OVER and XOVER, served from the overview index.
+ */
 public class XoverProcessor extends BaseProcessor implements Processor {
 
     private DataProvider dataProvider = new DataProviderImpl();
 
-    private static final String DELIMITER = "\t";
-
     @Override
-    public Collection<String> process(Collection<String> params, Long selectedGroupId, Long selectedArticleId, Auth auth) {
+    public void process(Collection<String> params, NntpSession session, NntpWriter out) {
         // Check authentication
-        if (!isAuthorized(auth)) {
-            Collection<String> response = Lists.newLinkedList();
-            response.add(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
-            return response;
+        if (!isAuthorized(session.getAuth())) {
+            out.status(NntpResponse.AuthInfo.AUTHENTIFICATION_REQUIRED);
+            return;
         }
 
-        String range = params.iterator().next();
-
-        Collection<NewsMessage> messages = Lists.newLinkedList();
-
-        if (range.contains("-")) {
-            messagesByRange(selectedGroupId, range, messages, auth);
-        } else {
-           messages.add(dataProvider.messageById(range, selectedGroupId));
+        if (session.getSelectedGroupId() == null) {
+            out.status(NntpResponse.Xover.NO_NEWS_GROUP_CURRENT_SELECTED);
+            return;
         }
 
-        Collection<String> response = Lists.newLinkedList();
-
-        response.add(NntpResponse.Xover.OVERVIEW_INFORMATION_FOLLOWS);
-
-        for (NewsMessage message : messages) {
-            StringBuilder builder = new StringBuilder();
-
-            builder.append(Long.toString(message.getId())).append(DELIMITER);
-            builder.append(HeaderEncodingUtil.encodeSubject(message.getSubject())).append(DELIMITER);
-            builder.append(HeaderEncodingUtil.encodeFrom(message.getFrom())).append(DELIMITER);
-            builder.append(message.getCreatedDate().toString()).append(DELIMITER);
-            builder.append(message.getMessageId()).append(DELIMITER);
-            builder.append(1).append(DELIMITER); // todo References header content
-            builder.append(1).append(DELIMITER); // todo :bytes metadata item
-            builder.append(1).append(DELIMITER); // todo :lines metadata item
-            builder.append(DELIMITER);
-
-            response.add(builder.toString());
+        ArticleRange range = range(params.isEmpty() ? null : params.iterator().next(), session);
+        if (range == null) {
+            out.status(params.isEmpty() ? NntpResponse.Xover.NO_ARTICLE_SELECTED : NntpResponse.Error.SYNTAX_ERROR);
+            return;
         }
 
-        response.add(NntpResponse.END);
-
-        return response;
-    }
-
-    private void messagesByRange(Long selectedGroupId, String range, Collection<NewsMessage> messages, Auth auth) {
-        String[] parts = StringUtils.split(range, "-");
-        switch (parts.length) {
-            case 1:
-                messages.add(dataProvider.messageById(parts[0], selectedGroupId));
-                break;
-            case 2:
-                messages.addAll(dataProvider.messagesByIdRange(parts[0], parts[1], selectedGroupId, auth));
-                break;
-            default:
-        }
+        // status goes out with the first line, 423 if there is none
+        MultiLine response = new MultiLine(out, NntpResponse.Xover.OVERVIEW_INFORMATION_FOLLOWS);
+        dataProvider.overview(session.getSelectedGroupId(), range.getLow(), range.getHigh(), session.getAuth(),
+                overview -> response.line(OverviewFormatter.line(overview)));
+        response.end(NntpResponse.Xover.NO_ARTICLES_IN_THAT_RANGE);
     }
 }
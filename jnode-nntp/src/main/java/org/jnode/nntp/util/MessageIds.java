@@ -0,0 +1,69 @@
+package org.jnode.nntp.util;
+
+import org.jnode.nntp.Constants;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Mapping of FTN MSGIDs to RFC 5536 Message-IDs. MSGIDs are free text, so
+ * the Message-ID carries a 64-bit digest of the MSGID:
+ * "2:5020/1 1234abcd" becomes &lt;{16 hex digits}@fidonet.jnode&gt;. The
+ * overview index keeps the same digest, so a Message-ID resolves with one
+ * indexed lookup.
+ */
+public class MessageIds {
+
+    private static final String SUFFIX = "@" + Constants.MESSAGE_ID_DOMAIN + ">";
+
+    /**
+     * @return digest of the MSGID, null for null.
+     */
+    public static Long hash(String msgid) {
+        if (msgid == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(msgid.trim().getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return Message-ID of the MSGID, null for null.
+     */
+    public static String messageId(String msgid) {
+        Long hash = hash(msgid);
+        if (hash == null) {
+            return null;
+        }
+        String hex = Long.toHexString(hash);
+        StringBuilder builder = new StringBuilder(SUFFIX.length() + 17).append('<');
+        for (int i = hex.length(); i < 16; i++) {
+            builder.append('0');
+        }
+        return builder.append(hex).append(SUFFIX).toString();
+    }
+
+    /**
+     * @return digest carried by a Message-ID of ours, null for any other Message-ID.
+     */
+    public static Long parse(String messageId) {
+        if (messageId == null || messageId.length() != 17 + SUFFIX.length() || messageId.charAt(0) != '<'
+                || !messageId.regionMatches(true, 17, SUFFIX, 0, SUFFIX.length())) {
+            return null;
+        }
+        try {
+            return Long.parseUnsignedLong(messageId.substring(1, 17), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.jnode.nntp.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jnode.nntp.model.Overview;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Overview lines and header values as defined by RFC 3977 section 8.
+ */
+public class OverviewFormatter {
+
+    private static final String DELIMITER = "\t";
+
+    /**
+     * Fields of an overview line after the article number, as LIST OVERVIEW.FMT reports them.
+     */
+    public static final List<String> FORMAT = Arrays.asList("Subject:", "From:", "Date:", "Message-ID:",
+            "References:", ":bytes", ":lines");
+
+    /**
+     * @return "n subject from date message-id references bytes lines" separated by tabs.
+     */
+    public static String line(Overview overview) {
+        StringBuilder builder = new StringBuilder(128);
+        builder.append(overview.getArticle());
+        for (String field : FORMAT) {
+            builder.append(DELIMITER).append(field(overview, field));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param name header name without ':' or metadata item with leading ':', case insensitive.
+     * @return value with tabs and line breaks replaced by spaces, empty if unknown or missing.
+     */
+    public static String field(Overview overview, String name) {
+        String value;
+        switch (StringUtils.removeEnd(name, ":").toLowerCase(Locale.ROOT)) {
+            case "subject":
+                value = HeaderEncodingUtil.encodeSubject(overview.getSubject());
+                break;
+            case "from":
+                value = HeaderEncodingUtil.encodeFrom(overview.getFrom());
+                break;
+            case "date":
+                value = date(overview.getDate());
+                break;
+            case "message-id":
+                value = MessageIds.messageId(overview.getMsgid());
+                break;
+            case "references":
+                value = MessageIds.messageId(overview.getReply());
+                break;
+            case ":bytes":
+                value = String.valueOf(overview.getBytes());
+                break;
+            case ":lines":
+                value = String.valueOf(overview.getLines());
+                break;
+            default:
+                value = null;
+        }
+        return value == null ? StringUtils.EMPTY : StringUtils.replaceChars(value, "\t\r\n", "   ");
+    }
+
+    /**
+     * @return date in RFC 5322 format, empty for null.
+     */
+    public static String date(Date date) {
+        if (date == null) {
+            return StringUtils.EMPTY;
+        }
+        return new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.US).format(date);
+    }
+}
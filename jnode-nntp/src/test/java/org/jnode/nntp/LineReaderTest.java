@@ -0,0 +1,69 @@
+package org.jnode.nntp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineReaderTest {
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPipelinedCommandsSplitAcrossReads() throws IOException {
+        LineReader in = new LineReader();
+        in.feed(bytes("GROUP fido.test\r\nOVER 1-"));
+        assertTrue(in.hasLine());
+        assertEquals("GROUP fido.test", in.readLine());
+        assertFalse(in.hasLine());
+        assertNull(in.readLine());
+        assertEquals(7, in.pending());
+        in.feed(bytes("10\r\nQUIT\n"));
+        assertEquals("OVER 1-10", in.readLine());
+        assertEquals("QUIT", in.readLine());
+        assertNull(in.readLine());
+        assertEquals(0, in.pending());
+    }
+
+    @Test
+    public void testLongLineGrowsBuffer() throws IOException {
+        LineReader in = new LineReader();
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            line.append("Привет ");
+        }
+        in.feed(bytes(line + "\r\n"));
+        assertEquals(line.toString(), in.readLine());
+    }
+
+    @Test
+    public void testInflatingStartsAfterLastLine() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(compressed,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, true), true);
+        deflater.write("LIST\r\nQUIT\r\n".getBytes(StandardCharsets.UTF_8));
+        deflater.flush();
+        byte[] deflated = compressed.toByteArray();
+
+        LineReader in = new LineReader();
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        input.write("COMPRESS DEFLATE\r\n".getBytes(StandardCharsets.UTF_8));
+        input.write(deflated, 0, 3);
+        in.feed(ByteBuffer.wrap(input.toByteArray()));
+        assertEquals("COMPRESS DEFLATE", in.readLine());
+        in.startInflating();
+        in.feed(ByteBuffer.wrap(deflated, 3, deflated.length - 3));
+        assertEquals("LIST", in.readLine());
+        assertEquals("QUIT", in.readLine());
+        assertNull(in.readLine());
+        in.close();
+    }
+}
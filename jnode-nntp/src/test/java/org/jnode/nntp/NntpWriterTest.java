@@ -0,0 +1,58 @@
+package org.jnode.nntp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NntpWriterTest {
+
+    @Test
+    public void testNothingIsSentBeforeFlush() throws IOException {
+        ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        NntpWriter out = new NntpWriter(socket);
+        out.status("224 Overview information follows");
+        out.line("1\tsubject");
+        out.end();
+        assertEquals(0, socket.size());
+        out.flush();
+        assertEquals("224 Overview information follows\r\n1\tsubject\r\n.\r\n",
+                socket.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testTextIsSplitAndDotStuffed() throws IOException {
+        ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        NntpWriter out = new NntpWriter(socket);
+        out.text("one\r\n.two\rthree\n\nfour");
+        out.flush();
+        assertEquals("one\r\n..two\r\nthree\r\n\r\nfour\r\n", socket.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testCompressionStartsAfterStatus() throws IOException {
+        ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        NntpWriter out = new NntpWriter(socket);
+        out.status("206 Compression active");
+        out.startCompression();
+        int plain = socket.size();
+        assertEquals("206 Compression active\r\n", socket.toString(StandardCharsets.UTF_8.name()));
+        out.status("215 list follows");
+        out.end();
+        out.flush();
+        assertTrue(out.isCompressed());
+
+        byte[] deflated = new byte[socket.size() - plain];
+        System.arraycopy(socket.toByteArray(), plain, deflated, 0, deflated.length);
+        InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(deflated), new Inflater(true));
+        byte[] buffer = new byte[256];
+        int n = in.read(buffer);
+        assertEquals("215 list follows\r\n.\r\n", new String(buffer, 0, n, StandardCharsets.UTF_8));
+    }
+}
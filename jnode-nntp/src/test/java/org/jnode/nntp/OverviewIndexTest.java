@@ -0,0 +1,22 @@
+package org.jnode.nntp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OverviewIndexTest {
+
+    @Test
+    public void testLines() {
+        assertEquals(0, OverviewIndex.lines(""));
+        assertEquals(1, OverviewIndex.lines("one"));
+        assertEquals(2, OverviewIndex.lines("one\ntwo\n"));
+        assertEquals(3, OverviewIndex.lines("one\r\ntwo\rthree"));
+    }
+
+    @Test
+    public void testReply() {
+        assertEquals("2:5020/1 12345678", OverviewIndex.reply("\001MSGID: 2:5020/2 1\n\001REPLY: 2:5020/1 12345678\nHello"));
+        assertNull(OverviewIndex.reply("\001MSGID: 2:5020/2 1\nHello"));
+    }
+}
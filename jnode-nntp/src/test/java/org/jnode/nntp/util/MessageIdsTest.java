@@ -0,0 +1,30 @@
+package org.jnode.nntp.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageIdsTest {
+
+    @Test
+    public void testMessageIdCarriesHash() {
+        String messageId = MessageIds.messageId("2:5020/1 12345678");
+        assertTrue(messageId.matches("<[0-9a-f]{16}@fidonet\\.jnode>"), messageId);
+        assertEquals(MessageIds.hash("2:5020/1 12345678"), MessageIds.parse(messageId));
+        assertEquals(messageId, MessageIds.messageId(" 2:5020/1 12345678 "));
+        assertNotEquals(messageId, MessageIds.messageId("2:5020/1 12345679"));
+    }
+
+    @Test
+    public void testForeignMessageIdIsNotParsed() {
+        assertNull(MessageIds.parse("<12345@example.com>"));
+        assertNull(MessageIds.parse("<zzzzzzzzzzzzzzzz@fidonet.jnode>"));
+        assertNull(MessageIds.parse(null));
+    }
+
+    @Test
+    public void testNullMsgid() {
+        assertNull(MessageIds.hash(null));
+        assertNull(MessageIds.messageId(null));
+    }
+}
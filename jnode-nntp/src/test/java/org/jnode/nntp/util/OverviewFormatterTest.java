@@ -0,0 +1,59 @@
+package org.jnode.nntp.util;
+
+import org.jnode.nntp.model.ArticleRange;
+import org.jnode.nntp.model.Overview;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OverviewFormatterTest {
+
+    private Overview overview() {
+        Overview overview = new Overview();
+        overview.setArticle(42L);
+        overview.setSubject("Re:\tHello");
+        overview.setFrom("John Doe 2:5020/1");
+        overview.setDate(new Date(15552000000L));
+        overview.setMsgid("2:5020/1 12345678");
+        overview.setReply("2:5020/2 87654321");
+        overview.setBytes(120L);
+        overview.setLines(3);
+        return overview;
+    }
+
+    @Test
+    public void testLineHasAllFieldsWithoutTabsInValues() {
+        String[] fields = OverviewFormatter.line(overview()).split("\t", -1);
+        assertEquals(8, fields.length);
+        assertEquals("42", fields[0]);
+        assertEquals("Re: Hello", fields[1]);
+        assertEquals(MessageIds.messageId("2:5020/1 12345678"), fields[4]);
+        assertEquals(MessageIds.messageId("2:5020/2 87654321"), fields[5]);
+        assertEquals("120", fields[6]);
+        assertEquals("3", fields[7]);
+    }
+
+    @Test
+    public void testFieldByHeaderName() {
+        assertEquals("John Doe 2:5020/1", OverviewFormatter.field(overview(), "FROM"));
+        assertEquals("3", OverviewFormatter.field(overview(), ":lines"));
+        assertEquals("", OverviewFormatter.field(overview(), "X-Unknown"));
+        assertTrue(OverviewFormatter.field(overview(), "Date:").contains(" Jun 1970 "));
+    }
+
+    @Test
+    public void testRangeParsing() {
+        ArticleRange one = ArticleRange.parse("5");
+        assertEquals(5, one.getLow());
+        assertEquals(5, one.getHigh());
+        ArticleRange open = ArticleRange.parse("5-");
+        assertEquals(5, open.getLow());
+        assertEquals(Long.MAX_VALUE, open.getHigh());
+        ArticleRange closed = ArticleRange.parse("5-10");
+        assertEquals(10, closed.getHigh());
+        assertNull(ArticleRange.parse("<abc@def>"));
+        assertNull(ArticleRange.parse(""));
+    }
+}